@@ -0,0 +1,101 @@
+package com.example.pricingservice.loadtest;
+
+import java.util.Arrays;
+
+/**
+ * Records request latencies of one worker thread. Recorders are merged after the run,
+ * so recording needs no synchronization.
+ */
+public class LatencyRecorder {
+
+    private long[] latenciesNanos = new long[1 << 16];
+    private int count;
+    private final int[] statusCounts = new int[6];
+    private long errors;
+
+    public void record(long latencyNanos, int status) {
+        if (count == latenciesNanos.length) {
+            latenciesNanos = Arrays.copyOf(latenciesNanos, count * 2);
+        }
+        latenciesNanos[count++] = latencyNanos;
+        statusCounts[Math.min(status / 100, 5)]++;
+    }
+
+    public void recordError() {
+        errors++;
+    }
+
+    /**
+     * Merge the recorders of all workers into a summary
+     *
+     * @param recorders the worker recorders
+     * @param elapsedNanos duration of the measured phase
+     * @return the summary
+     */
+    public static Summary summarize(Iterable<LatencyRecorder> recorders, long elapsedNanos) {
+        int total = 0;
+        for (LatencyRecorder recorder : recorders) {
+            total += recorder.count;
+        }
+        long[] all = new long[total];
+        int[] statuses = new int[6];
+        long errors = 0;
+        int offset = 0;
+        for (LatencyRecorder recorder : recorders) {
+            System.arraycopy(recorder.latenciesNanos, 0, all, offset, recorder.count);
+            offset += recorder.count;
+            for (int i = 0; i < statuses.length; i++) {
+                statuses[i] += recorder.statusCounts[i];
+            }
+            errors += recorder.errors;
+        }
+        Arrays.sort(all);
+        return new Summary(all, statuses, errors, elapsedNanos);
+    }
+
+    /**
+     * Throughput and latency percentiles of a run
+     */
+    public static class Summary {
+
+        private final long[] sortedLatencies;
+        private final int[] statusCounts;
+        private final long errors;
+        private final long elapsedNanos;
+
+        Summary(long[] sortedLatencies, int[] statusCounts, long errors, long elapsedNanos) {
+            this.sortedLatencies = sortedLatencies;
+            this.statusCounts = statusCounts;
+            this.errors = errors;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        public long requests() {
+            return sortedLatencies.length;
+        }
+
+        public double throughput() {
+            return sortedLatencies.length / (elapsedNanos / 1e9);
+        }
+
+        public double percentileMillis(double percentile) {
+            if (sortedLatencies.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(percentile / 100.0 * sortedLatencies.length) - 1;
+            return sortedLatencies[Math.max(0, Math.min(index, sortedLatencies.length - 1))] / 1e6;
+        }
+
+        public String format() {
+            StringBuilder out = new StringBuilder();
+            out.append(String.format("requests      %d (%d errors)%n", requests(), errors));
+            out.append(String.format("throughput    %.1f req/s%n", throughput()));
+            out.append(String.format("status        2xx=%d 4xx=%d 5xx=%d%n",
+                    statusCounts[2], statusCounts[4], statusCounts[5]));
+            out.append(String.format("latency ms    p50=%.3f p90=%.3f p99=%.3f p999=%.3f max=%.3f%n",
+                    percentileMillis(50), percentileMillis(90), percentileMillis(99),
+                    percentileMillis(99.9), percentileMillis(100)));
+            return out.toString();
+        }
+    }
+}
@@ -0,0 +1,259 @@
+package com.example.pricingservice.loadtest;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Replays a Zipf-distributed mix of (store, article, page) requests against the pricing service
+ * and reports throughput and latency percentiles.
+ *
+ * <p>The service must serve the synthetic catalog of the {@code loadtest} profile with the same
+ * {@code stores} / {@code articles-per-store} settings. Pass {@code --service-jar=...} to have the
+ * runner start and stop the service itself.
+ *
+ * <p>Without {@code --rate} the workers run closed-loop (send as fast as responses come back).
+ * With {@code --rate} requests are scheduled at a fixed rate and latency is measured from the
+ * scheduled start, so a stalled server is not hidden by workers waiting on it.
+ */
+public class LoadTestRunner {
+
+    // Must match SyntheticCatalogLoader in the service
+    private static final int FIRST_STORE_ID = 10000;
+    private static final long FIRST_ARTICLE_ID = 3000000000L;
+
+    private final Map<String, String> options;
+    // Requests go round-robin over these, like a load balancer in front of replicas
+    private final List<String> baseUrls;
+    private final AtomicInteger nextBaseUrl = new AtomicInteger();
+    private final int stores;
+    private final int articlesPerStore;
+    private final int pages;
+    private final int pageSize;
+    private final int concurrency;
+    private final double rate;
+    private final boolean gzip;
+    private final ZipfDistribution keyDistribution;
+    private final ZipfDistribution pageDistribution;
+    private final int[] rankToKey;
+    private final HttpClient client;
+
+    private volatile boolean running = true;
+    private volatile long measureStartNanos = Long.MAX_VALUE;
+    private volatile long measureEndNanos = Long.MAX_VALUE;
+
+    LoadTestRunner(Map<String, String> options) {
+        this.options = options;
+        this.baseUrls = List.of(option("base-url", "http://localhost:8083/pricing").split(","));
+        this.stores = Integer.parseInt(option("stores", "50"));
+        this.articlesPerStore = Integer.parseInt(option("articles-per-store", "2000"));
+        this.pages = Integer.parseInt(option("pages", "3"));
+        this.pageSize = Integer.parseInt(option("page-size", "4"));
+        this.concurrency = Integer.parseInt(option("concurrency", "32"));
+        this.rate = Double.parseDouble(option("rate", "0"));
+        this.gzip = Boolean.parseBoolean(option("gzip", "false"));
+
+        int keys = stores * articlesPerStore;
+        this.keyDistribution = new ZipfDistribution(keys, Double.parseDouble(option("zipf", "1.1")));
+        this.pageDistribution = new ZipfDistribution(pages, Double.parseDouble(option("page-zipf", "1.5")));
+
+        // Spread popular ranks over random stores and articles instead of the first store
+        this.rankToKey = new int[keys];
+        for (int i = 0; i < keys; i++) {
+            rankToKey[i] = i;
+        }
+        Random random = new Random(Long.parseLong(option("seed", "42")));
+        for (int i = keys - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int tmp = rankToKey[i];
+            rankToKey[i] = rankToKey[j];
+            rankToKey[j] = tmp;
+        }
+
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(Executors.newFixedThreadPool(Math.max(2, concurrency / 4)))
+                .build();
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --name=value, got " + arg);
+            }
+            int eq = arg.indexOf('=');
+            options.put(arg.substring(2, eq), arg.substring(eq + 1));
+        }
+
+        LoadTestRunner runner = new LoadTestRunner(options);
+        Process service = runner.startServiceIfRequested();
+        try {
+            runner.awaitService(service);
+            LatencyRecorder.Summary summary = runner.run();
+            System.out.print(summary.format());
+        } finally {
+            if (service != null) {
+                service.destroy();
+                service.waitFor(30, TimeUnit.SECONDS);
+            }
+        }
+        System.exit(0);
+    }
+
+    LatencyRecorder.Summary run() throws InterruptedException {
+        long warmupNanos = TimeUnit.SECONDS.toNanos(Long.parseLong(option("warmup", "10")));
+        long durationNanos = TimeUnit.SECONDS.toNanos(Long.parseLong(option("duration", "30")));
+
+        System.out.printf("keys=%d (top 1%% of keys get %.0f%% of requests) pages=%d concurrency=%d rate=%s%n",
+                stores * articlesPerStore, 100 * keyDistribution.headMass(Math.max(1, stores * articlesPerStore / 100)),
+                pages, concurrency, rate > 0 ? rate + " req/s" : "closed-loop");
+
+        List<LatencyRecorder> recorders = new ArrayList<>();
+        ExecutorService workers = Executors.newFixedThreadPool(concurrency);
+        long start = System.nanoTime();
+        for (int i = 0; i < concurrency; i++) {
+            LatencyRecorder recorder = new LatencyRecorder();
+            recorders.add(recorder);
+            workers.submit(() -> work(recorder, start));
+        }
+
+        TimeUnit.NANOSECONDS.sleep(warmupNanos);
+        measureStartNanos = System.nanoTime();
+        System.out.println("warm-up done, measuring for " + TimeUnit.NANOSECONDS.toSeconds(durationNanos) + "s");
+        TimeUnit.NANOSECONDS.sleep(durationNanos);
+        measureEndNanos = System.nanoTime();
+        running = false;
+        workers.shutdown();
+        workers.awaitTermination(30, TimeUnit.SECONDS);
+
+        return LatencyRecorder.summarize(recorders, measureEndNanos - measureStartNanos);
+    }
+
+    private void work(LatencyRecorder recorder, long start) {
+        long intervalNanos = rate > 0 ? (long) (1e9 * concurrency / rate) : 0;
+        long next = start;
+        while (running) {
+            long scheduled;
+            if (intervalNanos > 0) {
+                scheduled = next;
+                next += intervalNanos;
+                long wait = scheduled - System.nanoTime();
+                if (wait > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+            } else {
+                scheduled = System.nanoTime();
+            }
+
+            HttpRequest request = nextRequest();
+            try {
+                HttpResponse<byte[]> response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+                long end = System.nanoTime();
+                if (isMeasured(scheduled)) {
+                    recorder.record(end - scheduled, response.statusCode());
+                }
+            } catch (IOException e) {
+                if (isMeasured(scheduled)) {
+                    recorder.recordError();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private boolean isMeasured(long scheduled) {
+        return scheduled >= measureStartNanos && scheduled < measureEndNanos;
+    }
+
+    private HttpRequest nextRequest() {
+        int key = rankToKey[keyDistribution.sample()];
+        int store = FIRST_STORE_ID + key / articlesPerStore;
+        long article = FIRST_ARTICLE_ID + key % articlesPerStore;
+        int page = pageDistribution.sample() + 1;
+
+        HttpRequest.Builder builder = HttpRequest.newBuilder()
+                .uri(URI.create(baseUrls.get(Math.floorMod(nextBaseUrl.getAndIncrement(), baseUrls.size()))
+                        + "/v1/prices/" + store + "/" + article
+                        + "?page=" + page + "&pageSize=" + pageSize))
+                .header("Accept", "application/json")
+                .timeout(Duration.ofSeconds(10))
+                .GET();
+        if (gzip) {
+            builder.header("Accept-Encoding", "gzip");
+        }
+        return builder.build();
+    }
+
+    private Process startServiceIfRequested() throws IOException {
+        String jar = options.get("service-jar");
+        if (jar == null) {
+            return null;
+        }
+        List<String> command = new ArrayList<>(List.of("java", "-jar", jar,
+                "--spring.profiles.active=" + option("service-profiles", "prod,loadtest"),
+                "--pricing.synthetic-catalog.stores=" + stores,
+                "--pricing.synthetic-catalog.articles-per-store=" + articlesPerStore));
+        String extra = options.get("service-args");
+        if (extra != null && !extra.isBlank()) {
+            command.addAll(List.of(extra.trim().split("\\s+")));
+        }
+        System.out.println("starting service: " + String.join(" ", command));
+        return new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(new File(option("service-log", "target/service.log")))
+                .start();
+    }
+
+    /**
+     * Wait until every instance accepts traffic, which happens after the synthetic catalog is loaded
+     */
+    private void awaitService(Process service) throws InterruptedException {
+        for (String baseUrl : baseUrls) {
+            awaitInstance(service, baseUrl);
+        }
+    }
+
+    private void awaitInstance(Process service, String baseUrl) throws InterruptedException {
+        HttpRequest health = HttpRequest.newBuilder(URI.create(baseUrl + "/actuator/health/readiness"))
+                .timeout(Duration.ofSeconds(5)).GET().build();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(Long.parseLong(option("startup-timeout", "300")));
+        while (System.nanoTime() < deadline) {
+            if (service != null && !service.isAlive()) {
+                throw new IllegalStateException("Service exited with code " + service.exitValue()
+                        + ", see " + option("service-log", "target/service.log"));
+            }
+            try {
+                HttpResponse<String> response = client.send(health, HttpResponse.BodyHandlers.ofString());
+                if (response.statusCode() == 200 && response.body().contains("\"UP\"")) {
+                    return;
+                }
+            } catch (IOException e) {
+                // not listening yet
+            }
+            TimeUnit.MILLISECONDS.sleep(500);
+        }
+        throw new IllegalStateException("Service at " + baseUrl + " did not become healthy");
+    }
+
+    private String option(String name, String defaultValue) {
+        return options.getOrDefault(name, defaultValue);
+    }
+}
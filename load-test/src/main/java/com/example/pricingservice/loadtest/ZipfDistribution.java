@@ -0,0 +1,50 @@
+package com.example.pricingservice.loadtest;
+
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Zipf distribution over ranks {@code 0..n-1}: rank k is drawn with probability proportional to 1/(k+1)^s.
+ * Sampling is a binary search over the precomputed cumulative distribution.
+ */
+public class ZipfDistribution {
+
+    private final double[] cumulative;
+
+    public ZipfDistribution(int n, double exponent) {
+        if (n <= 0) {
+            throw new IllegalArgumentException("n must be positive");
+        }
+        cumulative = new double[n];
+        double sum = 0;
+        for (int k = 0; k < n; k++) {
+            sum += 1.0 / Math.pow(k + 1, exponent);
+            cumulative[k] = sum;
+        }
+        for (int k = 0; k < n; k++) {
+            cumulative[k] /= sum;
+        }
+    }
+
+    /**
+     * Draw a rank, 0 being the most popular
+     *
+     * @return the sampled rank
+     */
+    public int sample() {
+        double u = ThreadLocalRandom.current().nextDouble();
+        int index = Arrays.binarySearch(cumulative, u);
+        int rank = index >= 0 ? index : -index - 1;
+        return Math.min(rank, cumulative.length - 1);
+    }
+
+    /**
+     * Share of all draws that fall on the given number of most popular ranks
+     *
+     * @param top number of ranks
+     * @return probability mass of the top ranks
+     */
+    public double headMass(int top) {
+        return cumulative[Math.min(top, cumulative.length) - 1];
+    }
+}
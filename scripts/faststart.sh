@@ -0,0 +1,58 @@
+#!/usr/bin/env bash
+# Fast-start packaging of the pricing service.
+#
+#   scripts/faststart.sh build          AOT-processed build, extracted for class data sharing, plus a CDS training run
+#   scripts/faststart.sh run [args...]  start from the extracted layout with AOT, the CDS archive and background loading
+#
+# AOT evaluates @Profile and @Conditional beans at build time. Pass the profiles whose beans are needed through
+# AOT_PROFILES (e.g. AOT_PROFILES=prod,loadtest); property files are still read at runtime.
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+OUT=target/faststart
+MAIN=com.example.pricingservice.PricingServiceApplication
+
+classpath() {
+    # Same order as the fat jar; CDS requires the exact classpath at dump and run time
+    local cp="$OUT/application.jar"
+    while read -r entry; do
+        cp="$cp:$OUT/${entry}"
+    done < <(sed -n 's/^- "\(.*\)"$/\1/p' "$OUT/BOOT-INF/classpath.idx")
+    echo "$cp"
+}
+
+build() {
+    local aot_args=()
+    if [[ -n "${AOT_PROFILES:-}" ]]; then
+        aot_args+=("-Dspring-boot.aot.profiles=${AOT_PROFILES}")
+    fi
+    # clean: proxies generated by an earlier AOT run would shadow the current classes
+    mvn -B -q -Pfaststart clean package -DskipTests "${aot_args[@]}"
+
+    rm -rf "$OUT"
+    mkdir -p "$OUT"
+    (cd "$OUT" && jar -xf ../pricing-service-0.0.1-SNAPSHOT.jar)
+    # CDS only archives classes loaded from jar files, not from directories
+    jar -cf "$OUT/application.jar" -C "$OUT/BOOT-INF/classes" .
+
+    # Training run: refresh the context once and dump every class loaded on the way
+    java -XX:ArchiveClassesAtExit="$OUT/application.jsa" -Dspring.aot.enabled=true \
+        -Dspring.context.exit=onRefresh -cp "$(classpath)" "$MAIN" \
+        ${AOT_PROFILES:+--spring.profiles.active=$AOT_PROFILES} > "$OUT/training.log" 2>&1
+    echo "CDS archive written to $OUT/application.jsa"
+}
+
+run() {
+    if [[ ! -f "$OUT/application.jsa" ]]; then
+        echo "Run '$0 build' first" >&2
+        exit 1
+    fi
+    exec java -XX:SharedArchiveFile="$OUT/application.jsa" -Dspring.aot.enabled=true \
+        -cp "$(classpath)" "$MAIN" --pricing.data-loader.mode=background "$@"
+}
+
+case "${1:-}" in
+    build) build ;;
+    run) shift; run "$@" ;;
+    *) echo "usage: $0 build | run [args...]" >&2; exit 1 ;;
+esac
@@ -0,0 +1,63 @@
+#!/usr/bin/env bash
+# Restart time and read throughput of the file-backed store (profile persistent) against the in-memory database.
+#
+#   STORES=100 ARTICLES_PER_STORE=2000 DURATION=30 scripts/restart-benchmark.sh
+#
+# The defaults generate 100 x 2000 articles with 12 prices each (2.4M prices). Build first: mvn package -DskipTests
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+JAR=target/pricing-service-0.0.1-SNAPSHOT.jar
+DATA_DIR=./target/restart-benchmark-data
+STORES=${STORES:-100}
+ARTICLES_PER_STORE=${ARTICLES_PER_STORE:-2000}
+DURATION=${DURATION:-30}
+BASE_URL=http://localhost:8083/pricing
+PID=
+STARTUP_MS=
+
+now_ms() { echo $(( $(date +%s%N) / 1000000 )); }
+
+# Starts the service and records in STARTUP_MS the time until the readiness probe reports UP
+start() {
+    local log=$1
+    shift
+    local begin
+    begin=$(now_ms)
+    java -jar "$JAR" --pricing.synthetic-catalog.stores="$STORES" \
+        --pricing.synthetic-catalog.articles-per-store="$ARTICLES_PER_STORE" "$@" > "$log" 2>&1 &
+    PID=$!
+    until curl -sf -o /dev/null "$BASE_URL/actuator/health/readiness"; do
+        kill -0 "$PID" 2>/dev/null || { echo "service exited, see $log" >&2; exit 1; }
+        sleep 0.1
+    done
+    STARTUP_MS=$(( $(now_ms) - begin ))
+}
+
+stop() {
+    kill "$PID"
+    wait "$PID" 2>/dev/null || true
+}
+
+throughput() {
+    mvn -B -q -f load-test/pom.xml compile exec:java -Dexec.args="--base-url=$BASE_URL --stores=$STORES \
+        --articles-per-store=$ARTICLES_PER_STORE --warmup=5 --duration=$DURATION" | grep -E 'throughput|latency'
+}
+
+rm -rf "$DATA_DIR"
+PERSISTENT=(--spring.profiles.active=prod,persistent,loadtest --pricing.data-dir="$DATA_DIR")
+
+echo "catalog: $STORES stores x $ARTICLES_PER_STORE articles x 12 prices"
+start target/restart-first.log "${PERSISTENT[@]}"
+echo "persistent, first start (generate + write): $STARTUP_MS ms"
+stop
+start target/restart-reopen.log "${PERSISTENT[@]}"
+echo "persistent, restart (reopen):                $STARTUP_MS ms"
+echo "database files: $(du -sh "$DATA_DIR" | cut -f1)"
+throughput
+stop
+
+start target/restart-memory.log --spring.profiles.active=prod,loadtest
+echo "in-memory, start (generate):                 $STARTUP_MS ms"
+throughput
+stop
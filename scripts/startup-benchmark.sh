@@ -0,0 +1,46 @@
+#!/usr/bin/env bash
+# Measures time-to-first-request: from process start until the first successful price response.
+#
+#   scripts/startup-benchmark.sh [runs] [-- extra application args]
+#
+# Compares the plain fat jar (synchronous data loading) with the fast-start layout of scripts/faststart.sh
+# (AOT, AppCDS, background loading). Build both first: mvn package -DskipTests && scripts/faststart.sh build
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+RUNS=${1:-5}
+shift || true
+[[ "${1:-}" == "--" ]] && shift
+EXTRA_ARGS=("$@")
+URL=${PROBE_URL:-http://localhost:8083/pricing/v1/prices/7001/1000102674}
+JAR=target/pricing-service-0.0.1-SNAPSHOT.jar
+
+now_ms() { echo $(( $(date +%s%N) / 1000000 )); }
+
+measure() {
+    local label=$1
+    shift
+    local times=()
+    for ((i = 1; i <= RUNS; i++)); do
+        local start pid
+        start=$(now_ms)
+        "$@" "${EXTRA_ARGS[@]}" > "target/startup-$label.log" 2>&1 &
+        pid=$!
+        until curl -sf -o /dev/null "$URL"; do
+            if ! kill -0 "$pid" 2>/dev/null; then
+                echo "$label: service exited, see target/startup-$label.log" >&2
+                exit 1
+            fi
+            sleep 0.05
+        done
+        times+=($(( $(now_ms) - start )))
+        kill "$pid"
+        wait "$pid" 2>/dev/null || true
+    done
+    local sorted
+    sorted=($(printf '%s\n' "${times[@]}" | sort -n))
+    printf '%-10s median %6d ms   runs: %s\n' "$label" "${sorted[$(( RUNS / 2 ))]}" "${times[*]}"
+}
+
+measure baseline java -jar "$JAR"
+measure faststart scripts/faststart.sh run
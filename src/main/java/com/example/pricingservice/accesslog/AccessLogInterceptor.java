@@ -0,0 +1,84 @@
+package com.example.pricingservice.accesslog;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.Map;
+
+/**
+ * Hands every request to an {@link AccessLogged} handler to the {@link AccessLogWriter} once it
+ * has completed, including its error responses. The price service reports the cache outcome of
+ * the lookup through {@link #recordCacheOutcome(CacheOutcome)} on the request thread.
+ */
+@Component
+public class AccessLogInterceptor implements HandlerInterceptor {
+
+    private static final ThreadLocal<CacheOutcome> CACHE_OUTCOME = new ThreadLocal<>();
+
+    private static final String START_ATTRIBUTE = AccessLogInterceptor.class.getName() + ".start";
+
+    private final AccessLogWriter writer;
+
+    public AccessLogInterceptor(AccessLogWriter writer) {
+        this.writer = writer;
+    }
+
+    /**
+     * Record how the cache answered the lookup of the current request, if it is access logged
+     *
+     * @param outcome the cache outcome
+     */
+    public static void recordCacheOutcome(CacheOutcome outcome) {
+        if (CACHE_OUTCOME.get() != null) {
+            CACHE_OUTCOME.set(outcome);
+        }
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (writer.isEnabled() && handler instanceof HandlerMethod method
+                && method.hasMethodAnnotation(AccessLogged.class)) {
+            request.setAttribute(START_ATTRIBUTE, System.nanoTime());
+            CACHE_OUTCOME.set(CacheOutcome.NONE);
+        }
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception ex) {
+        if (!(request.getAttribute(START_ATTRIBUTE) instanceof Long start)) {
+            return;
+        }
+        long latency = System.nanoTime() - start;
+        CacheOutcome outcome = CACHE_OUTCOME.get();
+        CACHE_OUTCOME.remove();
+
+        @SuppressWarnings("unchecked")
+        Map<String, String> variables =
+                (Map<String, String>) request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+        writer.log(variables != null ? variables.get("storeId") : null,
+                variables != null ? variables.get("articleId") : null,
+                intParameter(request, "page", 1), intParameter(request, "pageSize", 10),
+                response.getStatus(), latency, outcome != null ? outcome : CacheOutcome.NONE);
+    }
+
+    /**
+     * Read a numeric request parameter, -1 if it is not a number
+     */
+    private static int intParameter(HttpServletRequest request, String name, int defaultValue) {
+        String value = request.getParameter(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
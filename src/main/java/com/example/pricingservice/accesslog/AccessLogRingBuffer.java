@@ -0,0 +1,119 @@
+package com.example.pricingservice.accesslog;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Consumer;
+
+/**
+ * Bounded lock-free queue of access records with any number of producers and a single consumer.
+ *
+ * <p>All records are allocated up front and reused. Each slot carries a sequence number: a
+ * producer claims the next position with a compare-and-set on the tail, fills the slot and then
+ * publishes it by advancing the slot's sequence; the consumer frees the slot the same way once
+ * the record is written. When the consumer falls a whole buffer behind, new records are dropped
+ * instead of blocking the request thread.
+ */
+public final class AccessLogRingBuffer {
+
+    private final AccessRecord[] records;
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+
+    // Only written by the consumer thread, volatile so that size() can be read from anywhere
+    private volatile long head;
+
+    /**
+     * @param capacity the number of records, rounded up to a power of two
+     */
+    public AccessLogRingBuffer(int capacity) {
+        if (capacity < 1 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("Capacity out of range: " + capacity);
+        }
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) {
+            size <<= 1;
+        }
+        this.records = new AccessRecord[size];
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            records[i] = new AccessRecord();
+            sequences.set(i, i);
+        }
+        this.mask = size - 1;
+    }
+
+    /**
+     * Add a record, without blocking
+     *
+     * @return false if the buffer was full and the record was dropped
+     */
+    public boolean publish(long timestampMillis, String storeId, String articleId, int page, int pageSize,
+                           int status, long latencyNanos, CacheOutcome cacheOutcome) {
+        long position = tail.get();
+        while (true) {
+            int index = (int) position & mask;
+            long available = sequences.get(index) - position;
+            if (available == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    records[index].set(timestampMillis, storeId, articleId, page, pageSize, status,
+                            latencyNanos, cacheOutcome);
+                    sequences.set(index, position + 1);
+                    return true;
+                }
+                position = tail.get();
+            } else if (available < 0) {
+                // The slot still holds the record of the previous lap
+                dropped.incrementAndGet();
+                return false;
+            } else {
+                position = tail.get();
+            }
+        }
+    }
+
+    /**
+     * Hand published records to the consumer in order and free their slots. Must only be
+     * called from a single thread.
+     *
+     * @param consumer receives each record, valid only for the duration of the call
+     * @param maxRecords the maximum number of records to drain
+     * @return the number of records drained
+     */
+    public int drain(Consumer<AccessRecord> consumer, int maxRecords) {
+        int drained = 0;
+        while (drained < maxRecords) {
+            int index = (int) head & mask;
+            if (sequences.get(index) != head + 1) {
+                break;
+            }
+            AccessRecord record = records[index];
+            try {
+                consumer.accept(record);
+            } finally {
+                record.clear();
+                sequences.set(index, head + records.length);
+                head++;
+            }
+            drained++;
+        }
+        return drained;
+    }
+
+    public int capacity() {
+        return records.length;
+    }
+
+    /**
+     * Approximate number of records waiting to be drained
+     */
+    public int size() {
+        long size = tail.get() - head;
+        return (int) Math.max(0, Math.min(size, records.length));
+    }
+
+    public long getDropped() {
+        return dropped.get();
+    }
+}
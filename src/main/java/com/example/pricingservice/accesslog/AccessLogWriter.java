@@ -0,0 +1,260 @@
+package com.example.pricingservice.accesslog;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Writes price lookups to a rolling access log file, one JSON object per line, off the request thread.
+ *
+ * <p>Request threads only copy the fields into a preallocated {@link AccessLogRingBuffer}, which
+ * never blocks. A single background thread drains the buffer in batches, writes them through a
+ * buffered stream and flushes once per batch, or every {@code pricing.access-log.flush-interval}
+ * ms when idle. When the file reaches {@code pricing.access-log.max-file-size} it is renamed to
+ * {@code <file>.1}, older files are shifted up to {@code pricing.access-log.max-history}.
+ *
+ * <p>If the writer cannot keep up, the buffer fills and further records are dropped and counted
+ * in {@code pricing.access-log.dropped}; request latency is never traded for log completeness.
+ */
+@Component
+@Slf4j
+public class AccessLogWriter {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private final boolean enabled;
+    private final Path file;
+    private final long maxFileSize;
+    private final int maxHistory;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final AccessLogRingBuffer buffer;
+    private final AtomicLong written = new AtomicLong();
+    private final Thread writerThread;
+
+    private volatile boolean running = true;
+
+    // Only used by the writer thread
+    private FileOutputStream fileStream;
+    private JsonGenerator generator;
+
+    public AccessLogWriter(MeterRegistry meterRegistry,
+                           @Value("${pricing.access-log.enabled:true}") boolean enabled,
+                           @Value("${pricing.access-log.file:logs/pricing-access.log}") String file,
+                           @Value("${pricing.access-log.buffer-size:8192}") int bufferSize,
+                           @Value("${pricing.access-log.batch-size:512}") int batchSize,
+                           @Value("${pricing.access-log.flush-interval:200}") long flushIntervalMillis,
+                           @Value("${pricing.access-log.max-file-size:10MB}") DataSize maxFileSize,
+                           @Value("${pricing.access-log.max-history:5}") int maxHistory) {
+        this.enabled = enabled;
+        this.file = Paths.get(file);
+        this.maxFileSize = maxFileSize.toBytes();
+        this.maxHistory = maxHistory;
+        this.batchSize = batchSize;
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis);
+        this.buffer = new AccessLogRingBuffer(bufferSize);
+
+        FunctionCounter.builder("pricing.access-log.dropped", buffer, AccessLogRingBuffer::getDropped)
+                .description("Access log records dropped because the buffer was full")
+                .register(meterRegistry);
+        FunctionCounter.builder("pricing.access-log.written", written, AtomicLong::get)
+                .description("Access log records written to the file")
+                .register(meterRegistry);
+        Gauge.builder("pricing.access-log.backlog", buffer, AccessLogRingBuffer::size)
+                .description("Access log records waiting to be written")
+                .register(meterRegistry);
+
+        if (enabled) {
+            this.writerThread = new Thread(this::run, "access-log-writer");
+            writerThread.setDaemon(true);
+            writerThread.start();
+        } else {
+            this.writerThread = null;
+        }
+    }
+
+    /**
+     * Queue a completed price lookup for writing, without blocking
+     *
+     * @param storeId the store ID
+     * @param articleId the article ID
+     * @param page the requested page
+     * @param pageSize the requested page size
+     * @param status the response status
+     * @param latencyNanos the time spent handling the request
+     * @param cacheOutcome how the response cache answered the lookup
+     * @return false if the access log is disabled or the record was dropped
+     */
+    public boolean log(String storeId, String articleId, int page, int pageSize, int status, long latencyNanos,
+                       CacheOutcome cacheOutcome) {
+        if (!enabled || !running) {
+            return false;
+        }
+        return buffer.publish(System.currentTimeMillis(), storeId, articleId, page, pageSize, status,
+                latencyNanos, cacheOutcome);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public long getDropped() {
+        return buffer.getDropped();
+    }
+
+    public long getWritten() {
+        return written.get();
+    }
+
+    /**
+     * Write the remaining records and close the file
+     */
+    @PreDestroy
+    public void close() throws InterruptedException {
+        running = false;
+        if (writerThread != null) {
+            LockSupport.unpark(writerThread);
+            writerThread.join(TimeUnit.SECONDS.toMillis(5));
+        }
+    }
+
+    private void run() {
+        try {
+            while (true) {
+                boolean stopping = !running;
+                int drained = writeBatch();
+                if (drained == batchSize) {
+                    continue;
+                }
+                flush();
+                if (stopping) {
+                    break;
+                }
+                if (drained == 0) {
+                    LockSupport.parkNanos(this, flushIntervalNanos);
+                }
+            }
+        } finally {
+            closeFile();
+        }
+    }
+
+    /**
+     * Write up to one batch of records; the records are drained even if they cannot be written
+     */
+    private int writeBatch() {
+        try {
+            if (generator == null) {
+                openFile();
+            }
+        } catch (IOException e) {
+            log.warn("Cannot open access log {}: {}", file, e.getMessage());
+            return buffer.drain(record -> { }, batchSize);
+        }
+        return buffer.drain(this::write, batchSize);
+    }
+
+    private void write(AccessRecord record) {
+        if (generator == null) {
+            return;
+        }
+        try {
+            generator.writeStartObject();
+            generator.writeStringField("timestamp", Instant.ofEpochMilli(record.getTimestampMillis()).toString());
+            generator.writeStringField("store", record.getStoreId());
+            generator.writeStringField("article", record.getArticleId());
+            generator.writeNumberField("page", record.getPage());
+            generator.writeNumberField("pageSize", record.getPageSize());
+            generator.writeNumberField("status", record.getStatus());
+            generator.writeNumberField("latencyMicros", TimeUnit.NANOSECONDS.toMicros(record.getLatencyNanos()));
+            generator.writeStringField("cache", record.getCacheOutcome().name());
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+            written.incrementAndGet();
+        } catch (IOException e) {
+            log.warn("Cannot write access log {}: {}", file, e.getMessage());
+            closeFile();
+        }
+    }
+
+    private void flush() {
+        if (generator == null) {
+            return;
+        }
+        try {
+            generator.flush();
+            if (fileStream.getChannel().size() >= maxFileSize) {
+                roll();
+            }
+        } catch (IOException e) {
+            log.warn("Cannot write access log {}: {}", file, e.getMessage());
+            closeFile();
+        }
+    }
+
+    private void openFile() throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        fileStream = new FileOutputStream(file.toFile(), true);
+        generator = JSON_FACTORY.createGenerator(new BufferedOutputStream(fileStream, 64 * 1024));
+        generator.setRootValueSeparator(null);
+    }
+
+    /**
+     * Shift the file and its predecessors one generation up; the next batch opens a new file
+     */
+    private void roll() throws IOException {
+        closeFile();
+        if (maxHistory <= 0) {
+            Files.deleteIfExists(file);
+            return;
+        }
+        Files.deleteIfExists(generation(maxHistory));
+        for (int i = maxHistory - 1; i >= 1; i--) {
+            Path older = generation(i);
+            if (Files.exists(older)) {
+                Files.move(older, generation(i + 1), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        Files.move(file, generation(1), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private Path generation(int index) {
+        return file.resolveSibling(file.getFileName() + "." + index);
+    }
+
+    private void closeFile() {
+        if (generator == null) {
+            return;
+        }
+        try {
+            generator.close();
+        } catch (IOException e) {
+            log.warn("Cannot close access log {}: {}", file, e.getMessage());
+        } finally {
+            generator = null;
+            fileStream = null;
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.pricingservice.accesslog;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a handler method whose requests are written to the access log, see {@link AccessLogInterceptor}.
+ * The method is expected to map the {@code storeId} and {@code articleId} path variables.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface AccessLogged {
+}
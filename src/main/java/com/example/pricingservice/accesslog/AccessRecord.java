@@ -0,0 +1,39 @@
+package com.example.pricingservice.accesslog;
+
+import lombok.Getter;
+
+/**
+ * One access log entry. Records are preallocated by {@link AccessLogRingBuffer} and overwritten
+ * in place, so a record handed to a consumer is only valid until the consumer returns.
+ */
+@Getter
+public final class AccessRecord {
+
+    private long timestampMillis;
+    private String storeId;
+    private String articleId;
+    private int page;
+    private int pageSize;
+    private int status;
+    private long latencyNanos;
+    private CacheOutcome cacheOutcome;
+
+    void set(long timestampMillis, String storeId, String articleId, int page, int pageSize, int status,
+             long latencyNanos, CacheOutcome cacheOutcome) {
+        this.timestampMillis = timestampMillis;
+        this.storeId = storeId;
+        this.articleId = articleId;
+        this.page = page;
+        this.pageSize = pageSize;
+        this.status = status;
+        this.latencyNanos = latencyNanos;
+        this.cacheOutcome = cacheOutcome;
+    }
+
+    void clear() {
+        // Drop the references so the strings of a written request can be collected
+        storeId = null;
+        articleId = null;
+        cacheOutcome = null;
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.pricingservice.accesslog;
+
+/**
+ * How a price lookup was answered with respect to the response cache
+ */
+public enum CacheOutcome {
+
+    /** The request failed before the cache was consulted, e.g. an invalid window */
+    NONE,
+
+    /** Served from a valid cache entry */
+    HIT,
+
+    /** Loaded from the database and cached */
+    MISS,
+
+    /** Served from an expired entry because the service was shedding load */
+    STALE,
+
+    /** Answered as not found by the existence index or the negative lookup cache */
+    NEGATIVE
+}
@@ -0,0 +1,36 @@
+package com.example.pricingservice.board;
+
+import lombok.Getter;
+
+import java.math.BigDecimal;
+import java.util.function.Predicate;
+
+/**
+ * Criteria of a price board query; null criteria match any price
+ */
+@Getter
+final class BoardQuery {
+
+    private final String subtype;
+    private final Boolean overlapped;
+    private final BigDecimal minAmount;
+    private final BigDecimal maxAmount;
+
+    BoardQuery(String subtype, Boolean overlapped, BigDecimal minAmount, BigDecimal maxAmount) {
+        this.subtype = subtype;
+        this.overlapped = overlapped;
+        this.minAmount = minAmount;
+        this.maxAmount = maxAmount;
+    }
+
+    boolean hasAmountRange() {
+        return minAmount != null || maxAmount != null;
+    }
+
+    Predicate<StoreBoard.Entry> matcher() {
+        return entry -> (subtype == null || subtype.equals(entry.price.getSubtype()))
+                && (overlapped == null || overlapped == entry.price.isOverlapped())
+                && (minAmount == null || entry.price.getAmount().compareTo(minAmount) >= 0)
+                && (maxAmount == null || entry.price.getAmount().compareTo(maxAmount) <= 0);
+    }
+}
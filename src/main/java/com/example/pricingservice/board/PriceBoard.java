@@ -0,0 +1,207 @@
+package com.example.pricingservice.board;
+
+import com.example.pricingservice.changes.StoreChangeTracker;
+import com.example.pricingservice.config.CatalogLoadedEvent;
+import com.example.pricingservice.dto.BoardPriceDTO;
+import com.example.pricingservice.dto.MetaDTO;
+import com.example.pricingservice.dto.PriceBoardDTO;
+import com.example.pricingservice.dto.PriceDTO;
+import com.example.pricingservice.dto.PriceResponseDTO;
+import com.example.pricingservice.exception.InvalidRequestException;
+import com.example.pricingservice.service.PriceService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.ZonedDateTime;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Store-wide view of the prices in effect right now, for questions such as "all discounted
+ * articles of a store" that would otherwise take one lookup per article.
+ *
+ * <p>A store's board is built from the database on its first query, or at startup for the
+ * stores in {@code pricing.board.preload-stores}, and holds each article's valid prices after
+ * overlap detection and merging, like a lookup at the current time. Every
+ * {@code pricing.board.refresh-interval} ms the written articles are read from the change log
+ * and, once the store's next validity boundary has passed, the articles whose prices became
+ * valid or expired; only those articles are reloaded. At most {@code pricing.board.max-stores}
+ * boards are kept, the least recently queried one is dropped first.
+ */
+@Component
+@Slf4j
+public class PriceBoard {
+
+    private static final int MAX_PAGE_SIZE = 1000;
+
+    private final PriceService priceService;
+    private final int maxStores;
+    private final List<String> preloadStores;
+    private final Counter reloadedArticles;
+
+    private final Map<String, StoreBoard> boards = new ConcurrentHashMap<>();
+
+    public PriceBoard(PriceService priceService, MeterRegistry meterRegistry,
+                      @Value("${pricing.board.max-stores:16}") int maxStores,
+                      @Value("${pricing.board.preload-stores:}") List<String> preloadStores) {
+        if (maxStores < 1) {
+            throw new IllegalArgumentException("Invalid price board store count");
+        }
+        this.priceService = priceService;
+        this.maxStores = maxStores;
+        this.preloadStores = preloadStores;
+        this.reloadedArticles = Counter.builder("pricing.board.reloaded_articles")
+                .description("Articles reloaded on a price board after a write or a validity boundary")
+                .register(meterRegistry);
+        Gauge.builder("pricing.board.stores", boards, Map::size)
+                .description("Stores with a price board in memory")
+                .register(meterRegistry);
+        Gauge.builder("pricing.board.prices", boards,
+                        current -> current.values().stream().mapToInt(StoreBoard::size).sum())
+                .description("Prices held by all price boards")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Find the prices in effect in a store that match every given criterion
+     *
+     * @param storeId the store ID
+     * @param subtype only prices of this subtype, e.g. discounted
+     * @param overlapped only prices with this overlapped flag
+     * @param minAmount only prices of at least this amount
+     * @param maxAmount only prices of at most this amount
+     * @param page the page number (starting from 1)
+     * @param pageSize the page size
+     * @return a page of prices, by article, or by amount when an amount bound is given
+     * @throws InvalidRequestException if the paging or the amount range is invalid
+     */
+    public PriceBoardDTO query(String storeId, String subtype, Boolean overlapped, BigDecimal minAmount,
+                               BigDecimal maxAmount, int page, int pageSize) {
+        if (page < 1) {
+            throw new InvalidRequestException("page must be at least 1");
+        }
+        if (pageSize < 1 || pageSize > MAX_PAGE_SIZE) {
+            throw new InvalidRequestException("pageSize must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        if (minAmount != null && maxAmount != null && minAmount.compareTo(maxAmount) > 0) {
+            throw new InvalidRequestException("minAmount must not be greater than maxAmount");
+        }
+        long offset = (long) (page - 1) * pageSize;
+        if (offset > Integer.MAX_VALUE) {
+            throw new InvalidRequestException("page is out of range");
+        }
+
+        StoreBoard board = board(storeId);
+        StoreBoard.Page result = board.find(new BoardQuery(subtype, overlapped, minAmount, maxAmount),
+                (int) offset, pageSize);
+        return PriceBoardDTO.builder()
+                .store(storeId)
+                .asOf(result.asOf)
+                .meta(MetaDTO.builder().page(page).size(pageSize).build())
+                .hasMore(result.hasMore)
+                .prices(result.entries.stream()
+                        .map(entry -> BoardPriceDTO.builder().article(entry.articleId).price(entry.price).build())
+                        .collect(Collectors.toList()))
+                .build();
+    }
+
+    /**
+     * Build the boards of the configured stores once the catalog is loaded
+     */
+    @EventListener(CatalogLoadedEvent.class)
+    public void preload() {
+        for (String storeId : preloadStores) {
+            try {
+                board(storeId);
+            } catch (RuntimeException e) {
+                log.warn("Building the price board of store {} failed: {}", storeId, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Apply the writes and crossed validity boundaries of every store since the previous refresh
+     */
+    @Scheduled(fixedDelayString = "${pricing.board.refresh-interval:1000}")
+    public void refresh() {
+        for (StoreBoard board : boards.values()) {
+            // A board still being built is up to date once the build completes
+            if (!board.built) {
+                continue;
+            }
+            try {
+                synchronized (board) {
+                    refresh(board);
+                }
+            } catch (RuntimeException e) {
+                log.warn("Refreshing the price board of store {} failed: {}", board.getStoreId(), e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Get the board of a store, building it on first use
+     */
+    private StoreBoard board(String storeId) {
+        StoreBoard board = boards.computeIfAbsent(storeId,
+                key -> new StoreBoard(key, new StoreChangeTracker(priceService, key)));
+        board.lastQueriedMillis = System.currentTimeMillis();
+        if (!board.built) {
+            synchronized (board) {
+                if (!board.built) {
+                    build(board);
+                }
+            }
+        }
+        if (boards.size() > maxStores) {
+            boards.values().stream()
+                    .filter(candidate -> candidate != board)
+                    .min(Comparator.comparingLong(candidate -> candidate.lastQueriedMillis))
+                    .ifPresent(idle -> boards.remove(idle.getStoreId(), idle));
+        }
+        return board;
+    }
+
+    private void build(StoreBoard board) {
+        long start = System.nanoTime();
+        String storeId = board.getStoreId();
+        ZonedDateTime now = ZonedDateTime.now();
+        // Read before the prices, so writes made during the build are applied by the next refresh
+        board.changes.start(now);
+        board.update(priceService.getCurrentStorePrices(storeId, now), now);
+        board.built = true;
+        log.info("Built price board of store {}: {} prices in {} ms", storeId, board.size(),
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private void refresh(StoreBoard board) {
+        String storeId = board.getStoreId();
+        ZonedDateTime now = ZonedDateTime.now();
+
+        Set<String> changed = board.changes.poll(now);
+
+        Map<String, List<PriceDTO>> updates = new HashMap<>();
+        if (!changed.isEmpty()) {
+            Map<String, PriceResponseDTO> current = priceService.getCurrentPrices(storeId, changed, now);
+            for (String articleId : changed) {
+                PriceResponseDTO response = current.get(articleId);
+                // Removed articles and articles without a valid price leave the board
+                updates.put(articleId, response != null ? response.getPrices() : List.of());
+            }
+            reloadedArticles.increment(changed.size());
+        }
+        board.update(updates, now);
+    }
+}
@@ -0,0 +1,207 @@
+package com.example.pricingservice.board;
+
+import com.example.pricingservice.changes.StoreChangeTracker;
+import com.example.pricingservice.dto.PriceDTO;
+
+import java.math.BigDecimal;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+
+/**
+ * The prices in effect in one store, processed like a lookup, with secondary indexes on subtype,
+ * overlapped flag and amount. Queries share a read lock; updates replace all prices of an article
+ * under the write lock.
+ */
+final class StoreBoard {
+
+    private static final Comparator<Entry> BY_ARTICLE = Comparator.comparing((Entry entry) -> entry.articleId)
+            .thenComparingInt(entry -> entry.position);
+
+    private static final Comparator<Entry> BY_AMOUNT = Comparator.comparing((Entry entry) -> entry.price.getAmount())
+            .thenComparing(BY_ARTICLE);
+
+    private final String storeId;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Guarded by lock
+    private final Map<String, List<Entry>> byArticle = new HashMap<>();
+    private final NavigableSet<Entry> all = new TreeSet<>(BY_ARTICLE);
+    private final Map<String, NavigableSet<Entry>> bySubtype = new HashMap<>();
+    private final NavigableSet<Entry> overlapped = new TreeSet<>(BY_ARTICLE);
+    private final NavigableSet<Entry> byAmount = new TreeSet<>(BY_AMOUNT);
+    private ZonedDateTime asOf;
+
+    // Progress of the refresh, written while holding the board
+    volatile boolean built;
+    final StoreChangeTracker changes;
+    volatile long lastQueriedMillis;
+
+    StoreBoard(String storeId, StoreChangeTracker changes) {
+        this.storeId = storeId;
+        this.changes = changes;
+    }
+
+    String getStoreId() {
+        return storeId;
+    }
+
+    /**
+     * Replace the prices of articles, removing those without prices
+     *
+     * @param prices the processed prices in effect by article
+     * @param asOf the time the prices are in effect at
+     */
+    void update(Map<String, List<PriceDTO>> prices, ZonedDateTime asOf) {
+        lock.writeLock().lock();
+        try {
+            prices.forEach(this::replace);
+            this.asOf = asOf;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Find a page of the prices matching every given criterion, in article order or, when an
+     * amount range is given, in amount order
+     *
+     * @param query the criteria, null fields match anything
+     * @param offset the number of matching prices to skip
+     * @param limit the maximum number of prices
+     * @return the matching prices, plus one more if there are further matches
+     */
+    Page find(BoardQuery query, int offset, int limit) {
+        lock.readLock().lock();
+        try {
+            Predicate<Entry> filter = query.matcher();
+            List<Entry> matches = new ArrayList<>(limit);
+            int skipped = 0;
+            boolean hasMore = false;
+            for (Entry entry : candidates(query)) {
+                // The amount index is ordered, nothing past the upper bound can match
+                if (query.hasAmountRange() && query.getMaxAmount() != null
+                        && entry.price.getAmount().compareTo(query.getMaxAmount()) > 0) {
+                    break;
+                }
+                if (!filter.test(entry)) {
+                    continue;
+                }
+                if (skipped < offset) {
+                    skipped++;
+                } else if (matches.size() < limit) {
+                    matches.add(entry);
+                } else {
+                    hasMore = true;
+                    break;
+                }
+            }
+            return new Page(matches, hasMore, asOf);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    int size() {
+        lock.readLock().lock();
+        try {
+            return all.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * The smallest index that holds every match
+     */
+    private Iterable<Entry> candidates(BoardQuery query) {
+        if (query.hasAmountRange()) {
+            return byAmountFrom(query.getMinAmount());
+        }
+        if (query.getSubtype() != null) {
+            return bySubtype.getOrDefault(query.getSubtype(), Collections.emptyNavigableSet());
+        }
+        if (Boolean.TRUE.equals(query.getOverlapped())) {
+            return overlapped;
+        }
+        return all;
+    }
+
+    private NavigableSet<Entry> byAmountFrom(BigDecimal minAmount) {
+        if (minAmount == null) {
+            return byAmount;
+        }
+        // Sorts before every entry of the same amount
+        Entry probe = new Entry("", Integer.MIN_VALUE, PriceDTO.builder().amount(minAmount).build());
+        return byAmount.tailSet(probe, true);
+    }
+
+    private void replace(String articleId, List<PriceDTO> prices) {
+        List<Entry> previous = byArticle.remove(articleId);
+        if (previous != null) {
+            for (Entry entry : previous) {
+                all.remove(entry);
+                overlapped.remove(entry);
+                byAmount.remove(entry);
+                NavigableSet<Entry> subtype = bySubtype.get(entry.price.getSubtype());
+                subtype.remove(entry);
+                if (subtype.isEmpty()) {
+                    bySubtype.remove(entry.price.getSubtype());
+                }
+            }
+        }
+        if (prices.isEmpty()) {
+            return;
+        }
+        List<Entry> entries = new ArrayList<>(prices.size());
+        for (int position = 0; position < prices.size(); position++) {
+            Entry entry = new Entry(articleId, position, prices.get(position));
+            entries.add(entry);
+            all.add(entry);
+            byAmount.add(entry);
+            bySubtype.computeIfAbsent(entry.price.getSubtype(), key -> new TreeSet<>(BY_ARTICLE)).add(entry);
+            if (entry.price.isOverlapped()) {
+                overlapped.add(entry);
+            }
+        }
+        byArticle.put(articleId, entries);
+    }
+
+    /**
+     * A price in effect; the price is never modified once on the board
+     */
+    static final class Entry {
+
+        final String articleId;
+        final int position;
+        final PriceDTO price;
+
+        Entry(String articleId, int position, PriceDTO price) {
+            this.articleId = articleId;
+            this.position = position;
+            this.price = price;
+        }
+    }
+
+    static final class Page {
+
+        final List<Entry> entries;
+        final boolean hasMore;
+        final ZonedDateTime asOf;
+
+        Page(List<Entry> entries, boolean hasMore, ZonedDateTime asOf) {
+            this.entries = entries;
+            this.hasMore = hasMore;
+            this.asOf = asOf;
+        }
+    }
+}
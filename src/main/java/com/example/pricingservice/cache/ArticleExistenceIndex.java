@@ -0,0 +1,137 @@
+package com.example.pricingservice.cache;
+
+import com.example.pricingservice.config.CatalogLoadedEvent;
+import com.example.pricingservice.shard.StoreShards;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Compact existence index over all known (storeId, articleId) keys, backed by a Bloom filter.
+ * Built from the articles table once the catalog is loaded and kept up to date by
+ * {@link CatalogWriteListener} on every article insert. Until the first build completes
+ * every key is reported as possibly existing.
+ */
+@Component
+@Slf4j
+public class ArticleExistenceIndex {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final StoreShards storeShards;
+    private final long expectedArticles;
+    private final double falsePositiveRate;
+
+    private volatile BloomFilter filter;
+    private volatile boolean ready;
+
+    // Keys written while a rebuild scans the table, replayed into the new filter before it is swapped in
+    private volatile Set<String> keysAddedDuringRebuild;
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+    private final ReadWriteLock swapLock = new ReentrantReadWriteLock();
+
+    public ArticleExistenceIndex(JdbcTemplate jdbcTemplate,
+                                 StoreShards storeShards,
+                                 @Value("${pricing.existence-filter.expected-articles:1000000}") long expectedArticles,
+                                 @Value("${pricing.existence-filter.false-positive-rate:0.01}") double falsePositiveRate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.storeShards = storeShards;
+        this.expectedArticles = expectedArticles;
+        this.falsePositiveRate = falsePositiveRate;
+        this.filter = new BloomFilter(expectedArticles, falsePositiveRate);
+    }
+
+    /**
+     * Check if an article may exist
+     *
+     * @param storeId the store ID
+     * @param articleId the article ID
+     * @return false only if the article definitely does not exist
+     */
+    public boolean mightExist(String storeId, String articleId) {
+        return !ready || filter.mightContain(key(storeId, articleId));
+    }
+
+    /**
+     * Register a newly written article
+     *
+     * @param storeId the store ID
+     * @param articleId the article ID
+     */
+    public void add(String storeId, String articleId) {
+        String key = key(storeId, articleId);
+        swapLock.readLock().lock();
+        try {
+            filter.put(key);
+            Set<String> pending = keysAddedDuringRebuild;
+            if (pending != null) {
+                pending.add(key);
+            }
+        } finally {
+            swapLock.readLock().unlock();
+        }
+        if (ready && filter.isSaturated()) {
+            log.info("Article existence filter holds {} keys, rebuilding with a larger size", filter.getInsertions());
+            rebuild();
+        }
+    }
+
+    /**
+     * Rebuild the filter from the articles table of every shard. Bulk loaders insert without the entity
+     * listener, so the first build waits until all of them have completed.
+     */
+    @EventListener(CatalogLoadedEvent.class)
+    public void rebuild() {
+        if (!rebuilding.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            keysAddedDuringRebuild = ConcurrentHashMap.newKeySet();
+            long count = 0;
+            for (int shard = 0; shard < storeShards.getShardCount(); shard++) {
+                try (StoreShards.Scope scope = storeShards.forShard(shard)) {
+                    Long shardCount = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM articles", Long.class);
+                    count += shardCount == null ? 0 : shardCount;
+                }
+            }
+            BloomFilter rebuilt = new BloomFilter(Math.max(expectedArticles, 2 * count), falsePositiveRate);
+
+            long start = System.nanoTime();
+            for (int shard = 0; shard < storeShards.getShardCount(); shard++) {
+                try (StoreShards.Scope scope = storeShards.forShard(shard)) {
+                    jdbcTemplate.query("SELECT store_id, article_id FROM articles",
+                            rs -> { rebuilt.put(key(rs.getString(1), rs.getString(2))); });
+                }
+            }
+
+            swapLock.writeLock().lock();
+            try {
+                keysAddedDuringRebuild.forEach(rebuilt::put);
+                filter = rebuilt;
+                keysAddedDuringRebuild = null;
+                ready = true;
+            } finally {
+                swapLock.writeLock().unlock();
+            }
+            log.info("Article existence filter built with {} keys ({} KB) in {} ms", rebuilt.getInsertions(),
+                    rebuilt.getBitCount() / 8 / 1024, (System.nanoTime() - start) / 1_000_000);
+        } finally {
+            rebuilding.set(false);
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    private static String key(String storeId, String articleId) {
+        return storeId + '/' + articleId;
+    }
+}
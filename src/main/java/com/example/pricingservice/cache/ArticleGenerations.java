@@ -0,0 +1,31 @@
+package com.example.pricingservice.cache;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Invalidation counters of articles, so a cache can tell if an article was written while one of
+ * its responses was being loaded. A load reads the generation before its database reads and only
+ * caches its result if the generation is unchanged; an invalidation advances it.
+ *
+ * <p>Articles share a fixed number of counters by hash, so the memory does not grow with the
+ * catalog. A write to another article of the same counter only costs a load its caching.
+ */
+final class ArticleGenerations {
+
+    private static final int COUNTERS = 4096;
+
+    private final AtomicLongArray generations = new AtomicLongArray(COUNTERS);
+
+    long current(String articleKey) {
+        return generations.get(index(articleKey));
+    }
+
+    void advance(String articleKey) {
+        generations.incrementAndGet(index(articleKey));
+    }
+
+    private static int index(String articleKey) {
+        int hash = articleKey.hashCode();
+        return (hash ^ (hash >>> 16)) & (COUNTERS - 1);
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.pricingservice.cache;
+
+import com.example.pricingservice.dto.PriceResponseDTO;
+import lombok.AccessLevel;
+import lombok.Getter;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Cache entry holding a processed price response together with its encoded forms.
+ * The gzip body is computed at most once per entry, i.e. once per content version.
+ * The entry is valid until {@code expiresAtMillis}, see {@link PriceResponseCache}.
+ */
+@Getter
+public class CachedPriceResponse {
+
+    private final PriceResponseDTO response;
+
+    private final long expiresAtMillis;
+
+    // False when the query had further pages
+    private final boolean lastPage;
+
+    // Set while the entry was loaded ahead of a request that has not come yet, see PagePrefetcher
+    @Getter(AccessLevel.NONE)
+    private final AtomicBoolean prefetchPending;
+
+    // Set lazily by the first request that asks for a compressed body
+    private volatile byte[] gzipBody;
+
+    // True once the JSON body was found to be smaller than the compression threshold
+    private volatile boolean belowCompressionThreshold;
+
+    public CachedPriceResponse(PriceResponseDTO response) {
+        this(response, Long.MAX_VALUE);
+    }
+
+    public CachedPriceResponse(PriceResponseDTO response, long expiresAtMillis) {
+        this(response, expiresAtMillis, true, false);
+    }
+
+    public CachedPriceResponse(PriceResponseDTO response, long expiresAtMillis, boolean lastPage, boolean prefetched) {
+        this.response = response;
+        this.expiresAtMillis = expiresAtMillis;
+        this.lastPage = lastPage;
+        this.prefetchPending = new AtomicBoolean(prefetched);
+    }
+
+    /**
+     * Check if the entry is past its expiry, i.e. only served as a stale fallback
+     *
+     * @return true if the prices may have changed since the entry was built
+     */
+    public boolean isExpired() {
+        return expiresAtMillis <= System.currentTimeMillis();
+    }
+
+    /**
+     * Mark a prefetched entry as served
+     *
+     * @return true for the first request served from a prefetched entry, false otherwise
+     */
+    public boolean claimPrefetch() {
+        return prefetchPending.get() && prefetchPending.compareAndSet(true, false);
+    }
+
+    void setGzipBody(byte[] gzipBody) {
+        this.gzipBody = gzipBody;
+    }
+
+    void markBelowCompressionThreshold() {
+        this.belowCompressionThreshold = true;
+    }
+}
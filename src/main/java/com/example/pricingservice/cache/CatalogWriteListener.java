@@ -0,0 +1,110 @@
+package com.example.pricingservice.cache;
+
+import com.example.pricingservice.changes.PriceChangeLog;
+import com.example.pricingservice.model.Article;
+import com.example.pricingservice.model.Price;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * JPA entity listener keeping the lookup caches and the change log in line with article and price writes.
+ * Instantiated by Hibernate through Spring's bean container; the collaborators are looked
+ * up lazily because they are absent in slice tests such as {@code @DataJpaTest}.
+ *
+ * <p>Cache entries of the written articles are dropped once the transaction commits. Dropped
+ * earlier, a concurrent lookup could still read the old rows and cache them again.
+ */
+public class CatalogWriteListener {
+
+    private final ObjectProvider<ArticleExistenceIndex> existenceIndex;
+    private final ObjectProvider<NegativeLookupCache> negativeLookupCache;
+    private final ObjectProvider<PriceResponseCache> priceCache;
+    private final ObjectProvider<PriceChangeLog> changeLog;
+
+    public CatalogWriteListener(ObjectProvider<ArticleExistenceIndex> existenceIndex,
+                                ObjectProvider<NegativeLookupCache> negativeLookupCache,
+                                ObjectProvider<PriceResponseCache> priceCache,
+                                ObjectProvider<PriceChangeLog> changeLog) {
+        this.existenceIndex = existenceIndex;
+        this.negativeLookupCache = negativeLookupCache;
+        this.priceCache = priceCache;
+        this.changeLog = changeLog;
+    }
+
+    @PostPersist
+    public void afterInsert(Object entity) {
+        if (entity instanceof Article article) {
+            existenceIndex.ifAvailable(index -> index.add(article.getStoreId(), article.getArticleId()));
+        }
+        afterWrite(entity);
+    }
+
+    @PostUpdate
+    @PostRemove
+    public void afterWrite(Object entity) {
+        Article article = entity instanceof Price price ? price.getArticle() : (Article) entity;
+        if (article != null) {
+            invalidateAfterCommit(new WrittenArticle(article.getStoreId(), article.getArticleId()));
+            // Same connection as the entity write, so the change commits or rolls back with it
+            changeLog.ifAvailable(changes -> changes.record(article.getStoreId(), article.getArticleId()));
+        }
+    }
+
+    private void invalidateAfterCommit(WrittenArticle article) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            invalidate(Set.of(article));
+            return;
+        }
+        // One synchronization per transaction, collecting every article it writes
+        WrittenArticles written = (WrittenArticles) TransactionSynchronizationManager.getResource(WrittenArticles.class);
+        if (written == null) {
+            written = new WrittenArticles();
+            TransactionSynchronizationManager.bindResource(WrittenArticles.class, written);
+            TransactionSynchronizationManager.registerSynchronization(written);
+        }
+        written.articles.add(article);
+    }
+
+    private void invalidate(Set<WrittenArticle> articles) {
+        negativeLookupCache.ifAvailable(cache -> articles.forEach(
+                article -> cache.invalidate(article.storeId(), article.articleId())));
+        priceCache.ifAvailable(cache -> cache.invalidateArticles(articles.stream()
+                .map(article -> HotKeySketch.key(article.storeId(), article.articleId()))
+                .toList()));
+    }
+
+    private record WrittenArticle(String storeId, String articleId) {
+    }
+
+    private final class WrittenArticles implements TransactionSynchronization {
+
+        private final Set<WrittenArticle> articles = new LinkedHashSet<>();
+
+        @Override
+        public void suspend() {
+            TransactionSynchronizationManager.unbindResource(WrittenArticles.class);
+        }
+
+        @Override
+        public void resume() {
+            TransactionSynchronizationManager.bindResource(WrittenArticles.class, this);
+        }
+
+        @Override
+        public void afterCommit() {
+            invalidate(articles);
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(WrittenArticles.class);
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package com.example.pricingservice.cache;
+
+import com.example.pricingservice.util.Hashing;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Streaming request frequencies of (storeId, articleId) keys. A Count-Min sketch estimates the
+ * frequency of any key in fixed memory; the keys with the highest estimates are tracked as the hot
+ * set. After every {@code sample-size} requests all counts are halved, so the estimates follow the
+ * current traffic instead of the all-time totals.
+ */
+@Component
+public class HotKeySketch {
+
+    private static final int DEPTH = 4;
+
+    private final AtomicIntegerArray counters;
+    private final int widthMask;
+    private final int topK;
+    private final long sampleSize;
+    private final AtomicLong samples = new AtomicLong();
+
+    private final Map<String, HotKey> hotKeys = new ConcurrentHashMap<>();
+    // Lowest count in the hot set once it is full; keys below it skip the synchronized update
+    private volatile int admissionThreshold;
+
+    @Autowired
+    public HotKeySketch(@Value("${pricing.hot-keys.top-k:100}") int topK,
+                        @Value("${pricing.hot-keys.sketch-width:65536}") int width,
+                        @Value("${pricing.hot-keys.sample-size:0}") long sampleSize) {
+        if (topK < 1 || width < 1) {
+            throw new IllegalArgumentException("Invalid hot key sketch settings");
+        }
+        int roundedWidth = Integer.highestOneBit(Math.max(2, width - 1) << 1);
+        this.counters = new AtomicIntegerArray(DEPTH * roundedWidth);
+        this.widthMask = roundedWidth - 1;
+        this.topK = topK;
+        this.sampleSize = sampleSize > 0 ? sampleSize : 10L * roundedWidth;
+    }
+
+    /**
+     * Count a request
+     *
+     * @param storeId the store ID
+     * @param articleId the article ID
+     */
+    public void record(String storeId, String articleId) {
+        String key = key(storeId, articleId);
+        long hash = Hashing.hash64(key);
+        int count = Integer.MAX_VALUE;
+        for (int row = 0; row < DEPTH; row++) {
+            count = Math.min(count, counters.incrementAndGet(index(hash, row)));
+        }
+
+        HotKey hotKey = hotKeys.get(key);
+        if (hotKey != null) {
+            hotKey.count = count;
+        } else if (count > admissionThreshold) {
+            offer(key, storeId, articleId, count);
+        }
+        if (samples.incrementAndGet() % sampleSize == 0) {
+            age();
+        }
+    }
+
+    /**
+     * Estimated recent request count of a key, never lower than the actual count
+     *
+     * @param key the key, see {@link #key(String, String)}
+     * @return the estimate
+     */
+    public int estimate(String key) {
+        long hash = Hashing.hash64(key);
+        int count = Integer.MAX_VALUE;
+        for (int row = 0; row < DEPTH; row++) {
+            count = Math.min(count, counters.get(index(hash, row)));
+        }
+        return count;
+    }
+
+    /**
+     * Check if a key is in the hot set
+     *
+     * @param key the key, see {@link #key(String, String)}
+     * @return true if the key is one of the {@code top-k} most requested keys
+     */
+    public boolean isHot(String key) {
+        return hotKeys.containsKey(key);
+    }
+
+    /**
+     * Get the most requested keys
+     *
+     * @param limit the maximum number of keys
+     * @return the hot keys, most requested first
+     */
+    public List<HotKey> topKeys(int limit) {
+        List<HotKey> top = new ArrayList<>(hotKeys.values());
+        top.sort(Comparator.comparingInt(HotKey::getCount).reversed());
+        return top.subList(0, Math.min(Math.max(0, limit), top.size()));
+    }
+
+    /**
+     * Key of an article, same prefix as the price cache keys ({@code store_article_...})
+     */
+    public static String key(String storeId, String articleId) {
+        return storeId + "_" + articleId;
+    }
+
+    private int index(long hash, int row) {
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        return row * (widthMask + 1) + ((h1 + row * h2) & widthMask);
+    }
+
+    private synchronized void offer(String key, String storeId, String articleId, int count) {
+        if (hotKeys.containsKey(key)) {
+            return;
+        }
+        if (hotKeys.size() < topK) {
+            hotKeys.put(key, new HotKey(storeId, articleId, count));
+            if (hotKeys.size() == topK) {
+                admissionThreshold = lowest().count;
+            }
+            return;
+        }
+        HotKey lowest = lowest();
+        if (count > lowest.count) {
+            hotKeys.remove(key(lowest.storeId, lowest.articleId));
+            hotKeys.put(key, new HotKey(storeId, articleId, count));
+            admissionThreshold = lowest().count;
+        }
+    }
+
+    private HotKey lowest() {
+        return hotKeys.values().stream().min(Comparator.comparingInt(HotKey::getCount)).orElseThrow();
+    }
+
+    /**
+     * Halve all counts. Increments racing with the reset may be lost, which only lowers estimates slightly.
+     */
+    private synchronized void age() {
+        for (int i = 0; i < counters.length(); i++) {
+            counters.set(i, counters.get(i) >>> 1);
+        }
+        hotKeys.values().forEach(hotKey -> hotKey.count >>>= 1);
+        admissionThreshold >>>= 1;
+    }
+
+    /**
+     * A key of the hot set with its estimated recent request count
+     */
+    @Getter
+    public static final class HotKey {
+
+        private final String storeId;
+        private final String articleId;
+        private volatile int count;
+
+        private HotKey(String storeId, String articleId, int count) {
+            this.storeId = storeId;
+            this.articleId = articleId;
+            this.count = count;
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package com.example.pricingservice.cache;
+
+import com.example.pricingservice.config.CatalogLoadedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Fast path for price lookups that are known to have no result. A request is answered as
+ * not found without touching the database when the {@link ArticleExistenceIndex} rules the
+ * article out, or when the same lookup missed within the last {@code pricing.negative-cache.ttl}.
+ *
+ * <p>A miss is only remembered if the article was not invalidated since the lookup read its
+ * {@link #generation}, so a lookup racing the insert of its article cannot cache it as missing.
+ */
+@Component
+public class NegativeLookupCache {
+
+    private final ArticleExistenceIndex existenceIndex;
+    private final long ttlNanos;
+    private final int maxEntries;
+
+    // Lookup key -> System.nanoTime() at which the negative entry expires
+    private final Map<String, Long> misses = new ConcurrentHashMap<>();
+    private final ArticleGenerations generations = new ArticleGenerations();
+
+    private final Counter filteredMisses;
+    private final Counter cachedMisses;
+    private final Counter databaseMisses;
+
+    public NegativeLookupCache(ArticleExistenceIndex existenceIndex,
+                               MeterRegistry meterRegistry,
+                               @Value("${pricing.negative-cache.ttl:30s}") Duration ttl,
+                               @Value("${pricing.negative-cache.max-entries:100000}") int maxEntries) {
+        this.existenceIndex = existenceIndex;
+        this.ttlNanos = ttl.toNanos();
+        this.maxEntries = maxEntries;
+        this.filteredMisses = notFoundCounter(meterRegistry, "existence_filter");
+        this.cachedMisses = notFoundCounter(meterRegistry, "negative_cache");
+        this.databaseMisses = notFoundCounter(meterRegistry, "database");
+    }
+
+    private static Counter notFoundCounter(MeterRegistry meterRegistry, String source) {
+        return Counter.builder("pricing.prices.not_found")
+                .description("Price lookups answered with 404, by where the miss was detected")
+                .tag("source", source)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Check if a lookup is known to have no result
+     *
+     * @param storeId the store ID
+     * @param articleId the article ID
+     * @param lookupKey the key of the full lookup (article, page and filters)
+     * @return true if the lookup can be answered as not found right away
+     */
+    public boolean isKnownMissing(String storeId, String articleId, String lookupKey) {
+        if (!existenceIndex.mightExist(storeId, articleId)) {
+            filteredMisses.increment();
+            return true;
+        }
+        if (isCached(articleKey(storeId, articleId)) || (lookupKey != null && isCached(lookupKey))) {
+            cachedMisses.increment();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Check if an article is known not to exist, for lookups whose misses are not cached
+     *
+     * @param storeId the store ID
+     * @param articleId the article ID
+     * @return true if the lookup can be answered as not found right away
+     */
+    public boolean isKnownMissing(String storeId, String articleId) {
+        return isKnownMissing(storeId, articleId, null);
+    }
+
+    /**
+     * Get the invalidation generation of an article, to be read before looking it up in the database
+     *
+     * @param storeId the store ID
+     * @param articleId the article ID
+     * @return the generation, which changes whenever the article's entries are invalidated
+     */
+    public long generation(String storeId, String articleId) {
+        return generations.current(articleKey(storeId, articleId));
+    }
+
+    /**
+     * Remember that an article does not exist
+     *
+     * @param storeId the store ID
+     * @param articleId the article ID
+     */
+    public void articleMissing(String storeId, String articleId) {
+        articleMissing(storeId, articleId, generation(storeId, articleId));
+    }
+
+    /**
+     * Remember that an article does not exist, unless it was invalidated since the lookup started
+     *
+     * @param storeId the store ID
+     * @param articleId the article ID
+     * @param generation the {@link #generation} read before the lookup
+     */
+    public void articleMissing(String storeId, String articleId, long generation) {
+        String articleKey = articleKey(storeId, articleId);
+        remember(articleKey, articleKey, generation);
+    }
+
+    /**
+     * Remember that a lookup of an existing article returned no prices, unless the article was
+     * invalidated since the lookup started
+     *
+     * @param storeId the store ID
+     * @param articleId the article ID
+     * @param lookupKey the key of the full lookup
+     * @param generation the {@link #generation} read before the lookup
+     */
+    public void pricesMissing(String storeId, String articleId, String lookupKey, long generation) {
+        remember(lookupKey, articleKey(storeId, articleId), generation);
+    }
+
+    /**
+     * Drop the negative entries of an article after it or one of its prices was written
+     *
+     * @param storeId the store ID
+     * @param articleId the article ID
+     */
+    public void invalidate(String storeId, String articleId) {
+        String articleKey = articleKey(storeId, articleId);
+        // Advanced first: a miss remembered from here on sees it and drops itself
+        generations.advance(articleKey);
+        if (!misses.isEmpty()) {
+            misses.keySet().removeIf(key -> key.equals(articleKey) || key.startsWith(articleKey + "_"));
+        }
+    }
+
+    /**
+     * Drop the negative entries of several written articles, in one pass over the entries
+     *
+     * @param articleKeys the keys of the articles in the {@link HotKeySketch}
+     */
+    public void invalidateArticles(Collection<String> articleKeys) {
+        Set<String> written = new HashSet<>(articleKeys);
+        written.forEach(generations::advance);
+        if (!misses.isEmpty()) {
+            misses.keySet().removeIf(key -> ofArticle(key, written));
+        }
+    }
+
+    /**
+     * Clear all negative entries, including misses recorded while a background load was running
+     */
+    @EventListener(CatalogLoadedEvent.class)
+    public void clear() {
+        misses.clear();
+    }
+
+    private void remember(String key, String articleKey, long generation) {
+        databaseMisses.increment();
+        if (misses.size() >= maxEntries) {
+            // Drop expired entries first; if the map is still full, skip caching rather than grow unbounded
+            long now = System.nanoTime();
+            misses.values().removeIf(expiresAt -> expiresAt - now <= 0);
+            if (misses.size() >= maxEntries) {
+                return;
+            }
+        }
+        Long expiresAt = System.nanoTime() + ttlNanos;
+        misses.put(key, expiresAt);
+        // Checked after the put: an invalidation either sees the entry or is seen here
+        if (generations.current(articleKey) != generation) {
+            misses.remove(key, expiresAt);
+        }
+    }
+
+    private boolean isCached(String key) {
+        Long expiresAt = misses.get(key);
+        if (expiresAt == null) {
+            return false;
+        }
+        if (expiresAt - System.nanoTime() <= 0) {
+            misses.remove(key, expiresAt);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Same prefix as the price cache keys ({@code store_article_...}) so an invalidation covers all pages
+     */
+    /**
+     * Check if a miss is of one of the articles, whole or one of its lookups ({@code store_article_...})
+     */
+    private static boolean ofArticle(String key, Set<String> articleKeys) {
+        if (articleKeys.contains(key)) {
+            return true;
+        }
+        for (int end = key.indexOf('_'); end >= 0; end = key.indexOf('_', end + 1)) {
+            if (articleKeys.contains(key.substring(0, end))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String articleKey(String storeId, String articleId) {
+        return storeId + "_" + articleId;
+    }
+}
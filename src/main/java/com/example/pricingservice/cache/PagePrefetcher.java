@@ -0,0 +1,165 @@
+package com.example.pricingservice.cache;
+
+import com.example.pricingservice.limiter.GradientConcurrencyLimiter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Loads the next page of a paginated price lookup into the cache ahead of the request for it,
+ * as clients that read page N of an article almost always read page N+1 right after.
+ *
+ * <p>Prefetches run on {@code pricing.prefetch.threads} low-priority threads. At most
+ * {@code pricing.prefetch.max-in-flight} are queued or running; further ones, and pages already
+ * being prefetched, are skipped. A prefetch only starts while the lookups in flight stay below
+ * {@code pricing.prefetch.max-load} of the concurrency limit, so queued prefetches are dropped as
+ * soon as the service gets busy. Off unless {@code pricing.prefetch.enabled} is set.
+ */
+@Component
+@Slf4j
+public class PagePrefetcher {
+
+    private final boolean enabled;
+    private final GradientConcurrencyLimiter concurrencyLimiter;
+    private final double maxLoad;
+    private final Semaphore budget;
+    private final ExecutorService executor;
+    private final Counter loadedPages;
+    private final Counter hits;
+    private final Counter skipped;
+    private final Counter cancelled;
+
+    // Cache keys of the pages queued or being loaded
+    private final Set<String> pending = ConcurrentHashMap.newKeySet();
+
+    public PagePrefetcher(MeterRegistry meterRegistry, GradientConcurrencyLimiter concurrencyLimiter,
+                          @Value("${pricing.prefetch.enabled:false}") boolean enabled,
+                          @Value("${pricing.prefetch.max-in-flight:16}") int maxInFlight,
+                          @Value("${pricing.prefetch.threads:2}") int threads,
+                          @Value("${pricing.prefetch.max-load:0.5}") double maxLoad) {
+        if (maxInFlight < 1 || threads < 1 || maxLoad <= 0 || maxLoad > 1) {
+            throw new IllegalArgumentException("Invalid page prefetch settings");
+        }
+        this.enabled = enabled;
+        this.concurrencyLimiter = concurrencyLimiter;
+        this.maxLoad = maxLoad;
+        this.budget = new Semaphore(maxInFlight);
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = !enabled ? null : Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "page-prefetch-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            // Yields to request threads when the CPU is contended
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+        this.loadedPages = Counter.builder("pricing.prefetch.loaded")
+                .description("Next pages loaded into the price cache ahead of a request")
+                .register(meterRegistry);
+        this.hits = Counter.builder("pricing.prefetch.hits")
+                .description("Requests served from a prefetched page")
+                .register(meterRegistry);
+        this.skipped = Counter.builder("pricing.prefetch.skipped")
+                .description("Prefetches not queued because the in-flight budget was used up or the page was pending")
+                .register(meterRegistry);
+        this.cancelled = Counter.builder("pricing.prefetch.cancelled")
+                .description("Prefetches dropped because the service was busy")
+                .register(meterRegistry);
+        Gauge.builder("pricing.prefetch.hit_ratio", this, PagePrefetcher::getHitRatio)
+                .description("Share of prefetched pages that were requested afterwards")
+                .register(meterRegistry);
+        Gauge.builder("pricing.prefetch.in_flight", budget, available -> maxInFlight - available.availablePermits())
+                .description("Prefetches queued or running")
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Queue the prefetch of a page, unless prefetching is off, the budget is used up, the page is
+     * already pending or the service is busy
+     *
+     * @param key the cache key of the page
+     * @param load loads and caches the page, returning false if there was nothing to load
+     */
+    public void schedule(String key, BooleanSupplier load) {
+        if (!enabled) {
+            return;
+        }
+        if (isBusy()) {
+            cancelled.increment();
+            return;
+        }
+        if (!pending.add(key)) {
+            skipped.increment();
+            return;
+        }
+        if (!budget.tryAcquire()) {
+            pending.remove(key);
+            skipped.increment();
+            return;
+        }
+        try {
+            executor.execute(() -> run(key, load));
+        } catch (RejectedExecutionException e) {
+            // Shutting down
+            pending.remove(key);
+            budget.release();
+        }
+    }
+
+    /**
+     * Record a request served from a prefetched page, once per page
+     */
+    public void recordHit() {
+        hits.increment();
+    }
+
+    public double getHitRatio() {
+        double loaded = loadedPages.count();
+        return loaded == 0 ? 0 : Math.min(1, hits.count() / loaded);
+    }
+
+    @PreDestroy
+    public void close() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    private void run(String key, BooleanSupplier load) {
+        try {
+            // The load may have risen since the prefetch was queued
+            if (isBusy()) {
+                cancelled.increment();
+                return;
+            }
+            if (load.getAsBoolean()) {
+                loadedPages.increment();
+            }
+        } catch (RuntimeException e) {
+            log.debug("Prefetching {} failed: {}", key, e.getMessage());
+        } finally {
+            pending.remove(key);
+            budget.release();
+        }
+    }
+
+    private boolean isBusy() {
+        return concurrencyLimiter.getInFlight() >= concurrencyLimiter.getLimit() * maxLoad;
+    }
+}
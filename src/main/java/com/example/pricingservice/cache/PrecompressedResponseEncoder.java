@@ -0,0 +1,124 @@
+package com.example.pricingservice.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.web.ServerProperties;
+import org.springframework.boot.web.server.Compression;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Produces gzip-compressed JSON bodies for cached price responses.
+ * Uses the same switch and minimum size as the container compression
+ * ({@code server.compression.*}) so both paths behave the same.
+ */
+@Component
+@Slf4j
+public class PrecompressedResponseEncoder {
+
+    private static final String GZIP = "gzip";
+
+    private final ObjectMapper objectMapper;
+    private final Compression compression;
+
+    public PrecompressedResponseEncoder(ObjectMapper objectMapper, ServerProperties serverProperties) {
+        this.objectMapper = objectMapper;
+        this.compression = serverProperties.getCompression();
+    }
+
+    /**
+     * Check if the request can be answered with a precompressed JSON body
+     *
+     * @param accept the Accept header, may be null
+     * @param acceptEncoding the Accept-Encoding header, may be null
+     * @return true if the client accepts gzip and JSON is the negotiated format
+     */
+    public boolean canServe(String accept, String acceptEncoding) {
+        return compression.getEnabled() && acceptsGzip(acceptEncoding) && prefersJson(accept);
+    }
+
+    /**
+     * Get the gzip body of a cached response, compressing it on first use
+     *
+     * @param entry the cache entry
+     * @return the compressed JSON body, or null if the body is below the size threshold
+     */
+    public byte[] gzipBody(CachedPriceResponse entry) {
+        byte[] gzipBody = entry.getGzipBody();
+        if (gzipBody != null || entry.isBelowCompressionThreshold()) {
+            return gzipBody;
+        }
+
+        byte[] json = serialize(entry);
+        if (json.length < compression.getMinResponseSize().toBytes()) {
+            entry.markBelowCompressionThreshold();
+            return null;
+        }
+
+        gzipBody = gzip(json);
+        entry.setGzipBody(gzipBody);
+        log.debug("Compressed cached price response for article {}: {} -> {} bytes",
+                entry.getResponse().getArticle(), json.length, gzipBody.length);
+        return gzipBody;
+    }
+
+    private byte[] serialize(CachedPriceResponse entry) {
+        try {
+            return objectMapper.writeValueAsBytes(entry.getResponse());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to serialize price response", e);
+        }
+    }
+
+    private static byte[] gzip(byte[] data) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, data.length / 4));
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(data);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to compress price response", e);
+        }
+        return out.toByteArray();
+    }
+
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (!StringUtils.hasText(acceptEncoding)) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            if (GZIP.equalsIgnoreCase(parts[0].trim())) {
+                return parts.length == 1 || !parts[1].trim().matches("q=0(\\.0*)?");
+            }
+        }
+        return false;
+    }
+
+    /**
+     * JSON is the default format; any explicit CBOR preference of equal or higher quality
+     * is left to the regular content negotiation
+     */
+    private static boolean prefersJson(String accept) {
+        if (!StringUtils.hasText(accept)) {
+            return true;
+        }
+        List<MediaType> mediaTypes = MediaType.parseMediaTypes(accept);
+        double jsonQuality = 0;
+        double cborQuality = 0;
+        for (MediaType mediaType : mediaTypes) {
+            if (mediaType.includes(MediaType.APPLICATION_JSON)) {
+                jsonQuality = Math.max(jsonQuality, mediaType.getQualityValue());
+            }
+            if (MediaType.APPLICATION_CBOR.equalsTypeAndSubtype(mediaType)) {
+                cborQuality = Math.max(cborQuality, mediaType.getQualityValue());
+            }
+        }
+        return jsonQuality > 0 && jsonQuality > cborQuality;
+    }
+}
@@ -0,0 +1,383 @@
+package com.example.pricingservice.cache;
+
+import com.example.pricingservice.dto.PriceResponseDTO;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Cache of processed price responses. Each entry expires at the next validity boundary
+ * (a validFrom or validTo in the future) of its article, so a response is dropped exactly when
+ * the set of effective prices changes instead of after a fixed TTL. Entries without an upcoming
+ * boundary are kept for at most {@code pricing.price-cache.max-ttl}.
+ *
+ * <p>Reads check the expiry themselves; the scheduled sweep only frees the memory of entries
+ * that are not read again. Expired entries are kept for {@code pricing.price-cache.stale-grace}
+ * so they can still be served, marked as stale, when the service sheds load. Replaced, evicted
+ * and invalidated entries leave their element in the expiry queue, holding only the key; the
+ * sweep skips them and purges them once they outnumber the cached entries.
+ *
+ * <p>The cache holds at most {@code pricing.price-cache.max-entries}. When it is full, a new
+ * entry is only admitted if its article was requested more often recently than the least
+ * requested of a few sampled entries, which it then replaces (TinyLFU admission, frequencies
+ * from {@link HotKeySketch}). Entries of the hot set are never replaced, so one-off requests such
+ * as crawler scans cannot push them out.
+ */
+@Component
+@Slf4j
+public class PriceResponseCache {
+
+    private static final int EVICTION_SAMPLES = 8;
+    private static final int MIN_DROPPED_EXPIRIES_TO_PURGE = 1024;
+
+    private final Map<String, CachedPriceResponse> entries = new ConcurrentHashMap<>();
+    private final DelayQueue<Expiry> expiries = new DelayQueue<>();
+    private final HotKeySketch hotKeys;
+    private final Clock clock;
+    private final long maxTtlMillis;
+    private final long staleGraceMillis;
+    private final int maxEntries;
+    private final Counter expirations;
+    private final Counter evictions;
+    private final Counter rejections;
+
+    // Current expiry of every cached key, plus the same expiries in an array for random sampling
+    // and grouped by article for invalidation. Guarded by residents; entries is only written while holding it.
+    private final Map<String, Expiry> residents = new HashMap<>();
+    private final List<Expiry> residentSlots = new ArrayList<>();
+    private final Map<String, Set<Expiry>> residentsByArticle = new HashMap<>();
+    // Queue elements whose entry is no longer cached
+    private final AtomicInteger droppedExpiries = new AtomicInteger();
+    // Advanced under the residents lock by every invalidation of an article
+    private final ArticleGenerations generations = new ArticleGenerations();
+
+    @Autowired
+    public PriceResponseCache(MeterRegistry meterRegistry, HotKeySketch hotKeys,
+                              @Value("${pricing.price-cache.max-ttl:30d}") Duration maxTtl,
+                              @Value("${pricing.price-cache.stale-grace:5m}") Duration staleGrace,
+                              @Value("${pricing.price-cache.max-entries:100000}") int maxEntries) {
+        this(meterRegistry, hotKeys, maxTtl, staleGrace, maxEntries, Clock.systemUTC());
+    }
+
+    PriceResponseCache(MeterRegistry meterRegistry, HotKeySketch hotKeys, Duration maxTtl, Duration staleGrace,
+                       int maxEntries, Clock clock) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("Invalid price cache size");
+        }
+        this.hotKeys = hotKeys;
+        this.clock = clock;
+        this.maxTtlMillis = maxTtl.toMillis();
+        this.staleGraceMillis = staleGrace.toMillis();
+        this.maxEntries = maxEntries;
+        this.expirations = Counter.builder("pricing.price_cache.expirations")
+                .description("Cached price responses dropped after their validity boundary or the max TTL")
+                .register(meterRegistry);
+        this.evictions = Counter.builder("pricing.price_cache.evictions")
+                .description("Cached price responses replaced by a more frequently requested one while the cache was full")
+                .register(meterRegistry);
+        this.rejections = Counter.builder("pricing.price_cache.rejections")
+                .description("Price responses not cached because the cache was full of more frequently requested ones")
+                .register(meterRegistry);
+        Gauge.builder("pricing.price_cache.size", entries, Map::size)
+                .description("Number of cached price responses")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Get a cached response
+     *
+     * @param key the cache key
+     * @return the entry, or null if absent or past its expiry
+     */
+    public CachedPriceResponse get(String key) {
+        CachedPriceResponse entry = entries.get(key);
+        if (entry == null || entry.getExpiresAtMillis() <= clock.millis()) {
+            return null;
+        }
+        return entry;
+    }
+
+    /**
+     * Get a cached response even if it expired, as long as it is within the stale grace period
+     *
+     * @param key the cache key
+     * @return the entry, or null if absent or expired for longer than the grace period
+     */
+    public CachedPriceResponse getStale(String key) {
+        CachedPriceResponse entry = entries.get(key);
+        if (entry == null || entry.getExpiresAtMillis() + staleGraceMillis <= clock.millis()) {
+            return null;
+        }
+        return entry;
+    }
+
+    /**
+     * Cache a response until the next validity boundary of its article
+     *
+     * @param key the cache key
+     * @param articleKey the key of the article in the {@link HotKeySketch}
+     * @param response the processed response
+     * @param nextBoundary the earliest validFrom or validTo after now, or null if there is none
+     * @return the new entry, which is not cached if the cache is full of more frequently requested entries
+     */
+    public CachedPriceResponse put(String key, String articleKey, PriceResponseDTO response,
+                                   ZonedDateTime nextBoundary) {
+        return put(key, articleKey, response, nextBoundary, true, false, generation(articleKey));
+    }
+
+    /**
+     * Get the invalidation generation of an article, to be read before loading one of its
+     * responses and passed to {@link #put}
+     *
+     * @param articleKey the key of the article in the {@link HotKeySketch}
+     * @return the generation, which changes whenever the article's entries are invalidated
+     */
+    public long generation(String articleKey) {
+        return generations.current(articleKey);
+    }
+
+    /**
+     * Cache a page of a response until the next validity boundary of its article
+     *
+     * @param key the cache key
+     * @param articleKey the key of the article in the {@link HotKeySketch}
+     * @param response the processed response
+     * @param nextBoundary the earliest validFrom or validTo after now, or null if there is none
+     * @param lastPage false if the query has further pages
+     * @param prefetched true if the page is loaded ahead of a request for it
+     * @param generation the {@link #generation} of the article read before loading the response
+     * @return the new entry, which is not cached if the cache is full of more frequently requested
+     *         entries, or if the article was invalidated since the generation was read
+     */
+    public CachedPriceResponse put(String key, String articleKey, PriceResponseDTO response,
+                                   ZonedDateTime nextBoundary, boolean lastPage, boolean prefetched,
+                                   long generation) {
+        long now = clock.millis();
+        long expiresAt = now + maxTtlMillis;
+        if (nextBoundary != null) {
+            expiresAt = Math.min(expiresAt, nextBoundary.toInstant().toEpochMilli());
+        }
+        CachedPriceResponse entry = new CachedPriceResponse(response, expiresAt, lastPage, prefetched);
+        Expiry expiry = new Expiry(key, articleKey, expiresAt);
+        synchronized (residents) {
+            // Written after the load read it: the response may hold the old rows
+            if (generations.current(articleKey) != generation) {
+                return entry;
+            }
+            Expiry previous = residents.get(key);
+            if (previous != null) {
+                expiry.slot = previous.slot;
+                residentSlots.set(expiry.slot, expiry);
+                removeFromArticle(previous);
+                markDropped(previous);
+            } else {
+                if (residents.size() >= maxEntries && !evictFor(articleKey)) {
+                    rejections.increment();
+                    return entry;
+                }
+                expiry.slot = residentSlots.size();
+                residentSlots.add(expiry);
+            }
+            residents.put(key, expiry);
+            residentsByArticle.computeIfAbsent(articleKey, article -> new HashSet<>()).add(expiry);
+            entries.put(key, entry);
+            expiries.put(expiry);
+        }
+        return entry;
+    }
+
+    /**
+     * Drop all entries
+     */
+    public void clear() {
+        synchronized (residents) {
+            entries.clear();
+            residents.clear();
+            residentSlots.clear();
+            residentsByArticle.clear();
+            expiries.clear();
+            droppedExpiries.set(0);
+        }
+    }
+
+    /**
+     * Drop every entry of the given articles, whatever their page
+     *
+     * @param articleKeys the keys of the articles in the {@link HotKeySketch}
+     * @return the number of entries dropped
+     */
+    public int invalidateArticles(Collection<String> articleKeys) {
+        if (articleKeys.isEmpty()) {
+            return 0;
+        }
+        int dropped = 0;
+        synchronized (residents) {
+            for (String articleKey : articleKeys) {
+                generations.advance(articleKey);
+                Set<Expiry> cached = residentsByArticle.remove(articleKey);
+                if (cached != null) {
+                    for (Expiry expiry : cached) {
+                        removeResident(expiry);
+                        markDropped(expiry);
+                    }
+                    dropped += cached.size();
+                }
+            }
+        }
+        return dropped;
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Drop entries whose expiry and stale grace period have passed, and purge the queue of
+     * elements left by dropped entries once there are more of them than cached entries
+     */
+    @Scheduled(fixedDelayString = "${pricing.price-cache.sweep-interval:1000}")
+    public void sweep() {
+        int dropped = 0;
+        Expiry expiry;
+        while ((expiry = expiries.poll()) != null) {
+            if (expiry.dropped) {
+                droppedExpiries.decrementAndGet();
+                continue;
+            }
+            synchronized (residents) {
+                if (residents.get(expiry.key) == expiry) {
+                    removeResident(expiry);
+                    dropped++;
+                }
+            }
+        }
+        if (droppedExpiries.get() > Math.max(MIN_DROPPED_EXPIRIES_TO_PURGE, entries.size())) {
+            synchronized (residents) {
+                // Rebuilt rather than removed one by one, amortized over the drops that left the elements behind
+                expiries.clear();
+                expiries.addAll(residents.values());
+                droppedExpiries.set(0);
+            }
+        }
+        if (dropped > 0) {
+            expirations.increment(dropped);
+            log.debug("Dropped {} expired price responses", dropped);
+        }
+    }
+
+    /**
+     * Make room for an entry of the given article by replacing the least frequently requested
+     * of a few randomly sampled entries outside the hot set
+     *
+     * @return false if the new entry is not requested more often than any candidate
+     */
+    private boolean evictFor(String articleKey) {
+        Expiry victim = null;
+        int victimFrequency = Integer.MAX_VALUE;
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < EVICTION_SAMPLES; i++) {
+            Expiry candidate = residentSlots.get(random.nextInt(residentSlots.size()));
+            if (hotKeys.isHot(candidate.articleKey)) {
+                continue;
+            }
+            int frequency = hotKeys.estimate(candidate.articleKey);
+            if (frequency < victimFrequency) {
+                victim = candidate;
+                victimFrequency = frequency;
+            }
+        }
+        if (victim == null || hotKeys.estimate(articleKey) <= victimFrequency) {
+            return false;
+        }
+        removeResident(victim);
+        markDropped(victim);
+        evictions.increment();
+        return true;
+    }
+
+    /**
+     * Drop a cached key, moving the last slot into its place. Caller holds the residents lock.
+     */
+    private void removeResident(Expiry expiry) {
+        entries.remove(expiry.key);
+        residents.remove(expiry.key);
+        Expiry last = residentSlots.remove(residentSlots.size() - 1);
+        if (last != expiry) {
+            last.slot = expiry.slot;
+            residentSlots.set(expiry.slot, last);
+        }
+        removeFromArticle(expiry);
+    }
+
+    /**
+     * Drop a cached key from its article's group. Caller holds the residents lock.
+     */
+    private void removeFromArticle(Expiry expiry) {
+        Set<Expiry> cached = residentsByArticle.get(expiry.articleKey);
+        if (cached != null && cached.remove(expiry) && cached.isEmpty()) {
+            residentsByArticle.remove(expiry.articleKey);
+        }
+    }
+
+    /**
+     * Mark the queue element of an entry that is no longer cached, for the sweep to skip. Caller
+     * holds the residents lock.
+     */
+    private void markDropped(Expiry expiry) {
+        expiry.dropped = true;
+        droppedExpiries.incrementAndGet();
+    }
+
+    /**
+     * Expiry of a cached key. Holds the key rather than the entry, so the response is freed as
+     * soon as the entry is dropped, not when its queue element is polled.
+     */
+    private final class Expiry implements Delayed {
+
+        private final String key;
+        private final String articleKey;
+        private final long expiresAtMillis;
+        // Index in residentSlots while this is the current expiry of its key
+        private int slot;
+        // Set once the entry is dropped before its expiry
+        private volatile boolean dropped;
+
+        private Expiry(String key, String articleKey, long expiresAtMillis) {
+            this.key = key;
+            this.articleKey = articleKey;
+            this.expiresAtMillis = expiresAtMillis;
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(expiresAtMillis + staleGraceMillis - clock.millis(), TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(expiresAtMillis, ((Expiry) other).expiresAtMillis);
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.pricingservice.changes;
+
+import lombok.Getter;
+
+import java.util.Map;
+
+/**
+ * Articles written in a range of the change log, each once at its latest version in the range
+ */
+@Getter
+public final class ChangeBatch {
+
+    // Article ID -> latest version, in version order
+    private final Map<String, Long> articleVersions;
+    private final long nextVersion;
+    private final boolean hasMore;
+
+    public ChangeBatch(Map<String, Long> articleVersions, long nextVersion, boolean hasMore) {
+        this.articleVersions = articleVersions;
+        this.nextVersion = nextVersion;
+        this.hasMore = hasMore;
+    }
+}
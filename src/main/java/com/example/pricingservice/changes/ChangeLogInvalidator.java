@@ -0,0 +1,117 @@
+package com.example.pricingservice.changes;
+
+import com.example.pricingservice.cache.ArticleExistenceIndex;
+import com.example.pricingservice.cache.HotKeySketch;
+import com.example.pricingservice.cache.NegativeLookupCache;
+import com.example.pricingservice.cache.PriceResponseCache;
+import com.example.pricingservice.model.PriceChange;
+import com.example.pricingservice.peer.PeerCache;
+import com.example.pricingservice.shard.StoreShards;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Drops the cached lookups of articles written by any process sharing the database, such as
+ * another replica. A write only invalidates the caches of the process making it; every
+ * {@code pricing.changes.invalidation-interval} ms each replica reads the change log of every
+ * shard from the last version seen, and drops the written articles from its price cache, its
+ * negative lookup cache and its peer near-cache. New articles are added to the existence index.
+ *
+ * <p>The log commits in version order (see {@link PriceChangeLog}), so reading on from the last
+ * version seen never skips a change. Tailing starts at the log's end at startup, before lookups
+ * are served.
+ */
+@Component
+@Slf4j
+public class ChangeLogInvalidator implements SmartInitializingSingleton {
+
+    private static final int BATCH_SIZE = 1000;
+
+    private final PriceChangeLog changeLog;
+    private final StoreShards storeShards;
+    private final PriceResponseCache priceCache;
+    private final NegativeLookupCache negativeLookupCache;
+    private final ArticleExistenceIndex existenceIndex;
+    private final PeerCache peerCache;
+    private final Counter invalidatedArticles;
+
+    // Shard -> version up to which written articles were dropped, guarded by this
+    private final long[] appliedUpTo;
+    private boolean started;
+
+    public ChangeLogInvalidator(PriceChangeLog changeLog, StoreShards storeShards, PriceResponseCache priceCache,
+                                NegativeLookupCache negativeLookupCache, ArticleExistenceIndex existenceIndex,
+                                PeerCache peerCache, MeterRegistry meterRegistry) {
+        this.changeLog = changeLog;
+        this.storeShards = storeShards;
+        this.priceCache = priceCache;
+        this.negativeLookupCache = negativeLookupCache;
+        this.existenceIndex = existenceIndex;
+        this.peerCache = peerCache;
+        this.appliedUpTo = new long[storeShards.getShardCount()];
+        this.invalidatedArticles = Counter.builder("pricing.changes.invalidated_articles")
+                .description("Written articles dropped from the caches after reading them from the change log")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Start from the end of the log once the schema exists and the startup loaders have run
+     */
+    @Override
+    public synchronized void afterSingletonsInstantiated() {
+        for (int shard = 0; shard < appliedUpTo.length; shard++) {
+            try (StoreShards.Scope scope = storeShards.forShard(shard)) {
+                appliedUpTo[shard] = changeLog.readableVersion();
+            }
+        }
+        started = true;
+    }
+
+    /**
+     * Drop the cached lookups of the articles logged on every shard since the previous run
+     */
+    @Scheduled(fixedDelayString = "${pricing.changes.invalidation-interval:1000}")
+    public synchronized void invalidate() {
+        if (!started) {
+            return;
+        }
+        for (int shard = 0; shard < appliedUpTo.length; shard++) {
+            try (StoreShards.Scope scope = storeShards.forShard(shard)) {
+                invalidate(shard);
+            } catch (RuntimeException e) {
+                log.warn("Reading the change log of shard {} failed: {}", shard, e.getMessage());
+            }
+        }
+    }
+
+    private void invalidate(int shard) {
+        List<PriceChange> changes;
+        do {
+            changes = changeLog.changesAfter(appliedUpTo[shard], BATCH_SIZE);
+            if (changes.isEmpty()) {
+                break;
+            }
+            Set<String> articleKeys = new LinkedHashSet<>();
+            for (PriceChange change : changes) {
+                // Inserted elsewhere; deleted articles stay in the index, which only costs their lookups a query
+                if (!existenceIndex.mightExist(change.getStoreId(), change.getArticleId())) {
+                    existenceIndex.add(change.getStoreId(), change.getArticleId());
+                }
+                articleKeys.add(HotKeySketch.key(change.getStoreId(), change.getArticleId()));
+            }
+            negativeLookupCache.invalidateArticles(articleKeys);
+            priceCache.invalidateArticles(articleKeys);
+            peerCache.invalidateArticles(articleKeys);
+            invalidatedArticles.increment(articleKeys.size());
+            appliedUpTo[shard] = changes.get(changes.size() - 1).getVersion();
+        } while (changes.size() == BATCH_SIZE);
+    }
+}
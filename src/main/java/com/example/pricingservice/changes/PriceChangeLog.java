@@ -0,0 +1,133 @@
+package com.example.pricingservice.changes;
+
+import com.example.pricingservice.model.PriceChange;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Writes and bounds the change log behind the change feed. Every article or price write adds a
+ * row to {@code price_changes} in the writing transaction, so a change is logged exactly when
+ * its write commits.
+ *
+ * <p>Versions are handed out before commit, so a change could become visible after changes with
+ * higher versions, and a poller that moved past it would never see it. A transaction therefore
+ * locks the single row of {@code price_change_lock} before its first change and holds it until
+ * it completes: versions are handed out and committed one transaction at a time, in version
+ * order, whichever process or replica writes to the database. Every version up to the highest
+ * committed one is final, and that is the readable version. Other transactions, such as a long
+ * import that has not logged yet, do not wait for the lock until they log. Like the catalog, the
+ * log is kept per shard.
+ */
+@Component
+public class PriceChangeLog {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate ownTransaction;
+
+    public PriceChangeLog(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.ownTransaction = new TransactionTemplate(new DataSourceTransactionManager(jdbcTemplate.getDataSource()));
+    }
+
+    /**
+     * Log a write of an article or one of its prices, in the current transaction
+     *
+     * @param storeId the store ID
+     * @param articleId the article ID
+     */
+    public void record(String storeId, String articleId) {
+        logged(() -> jdbcTemplate.update(
+                "INSERT INTO price_changes (store_id, article_id, changed_at) VALUES (?, ?, ?)",
+                storeId, articleId, OffsetDateTime.now(ZoneOffset.UTC)));
+    }
+
+    /**
+     * Log a write of every article of a store, e.g. after a bulk load, in the current transaction
+     *
+     * @param storeId the store ID
+     * @return the number of changes logged
+     */
+    public int recordStore(String storeId) {
+        return logged(() -> jdbcTemplate.update("INSERT INTO price_changes (store_id, article_id, changed_at) "
+                + "SELECT store_id, article_id, ? FROM articles WHERE store_id = ? ORDER BY id",
+                OffsetDateTime.now(ZoneOffset.UTC), storeId));
+    }
+
+    /**
+     * Highest version of the bound shard that may be served, so it must be called within the
+     * scope of a store or shard
+     *
+     * @return the version up to which every logged change is committed or rolled back
+     */
+    public long readableVersion() {
+        // An open transaction holds the lock, so the versions it was handed are above every committed one
+        Long version = jdbcTemplate.queryForObject("SELECT MAX(version) FROM price_changes", Long.class);
+        return version == null ? 0 : version;
+    }
+
+    /**
+     * Read the changes of every store of the bound shard after a version, in version order
+     *
+     * @param afterVersion the version already seen
+     * @param limit the maximum number of changes to read
+     * @return the changes, at most {@code limit}
+     */
+    public List<PriceChange> changesAfter(long afterVersion, int limit) {
+        return jdbcTemplate.query("SELECT version, store_id, article_id FROM price_changes "
+                        + "WHERE version > ? ORDER BY version LIMIT ?",
+                (rs, rowNum) -> PriceChange.builder()
+                        .version(rs.getLong(1))
+                        .storeId(rs.getString(2))
+                        .articleId(rs.getString(3))
+                        .build(),
+                afterVersion, limit);
+    }
+
+    /**
+     * Run an insert into the log once the current transaction holds the log lock
+     */
+    private <T> T logged(Supplier<T> insert) {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            // Auto-commit: locked and inserted in a transaction of their own, so the lock is held until the change is visible
+            return ownTransaction.execute(status -> logged(insert));
+        }
+        // Locked once per transaction, at its first change
+        if (!TransactionSynchronizationManager.hasResource(LogLock.class)) {
+            jdbcTemplate.update("MERGE INTO price_change_lock (id) KEY (id) VALUES (1)");
+            LogLock lock = new LogLock();
+            TransactionSynchronizationManager.bindResource(LogLock.class, lock);
+            TransactionSynchronizationManager.registerSynchronization(lock);
+        }
+        return insert.get();
+    }
+
+    /**
+     * Marks a transaction holding the log lock, which the database releases when it completes
+     */
+    private static final class LogLock implements TransactionSynchronization {
+
+        @Override
+        public void suspend() {
+            TransactionSynchronizationManager.unbindResource(LogLock.class);
+        }
+
+        @Override
+        public void resume() {
+            TransactionSynchronizationManager.bindResource(LogLock.class, this);
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(LogLock.class);
+        }
+    }
+}
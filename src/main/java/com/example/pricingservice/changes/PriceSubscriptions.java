@@ -0,0 +1,491 @@
+package com.example.pricingservice.changes;
+
+import com.example.pricingservice.dto.PriceResponseDTO;
+import com.example.pricingservice.exception.InvalidRequestException;
+import com.example.pricingservice.exception.ServiceOverloadedException;
+import com.example.pricingservice.service.PriceService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pushes price updates to Server-Sent Events subscribers of a store, optionally filtered by article.
+ *
+ * <p>Every {@code pricing.subscriptions.poll-interval} ms each subscribed store is checked once,
+ * whatever its number of subscribers: the change log is read from the last version seen, and once
+ * the store's next validity boundary has passed, the articles whose prices became valid or expired
+ * are looked up. The affected articles are reloaded once and sent to every subscriber interested in
+ * them; articles that no longer exist are sent as {@code removed} events. An idle subscription holds
+ * no thread, only its emitter.
+ *
+ * <p>Each subscription buffers at most one update per article: a newer update of an article
+ * replaces the unsent one, as it supersedes it. Updates are written by a small sender pool. A
+ * subscription that falls more than {@code pricing.subscriptions.max-pending} articles behind is
+ * closed; the client reconnects and catches up through the change feed. So is one whose write
+ * takes longer than {@code pricing.subscriptions.send-timeout}: a blocked write cannot be
+ * interrupted, so its sender is replaced by a new thread until the container fails the write, and
+ * a slow client only delays itself.
+ */
+@Component
+@Slf4j
+public class PriceSubscriptions {
+
+    private static final int MAX_ARTICLE_FILTER = 1000;
+
+    private final PriceService priceService;
+    private final Duration timeout;
+    private final int maxSubscriptions;
+    private final int maxPending;
+    private final long sendTimeoutNanos;
+    private final int senderThreads;
+    private final ThreadPoolExecutor senders;
+    private final Counter sentEvents;
+    private final Counter coalescedUpdates;
+    private final Counter droppedSubscriptions;
+
+    private final Map<String, StoreFeed> feeds = new ConcurrentHashMap<>();
+    private final AtomicInteger subscriptionCount = new AtomicInteger();
+
+    public PriceSubscriptions(PriceService priceService, MeterRegistry meterRegistry,
+                              @Value("${pricing.subscriptions.timeout:30m}") Duration timeout,
+                              @Value("${pricing.subscriptions.max-subscriptions:10000}") int maxSubscriptions,
+                              @Value("${pricing.subscriptions.max-pending:256}") int maxPending,
+                              @Value("${pricing.subscriptions.sender-threads:4}") int senderThreads,
+                              @Value("${pricing.subscriptions.send-timeout:5s}") Duration sendTimeout) {
+        this.priceService = priceService;
+        this.timeout = timeout;
+        this.maxSubscriptions = maxSubscriptions;
+        this.maxPending = maxPending;
+        this.sendTimeoutNanos = sendTimeout.toNanos();
+        this.senderThreads = senderThreads;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.senders = new ThreadPoolExecutor(senderThreads, senderThreads, 1, TimeUnit.MINUTES,
+                new LinkedBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "price-subscription-sender-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.sentEvents = Counter.builder("pricing.subscriptions.sent")
+                .description("Price updates and heartbeats written to subscribers")
+                .register(meterRegistry);
+        this.coalescedUpdates = Counter.builder("pricing.subscriptions.coalesced")
+                .description("Price updates replaced by a newer update of the same article before they were sent")
+                .register(meterRegistry);
+        this.droppedSubscriptions = Counter.builder("pricing.subscriptions.dropped")
+                .description("Subscriptions closed because the client fell too far behind or stopped reading")
+                .register(meterRegistry);
+        Gauge.builder("pricing.subscriptions.active", subscriptionCount, AtomicInteger::get)
+                .description("Open price subscriptions")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Subscribe to the price updates of a store
+     *
+     * @param storeId the store ID
+     * @param articleIds the articles to receive updates of, all articles of the store if empty.
+     *                   The current prices of these articles are sent first.
+     * @return the emitter streaming the updates
+     * @throws InvalidRequestException if too many articles are requested
+     * @throws ServiceOverloadedException if the maximum number of subscriptions is reached
+     */
+    public SseEmitter subscribe(String storeId, Collection<String> articleIds) {
+        if (articleIds.size() > MAX_ARTICLE_FILTER) {
+            throw new InvalidRequestException("At most " + MAX_ARTICLE_FILTER + " articles can be subscribed to");
+        }
+        if (subscriptionCount.incrementAndGet() > maxSubscriptions) {
+            subscriptionCount.decrementAndGet();
+            throw new ServiceOverloadedException("Too many price subscriptions, please retry later", Duration.ofMinutes(1));
+        }
+
+        SseEmitter emitter = new SseEmitter(timeout.toMillis());
+        Subscription subscription = new Subscription(storeId, new LinkedHashSet<>(articleIds), emitter);
+        emitter.onCompletion(() -> unsubscribe(subscription));
+        emitter.onTimeout(() -> unsubscribe(subscription));
+        emitter.onError(error -> unsubscribe(subscription));
+        feeds.compute(storeId, (key, feed) -> {
+            StoreFeed current = feed != null ? feed : new StoreFeed(priceService, storeId);
+            current.subscriptions.add(subscription);
+            return current;
+        });
+        log.debug("Subscribed to store: {}, articles: {}", storeId, articleIds.isEmpty() ? "all" : articleIds);
+
+        // Commits the response right away, so the client sees the subscription open before the first update
+        if (subscription.heartbeatDue()) {
+            senders.execute(() -> drain(subscription));
+        }
+        return emitter;
+    }
+
+    public int getSubscriptionCount() {
+        return subscriptionCount.get();
+    }
+
+    /**
+     * Check every subscribed store for written articles and crossed validity boundaries and push the
+     * affected articles to their subscribers
+     */
+    @Scheduled(fixedDelayString = "${pricing.subscriptions.poll-interval:1000}")
+    public synchronized void poll() {
+        for (String storeId : feeds.keySet()) {
+            // Drop stores whose last subscriber left, atomically with new subscriptions
+            StoreFeed feed = feeds.computeIfPresent(storeId, (key, current) ->
+                    current.subscriptions.isEmpty() ? null : current);
+            if (feed == null) {
+                continue;
+            }
+            try {
+                poll(storeId, feed);
+            } catch (RuntimeException e) {
+                log.warn("Checking store {} for price updates failed: {}", storeId, e.getMessage());
+            }
+        }
+    }
+
+    private void poll(String storeId, StoreFeed feed) {
+        ZonedDateTime now = ZonedDateTime.now();
+        Set<String> changed = feed.changes.poll(now);
+
+        // Articles to reload: the changed ones someone subscribed to, plus the current state for new subscribers
+        List<Subscription> subscriptions = new ArrayList<>(feed.subscriptions);
+        Set<String> reload = new LinkedHashSet<>();
+        for (Subscription subscription : subscriptions) {
+            if (!subscription.snapshotSent) {
+                reload.addAll(subscription.articleIds);
+            }
+            for (String articleId : changed) {
+                if (subscription.wants(articleId)) {
+                    reload.add(articleId);
+                }
+            }
+        }
+        if (reload.isEmpty()) {
+            subscriptions.forEach(subscription -> subscription.snapshotSent = true);
+            return;
+        }
+
+        Map<String, PriceResponseDTO> updates = priceService.getCurrentPrices(storeId, reload, now);
+        for (Subscription subscription : subscriptions) {
+            Collection<String> articleIds = subscription.snapshotSent ? changed : subscription.articleIds;
+            subscription.snapshotSent = true;
+            for (String articleId : articleIds) {
+                // No response: the article was deleted, or never existed, and is sent as removed
+                if (subscription.wants(articleId)) {
+                    offer(subscription, articleId, updates.get(articleId), feed.changes.getVersion());
+                }
+            }
+        }
+    }
+
+    /**
+     * Ask every idle subscription to send a heartbeat, so intermediaries keep the connection open and
+     * closed connections are noticed
+     */
+    @Scheduled(fixedDelayString = "${pricing.subscriptions.heartbeat-interval:15000}")
+    public void heartbeat() {
+        for (StoreFeed feed : feeds.values()) {
+            for (Subscription subscription : feed.subscriptions) {
+                if (subscription.heartbeatDue()) {
+                    senders.execute(() -> drain(subscription));
+                }
+            }
+        }
+    }
+
+    /**
+     * Close the subscriptions whose write has been blocked for longer than the send timeout, and
+     * start a sender in place of each blocked one
+     */
+    @Scheduled(fixedDelayString = "${pricing.subscriptions.send-check-interval:1000}")
+    public void dropStalledSubscriptions() {
+        long now = System.nanoTime();
+        for (StoreFeed feed : feeds.values()) {
+            for (Subscription subscription : feed.subscriptions) {
+                if (subscription.markStalled(now, sendTimeoutNanos)) {
+                    droppedSubscriptions.increment();
+                    log.debug("Closing subscription to store {}, a write has been blocked for more than {} ms",
+                            subscription.storeId, TimeUnit.NANOSECONDS.toMillis(sendTimeoutNanos));
+                    unsubscribe(subscription);
+                    resizeSenders(1);
+                }
+            }
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        feeds.values().forEach(feed -> feed.subscriptions.forEach(subscription -> subscription.emitter.complete()));
+        senders.shutdownNow();
+    }
+
+    private void offer(Subscription subscription, String articleId, PriceResponseDTO update, long version) {
+        OfferResult result = subscription.offer(articleId, update, version, maxPending);
+        if (result == OfferResult.SCHEDULE) {
+            senders.execute(() -> drain(subscription));
+        } else if (result == OfferResult.OVERFLOW) {
+            droppedSubscriptions.increment();
+            log.debug("Closing subscription to store {}, more than {} updates pending", subscription.storeId,
+                    maxPending);
+            boolean draining = subscription.isDraining();
+            unsubscribe(subscription);
+            // Completing waits for a write in progress, so it is left to the sender writing, if any
+            if (!draining) {
+                senders.execute(() -> complete(subscription));
+            }
+        }
+    }
+
+    /**
+     * Write the pending updates of a subscription until none is left. Runs on one sender at a time.
+     */
+    private void drain(Subscription subscription) {
+        SseEmitter.SseEventBuilder event;
+        while ((event = subscription.next()) != null) {
+            subscription.sendStarted();
+            try {
+                subscription.emitter.send(event);
+                sentEvents.increment();
+            } catch (IOException | IllegalStateException e) {
+                // The client went away; the container reports it to the emitter, which unsubscribes
+                log.debug("Sending to subscription of store {} failed: {}", subscription.storeId, e.getMessage());
+                unsubscribe(subscription);
+                return;
+            } finally {
+                if (subscription.sendFinished()) {
+                    // Replaced while blocked, this thread is one too many now
+                    resizeSenders(-1);
+                }
+            }
+        }
+        if (subscription.isClosed()) {
+            complete(subscription);
+        }
+    }
+
+    private void complete(Subscription subscription) {
+        try {
+            subscription.emitter.complete();
+        } catch (RuntimeException e) {
+            log.debug("Completing subscription to store {} failed: {}", subscription.storeId, e.getMessage());
+        }
+    }
+
+    private void resizeSenders(int delta) {
+        synchronized (senders) {
+            int size = Math.max(senderThreads, senders.getCorePoolSize() + delta);
+            // The core size may never exceed the maximum
+            if (delta > 0) {
+                senders.setMaximumPoolSize(size);
+                senders.setCorePoolSize(size);
+            } else {
+                senders.setCorePoolSize(size);
+                senders.setMaximumPoolSize(size);
+            }
+        }
+    }
+
+    private void unsubscribe(Subscription subscription) {
+        if (subscription.close()) {
+            subscriptionCount.decrementAndGet();
+            StoreFeed feed = feeds.get(subscription.storeId);
+            if (feed != null) {
+                feed.subscriptions.remove(subscription);
+            }
+        }
+    }
+
+    /**
+     * Subscribers of a store and how far they have been served. Only the scheduled poll uses the
+     * change tracker.
+     */
+    private static final class StoreFeed {
+
+        private final Set<Subscription> subscriptions = ConcurrentHashMap.newKeySet();
+        private final StoreChangeTracker changes;
+
+        private StoreFeed(PriceService priceService, String storeId) {
+            this.changes = new StoreChangeTracker(priceService, storeId);
+        }
+    }
+
+    private enum OfferResult { QUEUED, SCHEDULE, OVERFLOW }
+
+    private final class Subscription {
+
+        private final String storeId;
+        private final Set<String> articleIds;
+        private final SseEmitter emitter;
+        // Set by the poll once the current prices of the filtered articles were queued
+        private volatile boolean snapshotSent;
+
+        // Unsent updates by article, oldest first, plus the state of the sender; guarded by this
+        private final Map<String, PendingUpdate> pending = new LinkedHashMap<>();
+        private boolean heartbeatDue;
+        private boolean draining;
+        private boolean closed;
+        // Set while an event is being written, and once the write is found blocked past the send timeout
+        private long sendStartedNanos;
+        private boolean sending;
+        private boolean stalled;
+
+        private Subscription(String storeId, Set<String> articleIds, SseEmitter emitter) {
+            this.storeId = storeId;
+            this.articleIds = articleIds;
+            this.emitter = emitter;
+            this.snapshotSent = articleIds.isEmpty();
+        }
+
+        private boolean wants(String articleId) {
+            return articleIds.isEmpty() || articleIds.contains(articleId);
+        }
+
+        private synchronized OfferResult offer(String articleId, PriceResponseDTO update, long version, int maxPending) {
+            if (closed) {
+                return OfferResult.QUEUED;
+            }
+            if (pending.remove(articleId) != null) {
+                coalescedUpdates.increment();
+            }
+            pending.put(articleId, new PendingUpdate(update, version));
+            if (pending.size() > maxPending) {
+                pending.clear();
+                return OfferResult.OVERFLOW;
+            }
+            return startDraining();
+        }
+
+        /**
+         * Queue a heartbeat unless updates are being sent anyway
+         *
+         * @return true if a sender must be started
+         */
+        private synchronized boolean heartbeatDue() {
+            if (closed || draining) {
+                return false;
+            }
+            heartbeatDue = true;
+            return startDraining() == OfferResult.SCHEDULE;
+        }
+
+        private OfferResult startDraining() {
+            if (draining) {
+                return OfferResult.QUEUED;
+            }
+            draining = true;
+            return OfferResult.SCHEDULE;
+        }
+
+        /**
+         * Take the next event to send, or stop draining if there is none
+         */
+        private synchronized SseEmitter.SseEventBuilder next() {
+            if (closed) {
+                draining = false;
+                return null;
+            }
+            Iterator<Map.Entry<String, PendingUpdate>> updates = pending.entrySet().iterator();
+            if (updates.hasNext()) {
+                Map.Entry<String, PendingUpdate> next = updates.next();
+                updates.remove();
+                PendingUpdate update = next.getValue();
+                if (update.response == null) {
+                    return SseEmitter.event()
+                            .name("removed")
+                            .id(String.valueOf(update.version))
+                            .data(Map.of("store", storeId, "article", next.getKey()), MediaType.APPLICATION_JSON);
+                }
+                return SseEmitter.event()
+                        .name("price")
+                        .id(String.valueOf(update.version))
+                        .data(update.response, MediaType.APPLICATION_JSON);
+            }
+            if (heartbeatDue) {
+                heartbeatDue = false;
+                return SseEmitter.event().comment("heartbeat");
+            }
+            draining = false;
+            return null;
+        }
+
+        private synchronized boolean isDraining() {
+            return draining;
+        }
+
+        private synchronized boolean isClosed() {
+            return closed;
+        }
+
+        private synchronized void sendStarted() {
+            sending = true;
+            sendStartedNanos = System.nanoTime();
+        }
+
+        /**
+         * @return true if the write was found blocked and its sender replaced meanwhile
+         */
+        private synchronized boolean sendFinished() {
+            boolean replaced = sending && stalled;
+            sending = false;
+            return replaced;
+        }
+
+        /**
+         * @return true if a write has been blocked past the timeout and was not reported before
+         */
+        private synchronized boolean markStalled(long now, long timeoutNanos) {
+            if (!sending || stalled || now - sendStartedNanos <= timeoutNanos) {
+                return false;
+            }
+            stalled = true;
+            return true;
+        }
+
+        /**
+         * @return true if this call closed the subscription
+         */
+        private synchronized boolean close() {
+            if (closed) {
+                return false;
+            }
+            closed = true;
+            pending.clear();
+            return true;
+        }
+    }
+
+    private static final class PendingUpdate {
+
+        // Null if the article was removed
+        private final PriceResponseDTO response;
+        private final long version;
+
+        private PendingUpdate(PriceResponseDTO response, long version) {
+            this.response = response;
+            this.version = version;
+        }
+    }
+}
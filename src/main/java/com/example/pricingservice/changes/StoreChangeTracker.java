@@ -0,0 +1,85 @@
+package com.example.pricingservice.changes;
+
+import com.example.pricingservice.service.PriceService;
+
+import java.time.ZonedDateTime;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Tracks which articles of a store need reloading since the previous poll: those written, read
+ * from the change log from the last version seen, and, once the store's next validity boundary
+ * has passed, those whose prices became valid or expired.
+ *
+ * <p>Not thread-safe, the owner polls it from one thread at a time.
+ */
+public final class StoreChangeTracker {
+
+    private static final int CHANGE_BATCH_SIZE = 1000;
+
+    private final PriceService priceService;
+    private final String storeId;
+    private boolean started;
+    // Changes up to this version have been reported
+    private long version;
+    // Validity boundaries up to this time have been reported
+    private ZonedDateTime boundaryCheckedAt;
+    private ZonedDateTime nextBoundary;
+
+    public StoreChangeTracker(PriceService priceService, String storeId) {
+        this.priceService = priceService;
+        this.storeId = storeId;
+    }
+
+    /**
+     * Start tracking from the current state of the store. Called before the state is read, so
+     * writes made while it is read are reported by the next poll.
+     *
+     * @param now the time the state is read at
+     */
+    public void start(ZonedDateTime now) {
+        version = priceService.getLatestChangeVersion(storeId);
+        boundaryCheckedAt = now;
+        nextBoundary = priceService.getNextValidityBoundary(storeId, now);
+        started = true;
+    }
+
+    /**
+     * Get the articles written or crossing a validity boundary since the previous poll, starting
+     * the tracking first if needed
+     *
+     * @param now the time to check the validity boundaries at
+     * @return the IDs of the articles to reload, in change order
+     */
+    public Set<String> poll(ZonedDateTime now) {
+        if (!started) {
+            start(now);
+        }
+
+        Set<String> changed = new LinkedHashSet<>();
+        ChangeBatch batch;
+        do {
+            batch = priceService.getChangedArticles(storeId, version, CHANGE_BATCH_SIZE);
+            changed.addAll(batch.getArticleVersions().keySet());
+            version = batch.getNextVersion();
+        } while (batch.isHasMore());
+
+        boolean crossed = nextBoundary != null && !now.isBefore(nextBoundary);
+        if (crossed) {
+            changed.addAll(priceService.getArticlesCrossingBoundary(storeId, boundaryCheckedAt, now));
+            boundaryCheckedAt = now;
+        }
+        // New prices may bring the next boundary forward
+        if (crossed || !changed.isEmpty()) {
+            nextBoundary = priceService.getNextValidityBoundary(storeId, now);
+        }
+        return changed;
+    }
+
+    /**
+     * @return the change log version up to which changes have been reported
+     */
+    public long getVersion() {
+        return version;
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.pricingservice.compaction;
+
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * Outcome of one compaction run over all shards
+ */
+@Getter
+@Builder
+public class CompactionReport {
+
+    /** Prices moved to the archive because they expired before the retention window */
+    private final long archivedRows;
+
+    /** Prices folded into an overlapping price of the same amount, also moved to the archive */
+    private final long coalescedRows;
+
+    /** Articles whose prices changed */
+    private final long articles;
+
+    /** Articles whose price reads were timed before and after the run */
+    private final int sampledArticles;
+
+    /** Price rows read per sampled article before and after the run */
+    private final double rowsPerReadBefore;
+    private final double rowsPerReadAfter;
+
+    /** Mean time of the price query of a sampled article before and after the run */
+    private final double readMicrosBefore;
+    private final double readMicrosAfter;
+
+    private final long durationMillis;
+
+    public long getReclaimedRows() {
+        return archivedRows + coalescedRows;
+    }
+}
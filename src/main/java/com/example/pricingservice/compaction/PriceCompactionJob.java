@@ -0,0 +1,497 @@
+package com.example.pricingservice.compaction;
+
+import com.example.pricingservice.cache.HotKeySketch;
+import com.example.pricingservice.cache.PriceResponseCache;
+import com.example.pricingservice.changes.PriceChangeLog;
+import com.example.pricingservice.model.ArchivedPrice;
+import com.example.pricingservice.shard.StoreShards;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Keeps the {@code prices} table from growing forever (enabled with {@code pricing.compaction.enabled}).
+ *
+ * <p>Every {@code pricing.compaction.interval} ms each shard is compacted in two passes:
+ * <ul>
+ *   <li>prices whose validTo is older than {@code pricing.compaction.retention} are moved to
+ *       {@code prices_archive} and no longer served</li>
+ *   <li>overlapping prices of an article with the same type, subtype, currency and amount are
+ *       replaced by one price spanning their union; the absorbed rows are archived as well</li>
+ * </ul>
+ * The second pass only folds rows the read path would merge anyway (see
+ * {@code PriceService.mergePricesWithEqualAmounts}), so a full response is unchanged, it just
+ * takes fewer rows to build. Both passes run in transactions of at most
+ * {@code pricing.compaction.batch-size} rows or articles with a short pause in between. Reads
+ * are never blocked, as the database serves them from committed row versions; only writers of
+ * the same rows wait for a batch to commit.
+ *
+ * <p>Touched articles are logged in the change log and dropped from the response cache. Each
+ * run reports the rows reclaimed and times the price query of a sample of the touched articles
+ * before and after. The replica re-syncs the logged articles, so the rows removed here leave it too.
+ */
+@Component
+@Slf4j
+public class PriceCompactionJob {
+
+    private static final int SAMPLE_ARTICLES = 100;
+
+    private static final String FIND_EXPIRED = "SELECT id FROM prices WHERE id > ? AND valid_to < ? "
+            + "ORDER BY id LIMIT ? FOR UPDATE";
+
+    private static final String FIND_OVERLAPPING_ARTICLES = "SELECT DISTINCT p1.article_id FROM prices p1 "
+            + "JOIN prices p2 ON p2.article_id = p1.article_id AND p2.id <> p1.id "
+            + "AND p2.type = p1.type AND p2.subtype = p1.subtype AND p2.currency = p1.currency "
+            + "AND p2.amount = p1.amount AND p2.valid_from < p1.valid_to AND p1.valid_from < p2.valid_to "
+            + "WHERE p1.article_id > ? ORDER BY p1.article_id LIMIT ?";
+
+    private static final String ARCHIVE = "INSERT INTO prices_archive "
+            + "(id, article_id, type, subtype, currency, amount, valid_from, valid_to, reason, archived_at) "
+            + "SELECT id, article_id, type, subtype, currency, amount, valid_from, valid_to, :reason, :archivedAt "
+            + "FROM prices WHERE id IN (:ids)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final StoreShards storeShards;
+    private final PriceChangeLog changeLog;
+    private final PriceResponseCache priceCache;
+    private final Clock clock;
+    private final boolean enabled;
+    private final Duration retention;
+    private final int batchSize;
+    private final Duration batchPause;
+    private final Counter archivedRows;
+    private final Counter coalescedRows;
+    private final Counter failures;
+    private final ExecutorService executor;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    @Autowired
+    public PriceCompactionJob(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                              StoreShards storeShards, PriceChangeLog changeLog, PriceResponseCache priceCache,
+                              MeterRegistry meterRegistry,
+                              @Value("${pricing.compaction.enabled:false}") boolean enabled,
+                              @Value("${pricing.compaction.retention:365d}") Duration retention,
+                              @Value("${pricing.compaction.batch-size:500}") int batchSize,
+                              @Value("${pricing.compaction.batch-pause:10ms}") Duration batchPause) {
+        this(jdbcTemplate, transactionManager, storeShards, changeLog, priceCache, meterRegistry, enabled,
+                retention, batchSize, batchPause, Clock.systemUTC());
+    }
+
+    PriceCompactionJob(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                       StoreShards storeShards, PriceChangeLog changeLog, PriceResponseCache priceCache,
+                       MeterRegistry meterRegistry, boolean enabled, Duration retention, int batchSize,
+                       Duration batchPause, Clock clock) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Invalid compaction batch size");
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        // Not read-only, so that the batches run on the primary
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.storeShards = storeShards;
+        this.changeLog = changeLog;
+        this.priceCache = priceCache;
+        this.clock = clock;
+        this.enabled = enabled;
+        this.retention = retention;
+        this.batchSize = batchSize;
+        this.batchPause = batchPause;
+        this.archivedRows = Counter.builder("pricing.compaction.archived_rows")
+                .description("Prices moved to the archive because they expired before the retention window")
+                .register(meterRegistry);
+        this.coalescedRows = Counter.builder("pricing.compaction.coalesced_rows")
+                .description("Prices folded into an overlapping price of the same amount")
+                .register(meterRegistry);
+        this.failures = Counter.builder("pricing.compaction.failures")
+                .description("Compaction runs that failed")
+                .register(meterRegistry);
+        // Runs take a while, so they are kept off the scheduler pool shared with the cache sweep and feeds
+        this.executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "price-compaction");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Start a run in the background unless the previous one is still going
+     */
+    @Scheduled(fixedDelayString = "${pricing.compaction.interval:3600000}",
+               initialDelayString = "${pricing.compaction.interval:3600000}")
+    public void schedule() {
+        if (!enabled || !running.compareAndSet(false, true)) {
+            return;
+        }
+        executor.execute(() -> {
+            try {
+                compact();
+            } catch (RuntimeException e) {
+                failures.increment();
+                log.warn("Price compaction failed", e);
+            } finally {
+                running.set(false);
+            }
+        });
+    }
+
+    /**
+     * Compact all shards, archiving prices that expired before the retention window
+     *
+     * @return the rows reclaimed and the read cost before and after
+     */
+    public CompactionReport compact() {
+        return compact(ZonedDateTime.now(clock).minus(retention));
+    }
+
+    /**
+     * Compact all shards
+     *
+     * @param cutoff prices whose validTo is before this instant are archived
+     * @return the rows reclaimed and the read cost before and after
+     */
+    public CompactionReport compact(ZonedDateTime cutoff) {
+        long start = System.nanoTime();
+        OffsetDateTime expiredBefore = cutoff.toOffsetDateTime();
+        Totals totals = new Totals();
+        for (int shard = 0; shard < storeShards.getShardCount(); shard++) {
+            try (StoreShards.Scope scope = storeShards.forShard(shard)) {
+                compactShard(expiredBefore, totals);
+            }
+        }
+
+        CompactionReport report = CompactionReport.builder()
+                .archivedRows(totals.archived)
+                .coalescedRows(totals.coalesced)
+                .articles(totals.articles.size())
+                .sampledArticles(totals.before.articles)
+                .rowsPerReadBefore(totals.before.rowsPerRead())
+                .rowsPerReadAfter(totals.after.rowsPerRead())
+                .readMicrosBefore(totals.before.microsPerRead())
+                .readMicrosAfter(totals.after.microsPerRead())
+                .durationMillis(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start))
+                .build();
+        log.info("Price compaction reclaimed {} rows ({} expired, {} coalesced) of {} articles in {} ms; "
+                        + "price reads of {} sampled articles went from {} to {} rows and {} to {} us",
+                report.getReclaimedRows(), report.getArchivedRows(), report.getCoalescedRows(), report.getArticles(),
+                report.getDurationMillis(), report.getSampledArticles(),
+                String.format("%.1f", report.getRowsPerReadBefore()), String.format("%.1f", report.getRowsPerReadAfter()),
+                String.format("%.1f", report.getReadMicrosBefore()), String.format("%.1f", report.getReadMicrosAfter()));
+        return report;
+    }
+
+    @PreDestroy
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    private void compactShard(OffsetDateTime expiredBefore, Totals totals) {
+        List<Long> sample = sampleArticles(expiredBefore);
+        totals.before.add(timeReads(sample));
+
+        long afterId = 0;
+        Batch batch;
+        do {
+            long from = afterId;
+            batch = transactionTemplate.execute(status -> archiveExpired(from, expiredBefore));
+            finish(batch, totals);
+            totals.archived += batch.rows;
+            archivedRows.increment(batch.rows);
+            afterId = batch.lastKey;
+        } while (batch.scanned == batchSize && pause());
+
+        long afterArticle = 0;
+        do {
+            long from = afterArticle;
+            batch = transactionTemplate.execute(status -> coalesceOverlapping(from));
+            finish(batch, totals);
+            totals.coalesced += batch.rows;
+            coalescedRows.increment(batch.rows);
+            afterArticle = batch.lastKey;
+        } while (batch.scanned == batchSize && pause());
+
+        totals.after.add(timeReads(sample));
+    }
+
+    /**
+     * Move the next batch of expired prices, in id order, to the archive
+     */
+    private Batch archiveExpired(long afterId, OffsetDateTime expiredBefore) {
+        List<Long> ids = jdbcTemplate.queryForList(FIND_EXPIRED, Long.class, afterId, expiredBefore, batchSize);
+        if (ids.isEmpty()) {
+            return new Batch(0, afterId);
+        }
+        Batch batch = new Batch(ids.size(), ids.get(ids.size() - 1));
+        batch.articles.addAll(namedJdbcTemplate.queryForList(
+                "SELECT DISTINCT article_id FROM prices WHERE id IN (:ids)", new MapSqlParameterSource("ids", ids),
+                Long.class));
+        batch.rows = archive(ids, ArchivedPrice.REASON_EXPIRED);
+        logChanges(batch);
+        return batch;
+    }
+
+    /**
+     * Fold the overlapping equal prices of the next batch of articles, in id order, into one price each
+     */
+    private Batch coalesceOverlapping(long afterArticle) {
+        List<Long> articleIds = jdbcTemplate.queryForList(FIND_OVERLAPPING_ARTICLES, Long.class, afterArticle,
+                batchSize);
+        if (articleIds.isEmpty()) {
+            return new Batch(0, afterArticle);
+        }
+        Batch batch = new Batch(articleIds.size(), articleIds.get(articleIds.size() - 1));
+
+        // Locked, so that no concurrent write changes a row between reading and folding it
+        List<PriceRow> rows = namedJdbcTemplate.query("SELECT id, article_id, type, subtype, currency, amount, "
+                        + "valid_from, valid_to FROM prices WHERE article_id IN (:ids) ORDER BY id FOR UPDATE",
+                new MapSqlParameterSource("ids", articleIds),
+                (rs, rowNum) -> new PriceRow(rs.getLong("id"), rs.getLong("article_id"),
+                        rs.getString("type") + "_" + rs.getString("subtype") + "_" + rs.getString("currency")
+                                + "_" + rs.getBigDecimal("amount"),
+                        rs.getObject("valid_from", OffsetDateTime.class),
+                        rs.getObject("valid_to", OffsetDateTime.class)));
+
+        Map<String, List<PriceRow>> groups = new LinkedHashMap<>();
+        for (PriceRow row : rows) {
+            groups.computeIfAbsent(row.articleId + "_" + row.group, key -> new ArrayList<>()).add(row);
+        }
+        List<Long> absorbed = new ArrayList<>();
+        List<Object[]> widened = new ArrayList<>();
+        for (List<PriceRow> group : groups.values()) {
+            if (group.size() > 1) {
+                fold(group, absorbed, widened, batch);
+            }
+        }
+        if (!absorbed.isEmpty()) {
+            batch.rows = archive(absorbed, ArchivedPrice.REASON_COALESCED);
+            jdbcTemplate.batchUpdate("UPDATE prices SET valid_from = ?, valid_to = ? WHERE id = ?", widened);
+            logChanges(batch);
+        }
+        return batch;
+    }
+
+    /**
+     * Sweep a group in validFrom order: a price that starts before the end of the current run
+     * overlaps one of its prices, which is exactly when the read path merges it into the run
+     */
+    private static void fold(List<PriceRow> group, List<Long> absorbed, List<Object[]> widened, Batch batch) {
+        // Empty ranges are left alone, the read path treats them differently
+        List<PriceRow> ranges = new ArrayList<>();
+        for (PriceRow row : group) {
+            if (row.validFrom.isBefore(row.validTo)) {
+                ranges.add(row);
+            }
+        }
+        ranges.sort(Comparator.comparing((PriceRow row) -> row.validFrom).thenComparing(row -> row.id));
+
+        PriceRow kept = null;
+        OffsetDateTime runEnd = null;
+        boolean folded = false;
+        for (PriceRow row : ranges) {
+            if (kept != null && row.validFrom.isBefore(runEnd)) {
+                absorbed.add(row.id);
+                if (row.validTo.isAfter(runEnd)) {
+                    runEnd = row.validTo;
+                }
+                folded = true;
+                continue;
+            }
+            if (folded) {
+                widened.add(new Object[]{kept.validFrom, runEnd, kept.id});
+                batch.articles.add(kept.articleId);
+            }
+            kept = row;
+            runEnd = row.validTo;
+            folded = false;
+        }
+        if (folded) {
+            widened.add(new Object[]{kept.validFrom, runEnd, kept.id});
+            batch.articles.add(kept.articleId);
+        }
+    }
+
+    private int archive(List<Long> ids, String reason) {
+        MapSqlParameterSource parameters = new MapSqlParameterSource("ids", ids)
+                .addValue("reason", reason)
+                .addValue("archivedAt", OffsetDateTime.now(clock));
+        int archived = namedJdbcTemplate.update(ARCHIVE, parameters);
+        namedJdbcTemplate.update("DELETE FROM prices WHERE id IN (:ids)", parameters);
+        return archived;
+    }
+
+    /**
+     * Log the touched articles as changed, in the batch transaction, and remember their keys
+     */
+    private void logChanges(Batch batch) {
+        if (batch.articles.isEmpty()) {
+            return;
+        }
+        namedJdbcTemplate.query("SELECT store_id, article_id FROM articles WHERE id IN (:ids)",
+                new MapSqlParameterSource("ids", batch.articles), rs -> {
+                    String storeId = rs.getString("store_id");
+                    String articleId = rs.getString("article_id");
+                    changeLog.record(storeId, articleId);
+                    batch.articleKeys.add(HotKeySketch.key(storeId, articleId));
+                });
+    }
+
+    /**
+     * Once a batch committed, drop the cached responses built from its old rows
+     */
+    private void finish(Batch batch, Totals totals) {
+        totals.articles.addAll(batch.articleKeys);
+        priceCache.invalidateArticles(batch.articleKeys);
+        if (batch.rows > 0) {
+            log.debug("Compacted {} prices of {} articles", batch.rows, batch.articleKeys.size());
+        }
+    }
+
+    /**
+     * Articles with expired or overlapping prices, the ones a run is about to change
+     */
+    private List<Long> sampleArticles(OffsetDateTime expiredBefore) {
+        Set<Long> sample = new LinkedHashSet<>(jdbcTemplate.queryForList(
+                "SELECT DISTINCT article_id FROM prices WHERE valid_to < ? ORDER BY article_id LIMIT ?",
+                Long.class, expiredBefore, SAMPLE_ARTICLES));
+        sample.addAll(jdbcTemplate.queryForList(FIND_OVERLAPPING_ARTICLES, Long.class, 0L, SAMPLE_ARTICLES));
+        return new ArrayList<>(sample).subList(0, Math.min(sample.size(), SAMPLE_ARTICLES));
+    }
+
+    /**
+     * Time the price query of each article, after an untimed pass to warm up the statement
+     */
+    private ReadCost timeReads(Collection<Long> articleIds) {
+        ReadCost cost = new ReadCost();
+        if (articleIds.isEmpty()) {
+            return cost;
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            readPrices(articleIds);
+            long start = System.nanoTime();
+            cost.rows = readPrices(articleIds);
+            cost.nanos = System.nanoTime() - start;
+        });
+        cost.articles = articleIds.size();
+        return cost;
+    }
+
+    private long readPrices(Collection<Long> articleIds) {
+        long rows = 0;
+        for (Long articleId : articleIds) {
+            rows += jdbcTemplate.query("SELECT type, subtype, currency, amount, valid_from, valid_to "
+                    + "FROM prices WHERE article_id = ?", (rs, rowNum) -> rs.getBigDecimal("amount"), articleId).size();
+        }
+        return rows;
+    }
+
+    /**
+     * Wait between batches so that a run does not monopolize the database
+     *
+     * @return false if the run was interrupted
+     */
+    private boolean pause() {
+        if (batchPause.isZero()) {
+            return true;
+        }
+        try {
+            Thread.sleep(batchPause.toMillis());
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static final class PriceRow {
+
+        private final long id;
+        private final long articleId;
+        private final String group;
+        private final OffsetDateTime validFrom;
+        private final OffsetDateTime validTo;
+
+        private PriceRow(long id, long articleId, String group, OffsetDateTime validFrom, OffsetDateTime validTo) {
+            this.id = id;
+            this.articleId = articleId;
+            this.group = group;
+            this.validFrom = validFrom;
+            this.validTo = validTo;
+        }
+    }
+
+    /**
+     * One transaction's worth of work: the rows or articles scanned, up to the last key, and what changed
+     */
+    private static final class Batch {
+
+        private final int scanned;
+        private final long lastKey;
+        private final Set<Long> articles = new HashSet<>();
+        private final Set<String> articleKeys = new HashSet<>();
+        private int rows;
+
+        private Batch(int scanned, long lastKey) {
+            this.scanned = scanned;
+            this.lastKey = lastKey;
+        }
+    }
+
+    private static final class ReadCost {
+
+        private int articles;
+        private long rows;
+        private long nanos;
+
+        private void add(ReadCost other) {
+            articles += other.articles;
+            rows += other.rows;
+            nanos += other.nanos;
+        }
+
+        private double rowsPerRead() {
+            return articles == 0 ? 0 : (double) rows / articles;
+        }
+
+        private double microsPerRead() {
+            return articles == 0 ? 0 : nanos / 1000.0 / articles;
+        }
+    }
+
+    private static final class Totals {
+
+        private final ReadCost before = new ReadCost();
+        private final ReadCost after = new ReadCost();
+        private final Set<String> articles = new HashSet<>();
+        private long archived;
+        private long coalesced;
+    }
+}
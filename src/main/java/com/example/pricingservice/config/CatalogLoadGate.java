@@ -0,0 +1,154 @@
+package com.example.pricingservice.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs catalog loads and keeps the application out of the readiness group until they finish.
+ *
+ * <p>With {@code pricing.data-loader.mode=sync} (default) loads run inline on the calling thread,
+ * so startup blocks until the data is there. With {@code background} they are queued until the
+ * context has started and then run on {@code pricing.data-loader.threads} threads, the parts of a
+ * load in parallel, while the server is already up. The {@code catalogLoadGate} health indicator
+ * is part of the readiness group and reports OUT_OF_SERVICE until every load has completed.
+ */
+@Component
+@Slf4j
+public class CatalogLoadGate implements HealthIndicator, DisposableBean {
+
+    private final ApplicationEventPublisher eventPublisher;
+    private final boolean background;
+    private final int threads;
+
+    private final List<Runnable> queued = new ArrayList<>();
+    private final AtomicInteger pending = new AtomicInteger();
+    private final AtomicBoolean published = new AtomicBoolean();
+    private volatile boolean started;
+    private volatile boolean applicationReady;
+    private volatile String failure;
+    private ExecutorService executor;
+
+    public CatalogLoadGate(ApplicationEventPublisher eventPublisher,
+                           @Value("${pricing.data-loader.mode:sync}") String mode,
+                           @Value("${pricing.data-loader.threads:0}") int threads) {
+        if (!mode.equals("sync") && !mode.equals("background")) {
+            throw new IllegalArgumentException("pricing.data-loader.mode must be sync or background, was " + mode);
+        }
+        this.eventPublisher = eventPublisher;
+        this.background = mode.equals("background");
+        this.threads = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * Run a catalog load made of independent parts
+     *
+     * @param name the load name, for logging
+     * @param parts the parts, each running in its own transaction
+     * @return a future completed when all parts have run
+     */
+    public CompletableFuture<Void> load(String name, List<Runnable> parts) {
+        if (!background) {
+            long start = System.nanoTime();
+            parts.forEach(Runnable::run);
+            log.info("Loaded {} in {} ms", name, (System.nanoTime() - start) / 1_000_000);
+            return CompletableFuture.completedFuture(null);
+        }
+
+        pending.incrementAndGet();
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        Runnable launch = () -> runInBackground(name, parts, done);
+        synchronized (queued) {
+            if (!started) {
+                // Beans may still be initializing, so nothing runs concurrently before the context has started
+                queued.add(launch);
+                return done;
+            }
+        }
+        launch.run();
+        return done;
+    }
+
+    private void runInBackground(String name, List<Runnable> parts, CompletableFuture<Void> done) {
+        long start = System.nanoTime();
+        CompletableFuture<?>[] futures = parts.stream()
+                .map(part -> CompletableFuture.runAsync(part, executor))
+                .toArray(CompletableFuture[]::new);
+        CompletableFuture.allOf(futures).whenComplete((result, error) -> {
+            if (error != null) {
+                failure = name + ": " + error.getMessage();
+                log.error("Loading {} failed, the application stays out of service", name, error);
+                done.completeExceptionally(error);
+            } else {
+                log.info("Loaded {} in background in {} ms", name, (System.nanoTime() - start) / 1_000_000);
+                done.complete(null);
+            }
+            pending.decrementAndGet();
+            publishIfLoaded();
+        });
+    }
+
+    @EventListener(ApplicationStartedEvent.class)
+    public void onStarted() {
+        List<Runnable> launches;
+        synchronized (queued) {
+            if (background) {
+                AtomicInteger threadCount = new AtomicInteger();
+                executor = Executors.newFixedThreadPool(threads, runnable -> {
+                    Thread thread = new Thread(runnable, "catalog-loader-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+            }
+            started = true;
+            launches = new ArrayList<>(queued);
+            queued.clear();
+        }
+        launches.forEach(Runnable::run);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onReady() {
+        applicationReady = true;
+        publishIfLoaded();
+    }
+
+    @Override
+    public Health health() {
+        if (failure != null) {
+            return Health.down().withDetail("failed", failure).build();
+        }
+        if (!published.get()) {
+            return Health.outOfService().withDetail("pendingLoads", pending.get()).build();
+        }
+        return Health.up().build();
+    }
+
+    @Override
+    public void destroy() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    private void publishIfLoaded() {
+        if (applicationReady && pending.get() == 0 && failure == null && published.compareAndSet(false, true)) {
+            eventPublisher.publishEvent(new CatalogLoadedEvent());
+        }
+    }
+}
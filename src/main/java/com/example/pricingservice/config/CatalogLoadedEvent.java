@@ -0,0 +1,8 @@
+package com.example.pricingservice.config;
+
+/**
+ * Published once all catalog loads registered with {@link CatalogLoadGate} have completed and the
+ * application is ready. Components deriving state from the full catalog rebuild it on this event.
+ */
+public final class CatalogLoadedEvent {
+}
@@ -0,0 +1,43 @@
+package com.example.pricingservice.config;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+
+/**
+ * Configuration for the binary response formats offered next to JSON.
+ * JSON stays the default; clients opt in with {@code Accept: application/cbor}.
+ */
+@Configuration
+public class ContentNegotiationConfig {
+
+    /**
+     * CBOR converter for price responses. Timestamps are written as epoch milliseconds
+     * instead of ISO-8601 strings, which is where most of the size saving comes from.
+     *
+     * @return the CBOR message converter
+     */
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter() {
+        return new MappingJackson2CborHttpMessageConverter(cborMapper());
+    }
+
+    /**
+     * Builds the mapper used for CBOR payloads
+     *
+     * @return the CBOR object mapper
+     */
+    public static CBORMapper cborMapper() {
+        return CBORMapper.builder()
+                .addModule(new JavaTimeModule())
+                .enable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .disable(SerializationFeature.WRITE_DATE_TIMESTAMPS_AS_NANOSECONDS)
+                // Reads the epoch milliseconds back as written, not as seconds
+                .disable(DeserializationFeature.READ_DATE_TIMESTAMPS_AS_NANOSECONDS)
+                .build();
+    }
+}
@@ -4,12 +4,12 @@ import com.example.pricingservice.model.Article;
 import com.example.pricingservice.model.Price;
 import com.example.pricingservice.repository.ArticleRepository;
 import com.example.pricingservice.repository.PriceRepository;
+import com.example.pricingservice.shard.StoreShards;
 import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.ZonedDateTime;
@@ -27,23 +27,52 @@ public class DataLoader {
     
     private final ArticleRepository articleRepository;
     private final PriceRepository priceRepository;
+    private final CatalogLoadGate catalogLoadGate;
+    private final StoreShards storeShards;
 
-    public DataLoader(ArticleRepository articleRepository, PriceRepository priceRepository) {
+    public DataLoader(ArticleRepository articleRepository, PriceRepository priceRepository,
+                      CatalogLoadGate catalogLoadGate, StoreShards storeShards) {
         this.articleRepository = articleRepository;
         this.priceRepository = priceRepository;
+        this.catalogLoadGate = catalogLoadGate;
+        this.storeShards = storeShards;
     }
 
     /**
-     * Populates the database with sample data on application startup
+     * Populates the database with sample data on application startup, inline or in the
+     * background depending on {@code pricing.data-loader.mode}
      */
     @PostConstruct
-    @Transactional
+    public void scheduleLoad() {
+        catalogLoadGate.load("sample data", List.of(this::loadData));
+    }
+
+    /**
+     * Populates the database with sample data
+     */
     public void loadData() {
+        // Application contexts sharing the same database (e.g. in tests) must not seed it twice
+        boolean seeded;
+        try (StoreShards.Scope scope = storeShards.forStore("7001")) {
+            seeded = articleRepository.findByStoreIdAndArticleId("7001", "1000102674").isPresent();
+        }
+        if (seeded) {
+            logger.info("Sample data already present, skipping initial data loading");
+            return;
+        }
+        
         logger.info("Loading initial data into the database");
         
-        // Create sample articles
-        createSampleArticles();
-        createOverlapTestArticle();
+        // Create sample articles, each store on its own shard
+        try (StoreShards.Scope scope = storeShards.forStore("7001")) {
+            createSampleArticles();
+        }
+        try (StoreShards.Scope scope = storeShards.forStore("9999")) {
+            createArticleWithoutPrices();
+        }
+        try (StoreShards.Scope scope = storeShards.forStore("8001")) {
+            createOverlapTestArticle();
+        }
         
         logger.info("Initial data loading completed");
     }
@@ -139,7 +168,13 @@ public class DataLoader {
         
         priceRepository.saveAll(prices2);
         
-        // Sample article 3 - No prices to test error case
+        logger.info("Created 2 sample articles with their prices");
+    }
+    
+    /**
+     * Create an article without prices to test the error case
+     */
+    private void createArticleWithoutPrices() {
         Article article3 = new Article();
         article3.setArticleId("9999999999");
         article3.setStoreId("9999");
@@ -149,8 +184,6 @@ public class DataLoader {
         article3.setModel("TEST123");
         
         articleRepository.save(article3);
-        
-        logger.info("Created 3 sample articles with their prices");
     }
     
     /**
@@ -0,0 +1,33 @@
+package com.example.pricingservice.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+/**
+ * Configuration for the application datasource
+ */
+@Configuration
+public class DataSourceConfig {
+
+    /**
+     * Wraps the connection pool so a physical connection is only borrowed when the first
+     * statement runs. Read-only transactions answered from the price cache never touch the pool.
+     *
+     * @return the post processor wrapping the Hikari datasource
+     */
+    @Bean
+    public static BeanPostProcessor lazyConnectionDataSourcePostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof HikariDataSource dataSource) {
+                    return new LazyConnectionDataSourceProxy(dataSource);
+                }
+                return bean;
+            }
+        };
+    }
+}
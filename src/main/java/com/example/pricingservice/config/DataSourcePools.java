@@ -0,0 +1,56 @@
+package com.example.pricingservice.config;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.flywaydb.core.Flyway;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+
+/**
+ * Connection pools created by hand for the multi-database profiles, where the single
+ * auto-configured pool does not apply
+ */
+final class DataSourcePools {
+
+    private DataSourcePools() {
+    }
+
+    /**
+     * Create a pool with the settings of {@code spring.datasource.hikari.*} for another database
+     *
+     * @param url the JDBC URL of the database
+     * @param poolSuffix appended to the configured pool name, e.g. "shard-0"
+     * @return the pool
+     */
+    static HikariDataSource create(Environment environment, ObjectProvider<MeterRegistry> meterRegistry,
+                                   String url, String poolSuffix) {
+        HikariConfig config = new HikariConfig();
+        Binder binder = Binder.get(environment);
+        binder.bind("spring.datasource.hikari", Bindable.ofInstance(config));
+        config.setJdbcUrl(url);
+        binder.bind("spring.datasource.driver-class-name", String.class).ifBound(config::setDriverClassName);
+        binder.bind("spring.datasource.username", String.class).ifBound(config::setUsername);
+        binder.bind("spring.datasource.password", String.class).ifBound(config::setPassword);
+        config.setPoolName((config.getPoolName() != null ? config.getPoolName() : "pricing-pool") + "-" + poolSuffix);
+        // The pool is not a bean, so the actuator does not bind its metrics
+        meterRegistry.ifAvailable(registry -> config.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry)));
+        return new HikariDataSource(config);
+    }
+
+    /**
+     * Apply the catalog migrations in {@code db/migration}
+     */
+    static void migrate(DataSource dataSource) {
+        Flyway.configure()
+                .dataSource(dataSource)
+                .locations("classpath:db/migration")
+                .load()
+                .migrate();
+    }
+}
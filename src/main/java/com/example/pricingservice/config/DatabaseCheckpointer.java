@@ -0,0 +1,52 @@
+package com.example.pricingservice.config;
+
+import com.example.pricingservice.shard.StoreShards;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Periodically checkpoints the file-backed database (profile {@code persistent}). H2 writes
+ * committed changes to the MVStore within {@code WRITE_DELAY}; a checkpoint additionally syncs the
+ * file, bounding how much work a crash can lose and how much of the file has to be read on reopen.
+ */
+@Component
+@Profile("persistent")
+@Slf4j
+public class DatabaseCheckpointer {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final StoreShards storeShards;
+
+    public DatabaseCheckpointer(JdbcTemplate jdbcTemplate, StoreShards storeShards) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.storeShards = storeShards;
+    }
+
+    @Scheduled(fixedDelayString = "${pricing.persistence.checkpoint-interval:60000}",
+               initialDelayString = "${pricing.persistence.checkpoint-interval:60000}")
+    public void checkpoint() {
+        long start = System.nanoTime();
+        for (int shard = 0; shard < storeShards.getShardCount(); shard++) {
+            try (StoreShards.Scope scope = storeShards.forShard(shard)) {
+                jdbcTemplate.execute("CHECKPOINT SYNC");
+            }
+        }
+        log.debug("Database checkpoint completed in {} ms", (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Sync before the pool closes the database so the next start finds a clean file
+     */
+    @PreDestroy
+    public void checkpointOnShutdown() {
+        try {
+            checkpoint();
+        } catch (RuntimeException e) {
+            log.warn("Checkpoint on shutdown failed", e);
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.pricingservice.config;
+
+import com.example.pricingservice.json.PriceJsonModule;
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Modules for the JSON mapper; Spring Boot registers every {@link Module} bean with it.
+ * The CBOR mapper ({@link ContentNegotiationConfig}) is configured separately.
+ */
+@Configuration
+public class JacksonConfig {
+
+    /**
+     * Hand-written serializers for price responses
+     *
+     * @return the module
+     */
+    @Bean
+    public Module priceJsonModule() {
+        return new PriceJsonModule();
+    }
+
+    /**
+     * Generated accessors instead of reflection for the remaining DTOs
+     *
+     * @return the module
+     */
+    @Bean
+    public Module blackbirdModule() {
+        return new BlackbirdModule();
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.pricingservice.config;
+
+import com.example.pricingservice.replica.CatalogReplicator;
+import com.example.pricingservice.replica.ReadWriteRoutingDataSource;
+import com.example.pricingservice.replica.ReplicaDataSources;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+
+/**
+ * Read/write split (profile {@code replica}): read-only transactions run on a replica database
+ * that {@link CatalogReplicator} keeps in sync, everything else on the primary
+ */
+@Configuration
+@Profile("replica")
+public class ReplicaConfig {
+
+    /**
+     * Open the primary ({@code spring.datasource.url}) and the replica ({@code pricing.replica.url}).
+     * Both pools take their settings from {@code spring.datasource.hikari.*}.
+     *
+     * @return the pools
+     */
+    @Bean
+    public ReplicaDataSources replicaDataSources(Environment environment, ObjectProvider<MeterRegistry> meterRegistry,
+                                                 @Value("${spring.datasource.url}") String primaryUrl,
+                                                 @Value("${pricing.replica.url}") String replicaUrl) {
+        HikariDataSource primary = DataSourcePools.create(environment, meterRegistry, primaryUrl, "primary");
+        HikariDataSource replica = DataSourcePools.create(environment, meterRegistry, replicaUrl, "replica");
+        try {
+            // The primary schema comes from Hibernate or Flyway as usual, the replica always from the migrations
+            DataSourcePools.migrate(replica);
+        } catch (RuntimeException e) {
+            replica.close();
+            primary.close();
+            throw e;
+        }
+        return new ReplicaDataSources(primary, replica);
+    }
+
+    /**
+     * Routes by the read-only flag of the current transaction, which is only set after the
+     * transaction began, so the connection has to be borrowed lazily on the first statement
+     *
+     * @return the application datasource
+     */
+    @Bean
+    public DataSource dataSource(ReplicaDataSources replicaDataSources, CatalogReplicator replicator,
+                                 MeterRegistry meterRegistry) {
+        return new LazyConnectionDataSourceProxy(new ReadWriteRoutingDataSource(replicaDataSources.getPrimary(),
+                replicaDataSources.getReplica(), replicator::isReplicaAvailable, meterRegistry));
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.pricingservice.config;
+
+import com.example.pricingservice.shard.ShardDataSources;
+import com.example.pricingservice.shard.ShardRoutingDataSource;
+import com.example.pricingservice.shard.StoreShards;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Store-partitioned catalog (profile {@code sharded}): one database and connection pool per shard,
+ * behind a routing datasource that picks the shard bound by {@link StoreShards}
+ */
+@Configuration
+@Profile("sharded")
+@Slf4j
+public class ShardingConfig {
+
+    // Identity columns of shard k start at k * ID_BLOCK + 1, so entity ids (and L2 cache keys) and change versions never collide
+    static final long ID_BLOCK = 1_000_000_000_000L;
+
+    /**
+     * Open and migrate the database of every shard. Each pool takes its settings from
+     * {@code spring.datasource.hikari.*} and its URL from {@code pricing.sharding.url-template}.
+     *
+     * @return the pools, indexed by shard
+     */
+    @Bean
+    public ShardDataSources shardDataSources(Environment environment, StoreShards storeShards,
+                                             ObjectProvider<MeterRegistry> meterRegistry,
+                                             @Value("${pricing.sharding.url-template}") String urlTemplate) {
+        List<HikariDataSource> pools = new ArrayList<>();
+        try {
+            for (int shard = 0; shard < storeShards.getShardCount(); shard++) {
+                HikariDataSource pool = DataSourcePools.create(environment, meterRegistry,
+                        String.format(urlTemplate, shard), "shard-" + shard);
+                pools.add(pool);
+                migrate(pool, shard);
+            }
+        } catch (RuntimeException e) {
+            pools.forEach(HikariDataSource::close);
+            throw e;
+        }
+        log.info("Opened {} catalog shards", pools.size());
+        return new ShardDataSources(pools);
+    }
+
+    /**
+     * Routes by shard and, like the single pool, only borrows a connection when the first statement runs
+     *
+     * @return the application datasource
+     */
+    @Bean
+    public DataSource dataSource(ShardDataSources shardDataSources) {
+        return new LazyConnectionDataSourceProxy(new ShardRoutingDataSource(shardDataSources.getPools()));
+    }
+
+    private static void migrate(DataSource dataSource, int shard) {
+        DataSourcePools.migrate(dataSource);
+
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        Integer articles = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM articles", Integer.class);
+        if (shard > 0 && articles != null && articles == 0) {
+            long firstId = shard * ID_BLOCK + 1;
+            jdbcTemplate.execute("ALTER TABLE articles ALTER COLUMN id RESTART WITH " + firstId);
+            jdbcTemplate.execute("ALTER TABLE prices ALTER COLUMN id RESTART WITH " + firstId);
+            jdbcTemplate.execute("ALTER TABLE price_changes ALTER COLUMN version RESTART WITH " + firstId);
+        }
+    }
+}
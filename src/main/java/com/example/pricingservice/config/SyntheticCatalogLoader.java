@@ -0,0 +1,151 @@
+package com.example.pricingservice.config;
+
+import com.example.pricingservice.changes.PriceChangeLog;
+import com.example.pricingservice.shard.StoreShards;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Generates a large synthetic catalog for load testing (profile {@code loadtest}).
+ * Store and article IDs follow the scheme the load-test driver in {@code load-test/} replays:
+ * store {@code 10000 + s} and article {@code 3000000000 + a}.
+ */
+@Component
+@Profile("loadtest")
+@Slf4j
+public class SyntheticCatalogLoader implements ApplicationRunner {
+
+    public static final int FIRST_STORE_ID = 10000;
+    public static final long FIRST_ARTICLE_ID = 3000000000L;
+
+    private static final OffsetDateTime CATALOG_START = OffsetDateTime.of(2024, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+    private static final OffsetDateTime END_OF_TIME = OffsetDateTime.of(9999, 12, 31, 23, 59, 59, 0, ZoneOffset.UTC);
+    private static final String[] BRANDS = {"Weiser", "Delta", "Moen", "DeWalt", "Makita", "Behr", "Kohler"};
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final CatalogLoadGate catalogLoadGate;
+    private final StoreShards storeShards;
+    private final PriceChangeLog changeLog;
+    private final int stores;
+    private final int articlesPerStore;
+    private final int pricesPerArticle;
+
+    public SyntheticCatalogLoader(JdbcTemplate jdbcTemplate,
+                                  PlatformTransactionManager transactionManager,
+                                  CatalogLoadGate catalogLoadGate,
+                                  StoreShards storeShards,
+                                  PriceChangeLog changeLog,
+                                  @Value("${pricing.synthetic-catalog.stores:50}") int stores,
+                                  @Value("${pricing.synthetic-catalog.articles-per-store:2000}") int articlesPerStore,
+                                  @Value("${pricing.synthetic-catalog.prices-per-article:12}") int pricesPerArticle) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.catalogLoadGate = catalogLoadGate;
+        this.storeShards = storeShards;
+        this.changeLog = changeLog;
+        this.stores = stores;
+        this.articlesPerStore = articlesPerStore;
+        this.pricesPerArticle = pricesPerArticle;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        String firstStoreId = String.valueOf(FIRST_STORE_ID);
+        Integer existing;
+        try (StoreShards.Scope scope = storeShards.forStore(firstStoreId)) {
+            existing = jdbcTemplate.queryForObject(
+                    "SELECT COUNT(*) FROM articles WHERE store_id = ?", Integer.class, firstStoreId);
+        }
+        if (existing != null && existing > 0) {
+            log.info("Synthetic catalog already present, skipping generation");
+            return;
+        }
+
+        log.info("Generating synthetic catalog: {} stores x {} articles x {} prices",
+                stores, articlesPerStore, pricesPerArticle);
+        long start = System.nanoTime();
+
+        // One transaction per store keeps each commit small and on the store's shard;
+        // in background mode stores load in parallel
+        List<Runnable> storeLoads = new ArrayList<>(stores);
+        for (int s = 0; s < stores; s++) {
+            int storeIndex = s;
+            String storeId = String.valueOf(FIRST_STORE_ID + storeIndex);
+            storeLoads.add(() -> {
+                try (StoreShards.Scope scope = storeShards.forStore(storeId)) {
+                    transactionTemplate.executeWithoutResult(status -> loadStore(storeId, storeIndex));
+                }
+            });
+        }
+
+        catalogLoadGate.load("synthetic catalog", storeLoads).thenRun(() ->
+                log.info("Synthetic catalog generated: {} articles, {} prices in {} ms",
+                        (long) stores * articlesPerStore, (long) stores * articlesPerStore * pricesPerArticle,
+                        (System.nanoTime() - start) / 1_000_000));
+    }
+
+    /**
+     * Insert one store's articles, read back their generated keys, insert their prices and log them as changed
+     */
+    private void loadStore(String storeId, int storeIndex) {
+        List<Object[]> articleRows = new ArrayList<>(articlesPerStore);
+        for (int a = 0; a < articlesPerStore; a++) {
+            articleRows.add(new Object[]{
+                    String.valueOf(FIRST_ARTICLE_ID + a), storeId, "EA",
+                    "Synthetic article " + a, BRANDS[a % BRANDS.length], "SYN" + a});
+        }
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO articles (article_id, store_id, uom, description, brand, model) VALUES (?, ?, ?, ?, ?, ?)",
+                articleRows);
+
+        Map<String, Long> keys = new HashMap<>(articlesPerStore * 2);
+        jdbcTemplate.query("SELECT id, article_id FROM articles WHERE store_id = ?",
+                rs -> { keys.put(rs.getString("article_id"), rs.getLong("id")); }, storeId);
+
+        List<Object[]> priceRows = new ArrayList<>(articlesPerStore * pricesPerArticle);
+        for (int a = 0; a < articlesPerStore; a++) {
+            long articleKey = keys.get(String.valueOf(FIRST_ARTICLE_ID + a));
+            addPrices(priceRows, articleKey, new Random(((long) storeIndex << 32) | a));
+        }
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO prices (article_id, type, subtype, currency, amount, valid_from, valid_to) "
+                        + "VALUES (?, ?, ?, ?, ?, ?, ?)",
+                priceRows);
+        changeLog.recordStore(storeId);
+    }
+
+    /**
+     * One open-ended regular price followed by weekly promotions, some of which overlap
+     */
+    private void addPrices(List<Object[]> rows, long articleKey, Random random) {
+        BigDecimal regular = BigDecimal.valueOf(500 + random.nextInt(20000), 2);
+        rows.add(new Object[]{articleKey, "retail", "regular", "CAD", regular, CATALOG_START, END_OF_TIME});
+
+        OffsetDateTime from = CATALOG_START;
+        for (int i = 1; i < pricesPerArticle; i++) {
+            from = from.plusDays(3 + random.nextInt(11));
+            OffsetDateTime to = from.plusDays(7 + random.nextInt(14)).minusSeconds(1);
+            BigDecimal discount = regular.multiply(BigDecimal.valueOf(70 + random.nextInt(25)))
+                    .divide(BigDecimal.valueOf(100), 2, RoundingMode.HALF_UP);
+            rows.add(new Object[]{articleKey, "retail", "discounted", "CAD", discount, from, to});
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.pricingservice.config;
+
+import com.example.pricingservice.accesslog.AccessLogInterceptor;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Registers the request interceptors and adjusts the message converters
+ */
+@Configuration
+public class WebMvcConfig implements WebMvcConfigurer {
+
+    private final AccessLogInterceptor accessLogInterceptor;
+
+    public WebMvcConfig(AccessLogInterceptor accessLogInterceptor) {
+        this.accessLogInterceptor = accessLogInterceptor;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(accessLogInterceptor).addPathPatterns("/v1/prices/**");
+    }
+
+    /**
+     * Let the JSON converter also write {@code application/x-ndjson}, so errors of the streaming
+     * cross-store lookup reach clients that only accept it, as a single JSON line
+     */
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        for (HttpMessageConverter<?> converter : converters) {
+            if (converter instanceof MappingJackson2HttpMessageConverter json) {
+                List<MediaType> mediaTypes = new ArrayList<>(json.getSupportedMediaTypes());
+                mediaTypes.add(MediaType.APPLICATION_NDJSON);
+                json.setSupportedMediaTypes(mediaTypes);
+            }
+        }
+    }
+}
@@ -1,7 +1,24 @@
 package com.example.pricingservice.controller;
 
+import com.example.pricingservice.accesslog.AccessLogged;
+import com.example.pricingservice.board.PriceBoard;
+import com.example.pricingservice.cache.CachedPriceResponse;
+import com.example.pricingservice.cache.PrecompressedResponseEncoder;
+import com.example.pricingservice.changes.PriceSubscriptions;
+import com.example.pricingservice.dto.HotKeyDTO;
+import com.example.pricingservice.dto.PriceBoardDTO;
+import com.example.pricingservice.dto.PriceChangesDTO;
 import com.example.pricingservice.dto.PriceResponseDTO;
+import com.example.pricingservice.peer.PeerCache;
+import com.example.pricingservice.service.CrossStoreLookup;
 import com.example.pricingservice.service.PriceService;
+import com.example.pricingservice.service.PriceWindow;
+import com.example.pricingservice.timing.RequestTimings;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
@@ -12,8 +29,19 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.math.BigDecimal;
+import java.time.ZonedDateTime;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * REST controller for pricing operations
@@ -27,7 +55,15 @@ public class PriceController {
 
     private static final Logger log = LoggerFactory.getLogger(PriceController.class);
     
+    private static final String STALE_WARNING = "110 - \"Response is Stale\"";
+    
     private final PriceService priceService;
+    private final PeerCache peerCache;
+    private final PrecompressedResponseEncoder responseEncoder;
+    private final PriceSubscriptions priceSubscriptions;
+    private final PriceBoard priceBoard;
+    private final CrossStoreLookup crossStoreLookup;
+    private final ObjectMapper objectMapper;
     
     /**
      * Get prices for a specific store and article
@@ -36,29 +72,221 @@ public class PriceController {
      * @param articleId the article ID
      * @param page the page number (starting from 1)
      * @param pageSize the page size
+     * @param validAt only return prices valid at this instant
+     * @param from only return prices valid at some point at or after this instant
+     * @param to only return prices valid at some point at or before this instant
+     * @param accept the requested media types
+     * @param acceptEncoding the content codings accepted by the client
+     * @param peer set on lookups forwarded by another replica, see {@link PeerCache}
      * @return the price response
      */
-    @GetMapping("/{storeId}/{articleId}")
+    @AccessLogged
+    @GetMapping(value = "/{storeId}/{articleId}",
+                produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE})
     @Operation(summary = "Get prices for a specific store and article",
-               description = "Returns a list of prices for the specified store and article IDs with pagination support")
+               description = "Returns a list of prices for the specified store and article IDs with pagination support. "
+                       + "Use validAt, or from and to, to only return prices valid in that window. "
+                       + "JSON is the default; send Accept: application/cbor for the compact binary encoding")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Prices found",
-                    content = @Content(schema = @Schema(implementation = PriceResponseDTO.class))),
+                    content = {
+                        @Content(mediaType = MediaType.APPLICATION_JSON_VALUE,
+                                 schema = @Schema(implementation = PriceResponseDTO.class)),
+                        @Content(mediaType = MediaType.APPLICATION_CBOR_VALUE,
+                                 schema = @Schema(implementation = PriceResponseDTO.class))
+                    }),
+        @ApiResponse(responseCode = "400", description = "Invalid validity window"),
         @ApiResponse(responseCode = "404", description = "Prices not found"),
-        @ApiResponse(responseCode = "500", description = "Internal server error")
+        @ApiResponse(responseCode = "500", description = "Internal server error"),
+        @ApiResponse(responseCode = "503", description = "Overloaded, retry after the Retry-After delay")
     })
-    public ResponseEntity<PriceResponseDTO> getPrices(
+    public ResponseEntity<?> getPrices(
             @PathVariable String storeId,
             @PathVariable String articleId,
             @RequestParam(defaultValue = "1") int page,
-            @RequestParam(defaultValue = "10") int pageSize) {
+            @RequestParam(defaultValue = "10") int pageSize,
+            @Parameter(description = "ISO-8601 instant, e.g. 2024-06-01T00:00:00Z")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) ZonedDateTime validAt,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) ZonedDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) ZonedDateTime to,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            @Parameter(hidden = true)
+            @RequestHeader(value = PeerCache.PEER_HEADER, required = false) String peer) {
         
-        log.info("Received request for prices with storeId: {}, articleId: {}, page: {}, pageSize: {}",
+        log.debug("Received request for prices with storeId: {}, articleId: {}, page: {}, pageSize: {}",
                 storeId, articleId, page, pageSize);
         
-        PriceResponseDTO response = priceService.getPrices(storeId, articleId, page, pageSize);
+        PriceWindow window = PriceWindow.of(validAt, from, to);
+        // A peer only forwards lookups of keys owned here
+        CachedPriceResponse cached = peer != null
+                ? priceService.getCachedPrices(storeId, articleId, page, pageSize, window)
+                : peerCache.getCachedPrices(storeId, articleId, page, pageSize, window);
+        
+        // Expired entries are only returned when the service sheds load
+        HttpHeaders headers = new HttpHeaders();
+        if (cached.isExpired()) {
+            headers.add(HttpHeaders.WARNING, STALE_WARNING);
+        }
+        if (peer != null) {
+            headers.add(PeerCache.EXPIRES_HEADER, String.valueOf(cached.getExpiresAtMillis()));
+        }
+        
+        // Serve the compressed body stored with the cache entry instead of compressing per request
+        if (responseEncoder.canServe(accept, acceptEncoding)) {
+            byte[] gzipBody;
+            try (RequestTimings.Stage stage = RequestTimings.stage("gzip")) {
+                gzipBody = responseEncoder.gzipBody(cached);
+            }
+            if (gzipBody != null) {
+                return ResponseEntity.ok()
+                        .headers(headers)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header(HttpHeaders.CONTENT_ENCODING, "gzip")
+                        .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                        .contentLength(gzipBody.length)
+                        .body(gzipBody);
+            }
+        }
         
-        return ResponseEntity.ok(response);
+        return ResponseEntity.ok().headers(headers).body(cached.getResponse());
+    }
+    
+    /**
+     * Get the articles of a store whose prices changed since a version
+     *
+     * @param storeId the store ID
+     * @param since the version returned as nextVersion by the previous call, 0 for the whole store
+     * @param limit the maximum number of changes per call
+     * @return the changed articles with their processed prices
+     */
+    @GetMapping(value = "/{storeId}/changes",
+                produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE})
+    @Operation(summary = "Get price changes of a store",
+               description = "Returns the articles of the store written after the given version, each with its "
+                       + "complete processed price timeline, oldest change first. Poll again with nextVersion; "
+                       + "hasMore tells whether further changes are ready right away")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Changes since the version, possibly none",
+                    content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE,
+                                       schema = @Schema(implementation = PriceChangesDTO.class))),
+        @ApiResponse(responseCode = "400", description = "Invalid version or limit")
+    })
+    public PriceChangesDTO getChanges(
+            @PathVariable String storeId,
+            @RequestParam(defaultValue = "0") long since,
+            @RequestParam(defaultValue = "100") int limit) {
+        log.debug("Received request for changes with storeId: {}, since: {}, limit: {}", storeId, since, limit);
+        return priceService.getChanges(storeId, since, limit);
+    }
+    
+    /**
+     * Find the prices in effect in a store by subtype, overlapped flag and amount
+     *
+     * @param storeId the store ID
+     * @param subtype only prices of this subtype
+     * @param overlapped only prices with this overlapped flag
+     * @param minAmount only prices of at least this amount
+     * @param maxAmount only prices of at most this amount
+     * @param page the page number (starting from 1)
+     * @param pageSize the page size
+     * @return the matching prices with their articles
+     */
+    @GetMapping(value = "/{storeId}/board",
+                produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE})
+    @Operation(summary = "Find the prices in effect in a store",
+               description = "Returns the prices of all articles of the store that are valid now, processed like the "
+                       + "price lookup, filtered by subtype, overlapped flag and amount range. Prices are ordered by "
+                       + "article, or by amount when an amount bound is given. The board of a store is built on its "
+                       + "first query and then kept current; asOf tells when it was last brought up to date")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Matching prices, possibly none",
+                    content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE,
+                                       schema = @Schema(implementation = PriceBoardDTO.class))),
+        @ApiResponse(responseCode = "400", description = "Invalid paging or amount range")
+    })
+    public PriceBoardDTO getBoard(
+            @PathVariable String storeId,
+            @RequestParam(required = false) String subtype,
+            @RequestParam(required = false) Boolean overlapped,
+            @RequestParam(required = false) BigDecimal minAmount,
+            @RequestParam(required = false) BigDecimal maxAmount,
+            @RequestParam(defaultValue = "1") int page,
+            @RequestParam(defaultValue = "100") int pageSize) {
+        log.debug("Received board query for storeId: {}, subtype: {}, overlapped: {}, amount: {} to {}",
+                storeId, subtype, overlapped, minAmount, maxAmount);
+        return priceBoard.query(storeId, subtype, overlapped, minAmount, maxAmount, page, pageSize);
+    }
+    
+    /**
+     * Get the prices of an article in several stores
+     *
+     * @param articleId the article ID
+     * @param storeIds the stores to look in, every store if absent
+     * @param region the configured region whose stores to look in
+     * @return one price response per store, as newline-delimited JSON
+     */
+    @GetMapping(value = "/articles/{articleId}", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "Get prices of an article across stores",
+               description = "Streams one price response per store holding the article, in store order, as "
+                       + "newline-delimited JSON. Each response holds all prices of the article in that store, "
+                       + "processed like the price lookup. Pass storeIds or a configured region, or neither for "
+                       + "every store")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Prices found in at least one store"),
+        @ApiResponse(responseCode = "400", description = "Unknown region, too many stores, or both storeIds and region"),
+        @ApiResponse(responseCode = "404", description = "Prices not found in any store"),
+        @ApiResponse(responseCode = "503", description = "Overloaded, retry after the Retry-After delay")
+    })
+    public ResponseEntity<StreamingResponseBody> getPricesAcrossStores(
+            @PathVariable String articleId,
+            @RequestParam(required = false) List<String> storeIds,
+            @RequestParam(required = false) String region) {
+        log.debug("Received cross-store request for articleId: {}, storeIds: {}, region: {}",
+                articleId, storeIds, region);
+        
+        // Read before the response starts, so errors are still returned with their status
+        Stream<PriceResponseDTO> responses = crossStoreLookup.find(articleId,
+                storeIds != null ? storeIds : List.of(), region);
+        StreamingResponseBody body = out -> {
+            ObjectWriter writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+            try (responses; JsonGenerator generator = objectMapper.createGenerator(out)) {
+                generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                for (Iterator<PriceResponseDTO> it = responses.iterator(); it.hasNext(); ) {
+                    // Flushed per store, so each is sent as soon as it is processed
+                    writer.writeValue(generator, it.next());
+                    generator.writeRaw('\n');
+                    generator.flush();
+                }
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+    
+    /**
+     * Subscribe to price updates of a store as Server-Sent Events
+     *
+     * @param storeId the store ID
+     * @param articleIds only send updates of these articles, all articles of the store if absent
+     * @return the event stream
+     */
+    @GetMapping(value = "/{storeId}/changes/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Stream price updates of a store",
+               description = "Server-Sent Events stream of `price` events, each holding the prices of an article "
+                       + "valid at the time it is sent, in the format of the price lookup. An event is sent when "
+                       + "an article is written and when one of its prices becomes valid or expires. With "
+                       + "articleIds the current prices of those articles are sent first. Updates of an article "
+                       + "that were not sent yet are replaced by newer ones; comments are sent as heartbeats")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Event stream"),
+        @ApiResponse(responseCode = "400", description = "Too many articles"),
+        @ApiResponse(responseCode = "503", description = "Too many subscriptions, retry after the Retry-After delay")
+    })
+    public SseEmitter streamChanges(
+            @PathVariable String storeId,
+            @RequestParam(required = false) List<String> articleIds) {
+        log.debug("Received subscription for storeId: {}, articleIds: {}", storeId, articleIds);
+        return priceSubscriptions.subscribe(storeId, articleIds != null ? articleIds : List.of());
     }
     
     /**
@@ -68,10 +296,25 @@ public class PriceController {
      */
     @PostMapping("/admin/clear-cache")
     @Operation(summary = "Clear price cache",
-               description = "Administrative endpoint to clear the price cache")
+               description = "Administrative endpoint to clear the price cache. The hot keys are loaded back in right away")
     public ResponseEntity<String> clearCache() {
         log.info("Received request to clear price cache");
         priceService.clearCache();
+        peerCache.clear();
         return ResponseEntity.ok("Cache cleared successfully");
     }
-}
\ No newline at end of file
+    
+    /**
+     * List the most requested store and article keys (admin endpoint)
+     *
+     * @param limit the maximum number of keys
+     * @return the hot keys, most requested first
+     */
+    @GetMapping("/admin/hot-keys")
+    @Operation(summary = "List hot keys",
+               description = "Administrative endpoint listing the most requested store and article keys with their "
+                       + "estimated recent request counts. The counts come from a streaming sketch and decay over time")
+    public List<HotKeyDTO> getHotKeys(@RequestParam(defaultValue = "20") int limit) {
+        return priceService.getHotKeys(limit);
+    }
+}
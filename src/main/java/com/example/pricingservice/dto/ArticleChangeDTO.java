@@ -0,0 +1,18 @@
+package com.example.pricingservice.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+public class ArticleChangeDTO {
+    private String article;
+    private long version;
+    private PropertiesDTO properties;
+    private List<PriceDTO> prices;
+}
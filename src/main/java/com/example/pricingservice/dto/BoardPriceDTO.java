@@ -0,0 +1,14 @@
+package com.example.pricingservice.dto;
+
+import lombok.*;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+public class BoardPriceDTO {
+    private String article;
+    private PriceDTO price;
+}
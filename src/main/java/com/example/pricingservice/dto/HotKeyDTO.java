@@ -0,0 +1,15 @@
+package com.example.pricingservice.dto;
+
+import lombok.*;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+public class HotKeyDTO {
+    private String storeId;
+    private String articleId;
+    private int estimatedRequests;
+}
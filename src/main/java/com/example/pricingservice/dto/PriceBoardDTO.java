@@ -0,0 +1,20 @@
+package com.example.pricingservice.dto;
+
+import lombok.*;
+
+import java.time.ZonedDateTime;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+public class PriceBoardDTO {
+    private String store;
+    private ZonedDateTime asOf;
+    private MetaDTO meta;
+    private boolean hasMore;
+    private List<BoardPriceDTO> prices;
+}
@@ -0,0 +1,19 @@
+package com.example.pricingservice.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+public class PriceChangesDTO {
+    private String store;
+    private long since;
+    private long nextVersion;
+    private boolean hasMore;
+    private List<ArticleChangeDTO> changes;
+}
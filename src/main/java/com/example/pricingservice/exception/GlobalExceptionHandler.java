@@ -2,10 +2,12 @@ package com.example.pricingservice.exception;
 
 import com.example.pricingservice.dto.ErrorResponseDTO;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
 
 /**
  * Global exception handler to handle all application exceptions
@@ -22,7 +24,8 @@ public class GlobalExceptionHandler {
      */
     @ExceptionHandler(PriceNotFoundException.class)
     public ResponseEntity<ErrorResponseDTO> handlePriceNotFoundException(PriceNotFoundException ex) {
-        log.error("Price not found: {}", ex.getMessage());
+        // Expected for unknown articles and stale client catalogs; the rate is tracked by pricing.prices.not_found
+        log.debug("Price not found: {}", ex.getMessage());
         
         ErrorResponseDTO errorResponse = ErrorResponseDTO.builder()
                 .type("Not_Found")
@@ -34,6 +37,52 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(errorResponse, HttpStatus.NOT_FOUND);
     }
     
+    /**
+     * Handle invalid request parameters
+     *
+     * @param ex the exception
+     * @return the error response
+     */
+    @ExceptionHandler({InvalidRequestException.class, MethodArgumentTypeMismatchException.class})
+    public ResponseEntity<ErrorResponseDTO> handleInvalidRequest(RuntimeException ex) {
+        log.debug("Invalid request: {}", ex.getMessage());
+        
+        String detail = ex instanceof MethodArgumentTypeMismatchException mismatch
+                ? "Invalid value for parameter " + mismatch.getName()
+                : ex.getMessage();
+        ErrorResponseDTO errorResponse = ErrorResponseDTO.builder()
+                .type("Bad_Request")
+                .title("Invalid request")
+                .status(HttpStatus.BAD_REQUEST.value())
+                .detail(detail)
+                .build();
+        
+        return new ResponseEntity<>(errorResponse, HttpStatus.BAD_REQUEST);
+    }
+    
+    /**
+     * Handle requests shed under overload
+     *
+     * @param ex the exception
+     * @return the error response with a Retry-After header
+     */
+    @ExceptionHandler(ServiceOverloadedException.class)
+    public ResponseEntity<ErrorResponseDTO> handleServiceOverloaded(ServiceOverloadedException ex) {
+        // Rejections are counted by pricing.concurrency.rejected, logging each one would add to the overload
+        log.debug("Request shed: {}", ex.getMessage());
+        
+        ErrorResponseDTO errorResponse = ErrorResponseDTO.builder()
+                .type("Service_Unavailable")
+                .title("Service overloaded")
+                .status(HttpStatus.SERVICE_UNAVAILABLE.value())
+                .detail(ex.getMessage())
+                .build();
+        
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, ex.getRetryAfter().toSeconds())))
+                .body(errorResponse);
+    }
+    
     /**
      * Handle general exceptions
      *
@@ -0,0 +1,11 @@
+package com.example.pricingservice.exception;
+
+/**
+ * Exception thrown when request parameters are malformed or contradictory
+ */
+public class InvalidRequestException extends RuntimeException {
+
+    public InvalidRequestException(String message) {
+        super(message);
+    }
+}
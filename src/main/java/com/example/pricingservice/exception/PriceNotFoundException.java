@@ -1,12 +1,14 @@
 package com.example.pricingservice.exception;
 
 /**
- * Exception thrown when prices are not found for a given request
+ * Exception thrown when prices are not found for a given request.
+ * Not-found is an expected outcome that always maps to a 404, so the exception
+ * does not capture a stack trace unless it wraps a cause.
  */
 public class PriceNotFoundException extends RuntimeException {
     
     public PriceNotFoundException(String message) {
-        super(message);
+        super(message, null, false, false);
     }
     
     public PriceNotFoundException(String message, Throwable cause) {
@@ -0,0 +1,101 @@
+package com.example.pricingservice.grpc;
+
+import io.grpc.Server;
+import io.grpc.netty.shaded.io.grpc.netty.NettyServerBuilder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Netty server of {@link PricingGrpcService} on its own port, {@code pricing.grpc.port}, next to the
+ * servlet container. Each client connection is one HTTP/2 connection carrying up to
+ * {@code pricing.grpc.max-concurrent-calls-per-connection} calls at once. Off when
+ * {@code pricing.grpc.enabled} is false.
+ */
+@Component
+@Slf4j
+public class GrpcServer implements SmartLifecycle {
+
+    private final PricingGrpcService pricingService;
+    private final boolean enabled;
+    private final int port;
+    private final int maxConcurrentCallsPerConnection;
+    private final Duration shutdownGrace;
+    private volatile Server server;
+
+    public GrpcServer(PricingGrpcService pricingService,
+                      @Value("${pricing.grpc.enabled:true}") boolean enabled,
+                      @Value("${pricing.grpc.port:9090}") int port,
+                      @Value("${pricing.grpc.max-concurrent-calls-per-connection:256}") int maxConcurrentCallsPerConnection,
+                      @Value("${pricing.grpc.shutdown-grace:5s}") Duration shutdownGrace) {
+        if (port < 0 || maxConcurrentCallsPerConnection < 1) {
+            throw new IllegalArgumentException("Invalid gRPC server settings");
+        }
+        this.pricingService = pricingService;
+        this.enabled = enabled;
+        this.port = port;
+        this.maxConcurrentCallsPerConnection = maxConcurrentCallsPerConnection;
+        this.shutdownGrace = shutdownGrace;
+    }
+
+    @Override
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        Server started = NettyServerBuilder.forPort(port)
+                .addService(pricingService)
+                .maxConcurrentCallsPerConnection(maxConcurrentCallsPerConnection)
+                // Internal callers keep their connections open between bursts
+                .permitKeepAliveTime(30, TimeUnit.SECONDS)
+                .permitKeepAliveWithoutCalls(true)
+                .build();
+        try {
+            started.start();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not start the gRPC server on port " + port, e);
+        }
+        server = started;
+        log.info("gRPC server started on port {}", started.getPort());
+    }
+
+    @Override
+    public void stop() {
+        Server running = server;
+        if (running == null) {
+            return;
+        }
+        // Lets calls in flight finish, then cancels the rest
+        running.shutdown();
+        try {
+            if (!running.awaitTermination(shutdownGrace.toMillis(), TimeUnit.MILLISECONDS)) {
+                running.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            running.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        server = null;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return server != null;
+    }
+
+    /**
+     * Get the port the server listens on, which differs from the configured one if that is 0
+     *
+     * @return the port, or -1 if the server is not running
+     */
+    public int getPort() {
+        Server running = server;
+        return running != null ? running.getPort() : -1;
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.pricingservice.grpc;
+
+import com.example.pricingservice.dto.ArticleChangeDTO;
+import com.example.pricingservice.dto.PriceDTO;
+import com.example.pricingservice.dto.PriceResponseDTO;
+import com.example.pricingservice.dto.PropertiesDTO;
+import com.example.pricingservice.grpc.proto.ArticlePrices;
+import com.example.pricingservice.grpc.proto.Meta;
+import com.example.pricingservice.grpc.proto.Price;
+import com.example.pricingservice.grpc.proto.PriceResponse;
+import com.example.pricingservice.grpc.proto.Properties;
+import com.google.protobuf.Timestamp;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+
+/**
+ * Converts the response DTOs of {@link com.example.pricingservice.service.PriceService} to their
+ * Protobuf messages. Absent strings become empty strings, absent timestamps and properties stay unset.
+ */
+final class PriceMessages {
+
+    private PriceMessages() {
+    }
+
+    static PriceResponse toMessage(PriceResponseDTO response, boolean stale) {
+        PriceResponse.Builder message = PriceResponse.newBuilder()
+                .setArticle(text(response.getArticle()))
+                .setStore(text(response.getStore()))
+                .setStale(stale);
+        if (response.getGenerated_date() != null) {
+            message.setGeneratedDate(toTimestamp(response.getGenerated_date()));
+        }
+        if (response.getMeta() != null) {
+            message.setMeta(Meta.newBuilder()
+                    .setPage(response.getMeta().getPage())
+                    .setSize(response.getMeta().getSize()));
+        }
+        if (response.getProperties() != null) {
+            message.setProperties(toMessage(response.getProperties()));
+        }
+        if (response.getPrices() != null) {
+            response.getPrices().forEach(price -> message.addPrices(toMessage(price)));
+        }
+        return message.build();
+    }
+
+    static ArticlePrices toMessage(ArticleChangeDTO change) {
+        ArticlePrices.Builder message = ArticlePrices.newBuilder()
+                .setArticle(text(change.getArticle()))
+                .setVersion(change.getVersion());
+        if (change.getProperties() != null) {
+            message.setProperties(toMessage(change.getProperties()));
+        }
+        if (change.getPrices() != null) {
+            change.getPrices().forEach(price -> message.addPrices(toMessage(price)));
+        }
+        return message.build();
+    }
+
+    static Properties toMessage(PropertiesDTO properties) {
+        return Properties.newBuilder()
+                .setUom(text(properties.getUom()))
+                .setDescription(text(properties.getDescription()))
+                .setBrand(text(properties.getBrand()))
+                .setModel(text(properties.getModel()))
+                .build();
+    }
+
+    static Price toMessage(PriceDTO price) {
+        Price.Builder message = Price.newBuilder()
+                .setType(text(price.getType()))
+                .setSubtype(text(price.getSubtype()))
+                .setCurrency(text(price.getCurrency()))
+                // Plain string keeps the scale, e.g. 30.00
+                .setAmount(price.getAmount() != null ? price.getAmount().toPlainString() : "")
+                .setOverlapped(price.isOverlapped());
+        if (price.getValidFrom() != null) {
+            message.setValidFrom(toTimestamp(price.getValidFrom()));
+        }
+        if (price.getValidTo() != null) {
+            message.setValidTo(toTimestamp(price.getValidTo()));
+        }
+        return message.build();
+    }
+
+    static Timestamp toTimestamp(ZonedDateTime dateTime) {
+        Instant instant = dateTime.toInstant();
+        return Timestamp.newBuilder()
+                .setSeconds(instant.getEpochSecond())
+                .setNanos(instant.getNano())
+                .build();
+    }
+
+    static ZonedDateTime toDateTime(Timestamp timestamp) {
+        return Instant.ofEpochSecond(timestamp.getSeconds(), timestamp.getNanos()).atZone(ZoneOffset.UTC);
+    }
+
+    private static String text(String value) {
+        return value != null ? value : "";
+    }
+}
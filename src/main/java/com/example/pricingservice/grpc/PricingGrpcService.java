@@ -0,0 +1,201 @@
+package com.example.pricingservice.grpc;
+
+import com.example.pricingservice.cache.CachedPriceResponse;
+import com.example.pricingservice.dto.PriceChangesDTO;
+import com.example.pricingservice.exception.InvalidRequestException;
+import com.example.pricingservice.exception.PriceNotFoundException;
+import com.example.pricingservice.exception.ServiceOverloadedException;
+import com.example.pricingservice.grpc.proto.ArticlePrices;
+import com.example.pricingservice.grpc.proto.BatchGetPricesRequest;
+import com.example.pricingservice.grpc.proto.BatchGetPricesResponse;
+import com.example.pricingservice.grpc.proto.BatchResult;
+import com.example.pricingservice.grpc.proto.ExportStoreRequest;
+import com.example.pricingservice.grpc.proto.GetPricesRequest;
+import com.example.pricingservice.grpc.proto.LookupError;
+import com.example.pricingservice.grpc.proto.PriceResponse;
+import com.example.pricingservice.grpc.proto.PricingGrpc;
+import com.example.pricingservice.peer.PeerCache;
+import com.example.pricingservice.service.PriceService;
+import com.example.pricingservice.service.PriceWindow;
+import io.grpc.Metadata;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.stub.ServerCallStreamObserver;
+import io.grpc.stub.StreamObserver;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+
+/**
+ * gRPC counterpart of the price lookup and change endpoints of
+ * {@link com.example.pricingservice.controller.PriceController}, served by {@link GrpcServer}.
+ *
+ * <p>Lookups go through {@link PeerCache} and {@link PriceService} like REST requests, so they share
+ * the response cache and the concurrency limit. Errors are returned as the status matching the REST status code.
+ */
+@Component
+@Slf4j
+public class PricingGrpcService extends PricingGrpc.PricingImplBase {
+
+    static final Metadata.Key<String> RETRY_AFTER = Metadata.Key.of("retry-after", Metadata.ASCII_STRING_MARSHALLER);
+
+    private static final int DEFAULT_PAGE = 1;
+    private static final int DEFAULT_PAGE_SIZE = 10;
+    private static final int MAX_BATCH_SIZE = 1000;
+    private static final int DEFAULT_EXPORT_BATCH_SIZE = 1000;
+
+    private final PriceService priceService;
+    private final PeerCache peerCache;
+    private final Counter batchLookups;
+    private final Counter exportedArticles;
+
+    public PricingGrpcService(PriceService priceService, PeerCache peerCache, MeterRegistry meterRegistry) {
+        this.priceService = priceService;
+        this.peerCache = peerCache;
+        this.batchLookups = Counter.builder("pricing.grpc.batch.lookups")
+                .description("Lookups received in gRPC batch requests")
+                .register(meterRegistry);
+        this.exportedArticles = Counter.builder("pricing.grpc.export.articles")
+                .description("Articles sent by gRPC store exports")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void getPrices(GetPricesRequest request, StreamObserver<PriceResponse> responseObserver) {
+        PriceResponse response;
+        try {
+            response = lookup(request);
+        } catch (RuntimeException e) {
+            responseObserver.onError(toStatus(e));
+            return;
+        }
+        responseObserver.onNext(response);
+        responseObserver.onCompleted();
+    }
+
+    @Override
+    public void batchGetPrices(BatchGetPricesRequest request, StreamObserver<BatchGetPricesResponse> responseObserver) {
+        if (request.getRequestsCount() > MAX_BATCH_SIZE) {
+            responseObserver.onError(Status.INVALID_ARGUMENT
+                    .withDescription("At most " + MAX_BATCH_SIZE + " lookups can be batched")
+                    .asRuntimeException());
+            return;
+        }
+        batchLookups.increment(request.getRequestsCount());
+
+        BatchGetPricesResponse.Builder response = BatchGetPricesResponse.newBuilder();
+        for (GetPricesRequest lookup : request.getRequestsList()) {
+            BatchResult.Builder result = BatchResult.newBuilder();
+            try {
+                result.setResponse(lookup(lookup));
+            } catch (RuntimeException e) {
+                Status status = toStatus(e).getStatus();
+                result.setError(LookupError.newBuilder()
+                        .setCode(status.getCode().name())
+                        .setMessage(status.getDescription() != null ? status.getDescription() : ""));
+            }
+            response.addResults(result);
+        }
+        responseObserver.onNext(response.build());
+        responseObserver.onCompleted();
+    }
+
+    @Override
+    public void exportStore(ExportStoreRequest request, StreamObserver<ArticlePrices> responseObserver) {
+        int batchSize = request.getBatchSize() == 0 ? DEFAULT_EXPORT_BATCH_SIZE : request.getBatchSize();
+        log.debug("Received gRPC export of store: {}, since: {}, batchSize: {}",
+                request.getStoreId(), request.getSince(), batchSize);
+
+        // Sends while the client keeps up and reads the next batch of changes when the sent ones are drained
+        ServerCallStreamObserver<ArticlePrices> call = (ServerCallStreamObserver<ArticlePrices>) responseObserver;
+        Export export = new Export(request.getStoreId(), request.getSince(), batchSize);
+        call.setOnCancelHandler(() -> log.debug("gRPC export of store {} cancelled at version {}",
+                export.storeId, export.since));
+        call.setOnReadyHandler(() -> export.drain(call));
+    }
+
+    private PriceResponse lookup(GetPricesRequest request) {
+        if (request.getPage() < 0 || request.getPageSize() < 0) {
+            throw new InvalidRequestException("page and page_size must not be negative");
+        }
+        PriceWindow window = PriceWindow.of(
+                request.hasValidAt() ? PriceMessages.toDateTime(request.getValidAt()) : null,
+                request.hasFrom() ? PriceMessages.toDateTime(request.getFrom()) : null,
+                request.hasTo() ? PriceMessages.toDateTime(request.getTo()) : null);
+        CachedPriceResponse cached = peerCache.getCachedPrices(request.getStoreId(), request.getArticleId(),
+                request.getPage() == 0 ? DEFAULT_PAGE : request.getPage(),
+                request.getPageSize() == 0 ? DEFAULT_PAGE_SIZE : request.getPageSize(),
+                window);
+        // Expired entries are only returned when the service sheds load
+        return PriceMessages.toMessage(cached.getResponse(), cached.isExpired());
+    }
+
+    /**
+     * Map an exception of the price service to the status of its REST status code
+     */
+    static StatusRuntimeException toStatus(RuntimeException e) {
+        if (e instanceof PriceNotFoundException) {
+            return Status.NOT_FOUND.withDescription(e.getMessage()).asRuntimeException();
+        }
+        if (e instanceof InvalidRequestException) {
+            return Status.INVALID_ARGUMENT.withDescription(e.getMessage()).asRuntimeException();
+        }
+        if (e instanceof ServiceOverloadedException overloaded) {
+            // Rejections are counted by pricing.concurrency.rejected
+            Metadata trailers = new Metadata();
+            trailers.put(RETRY_AFTER, String.valueOf(Math.max(1, overloaded.getRetryAfter().toSeconds())));
+            return Status.UNAVAILABLE.withDescription(e.getMessage()).asRuntimeException(trailers);
+        }
+        log.error("Unexpected error occurred", e);
+        return Status.INTERNAL.withDescription("An unexpected error occurred. Please try again later.")
+                .asRuntimeException();
+    }
+
+    /**
+     * Position of a store export; only touched from the serialized callbacks of its call
+     */
+    private final class Export {
+
+        private final String storeId;
+        private final int batchSize;
+        private final Queue<ArticlePrices> unsent = new ArrayDeque<>();
+        private long since;
+        private boolean caughtUp;
+        private boolean closed;
+
+        private Export(String storeId, long since, int batchSize) {
+            this.storeId = storeId;
+            this.since = since;
+            this.batchSize = batchSize;
+        }
+
+        private void drain(ServerCallStreamObserver<ArticlePrices> call) {
+            try {
+                while (!closed && call.isReady() && !call.isCancelled()) {
+                    ArticlePrices next = unsent.poll();
+                    if (next != null) {
+                        call.onNext(next);
+                        exportedArticles.increment();
+                    } else if (caughtUp) {
+                        closed = true;
+                        call.onCompleted();
+                    } else {
+                        PriceChangesDTO changes = priceService.getChanges(storeId, since, batchSize);
+                        changes.getChanges().forEach(change -> unsent.add(PriceMessages.toMessage(change)));
+                        since = changes.getNextVersion();
+                        caughtUp = !changes.isHasMore();
+                    }
+                }
+            } catch (RuntimeException e) {
+                if (!closed && !call.isCancelled()) {
+                    closed = true;
+                    call.onError(toStatus(e));
+                }
+            }
+        }
+    }
+}
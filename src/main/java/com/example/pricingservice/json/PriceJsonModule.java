@@ -0,0 +1,136 @@
+package com.example.pricingservice.json;
+
+import com.example.pricingservice.dto.MetaDTO;
+import com.example.pricingservice.dto.PriceDTO;
+import com.example.pricingservice.dto.PriceResponseDTO;
+import com.example.pricingservice.dto.PropertiesDTO;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+
+import java.io.IOException;
+import java.time.ZonedDateTime;
+import java.util.List;
+
+/**
+ * Hand-written JSON serializers for price responses, the bulk of the service's output. The fields
+ * are written straight to the generator in a fixed order instead of going through bean
+ * introspection, and validity timestamps are formatted once and reused (see {@link TimestampStrings}).
+ *
+ * <p>The output is byte-identical to the default serialization with the JSR-310 module and
+ * {@code WRITE_DATES_AS_TIMESTAMPS} disabled: same field order, ISO-8601 offset timestamps and
+ * null fields written as null. Prices are written one by one as the generator streams to the
+ * response, so a large page is never held as a whole in memory.
+ */
+public class PriceJsonModule extends SimpleModule {
+
+    private static final int MAX_CACHED_TIMESTAMPS = 65_536;
+
+    public PriceJsonModule() {
+        super("PriceJsonModule");
+        TimestampStrings timestamps = new TimestampStrings(MAX_CACHED_TIMESTAMPS);
+        PriceSerializer priceSerializer = new PriceSerializer(timestamps);
+        addSerializer(PriceDTO.class, priceSerializer);
+        addSerializer(PriceResponseDTO.class, new PriceResponseSerializer(priceSerializer));
+    }
+
+    static final class PriceResponseSerializer extends JsonSerializer<PriceResponseDTO> {
+
+        private final PriceSerializer priceSerializer;
+
+        PriceResponseSerializer(PriceSerializer priceSerializer) {
+            this.priceSerializer = priceSerializer;
+        }
+
+        @Override
+        public void serialize(PriceResponseDTO response, JsonGenerator gen, SerializerProvider serializers)
+                throws IOException {
+            gen.writeStartObject(response);
+            writeTimestampField(gen, "generated_date", response.getGenerated_date(), null);
+            gen.writeStringField("article", response.getArticle());
+            gen.writeStringField("store", response.getStore());
+            writeMeta(gen, response.getMeta());
+            writeProperties(gen, response.getProperties());
+
+            List<PriceDTO> prices = response.getPrices();
+            gen.writeFieldName("prices");
+            if (prices == null) {
+                gen.writeNull();
+            } else {
+                gen.writeStartArray(prices, prices.size());
+                for (PriceDTO price : prices) {
+                    priceSerializer.serialize(price, gen, serializers);
+                }
+                gen.writeEndArray();
+            }
+            gen.writeEndObject();
+        }
+
+        private static void writeMeta(JsonGenerator gen, MetaDTO meta) throws IOException {
+            gen.writeFieldName("meta");
+            if (meta == null) {
+                gen.writeNull();
+                return;
+            }
+            gen.writeStartObject(meta);
+            gen.writeNumberField("page", meta.getPage());
+            gen.writeNumberField("size", meta.getSize());
+            gen.writeEndObject();
+        }
+
+        private static void writeProperties(JsonGenerator gen, PropertiesDTO properties) throws IOException {
+            gen.writeFieldName("properties");
+            if (properties == null) {
+                gen.writeNull();
+                return;
+            }
+            gen.writeStartObject(properties);
+            gen.writeStringField("uom", properties.getUom());
+            gen.writeStringField("description", properties.getDescription());
+            gen.writeStringField("brand", properties.getBrand());
+            gen.writeStringField("model", properties.getModel());
+            gen.writeEndObject();
+        }
+    }
+
+    static final class PriceSerializer extends JsonSerializer<PriceDTO> {
+
+        private final TimestampStrings timestamps;
+
+        PriceSerializer(TimestampStrings timestamps) {
+            this.timestamps = timestamps;
+        }
+
+        @Override
+        public void serialize(PriceDTO price, JsonGenerator gen, SerializerProvider serializers) throws IOException {
+            gen.writeStartObject(price);
+            gen.writeStringField("type", price.getType());
+            gen.writeStringField("subtype", price.getSubtype());
+            gen.writeStringField("currency", price.getCurrency());
+            gen.writeFieldName("amount");
+            if (price.getAmount() == null) {
+                gen.writeNull();
+            } else {
+                gen.writeNumber(price.getAmount());
+            }
+            writeTimestampField(gen, "validFrom", price.getValidFrom(), timestamps);
+            writeTimestampField(gen, "validTo", price.getValidTo(), timestamps);
+            gen.writeBooleanField("overlapped", price.isOverlapped());
+            gen.writeEndObject();
+        }
+    }
+
+    /**
+     * Write a timestamp field, through the cache if one is given
+     */
+    private static void writeTimestampField(JsonGenerator gen, String name, ZonedDateTime value,
+                                            TimestampStrings cache) throws IOException {
+        gen.writeFieldName(name);
+        if (value == null) {
+            gen.writeNull();
+        } else {
+            gen.writeString(cache != null ? cache.cached(value) : TimestampStrings.format(value));
+        }
+    }
+}
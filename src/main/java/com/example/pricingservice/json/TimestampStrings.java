@@ -0,0 +1,45 @@
+package com.example.pricingservice.json;
+
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * ISO-8601 strings of price validity timestamps, formatted once. The same prices are served over
+ * and over, so nearly every lookup hits. Once {@code maxEntries} timestamps are cached, further
+ * ones are formatted without being added.
+ */
+final class TimestampStrings {
+
+    // What the JSR-310 module writes for a ZonedDateTime with WRITE_DATES_AS_TIMESTAMPS disabled
+    private static final DateTimeFormatter FORMAT = DateTimeFormatter.ISO_OFFSET_DATE_TIME;
+
+    private final Map<ZonedDateTime, String> strings = new ConcurrentHashMap<>();
+    private final int maxEntries;
+
+    TimestampStrings(int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Format a timestamp, from the cache if it was formatted before
+     */
+    String cached(ZonedDateTime timestamp) {
+        String formatted = strings.get(timestamp);
+        if (formatted == null) {
+            formatted = FORMAT.format(timestamp);
+            if (strings.size() < maxEntries) {
+                strings.put(timestamp, formatted);
+            }
+        }
+        return formatted;
+    }
+
+    /**
+     * Format a timestamp that is not expected to repeat, such as a generation time
+     */
+    static String format(ZonedDateTime timestamp) {
+        return FORMAT.format(timestamp);
+    }
+}
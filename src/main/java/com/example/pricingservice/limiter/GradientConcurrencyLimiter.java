@@ -0,0 +1,239 @@
+package com.example.pricingservice.limiter;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+/**
+ * Adaptive concurrency limit for work that reaches the database, in the style of the gradient
+ * limiters of Netflix concurrency-limits.
+ *
+ * <p>Round-trip times are averaged over short sample windows and compared with a slowly moving
+ * long-term average. While the short-term RTT stays close to the long-term one the limit grows by
+ * a queue allowance of sqrt(limit); once requests start queueing in the database or the connection
+ * pool the short-term RTT rises, the gradient long/short drops below 1 and the limit shrinks
+ * proportionally. Failed calls count as overload and cut the limit by {@code backoff-ratio}.
+ */
+@Component
+@Slf4j
+public class GradientConcurrencyLimiter {
+
+    private static final double LONG_RTT_SMOOTHING = 1.0 / 100;
+    private static final double MIN_GRADIENT = 0.5;
+
+    private final boolean enabled;
+    private final int minLimit;
+    private final int maxLimit;
+    private final int windowSize;
+    private final double smoothing;
+    private final double backoffRatio;
+    private final LongSupplier nanoClock;
+    private final Duration retryAfter;
+    private final Counter shedRequests;
+    private final Counter staleResponses;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile double limit;
+
+    // Current sample window, guarded by this
+    private long windowRttSum;
+    private int windowSamples;
+    private int windowMaxInFlight;
+    private boolean windowDropped;
+    private double longRttNanos;
+
+    @Autowired
+    public GradientConcurrencyLimiter(MeterRegistry meterRegistry,
+                                      @Value("${pricing.concurrency-limit.enabled:true}") boolean enabled,
+                                      @Value("${pricing.concurrency-limit.initial-limit:20}") int initialLimit,
+                                      @Value("${pricing.concurrency-limit.min-limit:4}") int minLimit,
+                                      @Value("${pricing.concurrency-limit.max-limit:200}") int maxLimit,
+                                      @Value("${pricing.concurrency-limit.window-size:50}") int windowSize,
+                                      @Value("${pricing.concurrency-limit.smoothing:0.2}") double smoothing,
+                                      @Value("${pricing.concurrency-limit.backoff-ratio:0.9}") double backoffRatio,
+                                      @Value("${pricing.concurrency-limit.retry-after:1s}") Duration retryAfter) {
+        this(meterRegistry, enabled, initialLimit, minLimit, maxLimit, windowSize, smoothing, backoffRatio,
+                retryAfter, System::nanoTime);
+    }
+
+    GradientConcurrencyLimiter(MeterRegistry meterRegistry, boolean enabled, int initialLimit, int minLimit,
+                               int maxLimit, int windowSize, double smoothing, double backoffRatio,
+                               Duration retryAfter, LongSupplier nanoClock) {
+        if (minLimit < 1 || maxLimit < minLimit || windowSize < 1) {
+            throw new IllegalArgumentException("Invalid concurrency limit settings");
+        }
+        this.enabled = enabled;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.windowSize = windowSize;
+        this.smoothing = smoothing;
+        this.backoffRatio = backoffRatio;
+        this.retryAfter = retryAfter;
+        this.nanoClock = nanoClock;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+
+        this.shedRequests = rejectedCounter(meterRegistry, "shed");
+        this.staleResponses = rejectedCounter(meterRegistry, "stale");
+        Gauge.builder("pricing.concurrency.limit", this, GradientConcurrencyLimiter::getLimit)
+                .description("Current adaptive concurrency limit of database-bound price lookups")
+                .register(meterRegistry);
+        Gauge.builder("pricing.concurrency.in_flight", inFlight, AtomicInteger::get)
+                .description("Database-bound price lookups in flight")
+                .register(meterRegistry);
+    }
+
+    private static Counter rejectedCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("pricing.concurrency.rejected")
+                .description("Price lookups rejected by the concurrency limit, by how they were answered")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Try to start a unit of work
+     *
+     * @return a permit that must be released when the work completes, or null if the limit is reached
+     */
+    public Permit tryAcquire() {
+        if (!enabled) {
+            return new Permit(nanoClock.getAsLong(), 0, false);
+        }
+        while (true) {
+            int current = inFlight.get();
+            if (current >= (int) limit) {
+                return null;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return new Permit(nanoClock.getAsLong(), current + 1, true);
+            }
+        }
+    }
+
+    /**
+     * Record a request that was turned away because the limit was reached
+     *
+     * @param servedStale true if it was answered from an expired cache entry, false if it failed with 503
+     */
+    public void recordRejected(boolean servedStale) {
+        (servedStale ? staleResponses : shedRequests).increment();
+    }
+
+    /**
+     * How long rejected clients should wait before retrying
+     */
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    private void onComplete(Permit permit, boolean dropped) {
+        inFlight.decrementAndGet();
+        long rtt = nanoClock.getAsLong() - permit.startNanos;
+
+        double shortRtt;
+        boolean overloaded;
+        int maxInFlight;
+        synchronized (this) {
+            windowRttSum += rtt;
+            windowSamples++;
+            windowMaxInFlight = Math.max(windowMaxInFlight, permit.inFlightAtStart);
+            windowDropped |= dropped;
+            if (windowSamples < windowSize) {
+                return;
+            }
+            shortRtt = (double) windowRttSum / windowSamples;
+            overloaded = windowDropped;
+            maxInFlight = windowMaxInFlight;
+            windowRttSum = 0;
+            windowSamples = 0;
+            windowMaxInFlight = 0;
+            windowDropped = false;
+
+            if (longRttNanos == 0) {
+                longRttNanos = shortRtt;
+            } else {
+                longRttNanos += (shortRtt - longRttNanos) * LONG_RTT_SMOOTHING;
+                // After a load drop the long-term average would otherwise keep the limit high for minutes
+                if (longRttNanos > 2 * shortRtt) {
+                    longRttNanos = 2 * shortRtt;
+                }
+            }
+            updateLimit(shortRtt, overloaded, maxInFlight);
+        }
+    }
+
+    private void updateLimit(double shortRtt, boolean overloaded, int maxInFlight) {
+        double current = limit;
+        double next;
+        if (overloaded) {
+            next = current * backoffRatio;
+        } else if (maxInFlight * 2 < current) {
+            // Not enough traffic to tell whether a higher limit would hurt
+            return;
+        } else {
+            double gradient = Math.max(MIN_GRADIENT, Math.min(1.0, longRttNanos / shortRtt));
+            double target = current * gradient + Math.sqrt(current);
+            next = current * (1 - smoothing) + target * smoothing;
+        }
+        next = Math.max(minLimit, Math.min(maxLimit, next));
+        if ((int) next != (int) current) {
+            log.debug("Concurrency limit {} -> {} (short RTT {} us, long RTT {} us)", (int) current, (int) next,
+                    (long) (shortRtt / 1000), (long) (longRttNanos / 1000));
+        }
+        limit = next;
+    }
+
+    /**
+     * Admission to run one unit of work under the limit
+     */
+    public final class Permit {
+
+        private final long startNanos;
+        private final int inFlightAtStart;
+        private final boolean counted;
+        private boolean released;
+
+        private Permit(long startNanos, int inFlightAtStart, boolean counted) {
+            this.startNanos = startNanos;
+            this.inFlightAtStart = inFlightAtStart;
+            this.counted = counted;
+        }
+
+        /**
+         * Release after the work completed, successfully or with an expected outcome such as not found
+         */
+        public void release() {
+            complete(false);
+        }
+
+        /**
+         * Release after the work failed in a way that indicates overload, e.g. a connection timeout
+         */
+        public void releaseDropped() {
+            complete(true);
+        }
+
+        private void complete(boolean dropped) {
+            if (released || !counted) {
+                return;
+            }
+            released = true;
+            onComplete(this, dropped);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.pricingservice.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+
+import java.math.BigDecimal;
+import java.time.ZonedDateTime;
+
+/**
+ * Price moved out of {@code prices} by the compaction job, keeping its original id. Archived
+ * prices are no longer served, and the database deletes them with their article.
+ */
+@Entity
+@Table(name = "prices_archive", indexes = {
+        @Index(name = "idx_prices_archive_article", columnList = "article_id")
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+public class ArchivedPrice {
+
+    /** Expired before the retention window */
+    public static final String REASON_EXPIRED = "EXPIRED";
+
+    /** Folded into an overlapping price of the same amount */
+    public static final String REASON_COALESCED = "COALESCED";
+
+    @Id
+    private Long id;
+
+    @Column(nullable = false)
+    private String type;
+
+    @Column(nullable = false)
+    private String subtype;
+
+    @Column(nullable = false)
+    private String currency;
+
+    @Column(nullable = false, precision = 10, scale = 2)
+    private BigDecimal amount;
+
+    @Column(nullable = false)
+    private ZonedDateTime validFrom;
+
+    @Column(nullable = false)
+    private ZonedDateTime validTo;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "article_id", nullable = false)
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    private Article article;
+
+    @Column(nullable = false)
+    private String reason;
+
+    @Column(nullable = false)
+    private ZonedDateTime archivedAt;
+}
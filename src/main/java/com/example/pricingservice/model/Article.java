@@ -1,13 +1,22 @@
 package com.example.pricingservice.model;
 
+import com.example.pricingservice.cache.CatalogWriteListener;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
 
 import java.util.ArrayList;
 import java.util.List;
 
 @Entity
 @Table(name = "articles")
+@EntityListeners(CatalogWriteListener.class)
+// Article properties rarely change, so both the entity and its (storeId, articleId) natural id are kept in the second-level cache
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@NaturalIdCache
 @Data
 @Builder
 @NoArgsConstructor
@@ -20,9 +29,11 @@ public class Article {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
+    @NaturalId
     @Column(nullable = false)
     private String articleId;
 
+    @NaturalId
     @Column(nullable = false)
     private String storeId;
 
@@ -1,5 +1,6 @@
 package com.example.pricingservice.model;
 
+import com.example.pricingservice.cache.CatalogWriteListener;
 import jakarta.persistence.*;
 import lombok.*;
 
@@ -7,7 +8,10 @@ import java.math.BigDecimal;
 import java.time.ZonedDateTime;
 
 @Entity
-@Table(name = "prices")
+@Table(name = "prices", indexes = {
+        @Index(name = "idx_prices_article_validity", columnList = "article_id, valid_from, valid_to")
+})
+@EntityListeners(CatalogWriteListener.class)
 @Data
 @Builder
 @NoArgsConstructor
@@ -0,0 +1,36 @@
+package com.example.pricingservice.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.ZonedDateTime;
+
+/**
+ * Entry of the change log: an article or one of its prices was written. The version is an
+ * identity, so it grows with every write to the store's database.
+ */
+@Entity
+@Table(name = "price_changes", indexes = {
+        @Index(name = "idx_price_changes_store_version", columnList = "store_id, version")
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+public class PriceChange {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long version;
+
+    @Column(nullable = false)
+    private String storeId;
+
+    @Column(nullable = false)
+    private String articleId;
+
+    @Column(nullable = false)
+    private ZonedDateTime changedAt;
+}
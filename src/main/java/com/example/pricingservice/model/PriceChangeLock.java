@@ -0,0 +1,20 @@
+package com.example.pricingservice.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * Single row every transaction locks before it logs a change and holds until it completes, so
+ * versions of the change log are committed in version order. Mapped so the schema is also
+ * generated where migrations do not run; see {@link com.example.pricingservice.changes.PriceChangeLog}.
+ */
+@Entity
+@Table(name = "price_change_lock")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PriceChangeLock {
+
+    @Id
+    private Integer id;
+}
@@ -0,0 +1,281 @@
+package com.example.pricingservice.peer;
+
+import com.example.pricingservice.cache.CachedPriceResponse;
+import com.example.pricingservice.cache.HotKeySketch;
+import com.example.pricingservice.dto.ErrorResponseDTO;
+import com.example.pricingservice.dto.PriceResponseDTO;
+import com.example.pricingservice.exception.InvalidRequestException;
+import com.example.pricingservice.exception.PriceNotFoundException;
+import com.example.pricingservice.service.PriceService;
+import com.example.pricingservice.service.PriceWindow;
+import com.example.pricingservice.shard.ShardRing;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Cache tier shared by the replicas of the service. Each (store, article) key has one owner
+ * replica, picked by consistent hashing over {@code pricing.peer-cache.peers}; only the owner
+ * loads and caches its responses, so every replica behind a round-robin load balancer adds to
+ * one cache instead of building its own copy.
+ *
+ * <p>Lookups of owned keys go to {@link PriceService}. Lookups of other keys are fetched from the
+ * owner over HTTP, as JSON, and kept in a small near-cache for {@code pricing.peer-cache.near-ttl}
+ * or until the owner's entry expires, whichever comes first. If the owner cannot be reached or
+ * is overloaded the lookup is served locally, as are windowed lookups, which no replica caches.
+ * Off unless {@code pricing.peer-cache.enabled} is set; all replicas must list the same peers in
+ * the same order.
+ */
+@Component
+@Slf4j
+public class PeerCache {
+
+    /**
+     * Request header of lookups forwarded by a peer, which the receiving replica serves itself
+     */
+    public static final String PEER_HEADER = "X-Pricing-Peer";
+
+    /**
+     * Response header telling a peer when the owner's cache entry expires, in epoch milliseconds
+     */
+    public static final String EXPIRES_HEADER = "X-Pricing-Expires";
+
+    private static final String PRICES_NOT_FOUND = "No prices were found for a given request";
+
+    private final PriceService priceService;
+    private final boolean enabled;
+    private final List<String> peers;
+    private final int self;
+    private final ShardRing ring;
+    private final long nearTtlMillis;
+    private final Duration timeout;
+    private final HttpClient httpClient;
+    private final ObjectMapper jsonMapper;
+    private final Counter ownedLookups;
+    private final Counter nearHits;
+    private final Counter peerFetches;
+    private final Counter fallbacks;
+
+    // Responses fetched from their owners, least recently used dropped first
+    private final Map<String, CachedPriceResponse> nearCache;
+    // Advanced on every invalidation, so a response fetched meanwhile is not kept; guarded by nearCache
+    private long nearGeneration;
+
+    public PeerCache(PriceService priceService, MeterRegistry meterRegistry, ObjectMapper objectMapper,
+                     @Value("${pricing.peer-cache.enabled:false}") boolean enabled,
+                     @Value("${pricing.peer-cache.peers:}") List<String> peers,
+                     @Value("${pricing.peer-cache.self:}") String self,
+                     @Value("${pricing.peer-cache.virtual-nodes:128}") int virtualNodes,
+                     @Value("${pricing.peer-cache.near-size:1000}") int nearSize,
+                     @Value("${pricing.peer-cache.near-ttl:5s}") Duration nearTtl,
+                     @Value("${pricing.peer-cache.timeout:500ms}") Duration timeout) {
+        this.priceService = priceService;
+        this.enabled = enabled;
+        this.peers = peers.stream().map(String::trim).filter(peer -> !peer.isEmpty())
+                .map(PeerCache::withoutTrailingSlash).toList();
+        this.self = this.peers.indexOf(withoutTrailingSlash(self.trim()));
+        if (enabled && this.self < 0) {
+            throw new IllegalArgumentException("pricing.peer-cache.self must be one of pricing.peer-cache.peers");
+        }
+        if (nearSize < 1 || nearTtl.isNegative() || timeout.isZero() || timeout.isNegative()) {
+            throw new IllegalArgumentException("Invalid peer cache settings");
+        }
+        // Timestamps keep the owner's offset and precision, so the response is served exactly as the owner's
+        this.jsonMapper = objectMapper.copy().disable(DeserializationFeature.ADJUST_DATES_TO_CONTEXT_TIME_ZONE);
+        this.ring = new ShardRing(Math.max(1, this.peers.size()), virtualNodes);
+        this.nearTtlMillis = nearTtl.toMillis();
+        this.timeout = timeout;
+        this.httpClient = !enabled ? null : HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(timeout)
+                .build();
+        this.nearCache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedPriceResponse> eldest) {
+                return size() > nearSize;
+            }
+        };
+
+        this.ownedLookups = lookupCounter(meterRegistry, "owned");
+        this.nearHits = lookupCounter(meterRegistry, "near_cache");
+        this.peerFetches = lookupCounter(meterRegistry, "peer");
+        this.fallbacks = lookupCounter(meterRegistry, "fallback");
+        Gauge.builder("pricing.peer_cache.near_size", nearCache, near -> {
+                    synchronized (near) {
+                        return near.size();
+                    }
+                })
+                .description("Responses of other replicas' keys held in the near-cache")
+                .register(meterRegistry);
+    }
+
+    private static Counter lookupCounter(MeterRegistry meterRegistry, String route) {
+        return Counter.builder("pricing.peer_cache.lookups")
+                .description("Price lookups by where they were served: owned here, near-cache, owner replica or local fallback")
+                .tag("route", route)
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Get the cache entry for a price lookup from the replica owning its key
+     *
+     * @param storeId the store ID
+     * @param articleId the article ID
+     * @param page the page number (starting from 1)
+     * @param pageSize the page size
+     * @param window the validity window the prices must intersect
+     * @return the cache entry for the request, expired if the owner served it stale
+     * @throws PriceNotFoundException if prices not found
+     * @see PriceService#getCachedPrices(String, String, int, int, PriceWindow)
+     */
+    public CachedPriceResponse getCachedPrices(String storeId, String articleId, int page, int pageSize,
+                                               PriceWindow window) {
+        // Windowed lookups are not cached by the owner either
+        if (!enabled || !window.isUnbounded()) {
+            return priceService.getCachedPrices(storeId, articleId, page, pageSize, window);
+        }
+        int owner = ownerOf(storeId, articleId);
+        if (owner == self) {
+            ownedLookups.increment();
+            return priceService.getCachedPrices(storeId, articleId, page, pageSize, window);
+        }
+
+        String key = HotKeySketch.key(storeId, articleId) + "_" + page + "_" + pageSize;
+        CachedPriceResponse near;
+        synchronized (nearCache) {
+            near = nearCache.get(key);
+        }
+        if (near != null && !near.isExpired()) {
+            nearHits.increment();
+            return near;
+        }
+
+        long generation;
+        synchronized (nearCache) {
+            generation = nearGeneration;
+        }
+        try {
+            return fetch(peers.get(owner), key, storeId, articleId, page, pageSize, generation);
+        } catch (IOException e) {
+            log.debug("Peer {} unavailable for {}: {}", peers.get(owner), key, e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        fallbacks.increment();
+        return priceService.getCachedPrices(storeId, articleId, page, pageSize, window);
+    }
+
+    /**
+     * Drop the near-cache, e.g. along with the price cache
+     */
+    public void clear() {
+        synchronized (nearCache) {
+            nearGeneration++;
+            nearCache.clear();
+        }
+    }
+
+    /**
+     * Drop the fetched responses of written articles, whatever their page
+     *
+     * @param articleKeys the keys of the articles, as built by {@link HotKeySketch#key}
+     */
+    public void invalidateArticles(Collection<String> articleKeys) {
+        if (articleKeys.isEmpty()) {
+            return;
+        }
+        Set<String> written = new HashSet<>(articleKeys);
+        synchronized (nearCache) {
+            nearGeneration++;
+            // Small enough to scan
+            nearCache.keySet().removeIf(key -> written.contains(articleKeyOf(key)));
+        }
+    }
+
+    /**
+     * Get the index in {@code pricing.peer-cache.peers} of the replica owning a key
+     */
+    int ownerOf(String storeId, String articleId) {
+        return ring.shardOf(storeId + "_" + articleId);
+    }
+
+    private CachedPriceResponse fetch(String peer, String key, String storeId, String articleId, int page,
+                                      int pageSize, long generation) throws IOException, InterruptedException {
+        String uri = peer + "/v1/prices/" + URLEncoder.encode(storeId, StandardCharsets.UTF_8) + "/"
+                + URLEncoder.encode(articleId, StandardCharsets.UTF_8) + "?page=" + page + "&pageSize=" + pageSize;
+        HttpRequest request = HttpRequest.newBuilder(URI.create(uri))
+                .header(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON_VALUE)
+                .header(PEER_HEADER, "true")
+                .timeout(timeout)
+                .GET()
+                .build();
+        HttpResponse<byte[]> response = httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray());
+
+        switch (response.statusCode()) {
+            case 200 -> {
+                peerFetches.increment();
+                PriceResponseDTO prices = jsonMapper.readValue(response.body(), PriceResponseDTO.class);
+                // Served from an expired entry while the owner sheds load, passed on as such
+                if (response.headers().firstValue(HttpHeaders.WARNING).isPresent()) {
+                    return new CachedPriceResponse(prices, 0);
+                }
+                long expiresAt = System.currentTimeMillis() + nearTtlMillis;
+                long ownerExpiresAt = response.headers().firstValueAsLong(EXPIRES_HEADER).orElse(Long.MAX_VALUE);
+                CachedPriceResponse entry = new CachedPriceResponse(prices, Math.min(expiresAt, ownerExpiresAt));
+                synchronized (nearCache) {
+                    // Fetched while the article was written: served, but possibly from before the write
+                    if (nearGeneration == generation) {
+                        nearCache.put(key, entry);
+                    }
+                }
+                return entry;
+            }
+            case 404 -> {
+                peerFetches.increment();
+                throw new PriceNotFoundException(PRICES_NOT_FOUND);
+            }
+            case 400 -> {
+                peerFetches.increment();
+                throw new InvalidRequestException(jsonMapper.readValue(response.body(), ErrorResponseDTO.class).getDetail());
+            }
+            default -> throw new IOException("Status " + response.statusCode());
+        }
+    }
+
+    /**
+     * Strip the page and page size off a near-cache key
+     */
+    private static String articleKeyOf(String key) {
+        return key.substring(0, key.lastIndexOf('_', key.lastIndexOf('_') - 1));
+    }
+
+    private static String withoutTrailingSlash(String url) {
+        return url.endsWith("/") ? url.substring(0, url.length() - 1) : url;
+    }
+}
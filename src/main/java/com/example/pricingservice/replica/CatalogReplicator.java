@@ -0,0 +1,244 @@
+package com.example.pricingservice.replica;
+
+import com.example.pricingservice.cache.HotKeySketch;
+import com.example.pricingservice.cache.NegativeLookupCache;
+import com.example.pricingservice.cache.PriceResponseCache;
+import com.example.pricingservice.changes.PriceChangeLog;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ships the catalog from the primary to the read replica (profile {@code replica}), standing in
+ * for the log shipping of a real replica. Every article or price write is logged in
+ * {@code price_changes}; every cycle re-syncs the articles logged since the previous one from the
+ * primary, which carries over inserts, updates and deletes alike.
+ *
+ * <p>The log commits in version order (see {@link PriceChangeLog}), so reading it on from the
+ * last version applied never skips a change, however many writes are in flight. A cycle reads
+ * one snapshot of the primary, so once it completes the replica holds every write committed
+ * before it began. The replica lag is the age of the last completed cycle.
+ */
+@Component
+@Profile("replica")
+@Slf4j
+public class CatalogReplicator {
+
+    private final JdbcTemplate primary;
+    private final NamedParameterJdbcTemplate namedPrimary;
+    private final NamedParameterJdbcTemplate namedReplica;
+    private final TransactionTemplate snapshotTransaction;
+    private final TransactionTemplate replicaTransaction;
+    private final Clock clock;
+    private final long maxLagMillis;
+    private final int batchSize;
+    private final ObjectProvider<PriceResponseCache> priceCache;
+    private final ObjectProvider<NegativeLookupCache> negativeLookupCache;
+    private final Counter replicatedRows;
+    private final Counter resyncedArticles;
+    private final Counter failures;
+    private final Table articles = new Table("articles", "id, article_id, store_id, uom, description, brand, model");
+    private final Table prices = new Table("prices",
+            "id, article_id, type, subtype, currency, amount, valid_from, valid_to");
+    private final long startedAtMillis;
+
+    // Every change up to this version is on the replica, guarded by this
+    private long appliedUpTo;
+    // Wall-clock time up to which every primary commit is on the replica, 0 until the first completed cycle
+    private volatile long caughtUpAtMillis;
+
+    @Autowired
+    public CatalogReplicator(ReplicaDataSources dataSources, MeterRegistry meterRegistry,
+                             ObjectProvider<PriceResponseCache> priceCache,
+                             ObjectProvider<NegativeLookupCache> negativeLookupCache,
+                             @Value("${pricing.replica.max-lag:5s}") Duration maxLag,
+                             @Value("${pricing.replica.batch-size:5000}") int batchSize) {
+        this(dataSources, meterRegistry, priceCache, negativeLookupCache, maxLag, batchSize, Clock.systemUTC());
+    }
+
+    CatalogReplicator(ReplicaDataSources dataSources, MeterRegistry meterRegistry,
+                      ObjectProvider<PriceResponseCache> priceCache, ObjectProvider<NegativeLookupCache> negativeLookupCache,
+                      Duration maxLag, int batchSize, Clock clock) {
+        this.priceCache = priceCache;
+        this.negativeLookupCache = negativeLookupCache;
+        this.primary = new JdbcTemplate(dataSources.getPrimary());
+        this.namedPrimary = new NamedParameterJdbcTemplate(primary);
+        this.namedReplica = new NamedParameterJdbcTemplate(dataSources.getReplica());
+        this.snapshotTransaction = new TransactionTemplate(new DataSourceTransactionManager(dataSources.getPrimary()));
+        // One consistent view of the log and both tables, so no price is copied before its article
+        snapshotTransaction.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        snapshotTransaction.setReadOnly(true);
+        this.replicaTransaction = new TransactionTemplate(new DataSourceTransactionManager(dataSources.getReplica()));
+        this.clock = clock;
+        this.startedAtMillis = clock.millis();
+        this.maxLagMillis = maxLag.toMillis();
+        this.batchSize = batchSize;
+        this.replicatedRows = Counter.builder("pricing.replica.replicated_rows")
+                .description("Rows copied from the primary to the replica")
+                .register(meterRegistry);
+        this.resyncedArticles = Counter.builder("pricing.replica.resynced_articles")
+                .description("Articles re-synced from the primary after a write")
+                .register(meterRegistry);
+        this.failures = Counter.builder("pricing.replica.failures")
+                .description("Replication cycles that failed")
+                .register(meterRegistry);
+        TimeGauge.builder("pricing.replica.lag", this, TimeUnit.MILLISECONDS, replicator -> replicator.getLag().toMillis())
+                .description("Age of the newest primary state fully applied to the replica")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Check if read-only transactions may use the replica
+     *
+     * @return true if the replica caught up within {@code pricing.replica.max-lag}
+     */
+    public boolean isReplicaAvailable() {
+        long caughtUpAt = caughtUpAtMillis;
+        return caughtUpAt != 0 && clock.millis() - caughtUpAt <= maxLagMillis;
+    }
+
+    /**
+     * How far the replica is behind the primary, or the time since startup before it first caught up
+     */
+    public Duration getLag() {
+        long caughtUpAt = caughtUpAtMillis;
+        return Duration.ofMillis(clock.millis() - (caughtUpAt == 0 ? startedAtMillis : caughtUpAt));
+    }
+
+    /**
+     * Re-sync the articles written on the primary since the previous cycle
+     */
+    @Scheduled(fixedDelayString = "${pricing.replica.replication-interval:200}")
+    public synchronized void replicate() {
+        long startedAt = clock.millis();
+        try {
+            long[] totals = snapshotTransaction.execute(status -> applyChanges());
+            replicatedRows.increment(totals[0]);
+            resyncedArticles.increment(totals[1]);
+            caughtUpAtMillis = startedAt;
+            if (totals[1] > 0) {
+                log.debug("Replicated {} rows of {} articles in {} ms", totals[0], totals[1], clock.millis() - startedAt);
+            }
+        } catch (DataAccessException e) {
+            failures.increment();
+            log.warn("Replication to the replica failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Re-sync the articles of every change after the last one applied, a batch at a time
+     *
+     * @return the rows copied and the articles re-synced
+     */
+    private long[] applyChanges() {
+        long[] totals = new long[2];
+        List<Object[]> changes;
+        do {
+            changes = primary.query("SELECT version, store_id, article_id FROM price_changes "
+                            + "WHERE version > ? ORDER BY version LIMIT " + batchSize,
+                    (rs, rowNum) -> new Object[] {rs.getLong(1), rs.getString(2), rs.getString(3)},
+                    appliedUpTo);
+            if (changes.isEmpty()) {
+                break;
+            }
+            Map<String, Set<String>> articlesByStore = new LinkedHashMap<>();
+            changes.forEach(change -> articlesByStore
+                    .computeIfAbsent((String) change[1], store -> new LinkedHashSet<>())
+                    .add((String) change[2]));
+            totals[0] += resync(articlesByStore);
+            // Lookups routed to the replica may have cached the old rows, or the article's absence,
+            // after the write committed
+            invalidate(articlesByStore);
+            appliedUpTo = (Long) changes.get(changes.size() - 1)[0];
+            totals[1] += articlesByStore.values().stream().mapToInt(Set::size).sum();
+        } while (changes.size() == batchSize);
+        return totals;
+    }
+
+    /**
+     * Replace the rows of the given articles on the replica with the primary's, deleting the ones
+     * the primary no longer has
+     *
+     * @return the number of rows copied
+     */
+    private long resync(Map<String, Set<String>> articlesByStore) {
+        long[] copied = new long[1];
+        replicaTransaction.executeWithoutResult(status -> articlesByStore.forEach((storeId, articleIds) -> {
+            MapSqlParameterSource parameters = new MapSqlParameterSource("storeId", storeId)
+                    .addValue("articleIds", articleIds);
+            namedReplica.update("DELETE FROM prices WHERE article_id IN "
+                    + "(SELECT id FROM articles WHERE store_id = :storeId AND article_id IN (:articleIds))", parameters);
+            namedReplica.update("DELETE FROM articles WHERE store_id = :storeId AND article_id IN (:articleIds)",
+                    parameters);
+            copied[0] += copyRows(articles, "SELECT " + articles.columns
+                    + " FROM articles WHERE store_id = :storeId AND article_id IN (:articleIds)", parameters);
+            copied[0] += copyRows(prices, "SELECT " + prices.columns + " FROM prices WHERE article_id IN "
+                    + "(SELECT id FROM articles WHERE store_id = :storeId AND article_id IN (:articleIds)) "
+                    + "ORDER BY id", parameters);
+        }));
+        return copied[0];
+    }
+
+    private int copyRows(Table table, String select, MapSqlParameterSource parameters) {
+        List<Object[]> rows = namedPrimary.query(select, parameters, (rs, rowNum) -> {
+            Object[] row = new Object[table.columnCount];
+            for (int i = 0; i < row.length; i++) {
+                row[i] = rs.getObject(i + 1);
+            }
+            return row;
+        });
+        if (!rows.isEmpty()) {
+            namedReplica.getJdbcTemplate().batchUpdate(table.merge, rows);
+        }
+        return rows.size();
+    }
+
+    private void invalidate(Map<String, Set<String>> articlesByStore) {
+        List<String> articleKeys = new ArrayList<>();
+        articlesByStore.forEach((storeId, articleIds) ->
+                articleIds.forEach(articleId -> articleKeys.add(HotKeySketch.key(storeId, articleId))));
+        negativeLookupCache.ifAvailable(cache -> cache.invalidateArticles(articleKeys));
+        priceCache.ifAvailable(cache -> cache.invalidateArticles(articleKeys));
+    }
+
+    /**
+     * Replicated table
+     */
+    private static final class Table {
+
+        private final String columns;
+        private final int columnCount;
+        private final String merge;
+
+        private Table(String name, String columns) {
+            this.columns = columns;
+            this.columnCount = columns.split(",").length;
+            this.merge = "MERGE INTO " + name + " (" + columns + ") KEY (id) VALUES ("
+                    + "?, ".repeat(columnCount - 1) + "?)";
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.pricingservice.replica;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.Map;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Datasource sending read-only transactions to the replica and everything else to the primary.
+ *
+ * <p>The read-only flag is only known once the transaction has started, so this must sit behind a
+ * lazy connection proxy that borrows the connection on the first statement. While the replica is
+ * unavailable or lags too far behind, read-only transactions fall back to the primary.
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+    static final String PRIMARY = "primary";
+    static final String REPLICA = "replica";
+
+    private final BooleanSupplier replicaAvailable;
+    private final Counter primaryConnections;
+    private final Counter replicaConnections;
+    private final Counter fallbacks;
+
+    public ReadWriteRoutingDataSource(DataSource primary, DataSource replica, BooleanSupplier replicaAvailable,
+                                      MeterRegistry meterRegistry) {
+        this.replicaAvailable = replicaAvailable;
+        this.primaryConnections = routedCounter(meterRegistry, PRIMARY);
+        this.replicaConnections = routedCounter(meterRegistry, REPLICA);
+        this.fallbacks = Counter.builder("pricing.datasource.replica_fallbacks")
+                .description("Read-only connections sent to the primary because the replica was unavailable or lagging")
+                .register(meterRegistry);
+        setTargetDataSources(Map.of(PRIMARY, primary, REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    private static Counter routedCounter(MeterRegistry meterRegistry, String target) {
+        return Counter.builder("pricing.datasource.connections")
+                .description("Connections borrowed through the read/write router, by target database")
+                .tag("target", target)
+                .register(meterRegistry);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            if (replicaAvailable.getAsBoolean()) {
+                replicaConnections.increment();
+                return REPLICA;
+            }
+            fallbacks.increment();
+        }
+        primaryConnections.increment();
+        return PRIMARY;
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.pricingservice.replica;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.Getter;
+
+/**
+ * Connection pools of the primary database and its read replica. Closing it closes both pools.
+ */
+@Getter
+public class ReplicaDataSources implements AutoCloseable {
+
+    private final HikariDataSource primary;
+    private final HikariDataSource replica;
+
+    public ReplicaDataSources(HikariDataSource primary, HikariDataSource replica) {
+        this.primary = primary;
+        this.replica = replica;
+    }
+
+    @Override
+    public void close() {
+        replica.close();
+        primary.close();
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.pricingservice.repository;
+
+import com.example.pricingservice.model.Article;
+
+import java.util.Optional;
+
+/**
+ * Article lookups that go through Hibernate's natural-id API instead of a JPQL query
+ */
+public interface ArticleRepositoryCustom {
+
+    /**
+     * Find an article by its (storeId, articleId) natural id. Served from the
+     * second-level cache when the article has been loaded before.
+     *
+     * @param storeId the store ID
+     * @param articleId the article ID
+     * @return the article, if it exists
+     */
+    Optional<Article> findByStoreIdAndArticleId(String storeId, String articleId);
+}
@@ -0,0 +1,26 @@
+package com.example.pricingservice.repository;
+
+import com.example.pricingservice.model.Article;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+class ArticleRepositoryCustomImpl implements ArticleRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // Keeps the unwrapped session open for the lookup when no transaction is active yet
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<Article> findByStoreIdAndArticleId(String storeId, String articleId) {
+        return entityManager.unwrap(Session.class)
+                .byNaturalId(Article.class)
+                .using("storeId", storeId)
+                .using("articleId", articleId)
+                .loadOptional();
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.pricingservice.repository;
+
+import com.example.pricingservice.model.PriceChange;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface PriceChangeRepository extends JpaRepository<PriceChange, Long> {
+
+    /**
+     * Changes of a store with a version in (since, upTo], oldest first, served by idx_price_changes_store_version
+     */
+    @Query("SELECT c FROM PriceChange c WHERE c.storeId = :storeId AND c.version > :since AND c.version <= :upTo "
+            + "ORDER BY c.version")
+    List<PriceChange> findChanges(String storeId, long since, long upTo, Pageable pageable);
+}
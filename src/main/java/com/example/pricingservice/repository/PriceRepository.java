@@ -7,6 +7,8 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.time.ZonedDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -15,6 +17,61 @@ public interface PriceRepository extends JpaRepository<Price, Long> {
     @Query("SELECT p FROM Price p WHERE p.article.storeId = :storeId AND p.article.articleId = :articleId")
     Page<Price> findByStoreIdAndArticleId(String storeId, String articleId, Pageable pageable);
 
+    /**
+     * Prices of an article whose validity range intersects [from, to], served by idx_prices_article_validity
+     */
+    @Query("SELECT p FROM Price p WHERE p.article.id = :articleId AND p.validTo >= :from AND p.validFrom <= :to")
+    Page<Price> findByArticleIdValidBetween(Long articleId, ZonedDateTime from, ZonedDateTime to, Pageable pageable);
+
+    /**
+     * Earliest validFrom or validTo after the given instant among the prices of an article,
+     * i.e. the next time the set of effective prices changes
+     */
+    @Query("SELECT MIN(CASE WHEN p.validFrom > :now THEN p.validFrom ELSE p.validTo END) "
+            + "FROM Price p WHERE p.article.id = :articleId AND p.validTo > :now")
+    ZonedDateTime findNextValidityBoundary(Long articleId, ZonedDateTime now);
+
     @Query("SELECT p FROM Price p WHERE p.article.id = :articleId")
     List<Price> findAllByArticleId(Long articleId);
-}
\ No newline at end of file
+
+    /**
+     * All prices of several articles of a store, with their articles
+     */
+    @Query("SELECT p FROM Price p JOIN FETCH p.article a WHERE a.storeId = :storeId AND a.articleId IN :articleIds")
+    List<Price> findByStoreIdAndArticleIdIn(String storeId, Collection<String> articleIds);
+
+    /**
+     * Prices of all articles of a store that are valid at an instant, with their articles
+     */
+    @Query("SELECT p FROM Price p JOIN FETCH p.article a WHERE a.storeId = :storeId "
+            + "AND p.validFrom <= :at AND p.validTo >= :at")
+    List<Price> findByStoreIdValidAt(String storeId, ZonedDateTime at);
+
+    /**
+     * Earliest validFrom or validTo at or after the given instant among the prices of a store
+     */
+    @Query("SELECT MIN(CASE WHEN p.validFrom >= :now THEN p.validFrom ELSE p.validTo END) "
+            + "FROM Price p WHERE p.article.storeId = :storeId AND p.validTo >= :now")
+    ZonedDateTime findNextStoreValidityBoundary(String storeId, ZonedDateTime now);
+
+    /**
+     * Articles of a store with a price that became valid in (after, upTo] or expired in [after, upTo)
+     */
+    @Query("SELECT DISTINCT p.article.articleId FROM Price p WHERE p.article.storeId = :storeId AND "
+            + "((p.validFrom > :after AND p.validFrom <= :upTo) OR (p.validTo >= :after AND p.validTo < :upTo))")
+    List<String> findArticleIdsWithBoundaryBetween(String storeId, ZonedDateTime after, ZonedDateTime upTo);
+
+    /**
+     * All prices of an article in every store of the shard, with their articles, ordered by store.
+     * Served by the unique (article_id, store_id) index of articles.
+     */
+    @Query("SELECT p FROM Price p JOIN FETCH p.article a WHERE a.articleId = :articleId ORDER BY a.storeId, p.id")
+    List<Price> findByArticleIdOrderByStore(String articleId);
+
+    /**
+     * All prices of an article in several stores, with their articles, ordered by store
+     */
+    @Query("SELECT p FROM Price p JOIN FETCH p.article a WHERE a.articleId = :articleId AND a.storeId IN :storeIds "
+            + "ORDER BY a.storeId, p.id")
+    List<Price> findByArticleIdAndStoreIdInOrderByStore(String articleId, Collection<String> storeIds);
+}
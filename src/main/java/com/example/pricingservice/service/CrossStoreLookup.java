@@ -0,0 +1,199 @@
+package com.example.pricingservice.service;
+
+import com.example.pricingservice.dto.PriceDTO;
+import com.example.pricingservice.dto.PriceResponseDTO;
+import com.example.pricingservice.exception.InvalidRequestException;
+import com.example.pricingservice.exception.PriceNotFoundException;
+import com.example.pricingservice.exception.ServiceOverloadedException;
+import com.example.pricingservice.limiter.GradientConcurrencyLimiter;
+import com.example.pricingservice.model.Price;
+import com.example.pricingservice.repository.PriceRepository;
+import com.example.pricingservice.shard.StoreShards;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * Prices of one article across many stores, for price-match and regional pricing tools that
+ * would otherwise make one lookup per store.
+ *
+ * <p>The prices of all requested stores are read with one query per shard holding any of them,
+ * ordered by store; several shards are queried in parallel. Each store's prices then go through
+ * the overlap detection and merging of a lookup on a pool of {@code pricing.cross-store.threads}
+ * threads, and the responses are handed out in store order as soon as their store is processed.
+ * The reads take one permit of the concurrency limiter; the response cache is not used.
+ */
+@Component
+@Slf4j
+public class CrossStoreLookup {
+
+    private static final String PRICES_NOT_FOUND = "No prices were found for a given request";
+    private static final String OVERLOADED = "The service is temporarily overloaded, please retry later";
+    private static final int MAX_STORES = 1000;
+
+    private final PriceService priceService;
+    private final PriceRepository priceRepository;
+    private final StoreShards storeShards;
+    private final StoreRegions storeRegions;
+    private final GradientConcurrencyLimiter concurrencyLimiter;
+    private final ExecutorService workers;
+    private final Counter storeResponses;
+
+    public CrossStoreLookup(PriceService priceService, PriceRepository priceRepository, StoreShards storeShards,
+                            StoreRegions storeRegions, GradientConcurrencyLimiter concurrencyLimiter,
+                            MeterRegistry meterRegistry,
+                            @Value("${pricing.cross-store.threads:4}") int threads) {
+        this.priceService = priceService;
+        this.priceRepository = priceRepository;
+        this.storeShards = storeShards;
+        this.storeRegions = storeRegions;
+        this.concurrencyLimiter = concurrencyLimiter;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "cross-store-lookup-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.storeResponses = Counter.builder("pricing.cross_store.stores")
+                .description("Store responses produced by cross-store lookups")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Get the prices of an article in several stores, each store processed like a lookup
+     *
+     * @param articleId the article ID
+     * @param storeIds the stores to look in, every store if empty and no region is given
+     * @param region the configured region whose stores to look in, or null
+     * @return a response per store holding the article, in store order, all its prices on one page.
+     *         Elements become available as their store is processed; close the stream to drop the rest.
+     * @throws InvalidRequestException if both stores and a region are given, the region is unknown
+     *         or too many stores are requested
+     * @throws PriceNotFoundException if no requested store has prices for the article
+     * @throws ServiceOverloadedException if the concurrency limit is reached
+     */
+    public Stream<PriceResponseDTO> find(String articleId, Collection<String> storeIds, String region) {
+        if (region != null && !storeIds.isEmpty()) {
+            throw new InvalidRequestException("storeIds and region cannot be combined");
+        }
+        Set<String> stores = new LinkedHashSet<>(region != null ? storeRegions.storesOf(region) : storeIds);
+        if (stores.size() > MAX_STORES) {
+            throw new InvalidRequestException("At most " + MAX_STORES + " stores can be looked up at once");
+        }
+        log.debug("Retrieving prices for article: {} across {} stores", articleId,
+                stores.isEmpty() ? "all" : stores.size());
+
+        Map<String, List<Price>> pricesByStore = readPrices(articleId, stores);
+        if (pricesByStore.isEmpty()) {
+            throw new PriceNotFoundException(PRICES_NOT_FOUND);
+        }
+
+        List<CompletableFuture<PriceResponseDTO>> responses = new ArrayList<>(pricesByStore.size());
+        for (List<Price> prices : pricesByStore.values()) {
+            responses.add(CompletableFuture.supplyAsync(() -> process(prices), workers));
+        }
+        return responses.stream()
+                .map(CrossStoreLookup::join)
+                .onClose(() -> responses.forEach(response -> response.cancel(false)));
+    }
+
+    @PreDestroy
+    public void close() {
+        workers.shutdownNow();
+    }
+
+    /**
+     * Read the prices of the article in the given stores, or in all stores, grouped by store in store order
+     */
+    private Map<String, List<Price>> readPrices(String articleId, Set<String> storeIds) {
+        // Every shard when no store is given
+        Map<Integer, List<String>> storesByShard = new TreeMap<>();
+        if (storeIds.isEmpty()) {
+            for (int shard = 0; shard < storeShards.getShardCount(); shard++) {
+                storesByShard.put(shard, List.of());
+            }
+        } else {
+            for (String storeId : storeIds) {
+                storesByShard.computeIfAbsent(storeShards.shardOf(storeId), shard -> new ArrayList<>()).add(storeId);
+            }
+        }
+
+        GradientConcurrencyLimiter.Permit permit = concurrencyLimiter.tryAcquire();
+        if (permit == null) {
+            concurrencyLimiter.recordRejected(false);
+            throw new ServiceOverloadedException(OVERLOADED, concurrencyLimiter.getRetryAfter());
+        }
+        try {
+            List<List<Price>> shardPrices = new ArrayList<>(storesByShard.size());
+            if (storesByShard.size() == 1) {
+                Map.Entry<Integer, List<String>> only = storesByShard.entrySet().iterator().next();
+                shardPrices.add(readShard(articleId, only.getKey(), only.getValue()));
+            } else {
+                List<CompletableFuture<List<Price>>> reads = new ArrayList<>(storesByShard.size());
+                storesByShard.forEach((shard, stores) ->
+                        reads.add(CompletableFuture.supplyAsync(() -> readShard(articleId, shard, stores), workers)));
+                reads.forEach(read -> shardPrices.add(join(read)));
+            }
+
+            // Shards are ordered by store each, merged into one store order
+            Map<String, List<Price>> pricesByStore = new TreeMap<>();
+            for (List<Price> prices : shardPrices) {
+                for (Price price : prices) {
+                    pricesByStore.computeIfAbsent(price.getArticle().getStoreId(), store -> new ArrayList<>()).add(price);
+                }
+            }
+            return pricesByStore;
+        } catch (RuntimeException e) {
+            // Database errors and pool timeouts are a sign of overload
+            permit.releaseDropped();
+            throw e;
+        } finally {
+            permit.release();
+        }
+    }
+
+    private List<Price> readShard(String articleId, int shard, List<String> storeIds) {
+        try (StoreShards.Scope scope = storeShards.forShard(shard)) {
+            return storeIds.isEmpty()
+                    ? priceRepository.findByArticleIdOrderByStore(articleId)
+                    : priceRepository.findByArticleIdAndStoreIdInOrderByStore(articleId, storeIds);
+        }
+    }
+
+    private PriceResponseDTO process(List<Price> prices) {
+        List<PriceDTO> priceDTOs = priceService.processPrices(prices);
+        storeResponses.increment();
+        return priceService.buildPriceResponse(prices.get(0).getArticle(), priceDTOs, 1, priceDTOs.size());
+    }
+
+    /**
+     * Wait for a task, rethrowing its failure as is
+     */
+    private static <T> T join(CompletableFuture<T> task) {
+        try {
+            return task.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
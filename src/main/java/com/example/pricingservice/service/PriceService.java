@@ -1,22 +1,43 @@
 package com.example.pricingservice.service;
 
+import com.example.pricingservice.accesslog.AccessLogInterceptor;
+import com.example.pricingservice.accesslog.CacheOutcome;
+import com.example.pricingservice.cache.CachedPriceResponse;
+import com.example.pricingservice.changes.ChangeBatch;
+import com.example.pricingservice.changes.PriceChangeLog;
+import com.example.pricingservice.cache.HotKeySketch;
+import com.example.pricingservice.cache.NegativeLookupCache;
+import com.example.pricingservice.cache.PagePrefetcher;
+import com.example.pricingservice.cache.PriceResponseCache;
+import com.example.pricingservice.dto.ArticleChangeDTO;
+import com.example.pricingservice.dto.HotKeyDTO;
 import com.example.pricingservice.dto.MetaDTO;
+import com.example.pricingservice.dto.PriceChangesDTO;
 import com.example.pricingservice.dto.PriceDTO;
 import com.example.pricingservice.dto.PriceResponseDTO;
 import com.example.pricingservice.dto.PropertiesDTO;
+import com.example.pricingservice.exception.InvalidRequestException;
 import com.example.pricingservice.exception.PriceNotFoundException;
+import com.example.pricingservice.exception.ServiceOverloadedException;
+import com.example.pricingservice.limiter.GradientConcurrencyLimiter;
 import com.example.pricingservice.model.Article;
 import com.example.pricingservice.model.Price;
+import com.example.pricingservice.model.PriceChange;
 import com.example.pricingservice.repository.ArticleRepository;
+import com.example.pricingservice.repository.PriceChangeRepository;
 import com.example.pricingservice.repository.PriceRepository;
+import com.example.pricingservice.shard.StoreShards;
+import com.example.pricingservice.timing.RequestTimings;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.ZonedDateTime;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 /**
@@ -26,15 +47,55 @@ import java.util.stream.Collectors;
 @Slf4j
 public class PriceService {
     
+    private static final String PRICES_NOT_FOUND = "No prices were found for a given request";
+    private static final String OVERLOADED = "The service is temporarily overloaded, please retry later";
+    private static final int WARM_UP_PAGE_SIZE = 10;
+    private static final int MAX_CHANGES_LIMIT = 1000;
+    
     private final ArticleRepository articleRepository;
     private final PriceRepository priceRepository;
+    private final NegativeLookupCache negativeLookupCache;
+    
+    // In-memory cache whose entries expire at the article's next price validity boundary
+    private final PriceResponseCache priceCache;
+    
+    // Bounds the number of lookups waiting on the database; cache hits are never limited
+    private final GradientConcurrencyLimiter concurrencyLimiter;
+    
+    // Routes the lookups of a store to the database shard holding it
+    private final StoreShards storeShards;
+    
+    // Request frequencies driving cache admission and warm-up
+    private final HotKeySketch hotKeys;
     
-    // In-memory cache implementation using ConcurrentHashMap
-    private final Map<String, PriceResponseDTO> priceCache = new ConcurrentHashMap<>();
+    // Versioned log of article and price writes behind the change feed
+    private final PriceChangeRepository priceChangeRepository;
+    private final PriceChangeLog changeLog;
+    
+    // Loads the next page of paginated lookups ahead of the request, when enabled
+    private final PagePrefetcher prefetcher;
+    
+    // Read-only like lookups, so prefetched pages come from one snapshot and may use the replica
+    private final TransactionTemplate prefetchTransaction;
 
-    public PriceService(ArticleRepository articleRepository, PriceRepository priceRepository) {
+    public PriceService(ArticleRepository articleRepository, PriceRepository priceRepository,
+                        NegativeLookupCache negativeLookupCache, PriceResponseCache priceCache,
+                        GradientConcurrencyLimiter concurrencyLimiter, StoreShards storeShards,
+                        HotKeySketch hotKeys, PriceChangeRepository priceChangeRepository,
+                        PriceChangeLog changeLog, PagePrefetcher prefetcher,
+                        PlatformTransactionManager transactionManager) {
         this.articleRepository = articleRepository;
         this.priceRepository = priceRepository;
+        this.negativeLookupCache = negativeLookupCache;
+        this.priceCache = priceCache;
+        this.concurrencyLimiter = concurrencyLimiter;
+        this.storeShards = storeShards;
+        this.hotKeys = hotKeys;
+        this.priceChangeRepository = priceChangeRepository;
+        this.changeLog = changeLog;
+        this.prefetcher = prefetcher;
+        this.prefetchTransaction = new TransactionTemplate(transactionManager);
+        this.prefetchTransaction.setReadOnly(true);
     }
 
     /**
@@ -47,25 +108,199 @@ public class PriceService {
      * @return the price response DTO
      * @throws PriceNotFoundException if prices not found
      */
+    @Transactional(readOnly = true)
     public PriceResponseDTO getPrices(String storeId, String articleId, int page, int pageSize) {
-        log.debug("Retrieving prices for store: {}, article: {}, page: {}, pageSize: {}", 
-                storeId, articleId, page, pageSize);
+        return getCachedPrices(storeId, articleId, page, pageSize, PriceWindow.unbounded()).getResponse();
+    }
+    
+    /**
+     * Get the cache entry holding the prices for a specific store and article,
+     * loading and caching it on a miss
+     * 
+     * @param storeId the store ID
+     * @param articleId the article ID
+     * @param page the page number (starting from 1)
+     * @param pageSize the page size
+     * @param window the validity window the prices must intersect
+     * @return the cache entry for the request, possibly expired if the service is overloaded
+     * @throws PriceNotFoundException if prices not found
+     * @throws ServiceOverloadedException if the concurrency limit is reached and nothing is cached
+     */
+    @Transactional(readOnly = true)
+    public CachedPriceResponse getCachedPrices(String storeId, String articleId, int page, int pageSize,
+                                               PriceWindow window) {
+        log.debug("Retrieving prices for store: {}, article: {}, page: {}, pageSize: {}, window: {} to {}", 
+                storeId, articleId, page, pageSize, window.getFrom(), window.getTo());
         
-        // For development/testing - disable caching
-        clearCache();
+        hotKeys.record(storeId, articleId);
+        return lookup(storeId, articleId, page, pageSize, window);
+    }
+    
+    /**
+     * Serve a request from the cache, loading and caching it on a miss
+     */
+    private CachedPriceResponse lookup(String storeId, String articleId, int page, int pageSize, PriceWindow window) {
+        if (!window.isUnbounded()) {
+            return lookupWindow(storeId, articleId, page, pageSize, window);
+        }
+        String cacheKey = generateCacheKey(storeId, articleId, page, pageSize);
+        CachedPriceResponse cached = priceCache.get(cacheKey);
+        if (cached != null) {
+            log.debug("Cache hit for key: {}", cacheKey);
+            AccessLogInterceptor.recordCacheOutcome(CacheOutcome.HIT);
+            // A client reading a prefetched page is paging through, keep one page ahead of it
+            if (cached.claimPrefetch()) {
+                prefetcher.recordHit();
+                prefetchNextPage(cached, storeId, articleId, page, pageSize, window);
+            }
+            return cached;
+        }
+        
+        // Unknown articles and recently missed lookups are answered without a database round trip
+        if (negativeLookupCache.isKnownMissing(storeId, articleId, cacheKey)) {
+            AccessLogInterceptor.recordCacheOutcome(CacheOutcome.NEGATIVE);
+            throw new PriceNotFoundException(PRICES_NOT_FOUND);
+        }
+        
+        GradientConcurrencyLimiter.Permit permit = concurrencyLimiter.tryAcquire();
+        if (permit == null) {
+            return shedLoad(cacheKey);
+        }
+        AccessLogInterceptor.recordCacheOutcome(CacheOutcome.MISS);
+        try (StoreShards.Scope scope = storeShards.forStore(storeId)) {
+            CachedPriceResponse loaded = loadPrices(storeId, articleId, page, pageSize, window, cacheKey, false);
+            prefetchNextPage(loaded, storeId, articleId, page, pageSize, window);
+            return loaded;
+        } catch (PriceNotFoundException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            // Database errors and pool timeouts are a sign of overload
+            permit.releaseDropped();
+            throw e;
+        } finally {
+            permit.release();
+        }
+    }
+    
+    /**
+     * Load a windowed request without caching it. Windows mostly start at the request time
+     * (validAt=now, from=now), so their responses would be cached under a new key every time and
+     * only push reusable entries out of the cache.
+     */
+    private CachedPriceResponse lookupWindow(String storeId, String articleId, int page, int pageSize,
+                                             PriceWindow window) {
+        if (negativeLookupCache.isKnownMissing(storeId, articleId)) {
+            AccessLogInterceptor.recordCacheOutcome(CacheOutcome.NEGATIVE);
+            throw new PriceNotFoundException(PRICES_NOT_FOUND);
+        }
+        
+        GradientConcurrencyLimiter.Permit permit = concurrencyLimiter.tryAcquire();
+        if (permit == null) {
+            concurrencyLimiter.recordRejected(false);
+            throw new ServiceOverloadedException(OVERLOADED, concurrencyLimiter.getRetryAfter());
+        }
+        AccessLogInterceptor.recordCacheOutcome(CacheOutcome.MISS);
+        try (StoreShards.Scope scope = storeShards.forStore(storeId)) {
+            return loadPrices(storeId, articleId, page, pageSize, window, null, false);
+        } catch (PriceNotFoundException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            permit.releaseDropped();
+            throw e;
+        } finally {
+            permit.release();
+        }
+    }
+    
+    /**
+     * Answer a request turned away by the concurrency limit from an expired cache entry, if any
+     */
+    private CachedPriceResponse shedLoad(String cacheKey) {
+        CachedPriceResponse stale = priceCache.getStale(cacheKey);
+        concurrencyLimiter.recordRejected(stale != null);
+        if (stale == null) {
+            throw new ServiceOverloadedException(OVERLOADED, concurrencyLimiter.getRetryAfter());
+        }
+        log.debug("Overloaded, serving stale entry for key: {}", cacheKey);
+        AccessLogInterceptor.recordCacheOutcome(CacheOutcome.STALE);
+        return stale;
+    }
+    
+    /**
+     * Queue the load of the page after a served one, if there is one and it is not cached yet
+     */
+    private void prefetchNextPage(CachedPriceResponse served, String storeId, String articleId, int page,
+                                  int pageSize, PriceWindow window) {
+        if (!prefetcher.isEnabled() || served.isLastPage()) {
+            return;
+        }
+        int nextPage = Math.max(1, page) + 1;
+        String nextKey = generateCacheKey(storeId, articleId, nextPage, pageSize);
+        if (priceCache.get(nextKey) != null) {
+            return;
+        }
+        prefetcher.schedule(nextKey, () -> {
+            if (priceCache.get(nextKey) != null) {
+                return false;
+            }
+            // Like a lookup, but never answered from a stale entry or with a 503
+            GradientConcurrencyLimiter.Permit permit = concurrencyLimiter.tryAcquire();
+            if (permit == null) {
+                return false;
+            }
+            try (StoreShards.Scope scope = storeShards.forStore(storeId)) {
+                prefetchTransaction.executeWithoutResult(status ->
+                        loadPrices(storeId, articleId, nextPage, pageSize, window, nextKey, true));
+                return true;
+            } catch (PriceNotFoundException e) {
+                return false;
+            } catch (RuntimeException e) {
+                permit.releaseDropped();
+                throw e;
+            } finally {
+                permit.release();
+            }
+        });
+    }
+    
+    /**
+     * Load and process the prices from the database and cache the response, unless the cache key is null
+     */
+    private CachedPriceResponse loadPrices(String storeId, String articleId, int page, int pageSize,
+                                           PriceWindow window, String cacheKey, boolean prefetched) {
+        // Read before the database: a write committing during the load must keep it out of the cache
+        String articleKey = HotKeySketch.key(storeId, articleId);
+        long generation = priceCache.generation(articleKey);
+        long missGeneration = negativeLookupCache.generation(storeId, articleId);
         
         // Fetch from database
-        Article article = articleRepository.findByStoreIdAndArticleId(storeId, articleId)
-                .orElseThrow(() -> new PriceNotFoundException("No prices were found for a given request"));
+        Optional<Article> existingArticle;
+        try (RequestTimings.Stage stage = RequestTimings.stage("article")) {
+            existingArticle = articleRepository.findByStoreIdAndArticleId(storeId, articleId);
+        }
+        if (existingArticle.isEmpty()) {
+            negativeLookupCache.articleMissing(storeId, articleId, missGeneration);
+            throw new PriceNotFoundException(PRICES_NOT_FOUND);
+        }
+        Article article = existingArticle.get();
         
         // Spring Data JPA uses 0-based page indexing
         int pageIndex = Math.max(0, page - 1);
         
-        Page<Price> pricePage = priceRepository.findByStoreIdAndArticleId(
-                storeId, articleId, PageRequest.of(pageIndex, pageSize));
+        // A window is pushed down into the query so expired history is never loaded
+        Page<Price> pricePage;
+        try (RequestTimings.Stage stage = RequestTimings.stage("prices")) {
+            pricePage = window.isUnbounded()
+                    ? priceRepository.findByStoreIdAndArticleId(storeId, articleId, PageRequest.of(pageIndex, pageSize))
+                    : priceRepository.findByArticleIdValidBetween(article.getId(), window.fromOrEarliest(),
+                            window.toOrLatest(), PageRequest.of(pageIndex, pageSize));
+        }
         
         if (pricePage.isEmpty()) {
-            throw new PriceNotFoundException("No prices were found for a given request");
+            if (cacheKey != null) {
+                negativeLookupCache.pricesMissing(storeId, articleId, cacheKey, missGeneration);
+            }
+            throw new PriceNotFoundException(PRICES_NOT_FOUND);
         }
         
         List<Price> prices = new ArrayList<>(pricePage.getContent());
@@ -76,18 +311,24 @@ public class PriceService {
         // Step 2: Build and return the response
         PriceResponseDTO response = buildPriceResponse(article, priceDTOs, page, pageSize);
         
-        // Cache for future requests
-        String cacheKey = generateCacheKey(storeId, articleId, page, pageSize);
-        priceCache.put(cacheKey, response);
+        if (cacheKey == null) {
+            return new CachedPriceResponse(response, Long.MAX_VALUE, !pricePage.hasNext(), false);
+        }
         
-        return response;
+        // Cache for future requests, until the effective prices of the article change
+        ZonedDateTime nextBoundary;
+        try (RequestTimings.Stage stage = RequestTimings.stage("boundary")) {
+            nextBoundary = priceRepository.findNextValidityBoundary(article.getId(), ZonedDateTime.now());
+        }
+        return priceCache.put(cacheKey, articleKey, response, nextBoundary, !pricePage.hasNext(), prefetched,
+                generation);
     }
     
     /**
      * Process prices: mark overlapping with different amounts as overlapped,
      * and merge those with same amounts
      */
-    private List<PriceDTO> processPrices(List<Price> prices) {
+    List<PriceDTO> processPrices(List<Price> prices) {
         // Log original prices
         log.debug("Processing {} prices", prices.size());
         for (Price price : prices) {
@@ -110,10 +351,15 @@ public class PriceService {
             .collect(Collectors.toList());
         
         // Step 2: Mark overlapping prices with different amounts as "overlapped"
-        markOverlappedPrices(dtos);
+        try (RequestTimings.Stage stage = RequestTimings.stage("overlap")) {
+            markOverlappedPrices(dtos);
+        }
         
         // Step 3: Merge prices with overlapping date ranges and equal amounts
-        List<PriceDTO> mergedPrices = mergePricesWithEqualAmounts(dtos);
+        List<PriceDTO> mergedPrices;
+        try (RequestTimings.Stage stage = RequestTimings.stage("merge")) {
+            mergedPrices = mergePricesWithEqualAmounts(dtos);
+        }
         
         // Log final result
         log.debug("Final processed prices (count: {})", mergedPrices.size());
@@ -336,22 +582,210 @@ public class PriceService {
     /**
      * Build the complete price response DTO
      */
-    private PriceResponseDTO buildPriceResponse(Article article, List<PriceDTO> prices, int page, int pageSize) {
+    PriceResponseDTO buildPriceResponse(Article article, List<PriceDTO> prices, int page, int pageSize) {
         return PriceResponseDTO.builder()
                 .generated_date(ZonedDateTime.now())
                 .article(article.getArticleId())
                 .store(article.getStoreId())
                 .meta(MetaDTO.builder().page(page).size(pageSize).build())
-                .properties(PropertiesDTO.builder()
-                        .uom(article.getUom())
-                        .description(article.getDescription())
-                        .brand(article.getBrand())
-                        .model(article.getModel())
-                        .build())
+                .properties(buildProperties(article))
                 .prices(prices)
                 .build();
     }
     
+    private PropertiesDTO buildProperties(Article article) {
+        return PropertiesDTO.builder()
+                .uom(article.getUom())
+                .description(article.getDescription())
+                .brand(article.getBrand())
+                .model(article.getModel())
+                .build();
+    }
+    
+    /**
+     * Get the articles of a store that changed after a version, each with its complete processed
+     * price timeline. Changes are read oldest first in batches of at most {@code limit} log entries;
+     * several writes of an article in one batch are returned once, at its latest version.
+     * 
+     * @param storeId the store ID
+     * @param since the version the client is up to date with, 0 for the whole store
+     * @param limit the maximum number of log entries to read
+     * @return the changed articles and the version to continue from
+     * @throws InvalidRequestException if since is negative or limit is out of range
+     */
+    // Not read-only: the change log is not replicated, so it is always read from the primary
+    @Transactional
+    public PriceChangesDTO getChanges(String storeId, long since, int limit) {
+        if (since < 0) {
+            throw new InvalidRequestException("since must not be negative");
+        }
+        if (limit < 1 || limit > MAX_CHANGES_LIMIT) {
+            throw new InvalidRequestException("limit must be between 1 and " + MAX_CHANGES_LIMIT);
+        }
+        log.debug("Retrieving changes for store: {}, since: {}, limit: {}", storeId, since, limit);
+        
+        try (StoreShards.Scope scope = storeShards.forStore(storeId)) {
+            ChangeBatch batch = readChanges(storeId, since, limit);
+            Map<String, Long> versions = batch.getArticleVersions();
+            
+            List<ArticleChangeDTO> changes = new ArrayList<>(versions.size());
+            if (!versions.isEmpty()) {
+                Map<String, List<Price>> pricesByArticle = findPricesByArticle(storeId, versions.keySet());
+                versions.forEach((articleId, version) -> changes.add(ArticleChangeDTO.builder()
+                        .article(articleId)
+                        .version(version)
+                        // A removed article is reported without properties or prices
+                        .properties(articleRepository.findByStoreIdAndArticleId(storeId, articleId)
+                                .map(this::buildProperties)
+                                .orElse(null))
+                        .prices(processPrices(pricesByArticle.getOrDefault(articleId, List.of())))
+                        .build()));
+            }
+            
+            return PriceChangesDTO.builder()
+                    .store(storeId)
+                    .since(since)
+                    .nextVersion(batch.getNextVersion())
+                    .hasMore(batch.isHasMore())
+                    .changes(changes)
+                    .build();
+        }
+    }
+    
+    /**
+     * Get the articles of a store written after a version, without their prices
+     * 
+     * @param storeId the store ID
+     * @param since the version already seen
+     * @param limit the maximum number of log entries to read
+     * @return the changed articles and the version to continue from
+     */
+    @Transactional
+    public ChangeBatch getChangedArticles(String storeId, long since, int limit) {
+        try (StoreShards.Scope scope = storeShards.forStore(storeId)) {
+            return readChanges(storeId, since, limit);
+        }
+    }
+    
+    /**
+     * Get the latest version of the change log that is served for a store
+     * 
+     * @param storeId the store ID
+     * @return the version, changes after it are yet to come
+     */
+    public long getLatestChangeVersion(String storeId) {
+        try (StoreShards.Scope scope = storeShards.forStore(storeId)) {
+            return changeLog.readableVersion();
+        }
+    }
+    
+    /**
+     * Get the prices of several articles of a store that are valid at an instant, processed like a lookup
+     * 
+     * @param storeId the store ID
+     * @param articleIds the article IDs
+     * @param at the instant the prices must be valid at
+     * @return a response per existing article, with all its valid prices on one page
+     */
+    // Read from the primary like the change log, so a change is never answered with replica data predating it
+    @Transactional
+    public Map<String, PriceResponseDTO> getCurrentPrices(String storeId, Collection<String> articleIds,
+                                                          ZonedDateTime at) {
+        try (StoreShards.Scope scope = storeShards.forStore(storeId)) {
+            Map<String, List<Price>> pricesByArticle = findPricesByArticle(storeId, articleIds);
+            Map<String, PriceResponseDTO> responses = new LinkedHashMap<>();
+            for (String articleId : articleIds) {
+                Optional<Article> article = articleRepository.findByStoreIdAndArticleId(storeId, articleId);
+                if (article.isEmpty()) {
+                    continue;
+                }
+                List<Price> valid = pricesByArticle.getOrDefault(articleId, List.of()).stream()
+                        .filter(price -> isValidAt(price, at))
+                        .collect(Collectors.toList());
+                List<PriceDTO> priceDTOs = processPrices(valid);
+                responses.put(articleId, buildPriceResponse(article.get(), priceDTOs, 1, priceDTOs.size()));
+            }
+            return responses;
+        }
+    }
+    
+    /**
+     * Get the prices of all articles of a store that are valid at an instant, processed like a lookup
+     * 
+     * @param storeId the store ID
+     * @param at the instant the prices must be valid at
+     * @return the processed prices by article, for the articles with at least one valid price
+     */
+    @Transactional
+    public Map<String, List<PriceDTO>> getCurrentStorePrices(String storeId, ZonedDateTime at) {
+        try (StoreShards.Scope scope = storeShards.forStore(storeId)) {
+            Map<String, List<Price>> pricesByArticle = priceRepository.findByStoreIdValidAt(storeId, at).stream()
+                    .collect(Collectors.groupingBy(price -> price.getArticle().getArticleId()));
+            Map<String, List<PriceDTO>> processed = new HashMap<>(pricesByArticle.size() * 2);
+            pricesByArticle.forEach((articleId, prices) -> processed.put(articleId, processPrices(prices)));
+            return processed;
+        }
+    }
+    
+    /**
+     * Get the articles of a store whose set of valid prices changed in a time range
+     * 
+     * @param storeId the store ID
+     * @param after the start of the range, exclusive
+     * @param upTo the end of the range, inclusive
+     * @return the IDs of the articles with a price that became valid or expired in the range
+     */
+    @Transactional
+    public List<String> getArticlesCrossingBoundary(String storeId, ZonedDateTime after, ZonedDateTime upTo) {
+        try (StoreShards.Scope scope = storeShards.forStore(storeId)) {
+            return priceRepository.findArticleIdsWithBoundaryBetween(storeId, after, upTo);
+        }
+    }
+    
+    /**
+     * Get the next time the set of valid prices of any article of a store changes
+     * 
+     * @param storeId the store ID
+     * @param now the current time
+     * @return the earliest validFrom or validTo at or after now, or null if there is none
+     */
+    @Transactional
+    public ZonedDateTime getNextValidityBoundary(String storeId, ZonedDateTime now) {
+        try (StoreShards.Scope scope = storeShards.forStore(storeId)) {
+            return priceRepository.findNextStoreValidityBoundary(storeId, now);
+        }
+    }
+    
+    /**
+     * Read a batch of the change log of a store, up to the readable version. Caller binds the store's shard.
+     */
+    private ChangeBatch readChanges(String storeId, long since, int limit) {
+        long readable = changeLog.readableVersion();
+        List<PriceChange> entries = since >= readable ? List.of()
+                : priceChangeRepository.findChanges(storeId, since, readable, PageRequest.of(0, limit + 1));
+        boolean hasMore = entries.size() > limit;
+        List<PriceChange> batch = hasMore ? entries.subList(0, limit) : entries;
+        // Once the batch reaches the readable version the client can skip straight to it
+        long nextVersion = hasMore ? batch.get(limit - 1).getVersion() : Math.max(since, readable);
+        
+        // Latest version of every changed article, in version order
+        Map<String, Long> versions = new LinkedHashMap<>();
+        for (PriceChange change : batch) {
+            versions.remove(change.getArticleId());
+            versions.put(change.getArticleId(), change.getVersion());
+        }
+        return new ChangeBatch(versions, nextVersion, hasMore);
+    }
+    
+    private static boolean isValidAt(Price price, ZonedDateTime at) {
+        return !price.getValidFrom().isAfter(at) && !price.getValidTo().isBefore(at);
+    }
+    
+    private Map<String, List<Price>> findPricesByArticle(String storeId, Collection<String> articleIds) {
+        return priceRepository.findByStoreIdAndArticleIdIn(storeId, articleIds).stream()
+                .collect(Collectors.groupingBy(price -> price.getArticle().getArticleId()));
+    }
+    
     /**
      * Generate a cache key for the price request
      */
@@ -360,10 +794,46 @@ public class PriceService {
     }
     
     /**
-     * Clear the price cache
+     * Clear the price cache and load the hot keys back in, so the hot set is not served from the database at once
      */
     public void clearCache() {
         priceCache.clear();
-        log.debug("Price cache cleared");
+        negativeLookupCache.clear();
+        log.debug("Price cache cleared, {} hot keys warmed up", warmUp());
+    }
+    
+    /**
+     * Load the first page of every hot key into the cache
+     *
+     * @return the number of hot keys loaded
+     */
+    public int warmUp() {
+        int loaded = 0;
+        for (HotKeySketch.HotKey hotKey : hotKeys.topKeys(Integer.MAX_VALUE)) {
+            try {
+                lookup(hotKey.getStoreId(), hotKey.getArticleId(), 1, WARM_UP_PAGE_SIZE, PriceWindow.unbounded());
+                loaded++;
+            } catch (PriceNotFoundException | ServiceOverloadedException e) {
+                log.debug("Skipped warming up store: {}, article: {}: {}", hotKey.getStoreId(), hotKey.getArticleId(),
+                        e.getMessage());
+            }
+        }
+        return loaded;
+    }
+    
+    /**
+     * Get the most requested (store, article) keys
+     *
+     * @param limit the maximum number of keys
+     * @return the hot keys, most requested first
+     */
+    public List<HotKeyDTO> getHotKeys(int limit) {
+        return hotKeys.topKeys(limit).stream()
+                .map(hotKey -> HotKeyDTO.builder()
+                        .storeId(hotKey.getStoreId())
+                        .articleId(hotKey.getArticleId())
+                        .estimatedRequests(hotKey.getCount())
+                        .build())
+                .collect(Collectors.toList());
     }
 }
\ No newline at end of file
@@ -0,0 +1,82 @@
+package com.example.pricingservice.service;
+
+import com.example.pricingservice.exception.InvalidRequestException;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+
+/**
+ * Validity window a price request is restricted to. A price matches when its validity range
+ * [validFrom, validTo] intersects the window; both ends are inclusive. Missing bounds are open.
+ */
+@Getter
+@EqualsAndHashCode
+public final class PriceWindow {
+
+    // Used in place of an open bound so the window is always pushed down as one range predicate
+    static final ZonedDateTime EARLIEST = ZonedDateTime.of(1, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+    static final ZonedDateTime LATEST = ZonedDateTime.of(9999, 12, 31, 23, 59, 59, 999_999_000, ZoneOffset.UTC);
+
+    private static final PriceWindow UNBOUNDED = new PriceWindow(null, null);
+
+    private final ZonedDateTime from;
+    private final ZonedDateTime to;
+
+    private PriceWindow(ZonedDateTime from, ZonedDateTime to) {
+        this.from = from;
+        this.to = to;
+    }
+
+    public static PriceWindow unbounded() {
+        return UNBOUNDED;
+    }
+
+    /**
+     * Build a window from the request parameters
+     *
+     * @param validAt a single instant the prices must be valid at, exclusive with from / to
+     * @param from the start of the window, or null for an open start
+     * @param to the end of the window, or null for an open end
+     * @return the window
+     * @throws InvalidRequestException if the parameters are contradictory
+     */
+    public static PriceWindow of(ZonedDateTime validAt, ZonedDateTime from, ZonedDateTime to) {
+        if (validAt != null) {
+            if (from != null || to != null) {
+                throw new InvalidRequestException("validAt cannot be combined with from or to");
+            }
+            return new PriceWindow(utc(validAt), utc(validAt));
+        }
+        if (from != null && to != null && from.isAfter(to)) {
+            throw new InvalidRequestException("from must not be after to");
+        }
+        if (from == null && to == null) {
+            return UNBOUNDED;
+        }
+        return new PriceWindow(utc(from), utc(to));
+    }
+
+    public boolean isUnbounded() {
+        return from == null && to == null;
+    }
+
+    /**
+     * Lower bound to bind into the query
+     */
+    public ZonedDateTime fromOrEarliest() {
+        return from != null ? from : EARLIEST;
+    }
+
+    /**
+     * Upper bound to bind into the query
+     */
+    public ZonedDateTime toOrLatest() {
+        return to != null ? to : LATEST;
+    }
+
+    private static ZonedDateTime utc(ZonedDateTime dateTime) {
+        return dateTime == null ? null : dateTime.withZoneSameInstant(ZoneOffset.UTC);
+    }
+}
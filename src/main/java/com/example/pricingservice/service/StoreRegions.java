@@ -0,0 +1,55 @@
+package com.example.pricingservice.service;
+
+import com.example.pricingservice.exception.InvalidRequestException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Named groups of stores for cross-store lookups, configured as
+ * {@code pricing.regions.<name>=<store ID>,<store ID>,...}
+ */
+@Component
+public class StoreRegions {
+
+    private final Map<String, List<String>> regions;
+
+    @Autowired
+    public StoreRegions(Environment environment) {
+        this(bind(environment));
+    }
+
+    public StoreRegions(Map<String, List<String>> regions) {
+        this.regions = Map.copyOf(regions);
+    }
+
+    /**
+     * Get the stores of a region
+     *
+     * @param region the region name
+     * @return the store IDs
+     * @throws InvalidRequestException if the region is not configured
+     */
+    public List<String> storesOf(String region) {
+        List<String> stores = regions.get(region);
+        if (stores == null) {
+            throw new InvalidRequestException("Unknown region " + region);
+        }
+        return stores;
+    }
+
+    private static Map<String, List<String>> bind(Environment environment) {
+        Map<String, String[]> configured = Binder.get(environment)
+                .bind("pricing.regions", Bindable.mapOf(String.class, String[].class))
+                .orElse(Map.of());
+        Map<String, List<String>> regions = new HashMap<>();
+        configured.forEach((name, stores) -> regions.put(name, List.of(stores)));
+        return regions;
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.pricingservice.shard;
+
+import com.example.pricingservice.util.Hashing;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Consistent-hash ring mapping keys to shards. Each shard owns {@code virtualNodes} points on the
+ * ring and a key belongs to the shard of the first point at or after its hash, so adding a shard
+ * only moves about 1/N of the keys and the keys of each shard stay spread evenly.
+ */
+public class ShardRing {
+
+    private final int shardCount;
+    private final long[] points;
+    private final int[] owners;
+
+    public ShardRing(int shardCount, int virtualNodes) {
+        if (shardCount < 1 || virtualNodes < 1) {
+            throw new IllegalArgumentException("Invalid shard ring settings");
+        }
+        this.shardCount = shardCount;
+
+        TreeMap<Long, Integer> ring = new TreeMap<>();
+        for (int shard = 0; shard < shardCount; shard++) {
+            for (int node = 0; node < virtualNodes; node++) {
+                // A colliding point keeps its first owner, which is the same for every ring size
+                ring.putIfAbsent(Hashing.hash64("shard-" + shard + "#" + node), shard);
+            }
+        }
+        this.points = new long[ring.size()];
+        this.owners = new int[ring.size()];
+        int i = 0;
+        for (Map.Entry<Long, Integer> point : ring.entrySet()) {
+            points[i] = point.getKey();
+            owners[i] = point.getValue();
+            i++;
+        }
+    }
+
+    /**
+     * Get the shard owning a key
+     *
+     * @param key the key
+     * @return the shard index, between 0 and the shard count - 1
+     */
+    public int shardOf(String key) {
+        if (shardCount == 1) {
+            return 0;
+        }
+        long hash = Hashing.hash64(key);
+        int low = 0;
+        int high = points.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (points[mid] < hash) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        // Past the last point the ring wraps around to the first one
+        return owners[low == points.length ? 0 : low];
+    }
+
+    public int getShardCount() {
+        return shardCount;
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.pricingservice.shard;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Assigns every store to a database shard and binds the shard database work runs against.
+ *
+ * <p>Connections are only borrowed when the first statement runs, so binding a scope anywhere
+ * before the first query routes the whole transaction to the store's shard. Work outside a
+ * scope uses shard 0. With a single shard (the default, profile {@code sharded} adds more)
+ * scopes have no effect.
+ */
+@Component
+public class StoreShards {
+
+    private static final ThreadLocal<Integer> CURRENT_SHARD = new ThreadLocal<>();
+
+    private final ShardRing ring;
+
+    @Autowired
+    public StoreShards(@Value("${pricing.sharding.shards:1}") int shards,
+                       @Value("${pricing.sharding.virtual-nodes:128}") int virtualNodes) {
+        this.ring = new ShardRing(shards, virtualNodes);
+    }
+
+    public StoreShards(int shards) {
+        this(shards, 128);
+    }
+
+    public int getShardCount() {
+        return ring.getShardCount();
+    }
+
+    /**
+     * Get the shard holding a store's articles and prices
+     *
+     * @param storeId the store ID
+     * @return the shard index
+     */
+    public int shardOf(String storeId) {
+        return ring.shardOf(storeId);
+    }
+
+    /**
+     * Route database work of the current thread to a store's shard until the scope is closed
+     *
+     * @param storeId the store ID
+     * @return the scope, to be closed when the work completes
+     * @throws IllegalStateException if the thread is already bound to another shard
+     */
+    public Scope forStore(String storeId) {
+        return forShard(shardOf(storeId));
+    }
+
+    /**
+     * Route database work of the current thread to a shard until the scope is closed
+     *
+     * @param shard the shard index
+     * @return the scope, to be closed when the work completes
+     * @throws IllegalStateException if the thread is already bound to another shard
+     */
+    public Scope forShard(int shard) {
+        if (shard < 0 || shard >= getShardCount()) {
+            throw new IllegalArgumentException("No shard " + shard);
+        }
+        Integer previous = CURRENT_SHARD.get();
+        // A transaction sticks to the connection of its first statement and cannot span shards
+        if (previous != null && previous != shard) {
+            throw new IllegalStateException("Already bound to shard " + previous + ", cannot switch to shard " + shard);
+        }
+        CURRENT_SHARD.set(shard);
+        return new Scope(previous);
+    }
+
+    /**
+     * Shard bound to the current thread, or null outside of a scope
+     */
+    static Integer currentShard() {
+        return CURRENT_SHARD.get();
+    }
+
+    /**
+     * Binding of the current thread to a shard
+     */
+    public static final class Scope implements AutoCloseable {
+
+        private final Integer previous;
+
+        private Scope(Integer previous) {
+            this.previous = previous;
+        }
+
+        @Override
+        public void close() {
+            if (previous == null) {
+                CURRENT_SHARD.remove();
+            } else {
+                CURRENT_SHARD.set(previous);
+            }
+        }
+    }
+}
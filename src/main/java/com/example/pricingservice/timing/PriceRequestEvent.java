@@ -0,0 +1,25 @@
+package com.example.pricingservice.timing;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event spanning a whole HTTP request, enclosing its {@link PriceStageEvent}s
+ */
+@Name("com.example.pricing.Request")
+@Label("Price Request")
+@Category({"Pricing Service"})
+@Description("Duration and outcome of an HTTP request")
+@StackTrace(false)
+class PriceRequestEvent extends Event {
+
+    @Label("Request")
+    String request;
+
+    @Label("Status")
+    int status;
+}
@@ -0,0 +1,27 @@
+package com.example.pricingservice.timing;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event for one stage of a price request, e.g. the price query or overlap detection.
+ * Stack traces are off so the event stays cheap enough to be enabled in production.
+ */
+@Name("com.example.pricing.Stage")
+@Label("Price Request Stage")
+@Category({"Pricing Service"})
+@Description("Duration of one stage of a price request")
+@StackTrace(false)
+class PriceStageEvent extends Event {
+
+    @Label("Stage")
+    String stage;
+
+    @Label("Request")
+    @Description("Method and path of the request the stage belongs to")
+    String request;
+}
@@ -0,0 +1,129 @@
+package com.example.pricingservice.timing;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Per-request stage timings, bound to the request thread by {@link ServerTimingFilter}.
+ *
+ * <p>Every stage is emitted as a {@link PriceStageEvent}. Durations are additionally collected
+ * for the {@code Server-Timing} response header when the client asked for it. Outside of a
+ * request (tests, loaders) stages only produce the JFR event.
+ */
+public final class RequestTimings {
+
+    private static final ThreadLocal<RequestTimings> CURRENT = new ThreadLocal<>();
+
+    private final String request;
+    private final boolean collect;
+    private final long startNanos = System.nanoTime();
+    private final List<String> names = new ArrayList<>();
+    private final List<Long> durations = new ArrayList<>();
+    private Stage serialization;
+
+    private RequestTimings(String request, boolean collect) {
+        this.request = request;
+        this.collect = collect;
+    }
+
+    /**
+     * Start a stage of the current request
+     *
+     * @param name the stage name, a Server-Timing metric name
+     * @return the stage, to be closed when it completes
+     */
+    public static Stage stage(String name) {
+        return new Stage(name, CURRENT.get());
+    }
+
+    /**
+     * Mark the start of response serialization, closed when the request completes
+     */
+    public static void serializationStarted() {
+        RequestTimings timings = CURRENT.get();
+        if (timings != null && timings.serialization == null) {
+            timings.serialization = new Stage("serialize", timings);
+        }
+    }
+
+    static RequestTimings begin(String request, boolean collect) {
+        RequestTimings timings = new RequestTimings(request, collect);
+        CURRENT.set(timings);
+        return timings;
+    }
+
+    static void end() {
+        CURRENT.remove();
+    }
+
+    String getRequest() {
+        return request;
+    }
+
+    /**
+     * Close the serialization stage if the response had a body
+     */
+    void serializationFinished() {
+        if (serialization != null) {
+            serialization.close();
+            serialization = null;
+        }
+    }
+
+    /**
+     * Render the collected stages and the total as a Server-Timing header value
+     */
+    String toServerTiming() {
+        StringBuilder header = new StringBuilder();
+        for (int i = 0; i < names.size(); i++) {
+            appendMetric(header, names.get(i), durations.get(i));
+        }
+        appendMetric(header, "total", System.nanoTime() - startNanos);
+        return header.toString();
+    }
+
+    private void record(String name, long nanos) {
+        if (collect) {
+            names.add(name);
+            durations.add(nanos);
+        }
+    }
+
+    private static void appendMetric(StringBuilder header, String name, long nanos) {
+        if (header.length() > 0) {
+            header.append(", ");
+        }
+        header.append(name).append(";dur=").append(String.format(Locale.ROOT, "%.3f", nanos / 1_000_000.0));
+    }
+
+    /**
+     * A running stage, closed with try-with-resources
+     */
+    public static final class Stage implements AutoCloseable {
+
+        private final String name;
+        private final RequestTimings timings;
+        private final PriceStageEvent event = new PriceStageEvent();
+        private final long startNanos = System.nanoTime();
+
+        private Stage(String name, RequestTimings timings) {
+            this.name = name;
+            this.timings = timings;
+            event.begin();
+        }
+
+        @Override
+        public void close() {
+            event.end();
+            if (event.shouldCommit()) {
+                event.stage = name;
+                event.request = timings != null ? timings.request : null;
+                event.commit();
+            }
+            if (timings != null) {
+                timings.record(name, System.nanoTime() - startNanos);
+            }
+        }
+    }
+}
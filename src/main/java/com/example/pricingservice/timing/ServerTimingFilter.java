@@ -0,0 +1,156 @@
+package com.example.pricingservice.timing;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Binds {@link RequestTimings} to each request and records it as a {@link PriceRequestEvent}.
+ * When the request carries the debug header ({@code pricing.server-timing.header}) the stage
+ * durations are returned in a {@code Server-Timing} header; the body is buffered for those
+ * requests only, so the header can still be set after serialization. Streamed responses (SSE,
+ * NDJSON) are not held back: once the request goes async the body passes straight through,
+ * without the header.
+ */
+@Component
+public class ServerTimingFilter extends OncePerRequestFilter {
+
+    static final String SERVER_TIMING = "Server-Timing";
+
+    private final String debugHeader;
+
+    public ServerTimingFilter(@Value("${pricing.server-timing.header:X-Debug-Timing}") String debugHeader) {
+        this.debugHeader = debugHeader;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        boolean collect = request.getHeader(debugHeader) != null;
+        RequestTimings timings = RequestTimings.begin(request.getMethod() + " " + request.getRequestURI(), collect);
+        PriceRequestEvent event = new PriceRequestEvent();
+        event.begin();
+
+        TimingResponseWrapper buffered = collect ? new TimingResponseWrapper(request, response) : null;
+        try {
+            chain.doFilter(request, buffered != null ? buffered : response);
+        } finally {
+            timings.serializationFinished();
+            if (buffered != null && !buffered.switchToStreaming()) {
+                buffered.setHeader(SERVER_TIMING, timings.toServerTiming());
+                buffered.copyBodyToResponse();
+            }
+            RequestTimings.end();
+
+            event.end();
+            if (event.shouldCommit()) {
+                event.request = timings.getRequest();
+                event.status = response.getStatus();
+                event.commit();
+            }
+        }
+    }
+
+    /**
+     * Buffers the body until the request goes async, then sends what was buffered and passes
+     * further writes and flushes through. Streaming handlers may take the output stream before
+     * starting async processing, so the switch is checked on every write.
+     */
+    private static final class TimingResponseWrapper extends ContentCachingResponseWrapper {
+
+        private final HttpServletRequest request;
+        private ServletOutputStream outputStream;
+        private boolean streaming;
+
+        private TimingResponseWrapper(HttpServletRequest request, HttpServletResponse response) {
+            super(response);
+            this.request = request;
+        }
+
+        /**
+         * Check if the response is streamed, sending the buffered body when it just started to be
+         *
+         * @return true if the body goes straight to the client
+         */
+        private synchronized boolean switchToStreaming() throws IOException {
+            if (!streaming && request.isAsyncStarted()) {
+                streaming = true;
+                copyBodyToResponse(false);
+            }
+            return streaming;
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            if (outputStream == null) {
+                outputStream = new SwitchingOutputStream(super.getOutputStream());
+            }
+            return outputStream;
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            if (switchToStreaming()) {
+                getResponse().flushBuffer();
+            } else {
+                super.flushBuffer();
+            }
+        }
+
+        private final class SwitchingOutputStream extends ServletOutputStream {
+
+            private final ServletOutputStream buffered;
+
+            private SwitchingOutputStream(ServletOutputStream buffered) {
+                this.buffered = buffered;
+            }
+
+            private ServletOutputStream target() throws IOException {
+                return switchToStreaming() ? getResponse().getOutputStream() : buffered;
+            }
+
+            @Override
+            public void write(int b) throws IOException {
+                target().write(b);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                target().write(b, off, len);
+            }
+
+            @Override
+            public void flush() throws IOException {
+                target().flush();
+            }
+
+            @Override
+            public boolean isReady() {
+                try {
+                    return target().isReady();
+                } catch (IOException e) {
+                    return false;
+                }
+            }
+
+            @Override
+            public void setWriteListener(WriteListener listener) {
+                try {
+                    target().setWriteListener(listener);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,26 @@
+-- Catalog schema of the file-backed store, must match the JPA mapping of Article and Price (ddl-auto=validate)
+
+CREATE TABLE articles (
+    id          BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    article_id  VARCHAR(255) NOT NULL,
+    store_id    VARCHAR(255) NOT NULL,
+    uom         VARCHAR(255),
+    description VARCHAR(255),
+    brand       VARCHAR(255),
+    model       VARCHAR(255),
+    CONSTRAINT uk_articles_article_store UNIQUE (article_id, store_id)
+);
+
+CREATE TABLE prices (
+    id         BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    article_id BIGINT NOT NULL,
+    type       VARCHAR(255) NOT NULL,
+    subtype    VARCHAR(255) NOT NULL,
+    currency   VARCHAR(255) NOT NULL,
+    amount     NUMERIC(10, 2) NOT NULL,
+    valid_from TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    valid_to   TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    CONSTRAINT fk_prices_article FOREIGN KEY (article_id) REFERENCES articles (id)
+);
+
+CREATE INDEX idx_prices_article_validity ON prices (article_id, valid_from, valid_to);
@@ -0,0 +1,10 @@
+-- Change log behind GET /v1/prices/{storeId}/changes, must match the JPA mapping of PriceChange
+
+CREATE TABLE price_changes (
+    version    BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    store_id   VARCHAR(255) NOT NULL,
+    article_id VARCHAR(255) NOT NULL,
+    changed_at TIMESTAMP(6) WITH TIME ZONE NOT NULL
+);
+
+CREATE INDEX idx_price_changes_store_version ON price_changes (store_id, version);
@@ -0,0 +1,17 @@
+-- Prices moved out of the catalog by the compaction job, must match the JPA mapping of ArchivedPrice
+
+CREATE TABLE prices_archive (
+    id          BIGINT NOT NULL PRIMARY KEY,
+    article_id  BIGINT NOT NULL,
+    type        VARCHAR(255) NOT NULL,
+    subtype     VARCHAR(255) NOT NULL,
+    currency    VARCHAR(255) NOT NULL,
+    amount      NUMERIC(10, 2) NOT NULL,
+    valid_from  TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    valid_to    TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    reason      VARCHAR(255) NOT NULL,
+    archived_at TIMESTAMP(6) WITH TIME ZONE NOT NULL,
+    CONSTRAINT fk_prices_archive_article FOREIGN KEY (article_id) REFERENCES articles (id)
+);
+
+CREATE INDEX idx_prices_archive_article ON prices_archive (article_id);
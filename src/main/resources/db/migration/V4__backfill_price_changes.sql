@@ -0,0 +1,4 @@
+-- Log the articles of stores seeded before the change log existed, so since=0 returns the whole store
+
+INSERT INTO price_changes (store_id, article_id, changed_at)
+SELECT store_id, article_id, CURRENT_TIMESTAMP FROM articles ORDER BY id;
@@ -0,0 +1,6 @@
+-- Archived prices go with their article, so deleting an article after compaction does not fail
+
+ALTER TABLE prices_archive DROP CONSTRAINT fk_prices_archive_article;
+
+ALTER TABLE prices_archive ADD CONSTRAINT fk_prices_archive_article
+    FOREIGN KEY (article_id) REFERENCES articles (id) ON DELETE CASCADE;
@@ -0,0 +1,8 @@
+-- Single row locked by every transaction from its first logged change until it completes, so change
+-- versions are committed in version order whichever process writes. Must match the JPA mapping of PriceChangeLock
+
+CREATE TABLE price_change_lock (
+    id INTEGER PRIMARY KEY
+);
+
+INSERT INTO price_change_lock (id) VALUES (1);
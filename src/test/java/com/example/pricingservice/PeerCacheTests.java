@@ -0,0 +1,205 @@
+package com.example.pricingservice;
+
+import com.example.pricingservice.model.Article;
+import com.example.pricingservice.repository.ArticleRepository;
+import com.example.pricingservice.repository.PriceRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PeerCacheTests {
+
+    private static final int REPLICAS = 3;
+
+    // Sample data keys, each looked up with several page sizes
+    private static final List<String> ARTICLES = List.of("7001/1000102674", "7001/1000203345", "8001/2000000001");
+    private static final int PAGE_SIZES = 4;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    @Test
+    @DisplayName("Should load each lookup once across replicas and serve it everywhere from its owner")
+    void shouldShareOneCacheAcrossReplicas() throws Exception {
+        List<String> peers = new ArrayList<>();
+        for (int port : freePorts()) {
+            peers.add("http://localhost:" + port + "/pricing");
+        }
+        List<ConfigurableApplicationContext> replicas = new ArrayList<>();
+        try {
+            for (String self : peers) {
+                replicas.add(new SpringApplicationBuilder(PricingServiceApplication.class)
+                        .run("--server.port=" + URI.create(self).getPort(),
+                                // One database behind all replicas
+                                "--spring.datasource.url=jdbc:h2:mem:peer-test",
+                                // Contexts alive at once would share the JVM-wide Ehcache manager of the Article cache
+                                "--spring.jpa.properties.hibernate.cache.use_second_level_cache=false",
+                                "--spring.jmx.enabled=false",
+                                "--pricing.peer-cache.enabled=true",
+                                "--pricing.peer-cache.peers=" + String.join(",", peers),
+                                "--pricing.peer-cache.self=" + self));
+            }
+
+            // Every lookup on every replica, as a round-robin load balancer would spread them
+            int lookups = ARTICLES.size() * PAGE_SIZES;
+            for (String article : ARTICLES) {
+                for (int pageSize = 1; pageSize <= PAGE_SIZES; pageSize++) {
+                    Set<String> bodies = new HashSet<>();
+                    for (String peer : peers) {
+                        HttpResponse<String> response = get(peer + "/v1/prices/" + article + "?pageSize=" + pageSize);
+                        assertEquals(200, response.statusCode());
+                        bodies.add(response.body());
+                    }
+                    // The owner's cached response, byte for byte, including its generated_date
+                    assertEquals(1, bodies.size(), "Responses of " + article);
+                }
+            }
+
+            // Loaded once by the owner, where each replica would otherwise load every lookup itself
+            assertEquals(lookups, sum(replicas, "pricing.price_cache.size"));
+            assertEquals(lookups, lookupsBy(replicas, "owned"));
+            assertEquals(lookups * (REPLICAS - 1), lookupsBy(replicas, "peer"));
+
+            // Repeated lookups of other replicas' keys are answered from the near-cache
+            for (String peer : peers) {
+                assertEquals(200, get(peer + "/v1/prices/" + ARTICLES.get(0) + "?pageSize=1").statusCode());
+            }
+            assertEquals(REPLICAS - 1, lookupsBy(replicas, "near_cache"));
+            assertEquals(0, lookupsBy(replicas, "fallback"));
+
+            for (String peer : peers) {
+                assertEquals(404, get(peer + "/v1/prices/7001/9999999999").statusCode());
+            }
+        } finally {
+            replicas.forEach(ConfigurableApplicationContext::close);
+        }
+    }
+
+    @Test
+    @DisplayName("Should serve a price written on one replica from its owner's cache")
+    void shouldServeWriteOfAnotherReplicaFromOwner() throws Exception {
+        List<String> peers = new ArrayList<>();
+        for (int port : freePorts()) {
+            peers.add("http://localhost:" + port + "/pricing");
+        }
+        List<ConfigurableApplicationContext> replicas = new ArrayList<>();
+        try {
+            for (String self : peers) {
+                replicas.add(new SpringApplicationBuilder(PricingServiceApplication.class)
+                        .run("--server.port=" + URI.create(self).getPort(),
+                                "--spring.datasource.url=jdbc:h2:mem:peer-write-test",
+                                "--spring.jpa.properties.hibernate.cache.use_second_level_cache=false",
+                                "--spring.jmx.enabled=false",
+                                "--pricing.peer-cache.enabled=true",
+                                "--pricing.peer-cache.peers=" + String.join(",", peers),
+                                "--pricing.peer-cache.self=" + self,
+                                // Only an invalidation can drop the responses cached before the write
+                                "--pricing.peer-cache.near-ttl=1h",
+                                "--pricing.changes.invalidation-interval=100"));
+            }
+            String article = ARTICLES.get(0);
+            String url = "/v1/prices/" + article + "?pageSize=10";
+
+            // Cached by the owner, and near-cached by the other replicas
+            for (String peer : peers) {
+                assertEquals(200, get(peer + url).statusCode());
+            }
+            int owner = -1;
+            for (int i = 0; i < REPLICAS; i++) {
+                if (lookupsBy(List.of(replicas.get(i)), "owned") > 0) {
+                    owner = i;
+                }
+            }
+            assertTrue(owner >= 0);
+            ConfigurableApplicationContext writer = replicas.get((owner + 1) % REPLICAS);
+
+            new TransactionTemplate(writer.getBean(PlatformTransactionManager.class)).executeWithoutResult(status -> {
+                Article written = writer.getBean(ArticleRepository.class)
+                        .findByStoreIdAndArticleId("7001", "1000102674").orElseThrow();
+                writer.getBean(PriceRepository.class).findAllByArticleId(written.getId())
+                        .forEach(price -> {
+                            price.setAmount(new BigDecimal("987.65"));
+                            // Passed on between replicas with its offset and sub-millisecond precision
+                            price.setValidFrom(price.getValidFrom().plusNanos(123_456_000)
+                                    .withZoneSameInstant(ZoneOffset.ofHours(-3)));
+                        });
+            });
+
+            String body = awaitBody(peers.get(owner) + url, "987.65");
+            assertNotNull(body, "Owner serves the write");
+            assertTrue(body.contains(".123456-03:00"), body);
+            for (String peer : peers) {
+                assertEquals(body, awaitBody(peer + url, "987.65"), "Replica " + peer + " serves the write");
+            }
+        } finally {
+            replicas.forEach(ConfigurableApplicationContext::close);
+        }
+    }
+
+    private String awaitBody(String url, String expected) throws IOException, InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (System.nanoTime() < deadline) {
+            HttpResponse<String> response = get(url);
+            if (response.statusCode() == 200 && response.body().contains(expected)) {
+                return response.body();
+            }
+            Thread.sleep(50);
+        }
+        return null;
+    }
+
+    private HttpResponse<String> get(String url) throws IOException, InterruptedException {
+        return client.send(HttpRequest.newBuilder(URI.create(url)).header("Accept", "application/json").build(),
+                HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static double lookupsBy(List<ConfigurableApplicationContext> replicas, String route) {
+        return replicas.stream()
+                .mapToDouble(replica -> replica.getBean(MeterRegistry.class)
+                        .get("pricing.peer_cache.lookups").tag("route", route).counter().count())
+                .sum();
+    }
+
+    private static double sum(List<ConfigurableApplicationContext> replicas, String gauge) {
+        return replicas.stream()
+                .mapToDouble(replica -> replica.getBean(MeterRegistry.class).get(gauge).gauge().value())
+                .sum();
+    }
+
+    private static int[] freePorts() throws IOException {
+        ServerSocket[] sockets = new ServerSocket[REPLICAS];
+        int[] ports = new int[REPLICAS];
+        try {
+            for (int i = 0; i < REPLICAS; i++) {
+                sockets[i] = new ServerSocket(0);
+                ports[i] = sockets[i].getLocalPort();
+            }
+        } finally {
+            for (ServerSocket socket : sockets) {
+                if (socket != null) {
+                    socket.close();
+                }
+            }
+        }
+        return ports;
+    }
+}
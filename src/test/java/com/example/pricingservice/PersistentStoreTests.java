@@ -0,0 +1,71 @@
+package com.example.pricingservice;
+
+import com.example.pricingservice.dto.ArticleChangeDTO;
+import com.example.pricingservice.dto.PriceResponseDTO;
+import com.example.pricingservice.repository.ArticleRepository;
+import com.example.pricingservice.service.PriceService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PersistentStoreTests {
+
+    @TempDir
+    Path dataDir;
+
+    @Test
+    @DisplayName("Should reopen the file-backed catalog on restart without seeding it again")
+    void shouldReopenCatalogOnRestart() {
+        long articles;
+        try (ConfigurableApplicationContext context = start()) {
+            articles = context.getBean(ArticleRepository.class).count();
+            assertTrue(articles > 0);
+            // Written after seeding, survives only if the restart reopens the same data
+            context.getBean(JdbcTemplate.class).update("UPDATE articles SET brand = 'Reopened' WHERE article_id = '1000102674'");
+        }
+
+        try (ConfigurableApplicationContext context = start()) {
+            assertEquals(articles, context.getBean(ArticleRepository.class).count());
+            assertEquals(1, context.getBean(JdbcTemplate.class).queryForObject(
+                    "SELECT COUNT(*) FROM \"flyway_schema_history\" WHERE \"version\" = '1'", Integer.class));
+
+            PriceResponseDTO response = context.getBean(PriceService.class).getPrices("7001", "1000102674", 1, 10);
+            assertEquals("Reopened", response.getProperties().getBrand());
+        }
+    }
+
+    @Test
+    @DisplayName("Should log the articles of a catalog seeded before the change log existed")
+    void shouldBackfillChangeLogOfExistingCatalog() {
+        try (ConfigurableApplicationContext context = start()) {
+            // As if seeded before the backfill migration: no logged changes, migration pending
+            JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+            jdbcTemplate.update("DELETE FROM price_changes");
+            jdbcTemplate.update("DELETE FROM \"flyway_schema_history\" WHERE CAST(\"version\" AS INT) >= 4");
+            // Created by a later migration, which runs again
+            jdbcTemplate.execute("DROP TABLE price_change_lock");
+        }
+
+        try (ConfigurableApplicationContext context = start()) {
+            assertTrue(context.getBean(PriceService.class).getChanges("7001", 0, 1000).getChanges().stream()
+                    .map(ArticleChangeDTO::getArticle)
+                    .anyMatch("1000102674"::equals));
+        }
+    }
+
+    private ConfigurableApplicationContext start() {
+        return new SpringApplicationBuilder(PricingServiceApplication.class)
+                .profiles("persistent")
+                .run("--server.port=0",
+                        "--pricing.data-dir=" + dataDir,
+                        "--pricing.data-loader.mode=sync",
+                        "--spring.jmx.enabled=false");
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.pricingservice;
+
+import com.example.pricingservice.compaction.CompactionReport;
+import com.example.pricingservice.compaction.PriceCompactionJob;
+import com.example.pricingservice.dto.PriceDTO;
+import com.example.pricingservice.repository.ArticleRepository;
+import com.example.pricingservice.service.PriceService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.ZonedDateTime;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PriceCompactionTests {
+
+    private static final ZonedDateTime CUTOFF = ZonedDateTime.parse("2024-01-01T00:00:00Z");
+
+    @Test
+    @DisplayName("Should archive expired prices and fold overlapping equal prices without changing the merged response")
+    void shouldCompactPrices() {
+        // Own database, the job rewrites the sample catalog
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(PricingServiceApplication.class)
+                .run("--server.port=0",
+                        "--spring.datasource.url=jdbc:h2:mem:compaction-test",
+                        "--pricing.access-log.enabled=false",
+                        "--spring.jmx.enabled=false")) {
+            JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+            PriceService priceService = context.getBean(PriceService.class);
+            long expired = jdbcTemplate.queryForObject(
+                    "SELECT COUNT(*) FROM prices WHERE valid_to < ?", Long.class, CUTOFF.toOffsetDateTime());
+            assertTrue(expired > 0);
+
+            // Cached before the run, so the response after it shows the cache was invalidated
+            Set<PriceDTO> before = new HashSet<>(priceService.getPrices("8001", "2000000001", 1, 10).getPrices());
+            long version = priceService.getLatestChangeVersion("8001");
+
+            CompactionReport report = context.getBean(PriceCompactionJob.class).compact(CUTOFF);
+
+            assertEquals(expired, report.getArchivedRows());
+            assertEquals(1, report.getCoalescedRows());
+            assertEquals(report.getReclaimedRows(), (long) jdbcTemplate.queryForObject(
+                    "SELECT COUNT(*) FROM prices_archive", Long.class));
+            assertEquals(0, jdbcTemplate.queryForObject(
+                    "SELECT COUNT(*) FROM prices WHERE valid_to < ?", Integer.class, CUTOFF.toOffsetDateTime()));
+            assertEquals(2, report.getArticles());
+            assertTrue(report.getRowsPerReadAfter() < report.getRowsPerReadBefore());
+
+            // Two 2023 prices archived, the two equal 2024 prices folded into one row
+            Integer rows = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM prices p JOIN articles a "
+                    + "ON p.article_id = a.id WHERE a.store_id = '8001'", Integer.class);
+            assertEquals(3, rows);
+            Set<PriceDTO> after = new HashSet<>(priceService.getPrices("8001", "2000000001", 1, 10).getPrices());
+            Set<PriceDTO> expected = before.stream()
+                    .filter(price -> !price.getSubtype().startsWith("non-overlapping"))
+                    .collect(Collectors.toSet());
+            assertEquals(expected, after);
+            assertTrue(priceService.getLatestChangeVersion("8001") > version);
+
+            // An article whose prices were archived can still be deleted, its archive goes with it
+            new TransactionTemplate(context.getBean(PlatformTransactionManager.class)).executeWithoutResult(status -> {
+                ArticleRepository articles = context.getBean(ArticleRepository.class);
+                articles.delete(articles.findByStoreIdAndArticleId("8001", "2000000001").orElseThrow());
+            });
+            assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM prices_archive a WHERE NOT EXISTS "
+                    + "(SELECT 1 FROM articles WHERE id = a.article_id)", Integer.class));
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.example.pricingservice;
+
+import com.example.pricingservice.dto.PriceDTO;
+import com.example.pricingservice.dto.PriceResponseDTO;
+import com.example.pricingservice.exception.PriceNotFoundException;
+import com.example.pricingservice.model.Article;
+import com.example.pricingservice.model.Price;
+import com.example.pricingservice.repository.ArticleRepository;
+import com.example.pricingservice.repository.PriceRepository;
+import com.example.pricingservice.replica.CatalogReplicator;
+import com.example.pricingservice.replica.ReplicaDataSources;
+import com.example.pricingservice.service.PriceService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReplicaRoutingTests {
+
+    @Test
+    @DisplayName("Should replicate writes from the primary and serve price reads from the replica")
+    void shouldReadFromReplica() {
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(PricingServiceApplication.class)
+                .profiles("replica")
+                .run("--server.port=0",
+                        "--spring.datasource.url=jdbc:h2:mem:replica-test-primary",
+                        "--pricing.replica.url=jdbc:h2:mem:replica-test-replica",
+                        // Replication only runs when triggered below
+                        "--pricing.replica.replication-interval=3600000",
+                        "--spring.jmx.enabled=false")) {
+            CatalogReplicator replicator = context.getBean(CatalogReplicator.class);
+            JdbcTemplate replica = new JdbcTemplate(context.getBean(ReplicaDataSources.class).getReplica());
+
+            replicator.replicate();
+            assertTrue(replicator.isReplicaAvailable());
+            assertEquals(1, replica.queryForObject(
+                    "SELECT COUNT(*) FROM articles WHERE article_id = '1000203345'", Integer.class));
+
+            // Only the replica sees this change, so it shows up only if the lookup was routed there
+            replica.update("UPDATE prices SET amount = 1.23 WHERE article_id = "
+                    + "(SELECT id FROM articles WHERE store_id = '7001' AND article_id = '1000203345')");
+            PriceResponseDTO response = context.getBean(PriceService.class).getPrices("7001", "1000203345", 1, 10);
+            assertTrue(response.getPrices().stream().map(PriceDTO::getAmount).allMatch(new BigDecimal("1.23")::equals));
+
+            // Writes go to the primary and reach the replica with the next cycle
+            context.getBean(ArticleRepository.class).save(Article.builder()
+                    .articleId("1000300001").storeId("7001").uom("EA").description("Replicated").build());
+            assertEquals(0, replica.queryForObject(
+                    "SELECT COUNT(*) FROM articles WHERE article_id = '1000300001'", Integer.class));
+            replicator.replicate();
+            assertEquals(1, replica.queryForObject(
+                    "SELECT COUNT(*) FROM articles WHERE article_id = '1000300001'", Integer.class));
+
+            // Updates reach the replica too, and drop the responses cached from its old rows
+            TransactionTemplate transaction = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+            transaction.executeWithoutResult(status -> context.getBean(PriceRepository.class)
+                    .findByStoreIdAndArticleId("7001", "1000203345", Pageable.unpaged())
+                    .forEach(price -> price.setAmount(new BigDecimal("4.56"))));
+            PriceService priceService = context.getBean(PriceService.class);
+            assertTrue(priceService.getPrices("7001", "1000203345", 1, 10).getPrices().stream()
+                    .map(PriceDTO::getAmount).allMatch(new BigDecimal("1.23")::equals));
+            replicator.replicate();
+            assertTrue(replicator.isReplicaAvailable());
+            assertTrue(priceService.getPrices("7001", "1000203345", 1, 10).getPrices().stream()
+                    .map(PriceDTO::getAmount).allMatch(new BigDecimal("4.56")::equals));
+
+            // And so do deletes
+            transaction.executeWithoutResult(status -> {
+                ArticleRepository articles = context.getBean(ArticleRepository.class);
+                articles.delete(articles.findByStoreIdAndArticleId("7001", "1000300001").orElseThrow());
+            });
+            replicator.replicate();
+            assertEquals(0, replica.queryForObject(
+                    "SELECT COUNT(*) FROM articles WHERE article_id = '1000300001'", Integer.class));
+        }
+    }
+
+    @Test
+    @DisplayName("Should catch up while writes are open on the primary and serve articles copied after a miss")
+    void shouldCatchUpUnderOpenWrites() throws Exception {
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(PricingServiceApplication.class)
+                .profiles("replica")
+                .run("--server.port=0",
+                        "--spring.datasource.url=jdbc:h2:mem:replica-ingest-primary",
+                        "--pricing.replica.url=jdbc:h2:mem:replica-ingest-replica",
+                        "--pricing.replica.replication-interval=3600000",
+                        "--spring.jmx.enabled=false")) {
+            CatalogReplicator replicator = context.getBean(CatalogReplicator.class);
+            PriceService priceService = context.getBean(PriceService.class);
+            DataSource primary = context.getBean(ReplicaDataSources.class).getPrimary();
+
+            try (Connection open = primary.getConnection()) {
+                // A write that stays open through the cycle, as under steady ingest
+                open.setAutoCommit(false);
+                try (Statement statement = open.createStatement()) {
+                    statement.executeUpdate("INSERT INTO articles (article_id, store_id, uom, description) "
+                            + "VALUES ('1000300002', '7001', 'EA', 'Open')");
+                }
+                Thread.sleep(200);
+                Duration lag = replicator.getLag();
+                replicator.replicate();
+                assertTrue(replicator.getLag().compareTo(lag) < 0);
+                assertTrue(replicator.isReplicaAvailable());
+                open.rollback();
+            }
+
+            // Written on the primary and looked up on the replica before it arrives
+            Article article = context.getBean(ArticleRepository.class).save(Article.builder()
+                    .articleId("1000300003").storeId("7001").uom("EA").description("Copied").build());
+            context.getBean(PriceRepository.class).save(Price.builder()
+                    .article(article)
+                    .type("retail").subtype("regular").currency("CAD").amount(new BigDecimal("7.89"))
+                    .validFrom(ZonedDateTime.parse("2020-01-01T00:00:00Z"))
+                    .validTo(ZonedDateTime.parse("2099-01-01T00:00:00Z"))
+                    .build());
+            assertThrows(PriceNotFoundException.class, () -> priceService.getPrices("7001", "1000300003", 1, 10));
+
+            replicator.replicate();
+            assertEquals(new BigDecimal("7.89"),
+                    priceService.getPrices("7001", "1000300003", 1, 10).getPrices().get(0).getAmount());
+        }
+    }
+}
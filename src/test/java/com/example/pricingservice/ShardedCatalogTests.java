@@ -0,0 +1,54 @@
+package com.example.pricingservice;
+
+import com.example.pricingservice.dto.PriceResponseDTO;
+import com.example.pricingservice.exception.PriceNotFoundException;
+import com.example.pricingservice.service.PriceService;
+import com.example.pricingservice.shard.StoreShards;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ShardedCatalogTests {
+
+    private static final List<String> SAMPLE_STORES = List.of("7001", "8001", "9999");
+
+    @Test
+    @DisplayName("Should keep each store on its own shard and route lookups to it")
+    void shouldRouteStoresToTheirShards() {
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(PricingServiceApplication.class)
+                .profiles("sharded")
+                .run("--server.port=0",
+                        "--pricing.sharding.shards=3",
+                        "--pricing.sharding.url-template=jdbc:h2:mem:sharded-test-%d",
+                        "--spring.jmx.enabled=false")) {
+            StoreShards storeShards = context.getBean(StoreShards.class);
+            JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+            assertTrue(SAMPLE_STORES.stream().map(storeShards::shardOf).distinct().count() > 1,
+                    "Sample stores should not all hash to the same shard");
+
+            for (String storeId : SAMPLE_STORES) {
+                int home = storeShards.shardOf(storeId);
+                for (int shard = 0; shard < storeShards.getShardCount(); shard++) {
+                    try (StoreShards.Scope scope = storeShards.forShard(shard)) {
+                        Integer articles = jdbcTemplate.queryForObject(
+                                "SELECT COUNT(*) FROM articles WHERE store_id = ?", Integer.class, storeId);
+                        assertEquals(shard == home, articles > 0, "Articles of store " + storeId + " on shard " + shard);
+                    }
+                }
+            }
+
+            PriceService priceService = context.getBean(PriceService.class);
+            PriceResponseDTO sample = priceService.getPrices("7001", "1000102674", 1, 10);
+            assertEquals("Weiser", sample.getProperties().getBrand());
+            PriceResponseDTO overlap = priceService.getPrices("8001", "2000000001", 1, 10);
+            assertFalse(overlap.getPrices().isEmpty());
+            assertThrows(PriceNotFoundException.class, () -> priceService.getPrices("9999", "9999999999", 1, 10));
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.pricingservice.accesslog;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AccessLogRingBufferTest {
+
+    @Test
+    @DisplayName("Should drop and count records once the buffer is full, and accept them again after draining")
+    void shouldDropRecordsWhenFull() {
+        AccessLogRingBuffer buffer = new AccessLogRingBuffer(3);
+        assertEquals(4, buffer.capacity());
+
+        for (int i = 0; i < 6; i++) {
+            boolean accepted = buffer.publish(i, "7001", "article-" + i, 1, 10, 200, 1000, CacheOutcome.HIT);
+            assertEquals(i < 4, accepted);
+        }
+        assertEquals(2, buffer.getDropped());
+        assertEquals(4, buffer.size());
+
+        List<String> articles = new ArrayList<>();
+        assertEquals(2, buffer.drain(record -> articles.add(record.getArticleId()), 2));
+        assertTrue(buffer.publish(7, "7001", "article-7", 1, 10, 404, 1000, CacheOutcome.NEGATIVE));
+        assertEquals(3, buffer.drain(record -> articles.add(record.getArticleId()), 10));
+        assertEquals(List.of("article-0", "article-1", "article-2", "article-3", "article-7"), articles);
+        assertEquals(0, buffer.size());
+        assertEquals(0, buffer.drain(record -> fail("Buffer should be empty"), 10));
+    }
+
+    @Test
+    @DisplayName("Should deliver every record published concurrently exactly once, or count it as dropped")
+    void shouldHandleConcurrentProducers() throws InterruptedException {
+        AccessLogRingBuffer buffer = new AccessLogRingBuffer(64);
+        int producers = 4;
+        int perProducer = 20_000;
+        CountDownLatch done = new CountDownLatch(producers);
+        for (int p = 0; p < producers; p++) {
+            String store = "store-" + p;
+            Thread producer = new Thread(() -> {
+                for (int i = 0; i < perProducer; i++) {
+                    buffer.publish(i, store, Integer.toString(i), 1, 10, 200, i, CacheOutcome.MISS);
+                }
+                done.countDown();
+            });
+            producer.start();
+        }
+
+        Set<String> seen = new HashSet<>();
+        AtomicBoolean consistent = new AtomicBoolean(true);
+        while (done.getCount() > 0 || buffer.size() > 0) {
+            buffer.drain(record -> {
+                // A record is only handed out once it is completely written
+                consistent.compareAndSet(true, record.getLatencyNanos() == Long.parseLong(record.getArticleId()));
+                assertTrue(seen.add(record.getStoreId() + "_" + record.getArticleId()));
+            }, 16);
+        }
+
+        assertTrue(consistent.get());
+        assertEquals(producers * perProducer, seen.size() + buffer.getDropped());
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.pricingservice.accesslog;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AccessLogWriterTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    @DisplayName("Should write records as JSON lines and roll the file when it reaches its maximum size")
+    void shouldWriteAndRollFile() throws Exception {
+        Path file = directory.resolve("access.log");
+        AccessLogWriter writer = new AccessLogWriter(new SimpleMeterRegistry(), true, file.toString(),
+                1024, 100, 10, DataSize.ofBytes(2000), 2);
+        try {
+            for (int i = 0; i < 100; i++) {
+                assertTrue(writer.log("7001", "1000102674", 1, 10, 200, 1_500_000, CacheOutcome.HIT));
+                if (i % 10 == 9) {
+                    Thread.sleep(50);
+                }
+            }
+        } finally {
+            writer.close();
+        }
+
+        assertEquals(100, writer.getWritten());
+        assertEquals(0, writer.getDropped());
+        assertTrue(Files.exists(directory.resolve("access.log.1")));
+        assertTrue(Files.exists(directory.resolve("access.log.2")));
+        assertFalse(Files.exists(directory.resolve("access.log.3")));
+
+        List<String> lines = Files.readAllLines(directory.resolve("access.log.1"));
+        assertFalse(lines.isEmpty());
+        assertTrue(lines.get(0).matches("\\{\"timestamp\":\"[^\"]+Z\",\"store\":\"7001\",\"article\":\"1000102674\","
+                + "\"page\":1,\"pageSize\":10,\"status\":200,\"latencyMicros\":1500,\"cache\":\"HIT\"}"),
+                lines.get(0));
+    }
+}
@@ -0,0 +1,172 @@
+package com.example.pricingservice.benchmark;
+
+import com.example.pricingservice.PricingServiceApplication;
+import com.example.pricingservice.config.SyntheticCatalogLoader;
+import com.example.pricingservice.dto.PriceResponseDTO;
+import com.example.pricingservice.grpc.GrpcServer;
+import com.example.pricingservice.grpc.proto.BatchGetPricesRequest;
+import com.example.pricingservice.grpc.proto.BatchGetPricesResponse;
+import com.example.pricingservice.grpc.proto.GetPricesRequest;
+import com.example.pricingservice.grpc.proto.PriceResponse;
+import com.example.pricingservice.grpc.proto.PricingGrpc;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.grpc.ManagedChannel;
+import io.grpc.netty.shaded.io.grpc.netty.NettyChannelBuilder;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Price lookups through the REST endpoint (JSON over HTTP/1.1) versus the gRPC service (Protobuf
+ * over one multiplexed HTTP/2 connection), each including the client-side decoding of the response.
+ * Runs the application with the synthetic catalog of the loadtest profile. Lookups are spread over
+ * the first articles of each store, which are loaded into the response cache at setup, so both
+ * paths measure the transport rather than the database.
+ * Run with: mvn -Pbenchmark test-compile exec:exec -Dbenchmark=GrpcVsRestBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class GrpcVsRestBenchmark {
+
+    private static final int STORES = 50;
+    private static final int HOT_ARTICLES_PER_STORE = 20;
+    private static final int BATCH_SIZE = 100;
+
+    private ConfigurableApplicationContext context;
+    private HttpClient httpClient;
+    private ObjectMapper objectMapper;
+    private String baseUrl;
+    private ManagedChannel channel;
+    private PricingGrpc.PricingBlockingStub pricing;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(PricingServiceApplication.class)
+                .profiles("loadtest")
+                .run("--server.port=0",
+                        "--pricing.grpc.port=0",
+                        "--pricing.access-log.enabled=false",
+                        // Measures the transports, not load shedding
+                        "--pricing.concurrency-limit.enabled=false",
+                        "--spring.jpa.show-sql=false",
+                        "--spring.jpa.properties.hibernate.generate_statistics=false",
+                        "--logging.level.com.example.pricingservice=WARN",
+                        "--spring.jmx.enabled=false");
+        int httpPort = ((WebServerApplicationContext) context).getWebServer().getPort();
+        baseUrl = "http://localhost:" + httpPort + "/pricing/v1/prices/";
+        httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+        channel = NettyChannelBuilder.forAddress("localhost", context.getBean(GrpcServer.class).getPort())
+                .usePlaintext()
+                .build();
+        pricing = PricingGrpc.newBlockingStub(channel);
+
+        for (int store = 0; store < STORES; store++) {
+            BatchGetPricesRequest.Builder warmUp = BatchGetPricesRequest.newBuilder();
+            for (int article = 0; article < HOT_ARTICLES_PER_STORE; article++) {
+                warmUp.addRequests(request(String.valueOf(SyntheticCatalogLoader.FIRST_STORE_ID + store),
+                        String.valueOf(SyntheticCatalogLoader.FIRST_ARTICLE_ID + article)));
+            }
+            pricing.batchGetPrices(warmUp.build());
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws InterruptedException {
+        channel.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+        context.close();
+    }
+
+    @Benchmark
+    public PriceResponseDTO restLookup() throws Exception {
+        return restGet(randomStore(), randomArticle());
+    }
+
+    @Benchmark
+    public PriceResponse grpcLookup() {
+        return pricing.getPrices(request(randomStore(), randomArticle()));
+    }
+
+    /**
+     * Many callers sharing the service, one HTTP/1.1 connection per request in flight
+     */
+    @Benchmark
+    @Threads(16)
+    public PriceResponseDTO restLookupConcurrent() throws Exception {
+        return restGet(randomStore(), randomArticle());
+    }
+
+    /**
+     * Many callers sharing the service, all calls multiplexed on one HTTP/2 connection
+     */
+    @Benchmark
+    @Threads(16)
+    public PriceResponse grpcLookupConcurrent() {
+        return pricing.getPrices(request(randomStore(), randomArticle()));
+    }
+
+    /**
+     * The articles of a basket, one REST call each
+     */
+    @Benchmark
+    public List<PriceResponseDTO> restLookups100() throws Exception {
+        String storeId = randomStore();
+        List<PriceResponseDTO> responses = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            responses.add(restGet(storeId, randomArticle()));
+        }
+        return responses;
+    }
+
+    /**
+     * The articles of a basket in one gRPC batch
+     */
+    @Benchmark
+    public BatchGetPricesResponse grpcBatch100() {
+        String storeId = randomStore();
+        BatchGetPricesRequest.Builder batch = BatchGetPricesRequest.newBuilder();
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            batch.addRequests(request(storeId, randomArticle()));
+        }
+        return pricing.batchGetPrices(batch.build());
+    }
+
+    private PriceResponseDTO restGet(String storeId, String articleId) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + storeId + "/" + articleId + "?pageSize=12"))
+                .header("Accept", "application/json")
+                .build();
+        HttpResponse<byte[]> response = httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("REST lookup failed with status " + response.statusCode());
+        }
+        return objectMapper.readValue(response.body(), PriceResponseDTO.class);
+    }
+
+    private static GetPricesRequest request(String storeId, String articleId) {
+        return GetPricesRequest.newBuilder().setStoreId(storeId).setArticleId(articleId).setPageSize(12).build();
+    }
+
+    private static String randomStore() {
+        return String.valueOf(SyntheticCatalogLoader.FIRST_STORE_ID + ThreadLocalRandom.current().nextInt(STORES));
+    }
+
+    private static String randomArticle() {
+        return String.valueOf(SyntheticCatalogLoader.FIRST_ARTICLE_ID
+                + ThreadLocalRandom.current().nextInt(HOT_ARTICLES_PER_STORE));
+    }
+}
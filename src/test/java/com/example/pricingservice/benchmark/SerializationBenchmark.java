@@ -0,0 +1,138 @@
+package com.example.pricingservice.benchmark;
+
+import com.example.pricingservice.config.ContentNegotiationConfig;
+import com.example.pricingservice.dto.MetaDTO;
+import com.example.pricingservice.dto.PriceDTO;
+import com.example.pricingservice.dto.PriceResponseDTO;
+import com.example.pricingservice.dto.PropertiesDTO;
+import com.example.pricingservice.json.PriceJsonModule;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialization cost and payload size of JSON versus CBOR price responses, and of the default
+ * JSON serialization versus the hand-written one of {@link PriceJsonModule}.
+ * Run with: mvn -Pbenchmark test-compile exec:exec -Dbenchmark=SerializationBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SerializationBenchmark {
+
+    @Param({"3", "100", "1000"})
+    private int priceCount;
+
+    private ObjectMapper jsonMapper;
+    private ObjectMapper tunedJsonMapper;
+    private ObjectMapper cborMapper;
+    private PriceResponseDTO response;
+    private byte[] jsonPayload;
+    private byte[] cborPayload;
+
+    @Setup
+    public void setUp() throws Exception {
+        // Same settings Spring Boot applies to the JSON mapper
+        jsonMapper = new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        tunedJsonMapper = new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .registerModule(new PriceJsonModule())
+                .registerModule(new BlackbirdModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        cborMapper = ContentNegotiationConfig.cborMapper();
+        response = samplePriceResponse(priceCount);
+        jsonPayload = jsonMapper.writeValueAsBytes(response);
+        if (!Arrays.equals(jsonPayload, tunedJsonMapper.writeValueAsBytes(response))) {
+            throw new IllegalStateException("Tuned JSON output differs from the default serialization");
+        }
+        cborPayload = cborMapper.writeValueAsBytes(response);
+        System.out.printf("%n[payload] prices=%d json=%d bytes cbor=%d bytes (%.1f%%)%n",
+                priceCount, jsonPayload.length, cborPayload.length,
+                100.0 * cborPayload.length / jsonPayload.length);
+    }
+
+    @Benchmark
+    public byte[] serializeJson() throws Exception {
+        return jsonMapper.writeValueAsBytes(response);
+    }
+
+    @Benchmark
+    public byte[] serializeJsonTuned() throws Exception {
+        return tunedJsonMapper.writeValueAsBytes(response);
+    }
+
+    /**
+     * Streaming to the response, as the message converter does, without collecting the body
+     */
+    @Benchmark
+    public void streamJson() throws Exception {
+        jsonMapper.writeValue(OutputStream.nullOutputStream(), response);
+    }
+
+    @Benchmark
+    public void streamJsonTuned() throws Exception {
+        tunedJsonMapper.writeValue(OutputStream.nullOutputStream(), response);
+    }
+
+    @Benchmark
+    public byte[] serializeCbor() throws Exception {
+        return cborMapper.writeValueAsBytes(response);
+    }
+
+    @Benchmark
+    public PriceResponseDTO deserializeJson() throws Exception {
+        return jsonMapper.readValue(jsonPayload, PriceResponseDTO.class);
+    }
+
+    @Benchmark
+    public PriceResponseDTO deserializeCbor() throws Exception {
+        return cborMapper.readValue(cborPayload, PriceResponseDTO.class);
+    }
+
+    /**
+     * Builds a response shaped like the ones the service returns for a long price history
+     */
+    static PriceResponseDTO samplePriceResponse(int priceCount) {
+        List<PriceDTO> prices = new ArrayList<>(priceCount);
+        ZonedDateTime start = ZonedDateTime.parse("2023-01-01T00:00:00Z");
+        for (int i = 0; i < priceCount; i++) {
+            prices.add(PriceDTO.builder()
+                    .type("retail")
+                    .subtype(i % 4 == 0 ? "regular" : "discounted")
+                    .currency("CAD")
+                    .amount(new BigDecimal("30.00").subtract(BigDecimal.valueOf(i % 7, 1)))
+                    .validFrom(start.plusDays(7L * i))
+                    .validTo(start.plusDays(7L * i + 13).minusSeconds(1))
+                    .overlapped(i % 3 == 0)
+                    .build());
+        }
+        return PriceResponseDTO.builder()
+                .generated_date(ZonedDateTime.parse("2025-05-14T14:15:10Z"))
+                .article("1000102674")
+                .store("7001")
+                .meta(MetaDTO.builder().page(1).size(priceCount).build())
+                .properties(PropertiesDTO.builder()
+                        .uom("EA")
+                        .description("WH Halifax Passage Lever in Satin Nickel")
+                        .brand("Weiser")
+                        .model("9GLA1010")
+                        .build())
+                .prices(prices)
+                .build();
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.pricingservice.board;
+
+import com.example.pricingservice.changes.ChangeBatch;
+import com.example.pricingservice.dto.PriceBoardDTO;
+import com.example.pricingservice.dto.PriceDTO;
+import com.example.pricingservice.dto.PriceResponseDTO;
+import com.example.pricingservice.exception.InvalidRequestException;
+import com.example.pricingservice.service.PriceService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class PriceBoardTest {
+
+    private static final String STORE = "7001";
+
+    @Mock
+    private PriceService priceService;
+
+    private PriceBoard priceBoard;
+
+    @BeforeEach
+    void setUp() {
+        priceBoard = new PriceBoard(priceService, new SimpleMeterRegistry(), 16, List.of());
+
+        Map<String, List<PriceDTO>> prices = new HashMap<>();
+        prices.put("A1", List.of(price("regular", "30.00", false)));
+        prices.put("A2", List.of(price("regular", "20.00", true), price("discounted", "15.00", true)));
+        prices.put("A3", List.of(price("regular", "12.00", false)));
+        prices.put("A4", List.of(price("regular", "50.00", true), price("discounted", "25.00", true)));
+        // Lenient, the board is not built for rejected queries
+        lenient().when(priceService.getLatestChangeVersion(STORE)).thenReturn(10L);
+        lenient().when(priceService.getCurrentStorePrices(eq(STORE), any())).thenReturn(prices);
+    }
+
+    @Test
+    @DisplayName("Should find prices by subtype in article order")
+    void shouldFindPricesBySubtype() {
+        PriceBoardDTO board = priceBoard.query(STORE, "discounted", null, null, null, 1, 100);
+
+        assertEquals(List.of("A2", "A4"), articles(board));
+        assertFalse(board.isHasMore());
+        assertNotNull(board.getAsOf());
+    }
+
+    @Test
+    @DisplayName("Should combine the overlapped flag and an amount range, in amount order")
+    void shouldFindOverlappedPricesInAmountRange() {
+        PriceBoardDTO board = priceBoard.query(STORE, null, true, new BigDecimal("15.00"), new BigDecimal("30"),
+                1, 100);
+
+        assertEquals(List.of("A2", "A2", "A4"), articles(board));
+        assertEquals(List.of("15.00", "20.00", "25.00"), board.getPrices().stream()
+                .map(entry -> entry.getPrice().getAmount().toPlainString())
+                .collect(Collectors.toList()));
+    }
+
+    @Test
+    @DisplayName("Should page through the board")
+    void shouldPageThroughBoard() {
+        PriceBoardDTO first = priceBoard.query(STORE, "regular", null, null, null, 1, 3);
+        PriceBoardDTO second = priceBoard.query(STORE, "regular", null, null, null, 2, 3);
+
+        assertEquals(List.of("A1", "A2", "A3"), articles(first));
+        assertTrue(first.isHasMore());
+        assertEquals(List.of("A4"), articles(second));
+        assertFalse(second.isHasMore());
+    }
+
+    @Test
+    @DisplayName("Should reload written articles on refresh and drop those without valid prices")
+    void shouldReloadWrittenArticlesOnRefresh() {
+        priceBoard.query(STORE, null, null, null, null, 1, 100);
+
+        Map<String, Long> written = new HashMap<>();
+        written.put("A3", 11L);
+        written.put("A4", 12L);
+        when(priceService.getChangedArticles(STORE, 10L, 1000)).thenReturn(new ChangeBatch(written, 12L, false));
+        PriceResponseDTO a3 = PriceResponseDTO.builder().article("A3").store(STORE)
+                .prices(List.of(price("discounted", "9.00", false))).build();
+        when(priceService.getCurrentPrices(eq(STORE), eq(Set.of("A3", "A4")), any()))
+                .thenReturn(Map.of("A3", a3));
+        priceBoard.refresh();
+
+        assertEquals(List.of("A2", "A3"), articles(priceBoard.query(STORE, "discounted", null, null, null, 1, 100)));
+        assertEquals(List.of("A1", "A2"), articles(priceBoard.query(STORE, "regular", null, null, null, 1, 100)));
+
+        // Nothing written since, nothing reloaded
+        when(priceService.getChangedArticles(STORE, 12L, 1000)).thenReturn(new ChangeBatch(Map.of(), 12L, false));
+        priceBoard.refresh();
+        assertEquals(4, priceBoard.query(STORE, null, null, null, null, 1, 100).getPrices().size());
+    }
+
+    @Test
+    @DisplayName("Should reject invalid paging and amount ranges")
+    void shouldRejectInvalidQueries() {
+        assertThrows(InvalidRequestException.class,
+                () -> priceBoard.query(STORE, null, null, null, null, 0, 100));
+        assertThrows(InvalidRequestException.class,
+                () -> priceBoard.query(STORE, null, null, null, null, 1, 1001));
+        assertThrows(InvalidRequestException.class,
+                () -> priceBoard.query(STORE, null, null, new BigDecimal("10"), new BigDecimal("5"), 1, 100));
+    }
+
+    private static List<String> articles(PriceBoardDTO board) {
+        return board.getPrices().stream().map(entry -> entry.getArticle()).collect(Collectors.toList());
+    }
+
+    private static PriceDTO price(String subtype, String amount, boolean overlapped) {
+        return PriceDTO.builder().type("retail").subtype(subtype).currency("CAD")
+                .amount(new BigDecimal(amount)).overlapped(overlapped).build();
+    }
+}
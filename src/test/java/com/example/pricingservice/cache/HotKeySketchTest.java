@@ -0,0 +1,52 @@
+package com.example.pricingservice.cache;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HotKeySketchTest {
+
+    @Test
+    @DisplayName("Should find the most requested keys among a long tail of rare ones")
+    void shouldFindHeavyHitters() {
+        HotKeySketch sketch = new HotKeySketch(3, 4096, 0);
+        for (int round = 0; round < 100; round++) {
+            for (int hot = 0; hot < 3; hot++) {
+                for (int i = 0; i <= hot; i++) {
+                    sketch.record("7001", "hot-" + hot);
+                }
+            }
+            // Every tail key is requested once, like a crawler scanning the catalog
+            for (int i = 0; i < 20; i++) {
+                sketch.record("8001", "tail-" + (round * 20 + i));
+            }
+        }
+
+        List<String> top = sketch.topKeys(10).stream()
+                .map(hotKey -> hotKey.getStoreId() + "_" + hotKey.getArticleId())
+                .collect(Collectors.toList());
+        assertEquals(List.of("7001_hot-2", "7001_hot-1", "7001_hot-0"), top);
+        assertTrue(sketch.isHot(HotKeySketch.key("7001", "hot-0")));
+        assertFalse(sketch.isHot(HotKeySketch.key("8001", "tail-0")));
+        assertTrue(sketch.estimate(HotKeySketch.key("7001", "hot-2")) >= 300);
+    }
+
+    @Test
+    @DisplayName("Should halve all counts after each sample period")
+    void shouldAgeCounts() {
+        HotKeySketch sketch = new HotKeySketch(1, 1024, 100);
+        for (int i = 0; i < 99; i++) {
+            sketch.record("7001", "1000102674");
+        }
+        assertEquals(99, sketch.estimate(HotKeySketch.key("7001", "1000102674")));
+
+        sketch.record("7001", "1000102674");
+
+        assertEquals(50, sketch.estimate(HotKeySketch.key("7001", "1000102674")));
+        assertEquals(50, sketch.topKeys(1).get(0).getCount());
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.pricingservice.cache;
+
+import com.example.pricingservice.shard.StoreShards;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class NegativeLookupCacheTest {
+
+    // Not built yet, so it rules nothing out
+    private final ArticleExistenceIndex existenceIndex = new ArticleExistenceIndex(null, new StoreShards(1), 1000, 0.01);
+
+    private final NegativeLookupCache cache = new NegativeLookupCache(existenceIndex, new SimpleMeterRegistry(),
+            Duration.ofSeconds(30), 1000);
+
+    @Test
+    @DisplayName("Should remember a miss of an article that was not written during the lookup")
+    void shouldRememberMiss() {
+        long generation = cache.generation("7001", "1000900001");
+        cache.articleMissing("7001", "1000900001", generation);
+        cache.pricesMissing("7001", "1000900002", "7001_1000900002_1_10", cache.generation("7001", "1000900002"));
+
+        assertTrue(cache.isKnownMissing("7001", "1000900001"));
+        assertTrue(cache.isKnownMissing("7001", "1000900002", "7001_1000900002_1_10"));
+    }
+
+    @Test
+    @DisplayName("Should not remember a miss of an article inserted while it was looked up")
+    void shouldNotRememberMissOfArticleWrittenDuringLookup() throws Exception {
+        long generation = cache.generation("7001", "1000900001");
+        // The insert commits after the lookup read nothing, and invalidates before the miss is remembered
+        Thread writer = new Thread(() -> cache.invalidate("7001", "1000900001"));
+        writer.start();
+        writer.join();
+        cache.articleMissing("7001", "1000900001", generation);
+        cache.pricesMissing("7001", "1000900001", "7001_1000900001_1_10", generation);
+
+        assertFalse(cache.isKnownMissing("7001", "1000900001", "7001_1000900001_1_10"));
+    }
+}
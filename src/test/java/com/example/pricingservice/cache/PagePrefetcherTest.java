@@ -0,0 +1,116 @@
+package com.example.pricingservice.cache;
+
+import com.example.pricingservice.limiter.GradientConcurrencyLimiter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PagePrefetcherTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final GradientConcurrencyLimiter limiter = new GradientConcurrencyLimiter(meterRegistry,
+            true, 20, 4, 200, 50, 0.2, 0.9, Duration.ofSeconds(1));
+
+    @Test
+    @DisplayName("Should skip prefetches beyond the in-flight budget and of pending pages")
+    void shouldBoundPrefetchesInFlight() throws Exception {
+        PagePrefetcher prefetcher = new PagePrefetcher(meterRegistry, limiter, true, 1, 1, 0.5);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger loads = new AtomicInteger();
+        try {
+            prefetcher.schedule("7001_A_2_10", () -> {
+                started.countDown();
+                awaitQuietly(release);
+                return loads.incrementAndGet() > 0;
+            });
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+
+            prefetcher.schedule("7001_A_2_10", () -> loads.incrementAndGet() > 0);
+            prefetcher.schedule("7001_B_2_10", () -> loads.incrementAndGet() > 0);
+            assertEquals(2, meterRegistry.get("pricing.prefetch.skipped").counter().count());
+            assertEquals(1, meterRegistry.get("pricing.prefetch.in_flight").gauge().value());
+
+            release.countDown();
+            awaitLoaded(1);
+            assertEquals(1, loads.get());
+        } finally {
+            prefetcher.close();
+        }
+    }
+
+    @Test
+    @DisplayName("Should not prefetch while the service is busy")
+    void shouldCancelPrefetchesUnderLoad() {
+        PagePrefetcher prefetcher = new PagePrefetcher(meterRegistry, limiter, true, 16, 1, 0.5);
+        AtomicInteger loads = new AtomicInteger();
+        GradientConcurrencyLimiter.Permit[] permits = new GradientConcurrencyLimiter.Permit[10];
+        try {
+            // Half of the limit of 20 in flight
+            for (int i = 0; i < permits.length; i++) {
+                permits[i] = limiter.tryAcquire();
+            }
+            prefetcher.schedule("7001_A_2_10", () -> loads.incrementAndGet() > 0);
+
+            assertEquals(1, meterRegistry.get("pricing.prefetch.cancelled").counter().count());
+            assertEquals(0, loads.get());
+        } finally {
+            for (GradientConcurrencyLimiter.Permit permit : permits) {
+                permit.release();
+            }
+            prefetcher.close();
+        }
+    }
+
+    @Test
+    @DisplayName("Should report the share of prefetched pages that were requested")
+    void shouldReportHitRatio() throws Exception {
+        PagePrefetcher prefetcher = new PagePrefetcher(meterRegistry, limiter, true, 16, 1, 0.5);
+        try {
+            for (int page = 2; page <= 5; page++) {
+                prefetcher.schedule("7001_A_" + page + "_10", () -> true);
+            }
+            awaitLoaded(4);
+            prefetcher.recordHit();
+
+            assertEquals(0.25, meterRegistry.get("pricing.prefetch.hit_ratio").gauge().value());
+        } finally {
+            prefetcher.close();
+        }
+    }
+
+    @Test
+    @DisplayName("Should do nothing when disabled")
+    void shouldIgnorePrefetchesWhenDisabled() {
+        PagePrefetcher prefetcher = new PagePrefetcher(meterRegistry, limiter, false, 16, 1, 0.5);
+        prefetcher.schedule("7001_A_2_10", () -> fail("Prefetched while disabled"));
+
+        assertFalse(prefetcher.isEnabled());
+        assertEquals(0, meterRegistry.get("pricing.prefetch.skipped").counter().count());
+    }
+
+    private void awaitLoaded(int expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (meterRegistry.get("pricing.prefetch.loaded").counter().count() < expected
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(expected, meterRegistry.get("pricing.prefetch.loaded").counter().count());
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
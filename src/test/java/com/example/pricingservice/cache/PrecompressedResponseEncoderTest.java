@@ -0,0 +1,97 @@
+package com.example.pricingservice.cache;
+
+import com.example.pricingservice.dto.MetaDTO;
+import com.example.pricingservice.dto.PriceDTO;
+import com.example.pricingservice.dto.PriceResponseDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.web.ServerProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PrecompressedResponseEncoderTest {
+
+    private ObjectMapper objectMapper;
+    private PrecompressedResponseEncoder encoder;
+
+    @BeforeEach
+    void setUp() {
+        objectMapper = new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+        ServerProperties serverProperties = new ServerProperties();
+        serverProperties.getCompression().setEnabled(true);
+        serverProperties.getCompression().setMinResponseSize(DataSize.ofKilobytes(2));
+
+        encoder = new PrecompressedResponseEncoder(objectMapper, serverProperties);
+    }
+
+    @Test
+    @DisplayName("Should compress a large response once and reuse the stored body")
+    void shouldCompressOncePerEntry() throws Exception {
+        CachedPriceResponse entry = new CachedPriceResponse(response(50));
+
+        byte[] first = encoder.gzipBody(entry);
+        byte[] second = encoder.gzipBody(entry);
+
+        assertNotNull(first);
+        assertSame(first, second);
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(first))) {
+            assertArrayEquals(objectMapper.writeValueAsBytes(entry.getResponse()), in.readAllBytes());
+        }
+    }
+
+    @Test
+    @DisplayName("Should not compress responses below the minimum size")
+    void shouldSkipSmallResponses() {
+        CachedPriceResponse entry = new CachedPriceResponse(response(1));
+
+        assertNull(encoder.gzipBody(entry));
+        assertTrue(entry.isBelowCompressionThreshold());
+    }
+
+    @Test
+    @DisplayName("Should only serve precompressed JSON when gzip is accepted and JSON is negotiated")
+    void shouldNegotiateGzipAndJson() {
+        assertTrue(encoder.canServe(null, "gzip, deflate, br"));
+        assertTrue(encoder.canServe("application/json", "br;q=1.0, gzip;q=0.8"));
+        assertTrue(encoder.canServe("application/cbor;q=0.5, */*", "gzip"));
+        assertFalse(encoder.canServe("application/json", null));
+        assertFalse(encoder.canServe("application/json", "gzip;q=0"));
+        assertFalse(encoder.canServe("application/cbor", "gzip"));
+    }
+
+    private static PriceResponseDTO response(int priceCount) {
+        List<PriceDTO> prices = new ArrayList<>();
+        for (int i = 0; i < priceCount; i++) {
+            prices.add(PriceDTO.builder()
+                    .type("retail")
+                    .subtype("discounted")
+                    .currency("CAD")
+                    .amount(new BigDecimal("27.0"))
+                    .validFrom(ZonedDateTime.parse("2024-01-01T00:00:00Z").plusDays(i))
+                    .validTo(ZonedDateTime.parse("2024-01-02T00:00:00Z").plusDays(i))
+                    .build());
+        }
+        return PriceResponseDTO.builder()
+                .generated_date(ZonedDateTime.parse("2025-05-14T14:15:10Z"))
+                .article("1000102674")
+                .store("7001")
+                .meta(MetaDTO.builder().page(1).size(priceCount).build())
+                .prices(prices)
+                .build();
+    }
+}
@@ -0,0 +1,182 @@
+package com.example.pricingservice.cache;
+
+import com.example.pricingservice.dto.PriceResponseDTO;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PriceResponseCacheTest {
+
+    private static final Instant NOW = Instant.parse("2024-06-01T00:00:00Z");
+
+    private MutableClock clock;
+    private HotKeySketch hotKeys;
+    private PriceResponseCache cache;
+
+    @BeforeEach
+    void setUp() {
+        clock = new MutableClock(NOW);
+        hotKeys = new HotKeySketch(2, 1024, 0);
+        cache = new PriceResponseCache(new SimpleMeterRegistry(), hotKeys, Duration.ofDays(30), Duration.ofMinutes(5),
+                4, clock);
+    }
+
+    @Test
+    @DisplayName("Should expire an entry exactly at the next validity boundary")
+    void shouldExpireAtNextBoundary() {
+        cache.put("7001_1000102674_1_10", "7001_1000102674", new PriceResponseDTO(),
+                ZonedDateTime.parse("2024-06-01T12:00:00Z"));
+
+        clock.set(Instant.parse("2024-06-01T11:59:59.999Z"));
+        assertNotNull(cache.get("7001_1000102674_1_10"));
+
+        clock.set(Instant.parse("2024-06-01T12:00:00Z"));
+        assertNull(cache.get("7001_1000102674_1_10"));
+        assertNotNull(cache.getStale("7001_1000102674_1_10"));
+
+        clock.set(Instant.parse("2024-06-01T12:05:00Z"));
+        assertNull(cache.getStale("7001_1000102674_1_10"));
+    }
+
+    @Test
+    @DisplayName("Should cap the expiry of entries without an upcoming boundary at the max TTL")
+    void shouldCapExpiryAtMaxTtl() {
+        CachedPriceResponse entry = cache.put("key", "7001_key", new PriceResponseDTO(),
+                ZonedDateTime.parse("9999-12-31T23:59:59Z"));
+        assertEquals(NOW.plus(Duration.ofDays(30)).toEpochMilli(), entry.getExpiresAtMillis());
+
+        CachedPriceResponse noBoundary = cache.put("other", "7001_other", new PriceResponseDTO(), null);
+        assertEquals(NOW.plus(Duration.ofDays(30)).toEpochMilli(), noBoundary.getExpiresAtMillis());
+    }
+
+    @Test
+    @DisplayName("Should drop entries past their grace period on sweep but keep replaced ones")
+    void shouldSweepExpiredEntries() {
+        cache.put("promo", "7001_promo", new PriceResponseDTO(), ZonedDateTime.parse("2024-06-02T00:00:00Z"));
+        cache.put("regular", "7001_regular", new PriceResponseDTO(), ZonedDateTime.parse("2024-06-02T00:00:00Z"));
+        // Re-cached with a later boundary, the stale queue element must not evict it
+        cache.put("regular", "7001_regular", new PriceResponseDTO(), ZonedDateTime.parse("2024-07-01T00:00:00Z"));
+
+        clock.set(Instant.parse("2024-06-02T00:04:59Z"));
+        cache.sweep();
+        assertEquals(2, cache.size());
+
+        clock.set(Instant.parse("2024-06-02T00:05:00Z"));
+        cache.sweep();
+
+        assertEquals(1, cache.size());
+        assertNotNull(cache.get("regular"));
+    }
+
+    @Test
+    @DisplayName("Should still expire entries after purging the queue elements of replaced ones")
+    void shouldExpireEntriesAfterPurge() {
+        // Every re-cache leaves an outdated queue element, enough of them to purge the queue
+        for (int i = 0; i < 2000; i++) {
+            cache.put("regular", "7001_regular", new PriceResponseDTO(), ZonedDateTime.parse("2024-06-02T00:00:00Z"));
+        }
+        cache.sweep();
+        assertNotNull(cache.get("regular"));
+
+        clock.set(Instant.parse("2024-06-02T00:05:00Z"));
+        cache.sweep();
+
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    @DisplayName("Should keep the hot set cached when a scan of one-off keys fills the cache")
+    void shouldKeepHotSetUnderScan() {
+        for (int i = 0; i < 50; i++) {
+            hotKeys.record("7001", "hot-1");
+            hotKeys.record("7001", "hot-2");
+        }
+        cache.put("7001_hot-1_1_10", "7001_hot-1", new PriceResponseDTO(), null);
+        cache.put("7001_hot-2_1_10", "7001_hot-2", new PriceResponseDTO(), null);
+
+        for (int i = 0; i < 100; i++) {
+            hotKeys.record("7001", "scan-" + i);
+            cache.put("7001_scan-" + i + "_1_10", "7001_scan-" + i, new PriceResponseDTO(), null);
+        }
+
+        assertEquals(4, cache.size());
+        assertNotNull(cache.get("7001_hot-1_1_10"));
+        assertNotNull(cache.get("7001_hot-2_1_10"));
+    }
+
+    @Test
+    @DisplayName("Should replace a rarely requested entry with a more frequently requested one")
+    void shouldAdmitMoreFrequentKey() {
+        for (int i = 0; i < 4; i++) {
+            hotKeys.record("7001", "cold-" + i);
+            cache.put("7001_cold-" + i + "_1_10", "7001_cold-" + i, new PriceResponseDTO(), null);
+        }
+        for (int i = 0; i < 5; i++) {
+            hotKeys.record("7001", "rising");
+        }
+
+        // Two of the cold keys are in the hot set, sampling needs a few tries to hit the others
+        for (int i = 0; i < 20 && cache.get("7001_rising_1_10") == null; i++) {
+            cache.put("7001_rising_1_10", "7001_rising", new PriceResponseDTO(), null);
+        }
+
+        assertEquals(4, cache.size());
+        assertNotNull(cache.get("7001_rising_1_10"));
+    }
+
+    @Test
+    @DisplayName("Should drop every page of an invalidated article and nothing else")
+    void shouldInvalidateAllPagesOfArticle() {
+        cache.put("7001_a_1_10", "7001_a", new PriceResponseDTO(), null);
+        cache.put("7001_a_2_10", "7001_a", new PriceResponseDTO(), null);
+        cache.put("7001_b_1_10", "7001_b", new PriceResponseDTO(), null);
+        // Re-cached page, indexed once
+        cache.put("7001_a_1_10", "7001_a", new PriceResponseDTO(), null);
+
+        assertEquals(2, cache.invalidateArticles(List.of("7001_a")));
+
+        assertEquals(1, cache.size());
+        assertNull(cache.get("7001_a_1_10"));
+        assertNotNull(cache.get("7001_b_1_10"));
+        assertEquals(0, cache.invalidateArticles(List.of("7001_a")));
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private Instant instant;
+
+        private MutableClock(Instant instant) {
+            this.instant = instant;
+        }
+
+        void set(Instant instant) {
+            this.instant = instant;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+}
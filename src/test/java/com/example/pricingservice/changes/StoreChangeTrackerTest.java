@@ -0,0 +1,70 @@
+package com.example.pricingservice.changes;
+
+import com.example.pricingservice.service.PriceService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.ZonedDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class StoreChangeTrackerTest {
+
+    private static final String STORE = "7001";
+    private static final ZonedDateTime NOW = ZonedDateTime.parse("2026-01-01T10:00:00Z");
+
+    @Mock
+    private PriceService priceService;
+
+    @Test
+    @DisplayName("Should read every change batch from the version at start")
+    void shouldReadChangesSinceStart() {
+        when(priceService.getLatestChangeVersion(STORE)).thenReturn(10L);
+        when(priceService.getNextValidityBoundary(STORE, NOW)).thenReturn(null);
+        Map<String, Long> first = new LinkedHashMap<>();
+        first.put("A2", 11L);
+        first.put("A1", 12L);
+        when(priceService.getChangedArticles(STORE, 10L, 1000)).thenReturn(new ChangeBatch(first, 12L, true));
+        when(priceService.getChangedArticles(STORE, 12L, 1000)).thenReturn(new ChangeBatch(Map.of("A3", 13L), 13L, false));
+        StoreChangeTracker tracker = new StoreChangeTracker(priceService, STORE);
+
+        tracker.start(NOW);
+        Set<String> changed = tracker.poll(NOW);
+
+        assertEquals(List.of("A2", "A1", "A3"), List.copyOf(changed));
+        assertEquals(13L, tracker.getVersion());
+        verify(priceService, never()).getArticlesCrossingBoundary(any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("Should report the articles crossing a passed validity boundary once")
+    void shouldReportCrossedBoundary() {
+        ZonedDateTime boundary = NOW.plusMinutes(1);
+        ZonedDateTime later = NOW.plusMinutes(2);
+        when(priceService.getLatestChangeVersion(STORE)).thenReturn(10L);
+        when(priceService.getNextValidityBoundary(STORE, NOW)).thenReturn(boundary);
+        when(priceService.getChangedArticles(eq(STORE), anyLong(), eq(1000)))
+                .thenReturn(new ChangeBatch(Map.of(), 10L, false));
+        when(priceService.getArticlesCrossingBoundary(STORE, NOW, later)).thenReturn(List.of("A4"));
+        when(priceService.getNextValidityBoundary(STORE, later)).thenReturn(null);
+        StoreChangeTracker tracker = new StoreChangeTracker(priceService, STORE);
+
+        assertTrue(tracker.poll(NOW).isEmpty());
+        assertEquals(Set.of("A4"), tracker.poll(later));
+        assertTrue(tracker.poll(later.plusMinutes(1)).isEmpty());
+    }
+}
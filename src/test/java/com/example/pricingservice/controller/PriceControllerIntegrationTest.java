@@ -1,16 +1,44 @@
 package com.example.pricingservice.controller;
 
 import com.example.pricingservice.PricingServiceApplication;
+import com.example.pricingservice.board.PriceBoard;
+import com.example.pricingservice.cache.NegativeLookupCache;
+import com.example.pricingservice.changes.PriceSubscriptions;
+import com.example.pricingservice.model.Article;
+import com.example.pricingservice.model.Price;
+import com.example.pricingservice.repository.ArticleRepository;
+import com.example.pricingservice.repository.PriceRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.jayway.jsonpath.JsonPath;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @SpringBootTest(classes = PricingServiceApplication.class)
@@ -20,6 +48,27 @@ public class PriceControllerIntegrationTest {
     @Autowired
     private MockMvc mockMvc;
 
+    @Autowired
+    private ArticleRepository articleRepository;
+
+    @Autowired
+    private PriceRepository priceRepository;
+
+    @Autowired
+    private PriceSubscriptions priceSubscriptions;
+
+    @Autowired
+    private PriceBoard priceBoard;
+
+    @Autowired
+    private NegativeLookupCache negativeLookupCache;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private DataSource dataSource;
+
     @Test
     @DisplayName("Should return price data for existing article and store")
     void shouldReturnPriceDataForExistingArticleAndStore() throws Exception {
@@ -43,6 +92,106 @@ public class PriceControllerIntegrationTest {
                 .andExpect(jsonPath("$.prices[?(@.type=='retail' && @.subtype=='discounted' && @.amount==26.5)].overlapped", contains(true)));
     }
 
+    @Test
+    @DisplayName("Should return CBOR when requested through the Accept header")
+    void shouldReturnCborWhenRequested() throws Exception {
+        MvcResult result = mockMvc.perform(MockMvcRequestBuilders.get("/v1/prices/7001/1000102674")
+                .param("page", "1")
+                .param("pageSize", "3")
+                .accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                .andReturn();
+
+        JsonNode body = new CBORMapper().readTree(result.getResponse().getContentAsByteArray());
+        assertEquals("1000102674", body.get("article").asText());
+        assertEquals("7001", body.get("store").asText());
+        assertEquals(3, body.get("prices").size());
+        assertTrue(body.get("prices").get(0).get("validFrom").isIntegralNumber());
+    }
+
+    @Test
+    @DisplayName("Should only return prices valid at the requested instant")
+    void shouldOnlyReturnPricesValidAtRequestedInstant() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/v1/prices/7001/1000102674")
+                .param("validAt", "2026-06-01T00:00:00Z")
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.prices", hasSize(1)))
+                .andExpect(jsonPath("$.prices[0].subtype", is("regular")));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/v1/prices/7001/1000102674")
+                .param("from", "2023-12-22T00:00:00Z")
+                .param("to", "2023-12-30T00:00:00Z")
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.prices", hasSize(2)))
+                .andExpect(jsonPath("$.prices[*].subtype", everyItem(is("discounted"))));
+    }
+
+    @Test
+    @DisplayName("Should return 400 for an invalid validity window")
+    void shouldReturn400ForInvalidWindow() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/v1/prices/7001/1000102674")
+                .param("from", "2025-01-01T00:00:00Z")
+                .param("to", "2024-01-01T00:00:00Z")
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.type", is("Bad_Request")));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/v1/prices/7001/1000102674")
+                .param("validAt", "tomorrow")
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.detail", containsString("validAt")));
+    }
+
+    @Test
+    @DisplayName("Should report stage durations in Server-Timing only when the debug header is sent")
+    void shouldReportServerTimingOnDebugHeader() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/v1/prices/7001/1000203345")
+                .param("pageSize", "7")
+                .header("X-Debug-Timing", "1")
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Server-Timing", allOf(
+                        containsString("article;dur="), containsString("prices;dur="),
+                        containsString("overlap;dur="), containsString("serialize;dur="),
+                        containsString("total;dur="))))
+                .andExpect(jsonPath("$.article", is("1000203345")));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/v1/prices/7001/1000203345")
+                .param("pageSize", "7")
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("Server-Timing"));
+    }
+
+    @Test
+    @DisplayName("Should stream SSE and NDJSON responses of requests carrying the debug header")
+    void shouldStreamResponsesWithDebugHeader() throws Exception {
+        String storeId = "7109";
+        MvcResult stream = mockMvc.perform(MockMvcRequestBuilders.get("/v1/prices/" + storeId + "/changes/stream")
+                .header("X-Debug-Timing", "1")
+                .accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        priceSubscriptions.poll();
+        saveArticle(storeId, "1000800003", "20.00", "14.00");
+        priceSubscriptions.poll();
+        awaitContent(stream, "\"article\":\"1000800003\"");
+
+        MvcResult result = mockMvc.perform(MockMvcRequestBuilders.get("/v1/prices/articles/1000800003")
+                .param("storeIds", storeId)
+                .header("X-Debug-Timing", "1")
+                .accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(MockMvcRequestBuilders.asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("\"store\":\"" + storeId + "\"")));
+    }
+
     @Test
     @DisplayName("Should return 404 for non-existing article")
     void shouldReturn404ForNonExistingArticle() throws Exception {
@@ -73,6 +222,354 @@ public class PriceControllerIntegrationTest {
                 .andExpect(jsonPath("$.status", is(404)));
     }
 
+    @Test
+    @DisplayName("Should list frequently requested articles as hot keys")
+    void shouldListHotKeys() throws Exception {
+        for (int i = 0; i < 20; i++) {
+            mockMvc.perform(MockMvcRequestBuilders.get("/v1/prices/8001/2000000001")
+                    .accept(MediaType.APPLICATION_JSON))
+                    .andExpect(status().isOk());
+        }
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/v1/prices/admin/hot-keys")
+                .param("limit", "5")
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(lessThanOrEqualTo(5))))
+                .andExpect(jsonPath("$[?(@.articleId == '2000000001')].storeId", contains("8001")))
+                .andExpect(jsonPath("$[?(@.articleId == '2000000001')].estimatedRequests",
+                        contains(greaterThanOrEqualTo(20))));
+    }
+
+    @Test
+    @DisplayName("Should return the whole store as changes since version 0")
+    void shouldReturnWholeStoreSinceVersionZero() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/v1/prices/8001/changes")
+                .param("since", "0")
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.store", is("8001")))
+                .andExpect(jsonPath("$.hasMore", is(false)))
+                .andExpect(jsonPath("$.nextVersion", greaterThan(0)))
+                .andExpect(jsonPath("$.changes[?(@.article == '2000000001')].properties.brand", contains("Test Brand")))
+                .andExpect(jsonPath("$.changes[?(@.article == '2000000001')].prices[*]", hasSize(greaterThan(0))));
+    }
+
+    @Test
+    @DisplayName("Should only return articles written after the given version")
+    void shouldOnlyReturnArticlesWrittenAfterVersion() throws Exception {
+        String storeId = "7101";
+        long since = nextVersion(storeId, 0);
+
+        Article article = Article.builder().articleId("1000500001").storeId(storeId).uom("EA")
+                .description("Change feed article").brand("Weiser").model("CF1").build();
+        article.setPrices(List.of(
+                Price.builder().article(article).type("retail").subtype("regular").currency("CAD")
+                        .amount(new BigDecimal("12.50")).validFrom(ZonedDateTime.parse("2024-01-01T00:00:00Z"))
+                        .validTo(ZonedDateTime.parse("9999-12-31T23:59:59Z")).build(),
+                Price.builder().article(article).type("retail").subtype("discounted").currency("CAD")
+                        .amount(new BigDecimal("9.99")).validFrom(ZonedDateTime.parse("2024-02-01T00:00:00Z"))
+                        .validTo(ZonedDateTime.parse("2024-02-29T23:59:59Z")).build()));
+        articleRepository.save(article);
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/v1/prices/" + storeId + "/changes")
+                .param("since", String.valueOf(since))
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.changes", hasSize(1)))
+                .andExpect(jsonPath("$.changes[0].article", is("1000500001")))
+                .andExpect(jsonPath("$.changes[0].prices", hasSize(2)));
+
+        long next = nextVersion(storeId, since);
+        assertTrue(next > since);
+        mockMvc.perform(MockMvcRequestBuilders.get("/v1/prices/" + storeId + "/changes")
+                .param("since", String.valueOf(next))
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.changes", hasSize(0)));
+    }
+
+    @Test
+    @DisplayName("Should keep serving changes while an unrelated write stays open")
+    void shouldServeChangesDuringOpenWrite() throws Exception {
+        String storeId = "7110";
+        long since = nextVersion(storeId, 0);
+
+        try (Connection importConnection = dataSource.getConnection()) {
+            importConnection.setAutoCommit(false);
+            try (Statement statement = importConnection.createStatement()) {
+                statement.executeUpdate("INSERT INTO articles (article_id, store_id, uom, description) "
+                        + "VALUES ('1000800011', '7111', 'EA', 'Open import')");
+            }
+            try {
+                articleRepository.save(Article.builder().articleId("1000800010").storeId(storeId).uom("EA")
+                        .description("Written during import").build());
+
+                mockMvc.perform(MockMvcRequestBuilders.get("/v1/prices/" + storeId + "/changes")
+                        .param("since", String.valueOf(since))
+                        .accept(MediaType.APPLICATION_JSON))
+                        .andExpect(status().isOk())
+                        .andExpect(jsonPath("$.changes[*].article", contains("1000800010")));
+            } finally {
+                importConnection.rollback();
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Should commit changes in version order whichever transaction logs first")
+    void shouldCommitChangesInVersionOrder() throws Exception {
+        String storeId = "7113";
+        long since = nextVersion(storeId, 0);
+        CountDownLatch logged = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService writers = Executors.newFixedThreadPool(2);
+        try {
+            Future<?> first = writers.submit(() -> transactionTemplate.executeWithoutResult(status -> {
+                articleRepository.saveAndFlush(Article.builder().articleId("1000800013").storeId(storeId)
+                        .uom("EA").description("Logged first").build());
+                logged.countDown();
+                awaitQuietly(release);
+            }));
+            assertTrue(logged.await(10, TimeUnit.SECONDS));
+            // Waits for the first transaction, instead of committing a higher version ahead of it
+            Future<?> second = writers.submit(() -> articleRepository.save(Article.builder().articleId("1000800014")
+                    .storeId(storeId).uom("EA").description("Logged second").build()));
+            Thread.sleep(200);
+            assertFalse(second.isDone());
+            assertEquals(since, nextVersion(storeId, since));
+
+            release.countDown();
+            first.get(10, TimeUnit.SECONDS);
+            second.get(10, TimeUnit.SECONDS);
+        } finally {
+            release.countDown();
+            writers.shutdownNow();
+        }
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/v1/prices/" + storeId + "/changes")
+                .param("since", String.valueOf(since))
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.changes[*].article", contains("1000800013", "1000800014")));
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Test
+    @DisplayName("Should push a removed event to subscribers of a deleted article")
+    void shouldPushRemovedArticleToSubscribers() throws Exception {
+        String storeId = "7112";
+        saveArticle(storeId, "1000800012", "20.00", "14.00");
+        MvcResult stream = mockMvc.perform(MockMvcRequestBuilders.get("/v1/prices/" + storeId + "/changes/stream")
+                .accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        priceSubscriptions.poll();
+
+        transactionTemplate.executeWithoutResult(status -> articleRepository.delete(
+                articleRepository.findByStoreIdAndArticleId(storeId, "1000800012").orElseThrow()));
+        priceSubscriptions.poll();
+
+        String events = awaitContent(stream, "\"article\":\"1000800012\"");
+        assertTrue(events.contains("event:removed"));
+    }
+
+    @Test
+    @DisplayName("Should reject a change batch limit out of range")
+    void shouldRejectChangeLimitOutOfRange() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/v1/prices/7001/changes")
+                .param("limit", "0")
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("Should push the current prices of a written article to store subscribers")
+    void shouldPushWrittenArticleToSubscribers() throws Exception {
+        String storeId = "7102";
+        MvcResult stream = mockMvc.perform(MockMvcRequestBuilders.get("/v1/prices/" + storeId + "/changes/stream")
+                .accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        priceSubscriptions.poll();
+
+        Article article = Article.builder().articleId("1000500002").storeId(storeId).uom("EA")
+                .description("Streamed article").brand("Weiser").model("ST1").build();
+        article.setPrices(List.of(
+                Price.builder().article(article).type("retail").subtype("regular").currency("CAD")
+                        .amount(new BigDecimal("15.00")).validFrom(ZonedDateTime.parse("2024-01-01T00:00:00Z"))
+                        .validTo(ZonedDateTime.parse("9999-12-31T23:59:59Z")).build(),
+                Price.builder().article(article).type("retail").subtype("discounted").currency("CAD")
+                        .amount(new BigDecimal("11.00")).validFrom(ZonedDateTime.parse("2024-02-01T00:00:00Z"))
+                        .validTo(ZonedDateTime.parse("2024-02-29T23:59:59Z")).build()));
+        articleRepository.save(article);
+        priceSubscriptions.poll();
+
+        String events = awaitContent(stream, "\"article\":\"1000500002\"");
+        assertTrue(events.contains("event:price"));
+        // Only the prices valid now are pushed
+        events = awaitContent(stream, "\"subtype\":\"regular\"");
+        assertFalse(events.contains("\"subtype\":\"discounted\""));
+    }
+
+    private static String awaitContent(MvcResult result, String expected) throws Exception {
+        long deadline = System.currentTimeMillis() + 5000;
+        String content = result.getResponse().getContentAsString();
+        while (!content.contains(expected) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+            content = result.getResponse().getContentAsString();
+        }
+        assertTrue(content.contains(expected), content);
+        return content;
+    }
+
+    private long nextVersion(String storeId, long since) throws Exception {
+        MvcResult result = mockMvc.perform(MockMvcRequestBuilders.get("/v1/prices/" + storeId + "/changes")
+                .param("since", String.valueOf(since))
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andReturn();
+        return ((Number) JsonPath.read(result.getResponse().getContentAsString(), "$.nextVersion")).longValue();
+    }
+
+    @Test
+    @DisplayName("Should list the discounted articles of a store from the price board")
+    void shouldListDiscountedArticlesOfStore() throws Exception {
+        String storeId = "7103";
+        saveArticle(storeId, "1000600001", "20.00", "14.00");
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/v1/prices/" + storeId + "/board")
+                .param("subtype", "discounted")
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.store").value(storeId))
+                .andExpect(jsonPath("$.hasMore").value(false))
+                .andExpect(jsonPath("$.prices", hasSize(1)))
+                .andExpect(jsonPath("$.prices[0].article").value("1000600001"))
+                .andExpect(jsonPath("$.prices[0].price.amount").value(14.00))
+                .andExpect(jsonPath("$.prices[0].price.overlapped").value(true));
+
+        // Written after the board was built, applied by the next refresh
+        saveArticle(storeId, "1000600002", "8.00", "6.50");
+        priceBoard.refresh();
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/v1/prices/" + storeId + "/board")
+                .param("overlapped", "true")
+                .param("maxAmount", "10")
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.prices", hasSize(2)))
+                .andExpect(jsonPath("$.prices[*].article", everyItem(is("1000600002"))))
+                .andExpect(jsonPath("$.prices[0].price.amount").value(6.50));
+    }
+
+    private void saveArticle(String storeId, String articleId, String regular, String discounted) {
+        Article article = Article.builder().articleId(articleId).storeId(storeId).uom("EA")
+                .description("Board article").brand("Weiser").model("BD1").build();
+        ZonedDateTime now = ZonedDateTime.now();
+        article.setPrices(List.of(
+                Price.builder().article(article).type("retail").subtype("regular").currency("CAD")
+                        .amount(new BigDecimal(regular)).validFrom(now.minusDays(30))
+                        .validTo(ZonedDateTime.parse("9999-12-31T23:59:59Z")).build(),
+                Price.builder().article(article).type("retail").subtype("discounted").currency("CAD")
+                        .amount(new BigDecimal(discounted)).validFrom(now.minusDays(1))
+                        .validTo(now.plusDays(30)).build()));
+        articleRepository.save(article);
+    }
+
+    @Test
+    @DisplayName("Should find an article whose lookup missed while it was being created")
+    void shouldFindArticleWhoseLookupMissedBeforeCommit() throws Exception {
+        String storeId = "7107";
+        transactionTemplate.executeWithoutResult(status -> {
+            saveArticle(storeId, "1000800001", "20.00", "14.00");
+            // A concurrent lookup that reads before the commit caches the article as missing
+            negativeLookupCache.articleMissing(storeId, "1000800001");
+        });
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/v1/prices/" + storeId + "/1000800001")
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.prices", hasSize(2)));
+    }
+
+    @Test
+    @DisplayName("Should serve the new amount of a price updated after its response was cached")
+    void shouldServeUpdatedPriceAfterCommit() throws Exception {
+        String storeId = "7108";
+        saveArticle(storeId, "1000800002", "20.00", "14.00");
+        mockMvc.perform(MockMvcRequestBuilders.get("/v1/prices/" + storeId + "/1000800002")
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.prices[?(@.subtype=='discounted')].amount", contains(14.0)));
+
+        transactionTemplate.executeWithoutResult(status -> priceRepository
+                .findByStoreIdAndArticleId(storeId, "1000800002", Pageable.unpaged()).getContent().stream()
+                .filter(price -> price.getSubtype().equals("discounted"))
+                .forEach(price -> price.setAmount(new BigDecimal("12.00"))));
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/v1/prices/" + storeId + "/1000800002")
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.prices[?(@.subtype=='discounted')].amount", contains(12.0)));
+    }
+
+    @Test
+    @DisplayName("Should reject a price board amount range with min above max")
+    void shouldRejectInvertedBoardAmountRange() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/v1/prices/7103/board")
+                .param("minAmount", "10")
+                .param("maxAmount", "5")
+                .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("Should stream the prices of an article in the requested stores in store order")
+    void shouldStreamPricesAcrossStores() throws Exception {
+        for (String storeId : List.of("7106", "7104", "7105")) {
+            Article article = Article.builder().articleId("1000700001").storeId(storeId).uom("EA")
+                    .description("Cross-store article").brand("Weiser").model("CS1").build();
+            article.setPrices(List.of(
+                    Price.builder().article(article).type("retail").subtype("regular").currency("CAD")
+                            .amount(new BigDecimal("40.00")).validFrom(ZonedDateTime.parse("2024-01-01T00:00:00Z"))
+                            .validTo(ZonedDateTime.parse("9999-12-31T23:59:59Z")).build()));
+            articleRepository.save(article);
+        }
+
+        MvcResult result = mockMvc.perform(MockMvcRequestBuilders.get("/v1/prices/articles/1000700001")
+                .param("storeIds", "7106", "7104", "7999")
+                .accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String body = mockMvc.perform(MockMvcRequestBuilders.asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+                .andReturn().getResponse().getContentAsString();
+
+        String[] lines = body.trim().split("\n");
+        assertEquals(2, lines.length);
+        assertEquals("7104", JsonPath.read(lines[0], "$.store"));
+        assertEquals("7106", JsonPath.read(lines[1], "$.store"));
+        assertEquals(40.0, ((Number) JsonPath.read(lines[1], "$.prices[0].amount")).doubleValue());
+    }
+
+    @Test
+    @DisplayName("Should return 404 when no requested store has the article")
+    void shouldReturn404ForArticleInNoRequestedStore() throws Exception {
+        mockMvc.perform(MockMvcRequestBuilders.get("/v1/prices/articles/1000700001")
+                .param("storeIds", "7999")
+                .accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(status().isNotFound());
+    }
+
     @Test
     @DisplayName("Should successfully clear cache")
     void shouldSuccessfullyClearCache() throws Exception {
@@ -0,0 +1,137 @@
+package com.example.pricingservice.grpc;
+
+import com.example.pricingservice.PricingServiceApplication;
+import com.example.pricingservice.grpc.proto.ArticlePrices;
+import com.example.pricingservice.grpc.proto.BatchGetPricesRequest;
+import com.example.pricingservice.grpc.proto.BatchGetPricesResponse;
+import com.example.pricingservice.grpc.proto.BatchResult;
+import com.example.pricingservice.grpc.proto.ExportStoreRequest;
+import com.example.pricingservice.grpc.proto.GetPricesRequest;
+import com.example.pricingservice.grpc.proto.Price;
+import com.example.pricingservice.grpc.proto.PriceResponse;
+import com.example.pricingservice.grpc.proto.PricingGrpc;
+import com.example.pricingservice.model.Article;
+import com.example.pricingservice.repository.ArticleRepository;
+import io.grpc.ManagedChannel;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.netty.shaded.io.grpc.netty.NettyChannelBuilder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+
+import java.math.BigDecimal;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Closed afterwards: contexts alive at once share the JVM-wide Ehcache manager of the Article cache
+@SpringBootTest(classes = PricingServiceApplication.class)
+@DirtiesContext
+public class PricingGrpcServiceIntegrationTest {
+
+    @Autowired
+    private GrpcServer grpcServer;
+
+    @Autowired
+    private ArticleRepository articleRepository;
+
+    private ManagedChannel channel;
+
+    private PricingGrpc.PricingBlockingStub pricing;
+
+    @BeforeEach
+    void setUp() {
+        channel = NettyChannelBuilder.forAddress("localhost", grpcServer.getPort()).usePlaintext().build();
+        pricing = PricingGrpc.newBlockingStub(channel);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        channel.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    @DisplayName("Should return the same prices as the REST lookup")
+    void shouldReturnPricesForExistingArticleAndStore() {
+        PriceResponse response = pricing.getPrices(GetPricesRequest.newBuilder()
+                .setStoreId("7001")
+                .setArticleId("1000102674")
+                .setPageSize(3)
+                .build());
+
+        assertEquals("1000102674", response.getArticle());
+        assertEquals("7001", response.getStore());
+        assertEquals(1, response.getMeta().getPage());
+        assertEquals(3, response.getMeta().getSize());
+        assertEquals("Weiser", response.getProperties().getBrand());
+        assertEquals(3, response.getPricesCount());
+        assertFalse(response.getStale());
+        assertTrue(response.getPricesList().stream()
+                .filter(price -> price.getSubtype().equals("discounted"))
+                .allMatch(Price::getOverlapped));
+        // Amounts keep their scale
+        assertTrue(response.getPricesList().stream().allMatch(price -> price.getAmount().matches("\\d+\\.\\d{2}")));
+    }
+
+    @Test
+    @DisplayName("Should map lookup failures to gRPC status codes, per lookup in batches")
+    void shouldReturnStatusForFailedLookups() {
+        StatusRuntimeException notFound = assertThrows(StatusRuntimeException.class, () -> pricing.getPrices(
+                GetPricesRequest.newBuilder().setStoreId("7001").setArticleId("9999999999").build()));
+        assertEquals(Status.Code.NOT_FOUND, notFound.getStatus().getCode());
+
+        BatchGetPricesResponse batch = pricing.batchGetPrices(BatchGetPricesRequest.newBuilder()
+                .addRequests(GetPricesRequest.newBuilder().setStoreId("7001").setArticleId("1000102674"))
+                .addRequests(GetPricesRequest.newBuilder().setStoreId("7001").setArticleId("9999999999"))
+                .addRequests(GetPricesRequest.newBuilder().setStoreId("7001").setArticleId("1000102674")
+                        .setFrom(PriceMessages.toTimestamp(ZonedDateTime.parse("2025-01-01T00:00:00Z")))
+                        .setTo(PriceMessages.toTimestamp(ZonedDateTime.parse("2024-01-01T00:00:00Z"))))
+                .build());
+
+        assertEquals(3, batch.getResultsCount());
+        assertEquals(BatchResult.ResultCase.RESPONSE, batch.getResults(0).getResultCase());
+        assertEquals("NOT_FOUND", batch.getResults(1).getError().getCode());
+        assertEquals("INVALID_ARGUMENT", batch.getResults(2).getError().getCode());
+    }
+
+    @Test
+    @DisplayName("Should stream every article of a store across change batches")
+    void shouldExportStore() {
+        String storeId = "7107";
+        saveArticle(storeId, "1000800001", "20.00");
+        saveArticle(storeId, "1000800002", "8.00");
+        saveArticle(storeId, "1000800003", "5.00");
+
+        List<ArticlePrices> exported = new ArrayList<>();
+        pricing.exportStore(ExportStoreRequest.newBuilder().setStoreId(storeId).setBatchSize(2).build())
+                .forEachRemaining(exported::add);
+
+        assertEquals(List.of("1000800001", "1000800002", "1000800003"),
+                exported.stream().map(ArticlePrices::getArticle).toList());
+        assertEquals("Export article", exported.get(0).getProperties().getDescription());
+        assertEquals("8.00", exported.get(1).getPrices(0).getAmount());
+
+        // Nothing changed since the last exported version
+        long lastVersion = exported.get(exported.size() - 1).getVersion();
+        assertFalse(pricing.exportStore(ExportStoreRequest.newBuilder().setStoreId(storeId).setSince(lastVersion)
+                .build()).hasNext());
+    }
+
+    private void saveArticle(String storeId, String articleId, String amount) {
+        Article article = Article.builder().articleId(articleId).storeId(storeId).uom("EA")
+                .description("Export article").brand("Weiser").model("EX1").build();
+        article.setPrices(List.of(com.example.pricingservice.model.Price.builder().article(article)
+                .type("retail").subtype("regular").currency("CAD").amount(new BigDecimal(amount))
+                .validFrom(ZonedDateTime.parse("2024-01-01T00:00:00Z"))
+                .validTo(ZonedDateTime.parse("9999-12-31T23:59:59Z")).build()));
+        articleRepository.save(article);
+    }
+}
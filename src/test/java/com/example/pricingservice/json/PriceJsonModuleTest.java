@@ -0,0 +1,96 @@
+package com.example.pricingservice.json;
+
+import com.example.pricingservice.dto.ArticleChangeDTO;
+import com.example.pricingservice.dto.MetaDTO;
+import com.example.pricingservice.dto.PriceChangesDTO;
+import com.example.pricingservice.dto.PriceDTO;
+import com.example.pricingservice.dto.PriceResponseDTO;
+import com.example.pricingservice.dto.PropertiesDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.math.BigDecimal;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class PriceJsonModuleTest {
+
+    // Spring Boot's defaults, with and without the tuned modules
+    private final ObjectMapper defaultMapper = Jackson2ObjectMapperBuilder.json()
+            .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .build();
+    private final ObjectMapper tunedMapper = Jackson2ObjectMapperBuilder.json()
+            .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .modulesToInstall(new PriceJsonModule(), new BlackbirdModule())
+            .build();
+
+    @Test
+    @DisplayName("Should write price responses byte for byte like the default serialization")
+    void shouldWritePriceResponsesLikeDefaultSerialization() throws Exception {
+        List<PriceDTO> prices = new ArrayList<>();
+        prices.add(price("regular", "30.00", ZonedDateTime.parse("2023-12-31T23:59:59Z"),
+                ZonedDateTime.parse("9999-12-31T23:59:59Z"), false));
+        prices.add(price("discounted", "26.5", ZonedDateTime.parse("2024-03-01T08:30:00.125+02:00"),
+                ZonedDateTime.of(2024, 3, 31, 23, 59, 59, 999_999_999, ZoneId.of("America/Toronto")), true));
+        prices.add(price("with \"quotes\" and ünïcode", "1E+3", ZonedDateTime.parse("2024-01-01T00:00:00Z"),
+                null, false));
+        PriceResponseDTO response = PriceResponseDTO.builder()
+                .generated_date(ZonedDateTime.parse("2025-05-14T14:15:10.123456789Z"))
+                .article("1000102674")
+                .store("7001")
+                .meta(MetaDTO.builder().page(1).size(10).build())
+                .properties(PropertiesDTO.builder().uom("EA").description("WH Halifax\nPassage Lever").brand("Weiser").build())
+                .prices(prices)
+                .build();
+
+        assertSameJson(response);
+        // Second pass serves the timestamps from the cache
+        assertSameJson(response);
+        assertSameJson(new PriceResponseDTO());
+        assertSameJson(PriceResponseDTO.builder().article("1").prices(List.of()).build());
+    }
+
+    @Test
+    @DisplayName("Should write prices nested in other DTOs like the default serialization")
+    void shouldWriteNestedPricesLikeDefaultSerialization() throws Exception {
+        PriceChangesDTO changes = PriceChangesDTO.builder()
+                .store("7001")
+                .since(4)
+                .nextVersion(12)
+                .hasMore(true)
+                .changes(List.of(ArticleChangeDTO.builder()
+                        .article("1000102674")
+                        .version(11)
+                        .prices(List.of(price("regular", "12.50", ZonedDateTime.parse("2024-01-01T00:00:00Z"),
+                                ZonedDateTime.parse("2024-12-31T23:59:59Z"), false)))
+                        .build()))
+                .build();
+
+        assertSameJson(changes);
+    }
+
+    private void assertSameJson(Object value) throws Exception {
+        assertEquals(defaultMapper.writeValueAsString(value), tunedMapper.writeValueAsString(value));
+    }
+
+    private static PriceDTO price(String subtype, String amount, ZonedDateTime validFrom, ZonedDateTime validTo,
+                                  boolean overlapped) {
+        return PriceDTO.builder()
+                .type("retail")
+                .subtype(subtype)
+                .currency("CAD")
+                .amount(new BigDecimal(amount))
+                .validFrom(validFrom)
+                .validTo(validTo)
+                .overlapped(overlapped)
+                .build();
+    }
+}
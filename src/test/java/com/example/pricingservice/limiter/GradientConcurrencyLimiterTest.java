@@ -0,0 +1,83 @@
+package com.example.pricingservice.limiter;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GradientConcurrencyLimiterTest {
+
+    private long nanos;
+    private GradientConcurrencyLimiter limiter;
+
+    @BeforeEach
+    void setUp() {
+        limiter = new GradientConcurrencyLimiter(new SimpleMeterRegistry(), true, 10, 2, 100, 10, 0.5, 0.9,
+                Duration.ofSeconds(1), () -> nanos);
+    }
+
+    @Test
+    @DisplayName("Should reject work once the limit is reached")
+    void shouldRejectAtLimit() {
+        List<GradientConcurrencyLimiter.Permit> permits = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            permits.add(limiter.tryAcquire());
+        }
+
+        assertNull(limiter.tryAcquire());
+
+        permits.get(0).release();
+        assertNotNull(limiter.tryAcquire());
+    }
+
+    @Test
+    @DisplayName("Should grow the limit while latency is stable and shrink it when latency rises")
+    void shouldAdaptLimitToLatency() {
+        runWindows(5, 10, 1);
+        int grown = limiter.getLimit();
+        assertTrue(grown > 10, "limit should grow at stable latency, was " + grown);
+
+        runWindows(5, grown, 10);
+        assertTrue(limiter.getLimit() < grown, "limit should shrink when latency rises, was " + limiter.getLimit());
+    }
+
+    @Test
+    @DisplayName("Should back off when calls fail")
+    void shouldBackOffOnDroppedCalls() {
+        List<GradientConcurrencyLimiter.Permit> permits = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            permits.add(limiter.tryAcquire());
+        }
+        permits.forEach(GradientConcurrencyLimiter.Permit::releaseDropped);
+
+        assertEquals(9, limiter.getLimit());
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    /**
+     * Run full sample windows with the given concurrency, every call taking the given latency
+     */
+    private void runWindows(int windows, int concurrency, long latencyMillis) {
+        for (int w = 0; w < windows; w++) {
+            List<GradientConcurrencyLimiter.Permit> permits = new ArrayList<>();
+            for (int i = 0; i < Math.min(concurrency, limiter.getLimit()); i++) {
+                permits.add(limiter.tryAcquire());
+            }
+            nanos += TimeUnit.MILLISECONDS.toNanos(latencyMillis);
+            permits.forEach(GradientConcurrencyLimiter.Permit::release);
+            // Top up to a full window at the same latency
+            for (int i = permits.size(); i < 10; i++) {
+                GradientConcurrencyLimiter.Permit permit = limiter.tryAcquire();
+                nanos += TimeUnit.MILLISECONDS.toNanos(latencyMillis);
+                permit.release();
+            }
+        }
+    }
+}
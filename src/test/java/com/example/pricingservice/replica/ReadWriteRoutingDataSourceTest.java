@@ -0,0 +1,47 @@
+package com.example.pricingservice.replica;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.SimpleDriverDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ReadWriteRoutingDataSourceTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicBoolean replicaAvailable = new AtomicBoolean(true);
+    private final ReadWriteRoutingDataSource dataSource = new ReadWriteRoutingDataSource(
+            new SimpleDriverDataSource(), new SimpleDriverDataSource(), replicaAvailable::get, meterRegistry);
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+    }
+
+    @Test
+    @DisplayName("Should send read-only transactions to the replica and writes to the primary")
+    void shouldRouteByReadOnlyFlag() {
+        assertEquals(ReadWriteRoutingDataSource.PRIMARY, dataSource.determineCurrentLookupKey());
+
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        assertEquals(ReadWriteRoutingDataSource.REPLICA, dataSource.determineCurrentLookupKey());
+
+        assertEquals(1, meterRegistry.get("pricing.datasource.connections").tag("target", "replica").counter().count());
+        assertEquals(1, meterRegistry.get("pricing.datasource.connections").tag("target", "primary").counter().count());
+    }
+
+    @Test
+    @DisplayName("Should fall back to the primary while the replica is unavailable")
+    void shouldFallBackToPrimary() {
+        replicaAvailable.set(false);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        assertEquals(ReadWriteRoutingDataSource.PRIMARY, dataSource.determineCurrentLookupKey());
+        assertEquals(1, meterRegistry.get("pricing.datasource.replica_fallbacks").counter().count());
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.pricingservice.repository;
+
+import com.example.pricingservice.model.Article;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+// Cached entries are only shared once the inserting transaction commits
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class ArticleRepositoryTest {
+
+    @Autowired
+    private ArticleRepository articleRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        articleRepository.save(Article.builder()
+                .articleId("1000102674")
+                .storeId("7001")
+                .uom("EA")
+                .description("WH Halifax Passage Lever in Satin Nickel")
+                .brand("Weiser")
+                .model("9GLA1010")
+                .build());
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        articleRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Should serve repeated natural-id lookups from the second-level cache")
+    void shouldServeRepeatedLookupsFromSecondLevelCache() {
+        Optional<Article> first = articleRepository.findByStoreIdAndArticleId("7001", "1000102674");
+        statistics.clear();
+        Optional<Article> second = articleRepository.findByStoreIdAndArticleId("7001", "1000102674");
+
+        assertTrue(first.isPresent());
+        assertTrue(second.isPresent());
+        assertEquals("Weiser", second.get().getBrand());
+
+        // The repeated lookup is resolved from the natural-id and entity regions without any SQL
+        assertEquals(0, statistics.getPrepareStatementCount());
+        assertEquals(1, statistics.getNaturalIdCacheHitCount());
+        assertEquals(1, statistics.getSecondLevelCacheHitCount());
+    }
+
+    @Test
+    @DisplayName("Should return empty for an unknown natural id")
+    void shouldReturnEmptyForUnknownArticle() {
+        assertTrue(articleRepository.findByStoreIdAndArticleId("7001", "0000000000").isEmpty());
+    }
+}
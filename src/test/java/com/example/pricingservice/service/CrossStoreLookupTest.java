@@ -0,0 +1,131 @@
+package com.example.pricingservice.service;
+
+import com.example.pricingservice.dto.PriceResponseDTO;
+import com.example.pricingservice.exception.InvalidRequestException;
+import com.example.pricingservice.exception.PriceNotFoundException;
+import com.example.pricingservice.limiter.GradientConcurrencyLimiter;
+import com.example.pricingservice.model.Article;
+import com.example.pricingservice.model.Price;
+import com.example.pricingservice.repository.PriceRepository;
+import com.example.pricingservice.shard.StoreShards;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class CrossStoreLookupTest {
+
+    private static final String ARTICLE = "1000102674";
+
+    @Mock
+    private PriceService priceService;
+
+    @Mock
+    private PriceRepository priceRepository;
+
+    private final StoreShards storeShards = new StoreShards(4);
+
+    private CrossStoreLookup lookup;
+
+    @BeforeEach
+    void setUp() {
+        GradientConcurrencyLimiter limiter = new GradientConcurrencyLimiter(new SimpleMeterRegistry(),
+                true, 20, 4, 200, 50, 0.2, 0.9, Duration.ofSeconds(1));
+        StoreRegions regions = new StoreRegions(Map.of("east", List.of("7001", "7002", "7003")));
+        lookup = new CrossStoreLookup(priceService, priceRepository, storeShards, regions, limiter,
+                new SimpleMeterRegistry(), 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        lookup.close();
+    }
+
+    @Test
+    @DisplayName("Should query every shard once and return the stores in store order")
+    void shouldMergeShardsInStoreOrder() {
+        // The rows of each shard, in store order; the shards are queried in any order
+        List<List<Price>> shards = new ArrayList<>();
+        for (int shard = 0; shard < storeShards.getShardCount(); shard++) {
+            List<Price> prices = new ArrayList<>();
+            for (int store = 7000; store < 7040; store++) {
+                if (storeShards.shardOf(String.valueOf(store)) == shard) {
+                    prices.addAll(pricesIn(String.valueOf(store)));
+                }
+            }
+            shards.add(prices);
+        }
+        when(priceRepository.findByArticleIdOrderByStore(ARTICLE))
+                .thenReturn(shards.get(0), shards.subList(1, shards.size()).toArray(List[]::new));
+        when(priceService.processPrices(any())).thenCallRealMethod();
+        when(priceService.buildPriceResponse(any(), any(), eq(1), anyInt())).thenCallRealMethod();
+
+        List<PriceResponseDTO> responses;
+        try (Stream<PriceResponseDTO> stream = lookup.find(ARTICLE, List.of(), null)) {
+            responses = stream.collect(Collectors.toList());
+        }
+
+        verify(priceRepository, times(storeShards.getShardCount())).findByArticleIdOrderByStore(ARTICLE);
+        List<String> stores = responses.stream().map(PriceResponseDTO::getStore).collect(Collectors.toList());
+        assertEquals(40, stores.size());
+        assertEquals(stores.stream().sorted().distinct().collect(Collectors.toList()), stores);
+        PriceResponseDTO first = responses.get(0);
+        assertEquals(ARTICLE, first.getArticle());
+        // Both prices overlap with different amounts
+        assertEquals(2, first.getPrices().size());
+        assertTrue(first.getPrices().stream().allMatch(price -> price.isOverlapped()));
+    }
+
+    @Test
+    @DisplayName("Should only query the stores of a region")
+    void shouldResolveRegionStores() {
+        when(priceRepository.findByArticleIdAndStoreIdInOrderByStore(eq(ARTICLE), anyCollection()))
+                .thenReturn(List.of());
+
+        assertThrows(PriceNotFoundException.class, () -> lookup.find(ARTICLE, List.of(), "east"));
+
+        verify(priceRepository, never()).findByArticleIdOrderByStore(any());
+    }
+
+    @Test
+    @DisplayName("Should reject unknown regions and regions combined with stores")
+    void shouldRejectInvalidStoreSelections() {
+        assertThrows(InvalidRequestException.class, () -> lookup.find(ARTICLE, List.of(), "west"));
+        assertThrows(InvalidRequestException.class, () -> lookup.find(ARTICLE, List.of("7001"), "east"));
+    }
+
+    private static List<Price> pricesIn(String storeId) {
+        Article article = Article.builder().articleId(ARTICLE).storeId(storeId).build();
+        return List.of(
+                Price.builder().article(article).type("retail").subtype("regular").currency("CAD")
+                        .amount(new BigDecimal("30.00")).validFrom(ZonedDateTime.parse("2024-01-01T00:00:00Z"))
+                        .validTo(ZonedDateTime.parse("9999-12-31T23:59:59Z")).build(),
+                Price.builder().article(article).type("retail").subtype("discounted").currency("CAD")
+                        .amount(new BigDecimal("25.00")).validFrom(ZonedDateTime.parse("2024-02-01T00:00:00Z"))
+                        .validTo(ZonedDateTime.parse("2024-02-29T23:59:59Z")).build());
+    }
+}
@@ -1,24 +1,41 @@
 package com.example.pricingservice.service;
 
+import com.example.pricingservice.cache.CachedPriceResponse;
+import com.example.pricingservice.cache.HotKeySketch;
+import com.example.pricingservice.changes.PriceChangeLog;
+import com.example.pricingservice.cache.NegativeLookupCache;
+import com.example.pricingservice.cache.PagePrefetcher;
+import com.example.pricingservice.cache.PriceResponseCache;
+import com.example.pricingservice.dto.PriceChangesDTO;
 import com.example.pricingservice.dto.PriceDTO;
 import com.example.pricingservice.dto.PriceResponseDTO;
 import com.example.pricingservice.exception.PriceNotFoundException;
+import com.example.pricingservice.exception.ServiceOverloadedException;
+import com.example.pricingservice.limiter.GradientConcurrencyLimiter;
 import com.example.pricingservice.model.Article;
 import com.example.pricingservice.model.Price;
+import com.example.pricingservice.model.PriceChange;
 import com.example.pricingservice.repository.ArticleRepository;
+import com.example.pricingservice.repository.PriceChangeRepository;
 import com.example.pricingservice.repository.PriceRepository;
+import com.example.pricingservice.shard.StoreShards;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
 
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
 import java.util.List;
@@ -26,7 +43,13 @@ import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -38,6 +61,36 @@ public class PriceServiceTest {
     @Mock
     private PriceRepository priceRepository;
 
+    @Mock
+    private NegativeLookupCache negativeLookupCache;
+
+    @Mock
+    private PriceChangeRepository priceChangeRepository;
+
+    @Mock
+    private PriceChangeLog priceChangeLog;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Spy
+    private HotKeySketch hotKeySketch = new HotKeySketch(100, 1024, 0);
+
+    @Spy
+    private PriceResponseCache priceResponseCache = new PriceResponseCache(new SimpleMeterRegistry(), hotKeySketch,
+            Duration.ofDays(30), Duration.ofMinutes(5), 1000);
+
+    @Spy
+    private GradientConcurrencyLimiter concurrencyLimiter = new GradientConcurrencyLimiter(new SimpleMeterRegistry(),
+            true, 20, 4, 200, 50, 0.2, 0.9, Duration.ofSeconds(1));
+
+    @Spy
+    private StoreShards storeShards = new StoreShards(1);
+
+    @Spy
+    private PagePrefetcher pagePrefetcher = new PagePrefetcher(new SimpleMeterRegistry(), concurrencyLimiter,
+            false, 16, 2, 0.5);
+
     @InjectMocks
     private PriceService priceService;
 
@@ -251,4 +304,215 @@ public class PriceServiceTest {
         assertThrows(PriceNotFoundException.class, () ->
                 priceService.getPrices("7001", "1000102674", 1, 10));
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Should answer known missing lookups without querying the database")
+    void shouldAnswerKnownMissingLookupsWithoutDatabase() {
+        when(negativeLookupCache.isKnownMissing(eq("7001"), eq("0000000000"), any()))
+                .thenReturn(true);
+
+        PriceNotFoundException exception = assertThrows(PriceNotFoundException.class, () ->
+                priceService.getPrices("7001", "0000000000", 1, 10));
+
+        assertEquals(0, exception.getStackTrace().length);
+        verifyNoInteractions(articleRepository, priceRepository);
+    }
+
+    @Test
+    @DisplayName("Should remember articles that do not exist")
+    void shouldRememberMissingArticles() {
+        when(articleRepository.findByStoreIdAndArticleId(eq("7001"), eq("1000102674")))
+                .thenReturn(Optional.empty());
+
+        assertThrows(PriceNotFoundException.class, () ->
+                priceService.getPrices("7001", "1000102674", 1, 10));
+
+        verify(negativeLookupCache).articleMissing("7001", "1000102674", 0L);
+    }
+
+    @Test
+    @DisplayName("Should push the validity window down into the price query")
+    void shouldPushValidityWindowIntoQuery() {
+        ZonedDateTime validAt = ZonedDateTime.parse("2024-01-10T12:00:00+01:00");
+        testPrices.add(Price.builder()
+                .id(1L)
+                .article(testArticle)
+                .type("retail")
+                .subtype("regular")
+                .currency("CAD")
+                .amount(new BigDecimal("30.0"))
+                .validFrom(ZonedDateTime.parse("2024-01-01T00:00:00Z"))
+                .validTo(ZonedDateTime.parse("2024-01-31T23:59:59Z"))
+                .build());
+
+        when(articleRepository.findByStoreIdAndArticleId(eq("7001"), eq("1000102674")))
+                .thenReturn(Optional.of(testArticle));
+        when(priceRepository.findByArticleIdValidBetween(eq(1L), eq(ZonedDateTime.parse("2024-01-10T11:00:00Z")),
+                eq(ZonedDateTime.parse("2024-01-10T11:00:00Z")), any(PageRequest.class)))
+                .thenReturn(new PageImpl<>(testPrices));
+
+        PriceResponseDTO response = priceService.getCachedPrices("7001", "1000102674", 1, 10,
+                PriceWindow.of(validAt, null, null)).getResponse();
+
+        assertEquals(1, response.getPrices().size());
+        verify(priceRepository, never()).findByStoreIdAndArticleId(any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("Should not cache lookups restricted to a validity window")
+    void shouldNotCacheWindowedLookups() {
+        PriceWindow window = PriceWindow.of(null, ZonedDateTime.parse("2024-01-10T11:00:00Z"), null);
+        testPrices.add(Price.builder()
+                .id(1L)
+                .article(testArticle)
+                .type("retail")
+                .subtype("regular")
+                .currency("CAD")
+                .amount(new BigDecimal("30.0"))
+                .validFrom(ZonedDateTime.parse("2024-01-01T00:00:00Z"))
+                .validTo(ZonedDateTime.parse("2024-01-31T23:59:59Z"))
+                .build());
+        when(articleRepository.findByStoreIdAndArticleId(eq("7001"), eq("1000102674")))
+                .thenReturn(Optional.of(testArticle));
+        when(priceRepository.findByArticleIdValidBetween(eq(1L), any(), any(), any(PageRequest.class)))
+                .thenReturn(new PageImpl<>(testPrices));
+
+        CachedPriceResponse first = priceService.getCachedPrices("7001", "1000102674", 1, 10, window);
+        priceService.getCachedPrices("7001", "1000102674", 1, 10, window);
+
+        assertFalse(first.isExpired());
+        assertEquals(0, priceResponseCache.size());
+        verify(priceRepository, times(2)).findByArticleIdValidBetween(eq(1L), any(), any(), any(PageRequest.class));
+    }
+
+    @Test
+    @DisplayName("Should not cache a response loaded while a write of its article committed")
+    void shouldNotCacheResponseLoadedDuringWrite() throws Exception {
+        testPrices.add(Price.builder()
+                .id(1L)
+                .article(testArticle)
+                .type("retail")
+                .subtype("regular")
+                .currency("CAD")
+                .amount(new BigDecimal("30.0"))
+                .validFrom(ZonedDateTime.parse("2024-01-01T00:00:00Z"))
+                .validTo(ZonedDateTime.parse("9999-12-31T23:59:59Z"))
+                .build());
+        // The writer commits, and invalidates, after the lookup read the old rows
+        when(articleRepository.findByStoreIdAndArticleId(eq("7001"), eq("1000102674"))).thenAnswer(invocation -> {
+            Thread writer = new Thread(() -> priceResponseCache.invalidateArticles(List.of("7001_1000102674")));
+            writer.start();
+            writer.join();
+            return Optional.of(testArticle);
+        });
+        when(priceRepository.findByStoreIdAndArticleId(eq("7001"), eq("1000102674"), any(PageRequest.class)))
+                .thenReturn(new PageImpl<>(testPrices));
+
+        priceService.getPrices("7001", "1000102674", 1, 10);
+        assertNull(priceResponseCache.get("7001_1000102674_1_10"));
+
+        priceService.getPrices("7001", "1000102674", 1, 10);
+        verify(priceRepository, times(2)).findByStoreIdAndArticleId(eq("7001"), eq("1000102674"), any(PageRequest.class));
+    }
+
+    @Test
+    @DisplayName("Should shed load with an overload error when the concurrency limit is reached")
+    void shouldShedLoadWhenLimitReached() {
+        doReturn(null).when(concurrencyLimiter).tryAcquire();
+
+        ServiceOverloadedException exception = assertThrows(ServiceOverloadedException.class, () ->
+                priceService.getPrices("7001", "1000102674", 1, 10));
+
+        assertEquals(Duration.ofSeconds(1), exception.getRetryAfter());
+        verifyNoInteractions(articleRepository, priceRepository);
+    }
+
+    @Test
+    @DisplayName("Should serve an expired cache entry when the concurrency limit is reached")
+    void shouldServeStaleEntryWhenLimitReached() {
+        PriceResponseDTO staleResponse = PriceResponseDTO.builder().article("1000102674").store("7001").build();
+        priceResponseCache.put("7001_1000102674_1_10", "7001_1000102674", staleResponse, ZonedDateTime.now().minusSeconds(1));
+        doReturn(null).when(concurrencyLimiter).tryAcquire();
+
+        PriceResponseDTO response = priceService.getPrices("7001", "1000102674", 1, 10);
+
+        assertSame(staleResponse, response);
+        verifyNoInteractions(articleRepository, priceRepository);
+    }
+
+    @Test
+    @DisplayName("Should return each changed article once at its latest version and continue after the batch")
+    void shouldCollapseRepeatedChangesAndContinueAfterBatch() {
+        Price price = Price.builder()
+                .id(1L)
+                .article(testArticle)
+                .type("retail")
+                .subtype("regular")
+                .currency("CAD")
+                .amount(new BigDecimal("30.0"))
+                .validFrom(ZonedDateTime.parse("2024-01-01T00:00:00Z"))
+                .validTo(ZonedDateTime.parse("9999-12-31T23:59:59Z"))
+                .build();
+        when(priceChangeLog.readableVersion()).thenReturn(20L);
+        when(priceChangeRepository.findChanges(eq("7001"), eq(10L), eq(20L), any(PageRequest.class))).thenReturn(List.of(
+                change(11L, "1000102674"), change(12L, "1000102675"), change(13L, "1000102674"),
+                change(14L, "1000102676")));
+        when(priceRepository.findByStoreIdAndArticleIdIn(eq("7001"), any())).thenReturn(List.of(price));
+        when(articleRepository.findByStoreIdAndArticleId(eq("7001"), any())).thenReturn(Optional.of(testArticle));
+
+        PriceChangesDTO changes = priceService.getChanges("7001", 10L, 3);
+
+        assertTrue(changes.isHasMore());
+        assertEquals(13L, changes.getNextVersion());
+        assertEquals(2, changes.getChanges().size());
+        assertEquals("1000102675", changes.getChanges().get(0).getArticle());
+        assertTrue(changes.getChanges().get(0).getPrices().isEmpty());
+        assertEquals("1000102674", changes.getChanges().get(1).getArticle());
+        assertEquals(13L, changes.getChanges().get(1).getVersion());
+        assertEquals(1, changes.getChanges().get(1).getPrices().size());
+    }
+
+    @Test
+    @DisplayName("Should prefetch the next page after a miss and serve it from the cache")
+    void shouldPrefetchNextPage() throws Exception {
+        Price first = Price.builder().id(1L).article(testArticle).type("retail").subtype("regular").currency("CAD")
+                .amount(new BigDecimal("30.0")).validFrom(ZonedDateTime.parse("2024-01-01T00:00:00Z"))
+                .validTo(ZonedDateTime.parse("2024-06-30T23:59:59Z")).build();
+        Price second = Price.builder().id(2L).article(testArticle).type("retail").subtype("regular").currency("CAD")
+                .amount(new BigDecimal("31.0")).validFrom(ZonedDateTime.parse("2024-07-01T00:00:00Z"))
+                .validTo(ZonedDateTime.parse("2024-12-31T23:59:59Z")).build();
+        when(articleRepository.findByStoreIdAndArticleId("7001", "1000102674")).thenReturn(Optional.of(testArticle));
+        when(priceRepository.findByStoreIdAndArticleId("7001", "1000102674", PageRequest.of(0, 1)))
+                .thenReturn(new PageImpl<>(List.of(first), PageRequest.of(0, 1), 2));
+        when(priceRepository.findByStoreIdAndArticleId("7001", "1000102674", PageRequest.of(1, 1)))
+                .thenReturn(new PageImpl<>(List.of(second), PageRequest.of(1, 1), 2));
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        PagePrefetcher prefetcher = new PagePrefetcher(meterRegistry, concurrencyLimiter, true, 16, 1, 0.5);
+        PriceService service = new PriceService(articleRepository, priceRepository, negativeLookupCache,
+                priceResponseCache, concurrencyLimiter, storeShards, hotKeySketch, priceChangeRepository,
+                priceChangeLog, prefetcher, transactionManager);
+        try {
+            service.getPrices("7001", "1000102674", 1, 1);
+            long deadline = System.currentTimeMillis() + 5000;
+            while (priceResponseCache.get("7001_1000102674_2_1") == null && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+
+            PriceResponseDTO page2 = service.getPrices("7001", "1000102674", 2, 1);
+
+            assertEquals(new BigDecimal("31.0"), page2.getPrices().get(0).getAmount());
+            verify(priceRepository).findByStoreIdAndArticleId("7001", "1000102674", PageRequest.of(1, 1));
+            // Loaded in a read-only transaction, like the lookup it runs ahead of
+            verify(transactionManager).getTransaction(argThat(TransactionDefinition::isReadOnly));
+            assertEquals(1.0, prefetcher.getHitRatio());
+            // The last page has nothing after it
+            verify(priceRepository, never()).findByStoreIdAndArticleId("7001", "1000102674", PageRequest.of(2, 1));
+        } finally {
+            prefetcher.close();
+        }
+    }
+
+    private static PriceChange change(long version, String articleId) {
+        return PriceChange.builder().version(version).storeId("7001").articleId(articleId).build();
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.pricingservice.shard;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ShardRingTest {
+
+    private static final int STORES = 10_000;
+
+    @Test
+    @DisplayName("Should spread stores evenly across shards")
+    void shouldBalanceStores() {
+        ShardRing ring = new ShardRing(4, 128);
+        int[] stores = new int[4];
+        for (int i = 0; i < STORES; i++) {
+            stores[ring.shardOf(String.valueOf(10000 + i))]++;
+        }
+
+        for (int count : stores) {
+            // Within 25% of an even share
+            assertTrue(Math.abs(count - STORES / 4) < STORES / 16, "Unbalanced shards: " + count);
+        }
+    }
+
+    @Test
+    @DisplayName("Should only move stores to the new shard when a shard is added")
+    void shouldMoveFewStoresOnResize() {
+        ShardRing before = new ShardRing(4, 128);
+        ShardRing after = new ShardRing(5, 128);
+        int moved = 0;
+        for (int i = 0; i < STORES; i++) {
+            String storeId = String.valueOf(10000 + i);
+            int shard = after.shardOf(storeId);
+            if (shard != before.shardOf(storeId)) {
+                assertEquals(4, shard);
+                moved++;
+            }
+        }
+
+        // About 1/5 of the stores, instead of 4/5 with modulo hashing
+        assertTrue(moved > STORES / 8 && moved < STORES / 4, "Moved " + moved + " stores");
+    }
+
+    @Test
+    @DisplayName("Should map every store to shard 0 with a single shard")
+    void shouldUseSingleShard() {
+        ShardRing ring = new ShardRing(1, 128);
+
+        assertEquals(0, ring.shardOf("7001"));
+        assertEquals(0, ring.shardOf("8001"));
+    }
+}